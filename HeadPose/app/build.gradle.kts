@@ -25,6 +25,10 @@ android {
             )
         }
     }
+    // 模型不压缩存放，ModelManager 可直接从 APK 文件通道拷贝
+    androidResources {
+        noCompress += listOf("pt", "ptl", "onnx")
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -33,6 +37,10 @@ android {
 
 dependencies {
 
+    // 与平台无关的热路径代码（转换、预处理、推理后端接口、姿态数学、编码、滤波），带 JMH 基准测试
+    implementation(project(":core"))
+    testImplementation(testFixtures(project(":core")))
+
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -50,6 +58,10 @@ dependencies {
     implementation(libs.pytorch.android)
     implementation(libs.pytorch.android.torchvision)
 
+    // ONNX Runtime 依赖：本地单元测试在桌面 JVM 上运行，换成带 Linux / macOS / Windows 原生库的 JVM 版
+    implementation(libs.onnxruntime.android)
+    testImplementation(libs.onnxruntime)
+
     implementation(libs.camera.core)
     implementation(libs.camera.camera2)
     implementation(libs.camera.lifecycle)
@@ -62,4 +74,9 @@ dependencies {
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
+}
+
+// 两个 ONNX Runtime 包的类名相同，单元测试只保留 JVM 版
+configurations.matching { it.name.endsWith("UnitTestRuntimeClasspath") }.configureEach {
+    exclude(group = "com.microsoft.onnxruntime", module = "onnxruntime-android")
 }
\ No newline at end of file
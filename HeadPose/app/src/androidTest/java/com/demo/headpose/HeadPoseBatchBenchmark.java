@@ -0,0 +1,119 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备上的单脸耗时随批大小的变化：N 次单独 forward vs. 一次 N×3×224×224 的批量 forward。
+ * 结果输出到 logcat（TAG: BatchBenchmark）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class HeadPoseBatchBenchmark {
+    private static final String TAG = "BatchBenchmark";
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void perFaceLatencyByBatchSize() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        HeadPose headPose = new HeadPose(context, "_epoch_80_3.pt");
+        YuvFrame frame = syntheticFrame(new Random(42));
+
+        int maxFaces = HeadPose.BATCH_BUCKETS[HeadPose.BATCH_BUCKETS.length - 1];
+        int[] boxes = randomBoxes(maxFaces, new Random(7));
+        float[] single = new float[maxFaces * 3];
+        float[] batched = new float[maxFaces * 3];
+
+        for (int faces : HeadPose.BATCH_BUCKETS) {
+            for (int i = 0; i < WARMUP; i++) {
+                inferEach(headPose, frame, boxes, faces, single);
+                inferBatch(headPose, frame, boxes, faces, batched);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                inferEach(headPose, frame, boxes, faces, single);
+            }
+            double eachMs = (System.nanoTime() - start) / 1e6 / ITERATIONS / faces;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                inferBatch(headPose, frame, boxes, faces, batched);
+            }
+            double batchMs = (System.nanoTime() - start) / 1e6 / ITERATIONS / faces;
+
+            Log.i(TAG, String.format("faces=%d  separate: %.2f ms/face  batched: %.2f ms/face  speedup: %.2fx  (max batch %d)",
+                    faces, eachMs, batchMs, eachMs / batchMs, headPose.getMaxBatchSize()));
+
+            // 批量结果应与逐个推理一致
+            for (int i = 0; i < faces * 3; i++) {
+                assertEquals(single[i], batched[i], 0.5f);
+            }
+        }
+    }
+
+    private static void inferEach(HeadPose headPose, YuvFrame frame, int[] boxes, int faces, float[] degrees) {
+        float[] degree = new float[3];
+        for (int i = 0; i < faces; i++) {
+            Pooled<TensorBlob> input = headPose.preprocess(frame,
+                    boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3], false);
+            headPose.infer(input.get(), degree);
+            input.release();
+            System.arraycopy(degree, 0, degrees, i * 3, 3);
+        }
+    }
+
+    private static void inferBatch(HeadPose headPose, YuvFrame frame, int[] boxes, int faces, float[] degrees) {
+        float[] chunkDegrees = new float[headPose.getMaxBatchSize() * 3];
+        for (int first = 0; first < faces; ) {
+            int count = Math.min(faces - first, headPose.getMaxBatchSize());
+            Pooled<TensorBlob> input = headPose.preprocessBatch(frame, boxes, first, count, false);
+            headPose.infer(input.get(), chunkDegrees);
+            input.release();
+            System.arraycopy(chunkDegrees, 0, degrees, first * 3, count * 3);
+            first += count;
+        }
+    }
+
+    private static int[] randomBoxes(int count, Random random) {
+        int[] boxes = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            int size = 60 + random.nextInt(100);
+            int left = random.nextInt(WIDTH - size);
+            int top = random.nextInt(HEIGHT - size);
+            boxes[i * 4] = left;
+            boxes[i * 4 + 1] = top;
+            boxes[i * 4 + 2] = left + size;
+            boxes[i * 4 + 3] = top + size;
+        }
+        return boxes;
+    }
+
+    private static YuvFrame syntheticFrame(Random random) {
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[WIDTH * HEIGHT];
+        frame.u = new byte[WIDTH * HEIGHT / 2];
+        frame.v = new byte[WIDTH * HEIGHT / 2];
+        random.nextBytes(frame.y);
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+        return frame;
+    }
+}
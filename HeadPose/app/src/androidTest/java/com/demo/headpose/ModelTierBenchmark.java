@@ -0,0 +1,130 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备上对比 assets 中打包的各模型档位：加载耗时、加载并推理后增加的 native 内存、单脸延迟，
+ * 以及与 fp32 档位在同一组人脸上的测地角误差。
+ * 结果输出到 logcat（TAG: ModelTierBenchmark）；lite / int8 档位需要先用 tools/export_model_tiers.py 导出到 assets。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelTierBenchmark {
+    private static final String TAG = "ModelTierBenchmark";
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int FACES = 32;
+    private static final int WARMUP = 3;
+    // 算子内线程数（0 为 PyTorch 默认）；对整个进程生效，各档位使用相同的设置
+    private static final int THREADS = 0;
+
+    @Test
+    public void compareTiers() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ModelTierRegistry tiers = new ModelTierRegistry(ModelTier.defaultTiers(),
+                Arrays.asList(context.getAssets().list(""))::contains);
+        assertTrue(tiers.size() > 0);
+        HeadPose.setNumThreads(THREADS);
+
+        Random random = new Random(42);
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[WIDTH * HEIGHT];
+        frame.u = new byte[WIDTH * HEIGHT / 2];
+        frame.v = new byte[WIDTH * HEIGHT / 2];
+        random.nextBytes(frame.y);
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+
+        int[] boxes = new int[FACES * 4];
+        for (int i = 0; i < FACES; i++) {
+            int size = 80 + random.nextInt(120);
+            boxes[i * 4] = random.nextInt(WIDTH - size);
+            boxes[i * 4 + 1] = random.nextInt(HEIGHT - size);
+            boxes[i * 4 + 2] = boxes[i * 4] + size;
+            boxes[i * 4 + 3] = boxes[i * 4 + 1] + size;
+        }
+
+        float[] reference = null;
+        float[] scratch = new float[18];
+        for (ModelTier tier : tiers.getTiers()) {
+            String path = HeadPose.assetFilePath(context, tier.assetName);
+            Runtime.getRuntime().gc();
+            long nativeBefore = Debug.getNativeHeapAllocatedSize();
+            long start = System.nanoTime();
+            HeadPose headPose = new HeadPose(path, tier);
+            double loadMs = (System.nanoTime() - start) / 1e6;
+
+            float[] degrees = new float[FACES * 3];
+            long[] nanos = run(headPose, frame, boxes, degrees);
+            long nativeMb = (Debug.getNativeHeapAllocatedSize() - nativeBefore) >> 20;
+            Arrays.sort(nanos);
+
+            double meanError = 0;
+            double maxError = 0;
+            if (reference == null) {
+                reference = degrees; // 第一个可用档位作为参照（正常情况下即 fp32）
+            } else {
+                for (int i = 0; i < FACES; i++) {
+                    assertTrue(Float.isFinite(degrees[i * 3]));
+                    double error = RotationMath.angleBetween(
+                            reference[i * 3], reference[i * 3 + 1], reference[i * 3 + 2],
+                            degrees[i * 3], degrees[i * 3 + 1], degrees[i * 3 + 2], scratch);
+                    meanError += error / FACES;
+                    maxError = Math.max(maxError, error);
+                }
+            }
+            Log.i(TAG, String.format("%s: load %.0f ms  native +%d MB  mean %.2f ms/face  p50 %.2f  p90 %.2f  "
+                            + "error vs %s: mean %.2f° max %.2f°",
+                    tier, loadMs, nativeMb, mean(nanos) / 1e6, nanos[FACES / 2] / 1e6, nanos[FACES * 9 / 10] / 1e6,
+                    tiers.get(0).name, meanError, maxError));
+            headPose.close();
+        }
+    }
+
+    private static long[] run(PoseEstimator estimator, YuvFrame frame, int[] boxes, float[] degrees) {
+        float[] degree = new float[3];
+        for (int i = 0; i < WARMUP; i++) {
+            inferFace(estimator, frame, boxes, 0, degree);
+        }
+        long[] nanos = new long[FACES];
+        for (int i = 0; i < FACES; i++) {
+            long start = System.nanoTime();
+            inferFace(estimator, frame, boxes, i, degree);
+            nanos[i] = System.nanoTime() - start;
+            System.arraycopy(degree, 0, degrees, i * 3, 3);
+        }
+        return nanos;
+    }
+
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static void inferFace(PoseEstimator estimator, YuvFrame frame, int[] boxes, int face, float[] degree) {
+        Pooled<? extends PoseInput> input = estimator.preprocess(frame,
+                boxes[face * 4], boxes[face * 4 + 1], boxes[face * 4 + 2], boxes[face * 4 + 3], true);
+        estimator.infer(input.get(), degree);
+        input.release();
+    }
+}
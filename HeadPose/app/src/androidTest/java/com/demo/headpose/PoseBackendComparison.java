@@ -0,0 +1,94 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备上对比两个推理后端：同一组人脸框的单脸延迟与角度差异。
+ * 结果输出到 logcat（TAG: BackendComparison）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class PoseBackendComparison {
+    private static final String TAG = "BackendComparison";
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int FACES = 16;
+    private static final int WARMUP = 3;
+
+    @Test
+    public void compareLatencyAndAngles() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PoseEstimator pytorch = new HeadPose(context, "_epoch_80_3.pt");
+        PoseEstimator onnx = new OnnxPoseEstimator(HeadPose.assetFilePath(context, "fsanet.onnx"), 0, false);
+
+        Random random = new Random(42);
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[WIDTH * HEIGHT];
+        frame.u = new byte[WIDTH * HEIGHT / 2];
+        frame.v = new byte[WIDTH * HEIGHT / 2];
+        random.nextBytes(frame.y);
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+
+        int[] boxes = new int[FACES * 4];
+        for (int i = 0; i < FACES; i++) {
+            int size = 80 + random.nextInt(120);
+            boxes[i * 4] = random.nextInt(WIDTH - size);
+            boxes[i * 4 + 1] = random.nextInt(HEIGHT - size);
+            boxes[i * 4 + 2] = boxes[i * 4] + size;
+            boxes[i * 4 + 3] = boxes[i * 4 + 1] + size;
+        }
+
+        float[] pytorchDegrees = new float[FACES * 3];
+        float[] onnxDegrees = new float[FACES * 3];
+        double pytorchMs = run(pytorch, frame, boxes, pytorchDegrees);
+        double onnxMs = run(onnx, frame, boxes, onnxDegrees);
+
+        double[] diff = new double[3];
+        for (int i = 0; i < FACES * 3; i++) {
+            assertTrue(Float.isFinite(pytorchDegrees[i]));
+            assertTrue(Float.isFinite(onnxDegrees[i]));
+            diff[i % 3] += Math.abs(pytorchDegrees[i] - onnxDegrees[i]) / FACES;
+        }
+        Log.i(TAG, String.format("pytorch: %.2f ms/face  onnx: %.2f ms/face  mean |diff| yaw %.1f pitch %.1f roll %.1f",
+                pytorchMs, onnxMs, diff[0], diff[1], diff[2]));
+
+        pytorch.close();
+        onnx.close();
+    }
+
+    private static double run(PoseEstimator estimator, YuvFrame frame, int[] boxes, float[] degrees) {
+        float[] degree = new float[3];
+        for (int i = 0; i < WARMUP; i++) {
+            inferFace(estimator, frame, boxes, 0, degree);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FACES; i++) {
+            inferFace(estimator, frame, boxes, i, degree);
+            System.arraycopy(degree, 0, degrees, i * 3, 3);
+        }
+        return (System.nanoTime() - start) / 1e6 / FACES;
+    }
+
+    private static void inferFace(PoseEstimator estimator, YuvFrame frame, int[] boxes, int face, float[] degree) {
+        Pooled<? extends PoseInput> input = estimator.preprocess(frame,
+                boxes[face * 4], boxes[face * 4 + 1], boxes[face * 4 + 2], boxes[face * 4 + 3], true);
+        estimator.infer(input.get(), degree);
+        input.release();
+    }
+}
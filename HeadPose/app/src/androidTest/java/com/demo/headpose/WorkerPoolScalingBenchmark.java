@@ -0,0 +1,164 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备上测量 PoseWorkerPool 的吞吐随工作线程数的变化：工作线程数取 1, 2, 4 … 直到 CPU 核数，
+ * 每个工作线程的算子内线程数取 1 与（核数 / 工作线程数）。两种负载：
+ * 一个调用者每次推理 4 张脸（一批拆给各工作线程），以及与工作线程数相同的调用者每次推理 1 张脸（多路流）。
+ * 另外测一次多个调用者共用一个 HeadPose 实例，作为不加工作线程池时的对照。
+ * 结果（人脸/秒与相对 1 个工作线程的加速比）输出到 logcat（TAG: WorkerPoolScaling）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class WorkerPoolScalingBenchmark {
+    private static final String TAG = "WorkerPoolScaling";
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int FACES = 4;
+    private static final int WARMUP = 3;
+    private static final long DURATION_NANOS = 3_000_000_000L;
+
+    @Test
+    public void throughputScaling() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String path = HeadPose.assetFilePath(context, ModelTier.defaultTiers().get(0).assetName);
+        int cores = Runtime.getRuntime().availableProcessors();
+        YuvFrame frame = randomFrame(new Random(42));
+        int[] boxes = {20, 20, 180, 180, 200, 40, 340, 180, 60, 190, 220, 350, 300, 180, 460, 340};
+
+        // 参照结果：单个实例逐个推理
+        HeadPose.setNumThreads(1);
+        HeadPose single = new HeadPose(path);
+        float[] reference = new float[FACES * 3];
+        float[] degree = new float[3];
+        for (int i = 0; i < FACES; i++) {
+            inferFace(single, frame, boxes, i, degree);
+            System.arraycopy(degree, 0, reference, i * 3, 3);
+        }
+        double shared = measure(single, frame, boxes, cores, false);
+        Log.i(TAG, String.format("shared HeadPose x %d callers: %.1f faces/s", cores, shared));
+        single.close();
+
+        List<Integer> counts = new ArrayList<>();
+        for (int workers = 1; workers < cores; workers *= 2) {
+            counts.add(workers);
+        }
+        counts.add(cores);
+
+        double batchBase = 0;
+        double streamBase = 0;
+        for (int workers : counts) {
+            int[] threadOptions = workers == cores ? new int[]{1} : new int[]{1, cores / workers};
+            for (int threads : threadOptions) {
+                // PyTorch 的算子内线程数对整个进程生效
+                HeadPose.setNumThreads(threads);
+                PoseWorkerPool pool = new PoseWorkerPool(workers, threads, (worker, t) -> new HeadPose(path));
+                pool.start();
+                pool.setMaxBatchSize(FACES);
+                try {
+                    float[] degrees = new float[FACES * 3];
+                    Pooled<? extends PoseInput> input = pool.preprocessBatch(frame, boxes, 0, FACES, true);
+                    pool.infer(input.get(), degrees);
+                    input.release();
+                    assertArrayEquals(reference, degrees, 0.5f);
+
+                    double batch = measure(pool, frame, boxes, 1, true);
+                    double streams = measure(pool, frame, boxes, workers, false);
+                    if (workers == 1 && threads == 1) {
+                        batchBase = batch;
+                        streamBase = streams;
+                    }
+                    Log.i(TAG, String.format("%d workers x %d threads: batch %.1f faces/s (x%.2f)  "
+                                    + "%d streams %.1f faces/s (x%.2f)  steals %d",
+                            workers, threads, batch, batch / batchBase, workers, streams, streams / streamBase,
+                            pool.getStealCount()));
+                } finally {
+                    pool.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * callers 个线程同时推理 DURATION_NANOS：batch 时每次推理全部人脸，否则每次推理一张（各调用者轮流取不同的脸）
+     * @return 每秒推理的人脸数
+     */
+    private static double measure(PoseEstimator estimator, YuvFrame frame, int[] boxes, int callers, boolean batch)
+            throws InterruptedException {
+        AtomicLong faces = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[callers];
+        long start = System.nanoTime();
+        for (int i = 0; i < callers; i++) {
+            int caller = i;
+            threads[i] = new Thread(() -> {
+                float[] degrees = new float[FACES * 3];
+                try {
+                    for (int n = 0; n < WARMUP; n++) {
+                        inferFace(estimator, frame, boxes, caller % FACES, degrees);
+                    }
+                    long done = 0;
+                    for (int n = caller; System.nanoTime() - start < DURATION_NANOS; n++) {
+                        if (batch) {
+                            Pooled<? extends PoseInput> input = estimator.preprocessBatch(frame, boxes, 0, FACES, true);
+                            estimator.infer(input.get(), degrees);
+                            input.release();
+                            done += FACES;
+                        } else {
+                            inferFace(estimator, frame, boxes, n % FACES, degrees);
+                            done++;
+                        }
+                    }
+                    faces.addAndGet(done);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "caller-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNull(failure.get());
+        return faces.get() * 1e9 / elapsed;
+    }
+
+    private static void inferFace(PoseEstimator estimator, YuvFrame frame, int[] boxes, int face, float[] degree) {
+        Pooled<? extends PoseInput> input = estimator.preprocess(frame,
+                boxes[face * 4], boxes[face * 4 + 1], boxes[face * 4 + 2], boxes[face * 4 + 3], true);
+        estimator.infer(input.get(), degree);
+        input.release();
+    }
+
+    private static YuvFrame randomFrame(Random random) {
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[WIDTH * HEIGHT];
+        frame.u = new byte[WIDTH * HEIGHT / 2];
+        frame.v = new byte[WIDTH * HEIGHT / 2];
+        random.nextBytes(frame.y);
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+        return frame;
+    }
+}
@@ -0,0 +1,123 @@
+package com.demo.headpose;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备上的吞吐对比：原 YUV -> JPEG -> Bitmap 路径 vs. YuvToRgbConverter 直接转换。
+ * 结果输出到 logcat（TAG: YuvBenchmark）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class YuvConversionBenchmark {
+    private static final String TAG = "YuvBenchmark";
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void compareJpegRoundTripWithDirectConversion() {
+        byte[] nv21 = syntheticNv21(new Random(42));
+        YuvFrame frame = nv21Frame(nv21);
+
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+
+        for (int i = 0; i < WARMUP; i++) {
+            jpegRoundTrip(nv21);
+            directConversion(frame, pixels, bitmap);
+        }
+
+        long start = System.nanoTime();
+        Bitmap jpegBitmap = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            jpegBitmap = jpegRoundTrip(nv21);
+        }
+        double jpegMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            directConversion(frame, pixels, bitmap);
+        }
+        double directMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        Log.i(TAG, String.format("%dx%d  jpeg round-trip: %.3f ms/frame  direct: %.3f ms/frame  speedup: %.1fx",
+                WIDTH, HEIGHT, jpegMs, directMs, jpegMs / directMs));
+
+        // 两条路径的输出应接近（JPEG 为有损压缩，只比较平均误差）
+        assertTrue(meanAbsDiff(jpegBitmap, bitmap) < 8.0);
+    }
+
+    // 原 FaceAnalyzer.imageToBitmap 的实现
+    private static Bitmap jpegRoundTrip(byte[] nv21) {
+        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, WIDTH, HEIGHT, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        yuvImage.compressToJpeg(new Rect(0, 0, WIDTH, HEIGHT), 90, out);
+        byte[] jpegBytes = out.toByteArray();
+        return BitmapFactory.decodeByteArray(jpegBytes, 0, jpegBytes.length);
+    }
+
+    private static void directConversion(YuvFrame frame, int[] pixels, Bitmap bitmap) {
+        YuvToRgbConverter.yuvToArgb(frame, pixels, false);
+        bitmap.setPixels(pixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+    }
+
+    // 平滑渐变加噪声，避免 JPEG 对纯随机数据的极端失真
+    private static byte[] syntheticNv21(Random random) {
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                nv21[y * WIDTH + x] = (byte) (16 + (x + y) % 200 + random.nextInt(8));
+            }
+        }
+        for (int i = WIDTH * HEIGHT; i < nv21.length; i++) {
+            nv21[i] = (byte) (108 + random.nextInt(40));
+        }
+        return nv21;
+    }
+
+    // NV21 布局：V 在前、U 在后交错，pixelStride = 2
+    private static YuvFrame nv21Frame(byte[] nv21) {
+        int ySize = WIDTH * HEIGHT;
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = nv21;
+        frame.v = new byte[ySize / 2];
+        frame.u = new byte[ySize / 2];
+        System.arraycopy(nv21, ySize, frame.v, 0, ySize / 2);
+        System.arraycopy(nv21, ySize + 1, frame.u, 0, ySize / 2 - 1);
+        return frame;
+    }
+
+    private static double meanAbsDiff(Bitmap a, Bitmap b) {
+        int[] pa = new int[WIDTH * HEIGHT];
+        int[] pb = new int[WIDTH * HEIGHT];
+        a.getPixels(pa, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        b.getPixels(pb, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        long sum = 0;
+        for (int i = 0; i < pa.length; i++) {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                sum += Math.abs(((pa[i] >> shift) & 0xFF) - ((pb[i] >> shift) & 0xFF));
+            }
+        }
+        return sum / (3.0 * pa.length);
+    }
+}
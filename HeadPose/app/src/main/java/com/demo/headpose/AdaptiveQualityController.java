@@ -0,0 +1,189 @@
+package com.demo.headpose;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按实测端到端延迟自适应调整画质档位（纯 Java）。
+ * <p>
+ * 每帧调用 onLatency；每 windowFrames 帧取一次 p90 与预算比较：
+ * 连续 downgradeWindows 个窗口超出预算时降一档，连续 upgradeWindows 个窗口低于 预算 × upgradeRatio 时升一档，
+ * 介于两者之间时保持不变（滞回），因此延迟在预算附近波动时不会来回切换。
+ * 档位改变后先丢弃 settleFrames 帧的样本：这些帧在切换前已进入流水线，反映的还是旧档位。
+ * 升档后很快又因超出预算降回来（试探失败）时，下一次升档需要的窗口数加倍，最多 MAX_PROBE_BACKOFF 倍；
+ * 负载真正变化引起的降档会把倍数重置。
+ * <p>
+ * onLatency 只在一个线程上调用（例如发送阶段），Listener 在同一线程上回调；getter 可在任意线程读取。
+ */
+public class AdaptiveQualityController {
+
+    public static final int DEFAULT_WINDOW_FRAMES = 30;
+    public static final int DEFAULT_DOWNGRADE_WINDOWS = 2;
+    public static final int DEFAULT_UPGRADE_WINDOWS = 5;
+    public static final float DEFAULT_UPGRADE_RATIO = 0.6f;
+    public static final int DEFAULT_SETTLE_FRAMES = 10;
+
+    static final int MAX_PROBE_BACKOFF = 16;
+
+    private static final int PERCENTILE = 90;
+
+    /**
+     * 档位改变时回调（调用 onLatency 的线程上），由调用者应用到相机与流水线
+     */
+    public interface Listener {
+        void onLevelChanged(QualityLevel previous, QualityLevel next);
+    }
+
+    private final QualityLevel[] levels;
+    private final long budgetNanos;
+    private final long upgradeBelowNanos;
+    private final int downgradeWindows;
+    private final int upgradeWindows;
+    private final int settleFrames;
+    private final Listener listener;
+
+    // 当前窗口的样本（窗口结束时原地排序）
+    private final long[] window;
+    private int sampleCount;
+    private int settleRemaining;
+    private int overWindows;
+    private int underWindows;
+    private int probeBackoff = 1;
+    // 距上一次升档的窗口数，用于判断降档是否为试探失败
+    private int windowsSinceUpgrade = Integer.MAX_VALUE;
+
+    private volatile int levelIndex;
+    private volatile long lastWindowNanos;
+    private volatile long changes;
+
+    /**
+     * 使用默认的窗口与滞回参数
+     * @param levels 从高到低排列的档位
+     */
+    public AdaptiveQualityController(QualityLevel[] levels, int initialLevel, long budgetMillis, Listener listener) {
+        this(levels, initialLevel, budgetMillis, DEFAULT_WINDOW_FRAMES, DEFAULT_DOWNGRADE_WINDOWS,
+                DEFAULT_UPGRADE_WINDOWS, DEFAULT_UPGRADE_RATIO, DEFAULT_SETTLE_FRAMES, listener);
+    }
+
+    /**
+     * @param levels       从高到低排列的档位
+     * @param budgetMillis 端到端延迟预算（例如 33 ms 对应 30 fps）
+     * @param upgradeRatio 窗口 p90 低于预算的这一比例时才算有余量升档，小于 1
+     */
+    public AdaptiveQualityController(QualityLevel[] levels, int initialLevel, long budgetMillis,
+                                     int windowFrames, int downgradeWindows, int upgradeWindows,
+                                     float upgradeRatio, int settleFrames, Listener listener) {
+        if (levels.length == 0 || initialLevel < 0 || initialLevel >= levels.length) {
+            throw new IllegalArgumentException("Bad initial level " + initialLevel + " of " + levels.length);
+        }
+        if (budgetMillis <= 0 || windowFrames < 1 || downgradeWindows < 1 || upgradeWindows < 1
+                || !(upgradeRatio > 0 && upgradeRatio < 1) || settleFrames < 0) {
+            throw new IllegalArgumentException("Bad controller parameters");
+        }
+        this.levels = levels.clone();
+        this.levelIndex = initialLevel;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.upgradeBelowNanos = (long) (budgetNanos * (double) upgradeRatio);
+        this.window = new long[windowFrames];
+        this.downgradeWindows = downgradeWindows;
+        this.upgradeWindows = upgradeWindows;
+        this.settleFrames = settleFrames;
+        this.listener = listener;
+    }
+
+    /**
+     * 记录一帧的端到端延迟（纳秒），不分配内存；窗口结束时可能回调 Listener
+     */
+    public void onLatency(long nanos) {
+        if (settleRemaining > 0) {
+            settleRemaining--;
+            return;
+        }
+        window[sampleCount++] = nanos;
+        if (sampleCount < window.length) {
+            return;
+        }
+        sampleCount = 0;
+        Arrays.sort(window);
+        long p90 = window[(window.length * PERCENTILE + 99) / 100 - 1];
+        lastWindowNanos = p90;
+        if (windowsSinceUpgrade < Integer.MAX_VALUE) {
+            windowsSinceUpgrade++;
+        }
+
+        if (p90 > budgetNanos) {
+            underWindows = 0;
+            if (++overWindows >= downgradeWindows) {
+                stepDown();
+            }
+        } else if (p90 < upgradeBelowNanos) {
+            overWindows = 0;
+            if (++underWindows >= upgradeWindows * probeBackoff) {
+                stepUp();
+            }
+        } else {
+            // 滞回区间：保持当前档位
+            overWindows = 0;
+            underWindows = 0;
+        }
+    }
+
+    private void stepDown() {
+        overWindows = 0;
+        if (levelIndex == levels.length - 1) {
+            return; // 已经是最低档
+        }
+        // 升档后没撑过降档所需的窗口数：试探失败，放慢下一次试探
+        probeBackoff = windowsSinceUpgrade <= downgradeWindows
+                ? Math.min(probeBackoff * 2, MAX_PROBE_BACKOFF) : 1;
+        windowsSinceUpgrade = Integer.MAX_VALUE;
+        setLevel(levelIndex + 1);
+    }
+
+    private void stepUp() {
+        underWindows = 0;
+        if (levelIndex == 0) {
+            return;
+        }
+        windowsSinceUpgrade = 0;
+        setLevel(levelIndex - 1);
+    }
+
+    private void setLevel(int index) {
+        QualityLevel previous = levels[levelIndex];
+        levelIndex = index;
+        sampleCount = 0;
+        settleRemaining = settleFrames;
+        changes++;
+        listener.onLevelChanged(previous, levels[index]);
+    }
+
+    public QualityLevel getLevel() {
+        return levels[levelIndex];
+    }
+
+    /**
+     * 当前档位的下标，0 为最高档
+     */
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    /**
+     * 档位改变的次数
+     */
+    public long getChangeCount() {
+        return changes;
+    }
+
+    /**
+     * 最近一个完整窗口的 p90 延迟（纳秒），还没有完整窗口时为 0
+     */
+    public long getLastWindowNanos() {
+        return lastWindowNanos;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+}
@@ -0,0 +1,104 @@
+package com.demo.headpose;
+
+/**
+ * 检测结果 → 分析帧坐标的映射（纯 Java，不分配内存），OverlayTransform 中旋转的逆变换。
+ * 把 YUV 帧连同 rotation 直接交给 MLKit 时，结果位于顺时针旋转 rotation 后的竖直画面中且没有镜像；
+ * 这里把坐标映射回分析帧，需要镜像时再按 x → width - x 翻转，得到与镜像整帧 Bitmap 路径相同的坐标系。
+ * <p>
+ * MLKit 按画面中人脸的样子标注左右，镜像画面中的“左眼”是真实的右眼，
+ * 因此镜像时还要交换左右成对的关键点（见 sourceLandmark）。
+ */
+public class DetectionTransform {
+
+    private int width;
+    private int height;
+    private int rotation;
+    private boolean mirror;
+
+    /**
+     * @param width    分析帧宽度
+     * @param height   分析帧高度
+     * @param rotation 交给检测器的顺时针旋转角度（0 / 90 / 180 / 270）
+     * @param mirror   分析帧坐标是否镜像（与 PipelineConfig.mirror 相同）
+     */
+    public void setSource(int width, int height, int rotation, boolean mirror) {
+        this.width = width;
+        this.height = height;
+        this.rotation = ((rotation % 360) + 360) % 360;
+        this.mirror = mirror;
+    }
+
+    /**
+     * 竖直画面中的点映射到分析帧的 x 坐标（需同时传入 y，旋转会交换坐标轴）
+     */
+    public float mapX(float x, float y) {
+        float sensorX;
+        switch (rotation) {
+            case 90:
+                sensorX = y;
+                break;
+            case 180:
+                sensorX = width - x;
+                break;
+            case 270:
+                sensorX = width - y;
+                break;
+            default:
+                sensorX = x;
+                break;
+        }
+        return mirror ? width - sensorX : sensorX;
+    }
+
+    public float mapY(float x, float y) {
+        switch (rotation) {
+            case 90:
+                return height - x;
+            case 180:
+                return height - y;
+            case 270:
+                return x;
+            default:
+                return y;
+        }
+    }
+
+    /**
+     * 竖直画面中的人脸框映射到分析帧，按 left, top, right, bottom 写入 dst[offset..offset+3]
+     */
+    public void mapBox(int left, int top, int right, int bottom, int[] dst, int offset) {
+        int x0 = (int) mapX(left, top);
+        int y0 = (int) mapY(left, top);
+        int x1 = (int) mapX(right, bottom);
+        int y1 = (int) mapY(right, bottom);
+        dst[offset] = Math.min(x0, x1);
+        dst[offset + 1] = Math.min(y0, y1);
+        dst[offset + 2] = Math.max(x0, x1);
+        dst[offset + 3] = Math.max(y0, y1);
+    }
+
+    /**
+     * 分析帧中第 landmark 个关键点（LandmarkPoseSolver 的顺序）对应检测结果中的哪个关键点：镜像时左右互换
+     */
+    public int sourceLandmark(int landmark) {
+        if (!mirror) {
+            return landmark;
+        }
+        switch (landmark) {
+            case LandmarkPoseSolver.LEFT_EYE:
+                return LandmarkPoseSolver.RIGHT_EYE;
+            case LandmarkPoseSolver.RIGHT_EYE:
+                return LandmarkPoseSolver.LEFT_EYE;
+            case LandmarkPoseSolver.MOUTH_LEFT:
+                return LandmarkPoseSolver.MOUTH_RIGHT;
+            case LandmarkPoseSolver.MOUTH_RIGHT:
+                return LandmarkPoseSolver.MOUTH_LEFT;
+            case LandmarkPoseSolver.LEFT_EAR:
+                return LandmarkPoseSolver.RIGHT_EAR;
+            case LandmarkPoseSolver.RIGHT_EAR:
+                return LandmarkPoseSolver.LEFT_EAR;
+            default:
+                return landmark;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.demo.headpose;
+
+/**
+ * 人脸检测引擎接口（纯 Java）。
+ * 实现类把检测到的第一张人脸（人脸框与双眼位置，镜像后画面坐标）写入 FrameContext。
+ */
+public interface FaceDetectorEngine {
+
+    /**
+     * @return 检测到人脸时返回 true，并设置 context.hasFace 及人脸字段
+     */
+    boolean detect(FrameContext context) throws Exception;
+
+    /**
+     * 释放检测器资源
+     */
+    default void close() {
+    }
+}
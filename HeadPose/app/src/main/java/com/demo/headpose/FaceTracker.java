@@ -0,0 +1,202 @@
+package com.demo.headpose;
+
+/**
+ * 轻量级人脸框跟踪器（纯 Java，不分配内存）。
+ * 在检测帧上从亮度平面截取人脸模板，后续帧以匀速运动模型预测位置，
+ * 在预测点附近做由粗到细的模板匹配（去均值 SAD），把人脸框、眼睛位置与五官关键点一起平移。
+ * 不跟踪尺度变化，尺度由定期的完整检测修正。
+ */
+public class FaceTracker {
+
+    private final int templateSize;
+    private final int searchRadius;
+
+    // 模板（去均值后的亮度采样）及其平均绝对偏差
+    private final float[] template;
+    private float templateDeviation;
+
+    // 模板网格在人脸框内的相对采样坐标
+    private final int[] sampleX;
+    private final int[] sampleY;
+
+    // 匹配时的候选采样缓存
+    private final float[] candidate;
+
+    // 当前状态：人脸框、眼睛位置与速度（像素/帧）
+    private int left;
+    private int top;
+    private int width;
+    private int height;
+    private float leftEyeX;
+    private float leftEyeY;
+    private float rightEyeX;
+    private float rightEyeY;
+    // 五官关键点（见 FrameContext.landmarks）与有效掩码
+    private final float[] landmarks = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+    private int landmarkMask;
+    private float velocityX;
+    private float velocityY;
+    private float confidence;
+    private boolean initialized;
+
+    // 速度平滑系数
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+
+    public FaceTracker(int templateSize, int searchRadius) {
+        this.templateSize = templateSize;
+        this.searchRadius = searchRadius;
+        template = new float[templateSize * templateSize];
+        candidate = new float[templateSize * templateSize];
+        sampleX = new int[templateSize];
+        sampleY = new int[templateSize];
+    }
+
+    /**
+     * 用检测结果初始化跟踪（context 中的人脸框位于镜像后画面坐标）
+     */
+    public void start(YuvFrame frame, boolean mirror, FrameContext detected) {
+        left = detected.faceLeft;
+        top = detected.faceTop;
+        width = Math.max(1, detected.faceRight - detected.faceLeft);
+        height = Math.max(1, detected.faceBottom - detected.faceTop);
+        leftEyeX = detected.leftEyeX;
+        leftEyeY = detected.leftEyeY;
+        rightEyeX = detected.rightEyeX;
+        rightEyeY = detected.rightEyeY;
+        System.arraycopy(detected.landmarks, 0, landmarks, 0, landmarks.length);
+        landmarkMask = detected.landmarkMask;
+        velocityX = 0;
+        velocityY = 0;
+        confidence = 1f;
+
+        for (int i = 0; i < templateSize; i++) {
+            sampleX[i] = (int) ((i + 0.5f) * width / templateSize);
+            sampleY[i] = (int) ((i + 0.5f) * height / templateSize);
+        }
+        templateDeviation = sample(frame, mirror, left, top, template);
+        initialized = true;
+    }
+
+    /**
+     * 在新一帧中跟踪人脸，结果写入 out（人脸框与眼睛位置）
+     * @return 匹配置信度 [0, 1]，未初始化时返回 0
+     */
+    public float track(YuvFrame frame, boolean mirror, FrameContext out) {
+        if (!initialized) {
+            return 0f;
+        }
+
+        // 匀速运动模型预测
+        int predictedLeft = Math.round(left + velocityX);
+        int predictedTop = Math.round(top + velocityY);
+
+        // 由粗到细搜索：步长 4 → 2 → 1
+        int bestX = predictedLeft;
+        int bestY = predictedTop;
+        float bestScore = score(frame, mirror, bestX, bestY);
+        int radius = searchRadius;
+        for (int step = 4; step >= 1; step /= 2) {
+            int centerX = bestX;
+            int centerY = bestY;
+            for (int dy = -radius; dy <= radius; dy += step) {
+                for (int dx = -radius; dx <= radius; dx += step) {
+                    if (dx == 0 && dy == 0) {
+                        continue;
+                    }
+                    float s = score(frame, mirror, centerX + dx, centerY + dy);
+                    if (s < bestScore) {
+                        bestScore = s;
+                        bestX = centerX + dx;
+                        bestY = centerY + dy;
+                    }
+                }
+            }
+            radius = step;
+        }
+
+        int shiftX = bestX - left;
+        int shiftY = bestY - top;
+        velocityX = VELOCITY_SMOOTHING * shiftX + (1 - VELOCITY_SMOOTHING) * velocityX;
+        velocityY = VELOCITY_SMOOTHING * shiftY + (1 - VELOCITY_SMOOTHING) * velocityY;
+
+        left = bestX;
+        top = bestY;
+        leftEyeX += shiftX;
+        leftEyeY += shiftY;
+        rightEyeX += shiftX;
+        rightEyeY += shiftY;
+        for (int i = 0; i < landmarks.length; i += 2) {
+            landmarks[i] += shiftX;
+            landmarks[i + 1] += shiftY;
+        }
+        confidence = Math.max(0f, 1f - bestScore);
+
+        // 只跟踪主人脸
+        out.faceCount = 0;
+        out.addFace(left, top, left + width, top + height);
+        out.leftEyeX = leftEyeX;
+        out.leftEyeY = leftEyeY;
+        out.rightEyeX = rightEyeX;
+        out.rightEyeY = rightEyeY;
+        System.arraycopy(landmarks, 0, out.landmarks, 0, landmarks.length);
+        out.landmarkMask = landmarkMask;
+        return confidence;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public void reset() {
+        initialized = false;
+        confidence = 0f;
+    }
+
+    /**
+     * 候选位置与模板的差异：去均值 SAD / 模板平均绝对偏差，0 表示完全一致
+     */
+    private float score(YuvFrame frame, boolean mirror, int x, int y) {
+        sample(frame, mirror, x, y, candidate);
+        float sum = 0;
+        for (int i = 0; i < candidate.length; i++) {
+            sum += Math.abs(candidate[i] - template[i]);
+        }
+        return sum / candidate.length / (templateDeviation + 1f);
+    }
+
+    /**
+     * 以 (x, y) 为人脸框左上角采样亮度网格（超出画面的点取边缘值），去均值后写入 dst
+     * @return 平均绝对偏差
+     */
+    private float sample(YuvFrame frame, boolean mirror, int x, int y, float[] dst) {
+        int maxX = frame.width - 1;
+        int maxY = frame.height - 1;
+        float sum = 0;
+        int index = 0;
+        for (int j = 0; j < templateSize; j++) {
+            int py = Math.min(Math.max(y + sampleY[j], 0), maxY);
+            int rowOffset = py * frame.yRowStride;
+            for (int i = 0; i < templateSize; i++) {
+                int px = Math.min(Math.max(x + sampleX[i], 0), maxX);
+                if (mirror) {
+                    px = maxX - px;
+                }
+                float value = frame.y[rowOffset + px] & 0xFF;
+                dst[index++] = value;
+                sum += value;
+            }
+        }
+
+        float mean = sum / dst.length;
+        float deviation = 0;
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] -= mean;
+            deviation += Math.abs(dst[i]);
+        }
+        return deviation / dst.length;
+    }
+}
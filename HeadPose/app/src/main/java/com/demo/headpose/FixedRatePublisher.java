@@ -0,0 +1,156 @@
+package com.demo.headpose;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 以固定频率发布外推后的头姿（纯 Java）。
+ * 流水线每推理出一帧就调用 update 把测量交给 PoseFilter；发布线程按绝对时刻排程（不累积漂移），
+ * 每个节拍把滤波结果外推到“当前时刻 + lead”后输出，因此输出频率与推理频率解耦，
+ * 并且补偿了从帧到达到发布之间实测的流水线延迟。
+ * 超过 staleMillis 没有新测量（例如人脸丢失）时停止发布，不做无限外推。
+ * <p>
+ * 时间基准为 System.nanoTime()：测量时刻取帧到达 analyze() 的时间；
+ * 输出记录的时间戳换算回相机采集时间基准，序号为发布节拍序号（单调递增）。
+ */
+public class FixedRatePublisher {
+
+    private final PoseFilter filter;
+    // 只在发布线程上调用
+    private final PoseOutput output;
+    private final long periodNanos;
+    private final long leadNanos;
+    private final long staleNanos;
+    private final Thread thread;
+
+    // 由锁保护：最近一次测量的到达时刻，以及采集时间基准与到达时间基准之差
+    private long lastArrivalNanos;
+    private long captureOffsetNanos;
+
+    // 发布线程独占
+    private final float[] predicted = new float[PoseFilter.CHANNELS];
+    private long ticks;
+
+    private volatile boolean running;
+    private volatile long published;
+    private volatile long staleTicks;
+    private volatile long maxTickLatenessNanos;
+    private volatile long pipelineLatencyNanos;
+
+    /**
+     * @param rateHz      发布频率
+     * @param leadMillis  在流水线延迟之外额外外推的时间（例如网络与执行器延迟），可为 0
+     * @param staleMillis 最近一次测量超过该时间后停止发布
+     */
+    public FixedRatePublisher(PoseFilter filter, int rateHz, long leadMillis, long staleMillis, PoseOutput output) {
+        if (rateHz <= 0) {
+            throw new IllegalArgumentException("Publish rate must be positive: " + rateHz);
+        }
+        this.filter = filter;
+        this.output = output;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / rateHz;
+        this.leadNanos = TimeUnit.MILLISECONDS.toNanos(leadMillis);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMillis);
+        thread = new Thread(this::run, "pose-publisher");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 流水线发送阶段调用：融合一帧推理结果，不阻塞、不分配内存
+     *
+     * @param captureTimeNanos 相机采集时间戳（只用于换算输出时间戳）
+     * @param arrivalNanos     帧到达 analyze() 时的 System.nanoTime()
+     */
+    public void update(long captureTimeNanos, long arrivalNanos, float yaw, float pitch, float roll,
+                       float lx, float ly, float rx, float ry) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            filter.update(arrivalNanos, yaw, pitch, roll, lx, ly, rx, ry);
+            lastArrivalNanos = arrivalNanos;
+            captureOffsetNanos = captureTimeNanos - arrivalNanos;
+        }
+        // 到达 → 发送阶段的耗时，指数平均
+        long latency = now - arrivalNanos;
+        long previous = pipelineLatencyNanos;
+        pipelineLatencyNanos = previous == 0 ? latency : previous + (latency - previous) / 8;
+    }
+
+    private void run() {
+        long next = System.nanoTime() + periodNanos;
+        while (running) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue; // 可能提前醒来，重新检查
+            }
+            long now = System.nanoTime();
+            if (-wait > maxTickLatenessNanos) {
+                maxTickLatenessNanos = -wait;
+            }
+            tick(now);
+            next += periodNanos;
+            if (now - next > periodNanos) {
+                next = now + periodNanos; // 落后超过一个周期（例如线程被挂起），跳过错过的节拍
+            }
+        }
+    }
+
+    private void tick(long now) {
+        long target = now + leadNanos;
+        long timestamp;
+        synchronized (this) {
+            if (!filter.isInitialized() || now - lastArrivalNanos > staleNanos) {
+                staleTicks++;
+                return;
+            }
+            filter.predict(target, predicted);
+            timestamp = target + captureOffsetNanos;
+        }
+        float[] p = predicted;
+        output.publish(++ticks, timestamp, p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+        published++;
+    }
+
+    /**
+     * 已发布的记录数
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * 因测量过期而跳过的节拍数
+     */
+    public long getStaleTickCount() {
+        return staleTicks;
+    }
+
+    /**
+     * 节拍相对计划时刻的最大延迟（纳秒），反映发布线程的调度抖动
+     */
+    public long getMaxTickLatenessNanos() {
+        return maxTickLatenessNanos;
+    }
+
+    /**
+     * 帧到达到发送阶段的平均耗时（纳秒），外推时已自动补偿
+     */
+    public long getPipelineLatencyNanos() {
+        return pipelineLatencyNanos;
+    }
+}
@@ -0,0 +1,124 @@
+package com.demo.headpose;
+
+/**
+ * 在流水线各阶段之间传递的一帧数据（纯 Java）。
+ * 携带帧序号与采集时间戳，以及各阶段的中间结果；对象本身循环复用。
+ */
+public class FrameContext {
+
+    // 帧序号（单调递增）、相机采集时间戳与帧到达 analyze() 时的 System.nanoTime()（纳秒）
+    public long sequence;
+    public long captureTimeNanos;
+    public long arrivalNanos;
+    // 采集到帧到达 analyze() 的耗时（纳秒），用于计算端到端延迟
+    public long captureToArrivalNanos;
+    // 图像需要顺时针旋转多少度才是正向（ImageInfo.getRotationDegrees()，未镜像）
+    public int rotationDegrees;
+
+    // 本帧在各阶段的耗时（纳秒），与 PipelineMetrics 的直方图同时记录，写入姿态会话日志
+    public long copyNanos;
+    public long detectNanos;
+    public long preprocessNanos;
+    public long inferNanos;
+    public long renderNanos;
+    // 相机采集到发送阶段交出结果的耗时（纳秒），在发送阶段写入
+    public long endToEndNanos;
+
+    // YUV 平面拷贝
+    public Pooled<YuvFrame> frame;
+
+    // 预处理后的模型输入（Android 上为 TensorBlob），以及生成它的推理后端（运行中可能切换模型）
+    public Pooled<?> input;
+    public PoseEstimator estimator;
+
+    // 检测结果：人脸框（镜像后画面坐标）与双眼位置；tracked 表示结果来自跟踪而非完整检测
+    public boolean hasFace;
+    public boolean tracked;
+    public int faceLeft;
+    public int faceTop;
+    public int faceRight;
+    public int faceBottom;
+    public float leftEyeX;
+    public float leftEyeY;
+    public float rightEyeX;
+    public float rightEyeY;
+    // 主人脸的五官关键点（每 2 个值为 x, y，顺序见 LandmarkPoseSolver，镜像后画面坐标），landmarkMask 第 i 位表示第 i 个有效
+    public final float[] landmarks = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+    public int landmarkMask;
+    // 本帧的姿态由关键点几何求解（LandmarkPoseSolver）而非 CNN 得到，只有主人脸
+    public boolean landmarkPose;
+    // 姿态缓存：命中时为参照帧的序号（本帧沿用其姿态，不推理），否则为 -1；cacheReference 表示本帧是新的参照帧
+    public long cachedPoseReference = -1;
+    public boolean cacheReference;
+
+    // 推理结果：yaw, pitch, roll
+    public final float[] degree = new float[3];
+
+    // 多人脸：faceBoxes 每 4 个值为一张脸的 left, top, right, bottom，faceDegrees 每 3 个值为 yaw, pitch, roll。
+    // 第 0 张脸即上面的主人脸。每帧最多 MAX_FACES 张（等于 BatchPoseEstimator.MAX_BATCH，一次 forward 放得下），
+    // 检测器多出的人脸不推理，只计入 droppedFaces
+    public static final int MAX_FACES = 8;
+    public int faceCount;
+    public int droppedFaces;
+    public final int[] faceBoxes = new int[MAX_FACES * 4];
+    public final float[] faceDegrees = new float[MAX_FACES * 3];
+
+    /**
+     * 追加一张人脸框，第一张同时写入主人脸字段
+     * @return 已满时返回 false，并计入 droppedFaces
+     */
+    public boolean addFace(int left, int top, int right, int bottom) {
+        if (faceCount == MAX_FACES) {
+            droppedFaces++;
+            return false;
+        }
+        if (faceCount == 0) {
+            hasFace = true;
+            faceLeft = left;
+            faceTop = top;
+            faceRight = right;
+            faceBottom = bottom;
+        }
+        int index = faceCount * 4;
+        faceBoxes[index] = left;
+        faceBoxes[index + 1] = top;
+        faceBoxes[index + 2] = right;
+        faceBoxes[index + 3] = bottom;
+        faceCount++;
+        return true;
+    }
+
+    /**
+     * 归还持有的资源并清空结果，准备复用
+     */
+    public void recycle() {
+        if (frame != null) {
+            frame.release();
+            frame = null;
+        }
+        if (input != null) {
+            input.release();
+            input = null;
+        }
+        estimator = null;
+        hasFace = false;
+        tracked = false;
+        faceCount = 0;
+        droppedFaces = 0;
+        landmarkMask = 0;
+        landmarkPose = false;
+        cachedPoseReference = -1;
+        cacheReference = false;
+        sequence = 0;
+        captureTimeNanos = 0;
+        arrivalNanos = 0;
+        captureToArrivalNanos = 0;
+        rotationDegrees = 0;
+        copyNanos = 0;
+        detectNanos = 0;
+        preprocessNanos = 0;
+        inferNanos = 0;
+        renderNanos = 0;
+        endToEndNanos = 0;
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.headpose;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分阶段的帧处理流水线（纯 Java）。
+ * 每个阶段有自己的单线程执行器和有界输入队列，队列满时按阶段的 DropPolicy 处理：
+ * LATEST_WINS 丢弃队列中最旧的一项，BLOCK 阻塞上游阶段（反压）。
+ * 这样相邻阶段可以并行处理不同的帧（例如检测第 N+1 帧时推理第 N 帧），而同一阶段内的帧按顺序处理。
+ */
+public class FramePipeline<T> {
+
+    public enum DropPolicy {
+        LATEST_WINS,
+        BLOCK
+    }
+
+    /**
+     * 阶段处理逻辑
+     */
+    public interface Stage<T> {
+        /**
+         * @return true 继续交给下一阶段；false 表示该帧到此结束（例如没有检测到人脸）
+         */
+        boolean process(T item) throws Exception;
+    }
+
+    /**
+     * 帧离开流水线时的回调
+     */
+    public interface Listener<T> {
+        /**
+         * 每一帧恰好回调一次（处理完成、提前结束、被丢弃或出错），在这里归还资源
+         */
+        void onRetired(T item);
+
+        default void onDropped(T item, String stageName) {
+        }
+
+        default void onError(T item, String stageName, Throwable error) {
+        }
+    }
+
+    private final Listener<T> listener;
+    private final List<StageWorker> stages = new ArrayList<>();
+    private volatile boolean running;
+
+    public FramePipeline(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 按顺序追加一个阶段，必须在 start() 之前调用
+     */
+    public FramePipeline<T> addStage(String name, Stage<T> stage, int queueCapacity, DropPolicy policy) {
+        if (running) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        stages.add(new StageWorker(name, stage, queueCapacity, policy));
+        return this;
+    }
+
+    public void start() {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("Pipeline has no stages");
+        }
+        running = true;
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).start(i);
+        }
+    }
+
+    /**
+     * 把一帧交给第一个阶段（按第一个阶段的 DropPolicy 入队）
+     */
+    public void submit(T item) {
+        if (!running) {
+            listener.onRetired(item);
+            return;
+        }
+        stages.get(0).enqueue(item);
+    }
+
+    /**
+     * 停止所有阶段，未处理的帧通过 onRetired 归还
+     */
+    public void shutdown() {
+        running = false;
+        for (StageWorker stage : stages) {
+            stage.executor.shutdownNow();
+        }
+        for (StageWorker stage : stages) {
+            try {
+                stage.executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            T item;
+            while ((item = stage.queue.poll()) != null) {
+                listener.onRetired(item);
+            }
+        }
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    public String getStageName(int index) {
+        return stages.get(index).name;
+    }
+
+    /**
+     * 某阶段因输入队列已满而丢弃的帧数
+     */
+    public long getDroppedCount(int index) {
+        return stages.get(index).dropped.get();
+    }
+
+    /**
+     * 某阶段已处理完成的帧数
+     */
+    public long getProcessedCount(int index) {
+        return stages.get(index).processed.get();
+    }
+
+    private class StageWorker implements Runnable {
+        final String name;
+        final Stage<T> stage;
+        final ArrayBlockingQueue<T> queue;
+        final DropPolicy policy;
+        final ExecutorService executor;
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong processed = new AtomicLong();
+        StageWorker next;
+
+        StageWorker(String name, Stage<T> stage, int queueCapacity, DropPolicy policy) {
+            this.name = name;
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.policy = policy;
+            this.executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "pipeline-" + name));
+        }
+
+        void start(int index) {
+            next = index + 1 < stages.size() ? stages.get(index + 1) : null;
+            executor.execute(this);
+        }
+
+        void enqueue(T item) {
+            if (policy == DropPolicy.BLOCK) {
+                try {
+                    queue.put(item);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    listener.onRetired(item);
+                }
+                return;
+            }
+
+            // LATEST_WINS：挤掉最旧的帧
+            while (!queue.offer(item)) {
+                T stale = queue.poll();
+                if (stale != null) {
+                    dropped.incrementAndGet();
+                    listener.onDropped(stale, name);
+                    listener.onRetired(stale);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                T item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                boolean forward;
+                try {
+                    forward = stage.process(item);
+                } catch (InterruptedException e) {
+                    listener.onRetired(item);
+                    return;
+                } catch (Throwable t) {
+                    listener.onError(item, name, t);
+                    forward = false;
+                }
+                processed.incrementAndGet();
+
+                if (forward && next != null && running) {
+                    next.enqueue(item);
+                } else {
+                    listener.onRetired(item);
+                }
+            }
+        }
+    }
+}
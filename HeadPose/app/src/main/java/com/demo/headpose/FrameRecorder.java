@@ -0,0 +1,121 @@
+package com.demo.headpose;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 把原始 YUV 帧追加写入录像文件（纯 Java），供 ReplayFrameSource 回放。
+ * <p>
+ * 文件格式（小端序）：16 字节文件头 [magic "HPYV", version, 帧头长度, 保留]，之后每帧为
+ * 48 字节帧头 [帧总长度, width, height, yRowStride, uvRowStride, uvPixelStride, rotationDegrees,
+ * Y 长度, U 长度, V 长度, 时间戳 (long)] 加上按原 stride 保存的三个平面，不做任何转换。
+ * 回放时整个文件映射为一个 MappedByteBuffer，因此文件不超过 2 GB，写满后不再追加。
+ */
+public class FrameRecorder implements FrameSink, Closeable {
+
+    public static final int MAGIC = 0x56595048; // "HPYV"
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER_SIZE = 16;
+    public static final int FRAME_HEADER_SIZE = 48;
+    public static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(FRAME_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer[] gather = new ByteBuffer[4];
+
+    private long size;
+    private long frames;
+    private long skipped;
+
+    public FrameRecorder(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fileHeader.putInt(MAGIC).putInt(VERSION).putInt(FRAME_HEADER_SIZE).putInt(0).flip();
+        writeFully(fileHeader);
+        size = FILE_HEADER_SIZE;
+    }
+
+    /**
+     * 追加一帧（在调用线程上同步写盘）。文件已满时跳过该帧；写失败时抛出 UncheckedIOException
+     */
+    @Override
+    public boolean onFrame(int width, int height,
+                           ByteBuffer y, int yRowStride,
+                           ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                           long timestampNanos, int rotationDegrees) {
+        int yLength = y.remaining();
+        int uLength = u.remaining();
+        int vLength = v.remaining();
+        long frameSize = (long) FRAME_HEADER_SIZE + yLength + uLength + vLength;
+        if (size + frameSize > MAX_FILE_SIZE) {
+            skipped++;
+            return true;
+        }
+
+        header.clear();
+        header.putInt((int) frameSize).putInt(width).putInt(height)
+                .putInt(yRowStride).putInt(uvRowStride).putInt(uvPixelStride).putInt(rotationDegrees)
+                .putInt(yLength).putInt(uLength).putInt(vLength).putLong(timestampNanos);
+        header.flip();
+
+        int yPosition = y.position();
+        int uPosition = u.position();
+        int vPosition = v.position();
+        gather[0] = header;
+        gather[1] = y;
+        gather[2] = u;
+        gather[3] = v;
+        try {
+            long remaining = frameSize;
+            while (remaining > 0) {
+                remaining -= channel.write(gather);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // 不改变调用者缓冲区的 position
+            y.position(yPosition);
+            u.position(uPosition);
+            v.position(vPosition);
+        }
+        size += frameSize;
+        frames++;
+        return true;
+    }
+
+    /**
+     * 已写入的帧数
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * 文件已满而跳过的帧数
+     */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.headpose;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 原始 YUV_420_888 帧的接收方（纯 Java），例如处理流水线 PoseProcessor 或录制器 FrameRecorder。
+ * 参数与 CameraX ImageProxy 的三个平面一一对应；平面缓冲区只在调用期间有效，实现需要自行拷贝，
+ * 且不能改变它们的 position / limit。只在单个线程上调用。
+ */
+public interface FrameSink {
+
+    /**
+     * @param timestampNanos  采集时间戳
+     * @param rotationDegrees 图像需要顺时针旋转多少度才是正向
+     * @return 帧被接收时返回 true；忙（在途帧已满）而丢弃时返回 false
+     */
+    boolean onFrame(int width, int height,
+                    ByteBuffer y, int yRowStride,
+                    ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                    long timestampNanos, int rotationDegrees);
+
+    /**
+     * 现在调用 onFrame 是否会被接收；回放按最快速度运行时据此等待，而不是丢帧
+     */
+    default boolean hasCapacity() {
+        return true;
+    }
+}
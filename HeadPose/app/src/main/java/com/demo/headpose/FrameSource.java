@@ -0,0 +1,18 @@
+package com.demo.headpose;
+
+/**
+ * 帧来源（纯 Java）：相机（FaceAnalyzer）或录像回放（ReplayFrameSource），
+ * 把帧依次交给同一个 FrameSink，因此两者走完全相同的检测、推理与发送路径。
+ */
+public interface FrameSource {
+
+    /**
+     * 开始向 sink 推送帧（在来源自己的线程上）
+     */
+    void start(FrameSink sink);
+
+    /**
+     * 停止推送，返回后不再调用 sink
+     */
+    void stop();
+}
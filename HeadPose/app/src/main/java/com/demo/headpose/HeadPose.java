@@ -2,83 +2,216 @@ package com.demo.headpose;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.util.Log;
 
 import org.pytorch.IValue;
+import org.pytorch.LiteModuleLoader;
 import org.pytorch.MemoryFormat;
 import org.pytorch.Module;
+import org.pytorch.PyTorchAndroid;
 import org.pytorch.Tensor;
 import org.pytorch.torchvision.TensorImageUtils;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.FloatBuffer;
+import java.util.List;
 
-public class HeadPose {
+/**
+ * PyTorch 推理后端（TorchScript 模型，输出每张脸的 3×3 旋转矩阵）。
+ * 模型文件、加载方式、输入边长与标准化参数由 ModelTier 决定，默认为原 fp32 模型。
+ * 不保存每次调用的状态，预处理与推理都可以多线程调用；多个线程共用一个 Module 时 forward 在原生层串行竞争，
+ * 要在多个核上并行推理，用 PoseWorkerPool 给每个工作线程一个实例。
+ */
+public class HeadPose extends BatchPoseEstimator<TensorBlob> {
+    private static final String TAG = "HeadPose";
 
-    Module headPose = null;
-    Bitmap resizedBitmap;
-    Tensor inputTensor;
-    Tensor outputTensor;
+    // 默认（fp32）模型的输入边长
+    public static final int INPUT_SIZE = 224;
+
+    // 模型输出：每个样本一个 3×3 旋转矩阵
+    private static final int ROTATION_SIZE = 9;
+
+    private final ModelTier tier;
+    private final Module headPose;
 
     //定义HeadPose实例时设置加载的模型
     public HeadPose(Context context, String modelName) throws IOException {
-        String modelPath = assetFilePath(context, modelName);
-        headPose = Module.load(modelPath);
+        this(assetFilePath(context, modelName));
+    }
+
+    /**
+     * 从文件路径加载默认（fp32）模型（可在后台线程调用，见 ModelManager）
+     */
+    public HeadPose(String modelPath) {
+        this(modelPath, ModelTier.defaultTiers().get(0));
+    }
+
+    /**
+     * 按档位加载模型文件
+     */
+    public HeadPose(String modelPath, ModelTier tier) {
+        // 一步式预处理：输入缓冲区与包装它的张量来自对象池（每个批大小档位一个池），每次推理复用
+        super("tensor", new RoiPreprocessor(tier.inputSize, tier.meanRgb, tier.stdRgb),
+                Integer.MAX_VALUE, BuildConfig.DEBUG);
+        this.tier = tier;
+        headPose = load(modelPath, tier.format);
+    }
+
+    private static Module load(String modelPath, ModelTier.Format format) {
+        if (format == ModelTier.Format.LITE) {
+            try {
+                return LiteModuleLoader.load(modelPath);
+            } catch (LinkageError | RuntimeException e) {
+                // 完整运行时没有打包 lite 解释器的原生库；.ptl 文件同时保存了 TorchScript 代码，可以按完整模型加载
+                Log.w(TAG, "Lite interpreter unavailable, loading " + modelPath + " as TorchScript", e);
+            }
+        }
+        return Module.load(modelPath);
+    }
 
+    /**
+     * 设置 PyTorch 的算子内线程数（对进程内所有模型生效），0 或负数时保持默认
+     */
+    public static void setNumThreads(int threads) {
+        if (threads > 0) {
+            PyTorchAndroid.setNumThreads(threads);
+        }
+    }
+
+    public ModelTier getTier() {
+        return tier;
     }
 
     //将输入图片缩放、归一化、标准化（根据模型所需输入而变），运行模型推理
     public float[] InferFromBitmap(Bitmap inputBitmap) {
-        resizedBitmap = Bitmap.createScaledBitmap(inputBitmap, 224, 224, true);
-        inputTensor = TensorImageUtils.bitmapToFloat32Tensor(resizedBitmap,
-                TensorImageUtils.TORCHVISION_NORM_MEAN_RGB,
-                TensorImageUtils.TORCHVISION_NORM_STD_RGB,
-                MemoryFormat.CHANNELS_LAST);
-        outputTensor = headPose.forward(IValue.from(inputTensor)).toTensor();
+        int size = getInputSize();
+        Bitmap resizedBitmap = Bitmap.createScaledBitmap(inputBitmap, size, size, true);
+        Tensor inputTensor = TensorImageUtils.bitmapToFloat32Tensor(resizedBitmap,
+                tier.meanRgb, tier.stdRgb, MemoryFormat.CHANNELS_LAST);
+        Tensor outputTensor = headPose.forward(IValue.from(inputTensor)).toTensor();
         float[] rotation = outputTensor.getDataAsFloatArray();
 
         return rotationToEuler(rotation);
     }
 
+    /**
+     * 直接从相机 YUV 平面推理：镜像、裁剪、缩放、标准化一次完成，写入预分配的输入张量。
+     * faceRect 位于镜像后（mirror = true）或原始画面坐标中。
+     * @return yaw, pitch, roll；人脸框与画面无交集时返回 null
+     */
+    public float[] inferFromFrame(YuvFrame frame, Rect faceRect, boolean mirror) {
+        float[] degree = new float[3];
+        return inferFromFrame(frame, faceRect, mirror, degree) ? degree : null;
+    }
+
+    /**
+     * 同上，结果写入调用者提供的 degree（yaw, pitch, roll）
+     * @return 人脸框与画面无交集时返回 false
+     */
+    public boolean inferFromFrame(YuvFrame frame, Rect faceRect, boolean mirror, float[] degree) {
+        Pooled<TensorBlob> input = preprocess(frame, faceRect.left, faceRect.top, faceRect.right, faceRect.bottom, mirror);
+        if (input == null) {
+            return false;
+        }
+        try {
+            infer(input.get(), degree);
+            return true;
+        } finally {
+            input.release();
+        }
+    }
+
+    /**
+     * 批量推理：所有人脸框打包成 N×3×S×S 的输入（S 为档位的输入边长），每次 forward 最多 maxBatchSize 张脸。
+     * @return 与 faces 一一对应的 yaw, pitch, roll；人脸框与画面无交集时对应项为 null
+     */
+    public float[][] inferBatch(YuvFrame frame, List<Rect> faces, boolean mirror) {
+        int count = faces.size();
+        int[] boxes = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            Rect face = faces.get(i);
+            boxes[i * 4] = face.left;
+            boxes[i * 4 + 1] = face.top;
+            boxes[i * 4 + 2] = face.right;
+            boxes[i * 4 + 3] = face.bottom;
+        }
+        return estimate(frame, boxes, count, mirror);
+    }
+
+    @Override
+    protected TensorBlob createInput(int batchSize) {
+        return new TensorBlob(batchSize, getInputSize());
+    }
+
+    /**
+     * 运行模型并把旋转矩阵转换为欧拉角。
+     * 模型不支持批量输入时退回逐个推理，并把 maxBatchSize 降为 1。
+     */
+    @Override
+    protected void forward(TensorBlob input, float[] degrees) {
+        if (input.batchSize == 1) {
+            Tensor outputTensor = headPose.forward(input.value).toTensor();
+            rotationToEuler(outputTensor.getDataAsFloatArray(), 0, degrees, 0);
+            return;
+        }
+
+        float[] rotation;
+        try {
+            rotation = headPose.forward(input.value).toTensor().getDataAsFloatArray();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Model rejected batch of " + input.batchSize + ", falling back to batch size 1", e);
+            disableBatching();
+            forwardEach(input, degrees);
+            return;
+        }
+        for (int i = 0; i < input.count; i++) {
+            rotationToEuler(rotation, i * ROTATION_SIZE, degrees, i * 3);
+        }
+    }
+
+    // 把批量缓冲区中的每个样本拷到单个样本的缓冲区中逐个推理
+    private void forwardEach(TensorBlob input, float[] degrees) {
+        int stride = input.sampleSize();
+        Pooled<TensorBlob> single = acquireInput(1);
+        try {
+            FloatBuffer source = input.buffer.duplicate();
+            FloatBuffer target = single.get().buffer;
+            for (int i = 0; i < input.count; i++) {
+                source.limit((i + 1) * stride).position(i * stride);
+                target.clear();
+                target.put(source);
+                Tensor outputTensor = headPose.forward(single.get().value).toTensor();
+                rotationToEuler(outputTensor.getDataAsFloatArray(), 0, degrees, i * 3);
+            }
+        } finally {
+            single.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        headPose.destroy();
+    }
+
     //从3×3旋转矩阵获得欧拉角
     public float[] rotationToEuler(float[] rotation) {
         float[] degree = { 0, 0, 0 };
-        float sy = (float) Math.sqrt(rotation[0] * rotation[0] + rotation[3] * rotation[3]);
-        if (sy > 1e-6) {
-            degree[0] = (float) Math.toDegrees(Math.atan2(-rotation[6], sy));
-            degree[1] = (float) Math.toDegrees(Math.atan2(rotation[7], rotation[8]));
-            degree[2] = (float) Math.toDegrees(Math.atan2(rotation[3], rotation[0]));
-        } else {
-            degree[0] = (float) Math.toDegrees(Math.atan2(-rotation[6], sy));
-            degree[1] = (float) Math.toDegrees(Math.atan2(-rotation[5], rotation[4]));
-            degree[2] = 0;
-        }
-
+        rotationToEuler(rotation, 0, degree, 0);
         return degree;
     }
 
+    //同上，从 rotation[offset..offset+8] 读取矩阵，结果写入 degree[degreeOffset..degreeOffset+2]
+    public static void rotationToEuler(float[] rotation, int offset, float[] degree, int degreeOffset) {
+        RotationMath.rotationToEuler(rotation, offset, degree, degreeOffset);
+    }
+
     /**
      * Copies specified asset to the file in /files app directory and returns this file absolute path.
+     * The cached copy is verified against the asset (see ModelManager.cachedAssetPath).
      * @return absolute file path
      */
     public static String assetFilePath(Context context, String assetName) throws IOException {
-        File file = new File(context.getFilesDir(), assetName);
-        if (file.exists() && file.length() > 0) {
-            return file.getAbsolutePath();
-        }
-
-        try (InputStream is = context.getAssets().open(assetName)) {
-            try (OutputStream os = new FileOutputStream(file)) {
-                byte[] buffer = new byte[4 * 1024];
-                int read;
-                while ((read = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, read);
-                }
-                os.flush();
-            }
-            return file.getAbsolutePath();
-        }
+        return ModelManager.cachedAssetPath(context, assetName);
     }
 }
@@ -3,9 +3,11 @@ package com.demo.headpose;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.util.Size;
-import android.widget.ImageView;
+import android.view.View;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -19,6 +21,9 @@ import androidx.core.content.ContextCompat;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -30,9 +35,25 @@ public class MainActivity extends AppCompatActivity {
 
     private PreviewView previewView;       // CameraX 的预览界面
     private ExecutorService cameraExecutor; // 执行图像分析的线程池
-    private HeadPose headPose;             // 头姿估计模块（PyTorch模型）
+    private PoseEstimator headPose;        // 头姿估计模块（PyTorch 或 ONNX Runtime 后端）
+    private PipelineConfig pipelineConfig; // 流水线与推理后端配置
     private SocketManager socketManager;   // 用于网络通信的Socket管理器
-    private ImageView imageView;           // 显示处理后图像的组件
+    private PoseOverlayView overlayView;   // 覆盖在预览上的人脸框与头姿叠加层
+    private PoseProcessor poseProcessor;   // 人脸检测与头姿估计流水线
+    private FaceAnalyzer faceAnalyzer;     // 相机帧来源
+    private ReplayFrameSource replaySource; // 录像回放帧来源（回放模式）
+    private FrameRecorder frameRecorder;   // 相机帧录制（录制模式）
+    private PoseLogWriter poseLog;         // 姿态会话日志
+    private MetricsReporter metricsReporter; // 流水线指标的周期快照（文件与本地统计端口）
+    private StartupMetrics startupMetrics; // 冷启动耗时统计
+    private MlKitFaceDetector faceDetector; // MLKit 人脸检测（可调整关键点模式）
+    private AdaptiveQualityController qualityController; // 按延迟预算调整画质档位（未启用时为 null）
+    private ProcessCameraProvider cameraProvider; // 已绑定的相机
+    private ImageAnalysis imageAnalysis;   // 当前绑定的图像分析用例
+    private ModelManager modelManager;     // 模型加载（启动时与切换模型档位时）
+    private ModelTier startTier;           // 启动时加载的 PyTorch 模型档位（ONNX 后端为 null）
+    private volatile ModelTier targetTier; // 当前画质档位要求的模型档位（正在加载或已生效）
+    private boolean destroyed;             // Activity 已销毁（模型可能在此之后才加载完成）
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -40,19 +61,44 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main); // 加载布局文件
 
         previewView = findViewById(R.id.previewView);   // 获取预览界面控件
-        imageView = findViewById(R.id.imageView);       // 获取显示图像控件
+        overlayView = findViewById(R.id.overlayView);   // 获取叠加层控件
 
-        // 初始化头姿估计模型（从assets中加载模型）
-        try {
-            headPose = new HeadPose(this, "_epoch_80_3.pt");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        // 在后台线程初始化头姿估计模型（从assets中拷贝、加载并预热），完成后再启动摄像头
+        pipelineConfig = readPipelineConfig();
+        if (pipelineConfig.headless) {
+            overlayView.setVisibility(View.GONE);
         }
+        startupMetrics = new StartupMetrics(Process.getStartElapsedRealtime() * 1_000_000L);
+        modelManager = new ModelManager(this, startupMetrics);
+        modelManager.load(pipelineConfig, new ModelManager.Listener() {
+            @Override
+            public void onReady(PoseEstimator estimator) {
+                if (destroyed) {
+                    estimator.close();
+                    return;
+                }
+                headPose = estimator;
+                startTier = tierOf(estimator);
+                targetTier = startTier;
+                startupMetrics.markReady(SystemClock.elapsedRealtimeNanos());
+                reportFullyDrawn();
+                Log.i(TAG, "Model ready: " + startupMetrics);
+                if (getIntent().hasExtra("replay")) {
+                    startReplay();
+                } else {
+                    startCameraIfReady();
+                }
+            }
 
-        // 检查摄像头权限
-        if (allPermissionsGranted()) {
-            startCamera(); // 权限已授予，启动摄像头
-        } else {
+            @Override
+            public void onError(Exception error) {
+                Toast.makeText(MainActivity.this, "Model loading failed", Toast.LENGTH_LONG).show();
+                finish();
+            }
+        });
+
+        // 检查摄像头权限（回放模式不需要）
+        if (!getIntent().hasExtra("replay") && !allPermissionsGranted()) {
             // 请求权限
             ActivityCompat.requestPermissions(this, REQUIRED_PERMISSIONS, REQUEST_CODE_PERMISSIONS);
         }
@@ -61,7 +107,17 @@ public class MainActivity extends AppCompatActivity {
         cameraExecutor = Executors.newSingleThreadExecutor();
 
         // 初始化并启动 Socket 通信模块
-        socketManager = new SocketManager();
+        // 默认发送 44 字节二进制记录；socket.py 等文本客户端用 --es stream_format text，--ez stream_latest true 只发最新值，
+        // --es stream_policy disconnect 时断开跟不上的订阅者（默认丢最旧的帧）；--es stream_transport udp 改用 UDP 数据包
+        socketManager = new SocketManager(
+                "udp".equals(getIntent().getStringExtra("stream_transport"))
+                        ? SocketManager.Transport.UDP : SocketManager.Transport.TCP,
+                "text".equals(getIntent().getStringExtra("stream_format"))
+                        ? PoseStreamWriter.Format.TEXT : PoseStreamWriter.Format.BINARY,
+                getIntent().getBooleanExtra("stream_latest", false),
+                "disconnect".equals(getIntent().getStringExtra("stream_policy"))
+                        ? PoseBroadcastServer.SlowConsumerPolicy.DISCONNECT
+                        : PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST);
         socketManager.startServer();
     }
 
@@ -77,6 +133,15 @@ public class MainActivity extends AppCompatActivity {
         return true; // 所有权限已授予
     }
 
+    /**
+     * 模型已就绪且权限已授予时启动摄像头
+     */
+    private void startCameraIfReady() {
+        if (headPose != null && allPermissionsGranted()) {
+            startCamera();
+        }
+    }
+
     /**
      * 启动摄像头并绑定预览与图像分析功能
      */
@@ -87,26 +152,19 @@ public class MainActivity extends AppCompatActivity {
         cameraProviderFuture.addListener(() -> {
             try {
                 // 获取CameraProvider实例
-                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+                cameraProvider = cameraProviderFuture.get();
 
                 // 创建并配置预览用例
                 Preview preview = new Preview.Builder().build();
                 preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
-                // 创建图像分析用例（设置分辨率和策略）
-                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
-                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST) // 丢弃旧帧，只保留最新帧
-                        .setTargetResolution(new Size(480, 360)) // 设置较低分辨率以加快处理速度
-                        .build();
-
-                // 设置图像分析器：FaceAnalyzer 是自定义类，内部实现人脸检测 + 头姿估计
-                imageAnalysis.setAnalyzer(cameraExecutor, new FaceAnalyzer(
-                        cameraExecutor,
-                        headPose,
-                        socketManager,
-                        // 处理后的图像通过回调设置到 UI 上
-                        rotatedBitmap -> runOnUiThread(() -> imageView.setImageBitmap(rotatedBitmap))
-                ));
+                // 图像分析器：FaceAnalyzer 把相机帧交给流水线（人脸检测 + 头姿估计）
+                if (faceAnalyzer == null) {
+                    faceAnalyzer = new FaceAnalyzer();
+                    startRecorderIfRequested(faceAnalyzer);
+                    faceAnalyzer.start(createProcessor());
+                }
+                imageAnalysis = createImageAnalysis(currentQualityLevel());
 
                 // 设置为前置摄像头
                 CameraSelector cameraSelector = CameraSelector.DEFAULT_FRONT_CAMERA;
@@ -122,11 +180,344 @@ public class MainActivity extends AppCompatActivity {
         }, ContextCompat.getMainExecutor(this)); // 在主线程执行回调
     }
 
+    /**
+     * 创建图像分析用例：分辨率取自画质档位，丢弃旧帧只保留最新帧
+     */
+    private ImageAnalysis createImageAnalysis(QualityLevel level) {
+        ImageAnalysis analysis = new ImageAnalysis.Builder()
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST) // 丢弃旧帧，只保留最新帧
+                .setTargetResolution(new Size(level.analysisWidth, level.analysisHeight)) // 较低分辨率以加快处理速度
+                .build();
+        analysis.setAnalyzer(cameraExecutor, faceAnalyzer);
+        return analysis;
+    }
+
+    /**
+     * 分析分辨率改变时只替换图像分析用例，预览保持绑定（在主线程调用）
+     */
+    private void rebindAnalysis(QualityLevel level) {
+        if (destroyed || cameraProvider == null || imageAnalysis == null) {
+            return;
+        }
+        try {
+            ImageAnalysis next = createImageAnalysis(level);
+            cameraProvider.unbind(imageAnalysis);
+            imageAnalysis = next;
+            cameraProvider.bindToLifecycle(this, CameraSelector.DEFAULT_FRONT_CAMERA, next);
+        } catch (Exception e) {
+            Log.e(TAG, "Cannot rebind image analysis for " + level, e);
+        }
+    }
+
+    private QualityLevel currentQualityLevel() {
+        return qualityController != null
+                ? qualityController.getLevel()
+                : QualityLevel.defaultLadder()[QualityLevel.DEFAULT_LEVEL];
+    }
+
+    /**
+     * 创建处理流水线：MLKit 检测 + 头姿估计，结果发送到 socket 并交给叠加层（无界面模式下不绘制）
+     */
+    private PoseProcessor createProcessor() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        faceDetector = new MlKitFaceDetector(pipelineConfig.mirror, pipelineConfig.detectorInput,
+                metrics.histogram(PipelineMetrics.Stage.YUV_TO_RGB));
+        poseProcessor = new PoseProcessor(pipelineConfig, metrics, faceDetector,
+                headPose, socketManager::sendData, overlayView);
+        poseProcessor.setCaptureClock(SystemClock::elapsedRealtimeNanos);
+        poseProcessor.setListener(new PoseProcessor.Listener() {
+            @Override
+            public void onStageError(FrameContext context, String stageName, Throwable error) {
+                Log.e(TAG, "Stage " + stageName + " failed on frame " + context.sequence, error);
+            }
+
+            @Override
+            public void onLeak(String poolName, Object value, Throwable acquireSite) {
+                Log.w(TAG, "Possible leak in pool " + poolName + ": " + value, acquireSite);
+            }
+
+            @Override
+            public void onPosePublished(FrameContext context) {
+                if (qualityController != null) {
+                    qualityController.onLatency(context.endToEndNanos);
+                }
+                // 冷启动统计：记录第一个头姿结果的时间
+                if (!startupMetrics.hasFirstPose() && startupMetrics.markFirstPose(SystemClock.elapsedRealtimeNanos())) {
+                    Log.i(TAG, "First pose: " + startupMetrics);
+                }
+            }
+        });
+        if (!pipelineConfig.headless) {
+            metrics.addCounter("overlay_overwritten", overlayView::getOverwrittenCount);
+        }
+        socketManager.registerMetrics(metrics);
+        startQualityControllerIfRequested(metrics);
+        startMetricsReporter(metrics);
+        startPoseLogIfRequested(poseProcessor);
+        return poseProcessor;
+    }
+
+    /**
+     * 自适应画质：按端到端延迟预算升降档位，例如 --ei latency_budget_ms 33 --ei quality_level 1。
+     * 检测间隔与关键点模式在流水线中立即生效；分析分辨率改变时重新绑定图像分析用例（预览不中断）
+     */
+    private void startQualityControllerIfRequested(PipelineMetrics metrics) {
+        if (pipelineConfig.latencyBudgetMillis <= 0) {
+            return;
+        }
+        qualityController = new AdaptiveQualityController(QualityLevel.defaultLadder(), pipelineConfig.qualityLevel,
+                pipelineConfig.latencyBudgetMillis, (previous, next) -> {
+                    Log.i(TAG, "Quality " + previous.name + " -> " + next);
+                    applyQualityLevel(next);
+                    if (!next.sameResolution(previous)) {
+                        runOnUiThread(() -> rebindAnalysis(next));
+                    }
+                });
+        applyQualityLevel(qualityController.getLevel());
+        metrics.addCounter("quality_level", qualityController::getLevelIndex);
+        metrics.addCounter("quality_changes", qualityController::getChangeCount);
+        Log.i(TAG, "Adaptive quality: budget " + pipelineConfig.latencyBudgetMillis + " ms, starting at "
+                + qualityController.getLevel());
+    }
+
+    /**
+     * PyTorch 后端（单个实例或工作线程池）的模型档位，其他后端返回 null
+     */
+    private static ModelTier tierOf(PoseEstimator estimator) {
+        if (estimator instanceof PoseWorkerPool) {
+            estimator = ((PoseWorkerPool) estimator).getEstimator(0);
+        }
+        return estimator instanceof HeadPose ? ((HeadPose) estimator).getTier() : null;
+    }
+
+    /**
+     * 应用不需要重新绑定相机的设置。modelTier 相对启动档位往下数，没有更低的可用档位时保持不变；
+     * 新模型在后台加载，加载完成后才切换，期间流水线继续使用当前模型
+     */
+    private void applyQualityLevel(QualityLevel level) {
+        poseProcessor.setDetectInterval(level.detectInterval);
+        faceDetector.setLandmarks(level.landmarks);
+        if (startTier == null) {
+            return;
+        }
+        ModelTier tier = modelManager.getTiers().lower(startTier, level.modelTier);
+        if (tier == targetTier) {
+            return;
+        }
+        targetTier = tier;
+        modelManager.loadTier(pipelineConfig, tier, new ModelManager.Listener() {
+            @Override
+            public void onReady(PoseEstimator estimator) {
+                // 加载期间画质又变了，或上一次切换的旧模型还在等在途帧：丢弃，下一次档位变化时再加载
+                if (destroyed || tier != targetTier || !poseProcessor.setEstimator(estimator)) {
+                    estimator.close();
+                    if (!destroyed && tier == targetTier) {
+                        targetTier = tierOf(headPose);
+                    }
+                    return;
+                }
+                headPose = estimator;
+                Log.i(TAG, "Model tier " + tier);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                Log.e(TAG, "Cannot load model tier " + tier, error);
+                targetTier = tierOf(headPose);
+            }
+        });
+    }
+
+    /**
+     * 回放模式：把录制的帧文件（files 目录下的文件名或绝对路径）送入同一条流水线，例如
+     * adb shell am start -n com.demo.headpose/.MainActivity --es replay session.yuv --ez replay_fast true --ei replay_loops 3
+     */
+    private void startReplay() {
+        String name = getIntent().getStringExtra("replay");
+        File file = name.startsWith("/") ? new File(name) : new File(getFilesDir(), name);
+        ReplayFrameSource.Pacing pacing = getIntent().getBooleanExtra("replay_fast", false)
+                ? ReplayFrameSource.Pacing.FAST : ReplayFrameSource.Pacing.NATIVE;
+        try {
+            replaySource = new ReplayFrameSource(file, pacing, getIntent().getIntExtra("replay_loops", 1));
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open recording " + file, e);
+            Toast.makeText(this, "Cannot open recording", Toast.LENGTH_LONG).show();
+            return;
+        }
+        Log.i(TAG, "Replaying " + replaySource.getFrameCount() + " frames from " + file + " (" + pacing + ")");
+        replaySource.start(createProcessor());
+    }
+
+    /**
+     * 录制模式：把相机的原始帧同时写入 files 目录下的文件，例如 --es record session.yuv
+     */
+    private void startRecorderIfRequested(FaceAnalyzer analyzer) {
+        String name = getIntent().getStringExtra("record");
+        if (name == null) {
+            return;
+        }
+        File file = new File(getFilesDir(), name);
+        try {
+            frameRecorder = new FrameRecorder(file);
+            analyzer.setRecorder(frameRecorder);
+            Log.i(TAG, "Recording camera frames to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot create recording " + file, e);
+        }
+    }
+
+    /**
+     * 会话日志：把每帧的头姿、人脸框与各阶段耗时写入 files/poses/ 下的目录，例如 --es pose_log session1，
+     * 用 PoseLogReader 离线读取
+     */
+    private void startPoseLogIfRequested(PoseProcessor processor) {
+        String name = getIntent().getStringExtra("pose_log");
+        if (name == null) {
+            return;
+        }
+        File directory = new File(new File(getFilesDir(), "poses"), name);
+        try {
+            poseLog = new PoseLogWriter(directory);
+            processor.setPoseLog(poseLog);
+            Log.i(TAG, "Logging poses to " + directory);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot create pose log " + directory, e);
+        }
+    }
+
+    /**
+     * 周期性地把指标快照写到 files/metrics.txt，并在本机统计端口上提供，例如：
+     * adb forward tcp:5001 tcp:5001 && nc localhost 5001
+     */
+    private void startMetricsReporter(PipelineMetrics metrics) {
+        InetSocketAddress statsAddress = pipelineConfig.metricsPort > 0
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), pipelineConfig.metricsPort)
+                : null;
+        metricsReporter = new MetricsReporter(metrics, pipelineConfig.metricsPeriodMillis,
+                new File(getFilesDir(), "metrics.txt"), statsAddress,
+                error -> Log.w(TAG, "Metrics reporter error", error));
+        try {
+            metricsReporter.start();
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot start metrics reporter", e);
+            metricsReporter = null;
+        }
+    }
+
+    /**
+     * 从启动 Intent 读取流水线配置，例如：
+     * adb shell am start -n com.demo.headpose/.MainActivity --es policy.infer block --ei queue.infer 2
+     */
+    private PipelineConfig readPipelineConfig() {
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            String name = stage.name().toLowerCase();
+            String policy = getIntent().getStringExtra("policy." + name);
+            int capacity = getIntent().getIntExtra("queue." + name, config.queueCapacity[stage.ordinal()]);
+            config.setStage(stage, capacity, "block".equals(policy)
+                    ? FramePipeline.DropPolicy.BLOCK
+                    : FramePipeline.DropPolicy.LATEST_WINS);
+        }
+        // 先检测后跟踪，例如 --ei detect_interval 5 --ef track_confidence 0.6
+        config.detectInterval = getIntent().getIntExtra("detect_interval", config.detectInterval);
+        config.minTrackConfidence = getIntent().getFloatExtra("track_confidence", config.minTrackConfidence);
+        config.trackSearchRadius = getIntent().getIntExtra("track_radius", config.trackSearchRadius);
+        // 多人脸批量推理，例如 --ei max_batch 8
+        config.maxBatchSize = getIntent().getIntExtra("max_batch", config.maxBatchSize);
+        // 推理后端，例如 --es backend onnx
+        if ("onnx".equals(getIntent().getStringExtra("backend"))) {
+            config.backend = PipelineConfig.Backend.ONNX;
+        }
+        // PyTorch 模型档位与推理线程数，例如 --es model_tier lite --ei threads 2
+        String tier = getIntent().getStringExtra("model_tier");
+        if (tier != null) {
+            config.modelTier = tier;
+        }
+        config.inferenceThreads = getIntent().getIntExtra("threads", config.inferenceThreads);
+        // 推理工作线程数，例如 --ei workers 2 --ei threads 2（每个工作线程 2 个算子内线程）
+        config.inferenceWorkers = Math.max(1, getIntent().getIntExtra("workers", config.inferenceWorkers));
+        // 头姿估计引擎，例如 --es pose_engine auto --ei infer_budget_ms 20（landmarks 为有关键点时只用几何求解）
+        config.poseEngine = getEnumExtra("pose_engine", PipelineConfig.PoseEngine.class, config.poseEngine);
+        config.inferBudgetMillis = getIntent().getIntExtra("infer_budget_ms", config.inferBudgetMillis);
+        // MLKit 检测器的输入，例如 --es detector_input yuv（不做整帧 RGB 转换）
+        config.detectorInput = getEnumExtra("detector_input", PipelineConfig.DetectorInput.class,
+                config.detectorInput);
+        // 姿态缓存，例如 --ei pose_cache_max_age_ms 500 --ef pose_cache_luma 3 --ef pose_cache_drift 0.05
+        config.poseCacheMaxAgeMillis = getIntent().getIntExtra("pose_cache_max_age_ms", config.poseCacheMaxAgeMillis);
+        config.poseCacheMaxLumaDifference = getIntent().getFloatExtra("pose_cache_luma",
+                config.poseCacheMaxLumaDifference);
+        config.poseCacheMaxBoxDrift = getIntent().getFloatExtra("pose_cache_drift", config.poseCacheMaxBoxDrift);
+        // 滤波后固定频率外推发布，例如 --ei publish_rate 100 --ei prediction_lead_ms 20
+        config.publishRateHz = getIntent().getIntExtra("publish_rate", config.publishRateHz);
+        config.predictionLeadMillis = getIntent().getIntExtra("prediction_lead_ms", config.predictionLeadMillis);
+        // 自适应画质，例如 --ei latency_budget_ms 33 --ei quality_level 1
+        config.latencyBudgetMillis = getIntent().getIntExtra("latency_budget_ms", config.latencyBudgetMillis);
+        int qualityLevel = getIntent().getIntExtra("quality_level", config.qualityLevel);
+        int levels = QualityLevel.defaultLadder().length;
+        if (qualityLevel >= 0 && qualityLevel < levels) {
+            config.qualityLevel = qualityLevel;
+        } else {
+            Log.w(TAG, "quality_level " + qualityLevel + " outside [0, " + (levels - 1) + "], using "
+                    + config.qualityLevel);
+        }
+        // 无界面模式，例如 --ez headless true
+        config.headless = getIntent().getBooleanExtra("headless", config.headless);
+        // 指标快照，例如 --ei metrics_period_ms 500 --ei metrics_port 0（不监听）
+        config.metricsPeriodMillis = getIntent().getIntExtra("metrics_period_ms", config.metricsPeriodMillis);
+        config.metricsPort = getIntent().getIntExtra("metrics_port", config.metricsPort);
+        config.leakDetection = BuildConfig.DEBUG;
+        return config;
+    }
+
+    /**
+     * 读取枚举取值的字符串参数（不区分大小写）；未给出或拼写错误时保留默认值，错误只记日志
+     */
+    private <E extends Enum<E>> E getEnumExtra(String name, Class<E> type, E defaultValue) {
+        String value = getIntent().getStringExtra(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unknown " + name + " '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        destroyed = true;
         cameraExecutor.shutdown();       // 关闭线程池
+        modelManager.shutdown();         // 不再加载模型
+        if (faceAnalyzer != null) {
+            faceAnalyzer.stop();         // 不再接收相机帧
+        }
+        if (replaySource != null) {
+            replaySource.stop();         // 停止回放
+        }
+        if (poseProcessor != null) {
+            poseProcessor.close();       // 停止处理流水线
+        }
+        if (poseLog != null) {
+            poseLog.close();             // 流水线已停止，会话日志落盘
+        }
+        if (frameRecorder != null) {
+            faceAnalyzer.setRecorder(null);
+            try {
+                frameRecorder.close();   // 结束录制
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot close recording", e);
+            }
+        }
+        if (metricsReporter != null) {
+            metricsReporter.stop();      // 停止指标上报
+        }
         socketManager.closeConnection(); // 关闭Socket连接
+        if (headPose != null) {
+            headPose.close();            // 释放模型
+        }
     }
 
     /**
@@ -138,7 +529,7 @@ public class MainActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == REQUEST_CODE_PERMISSIONS) {
             if (allPermissionsGranted()) {
-                startCamera(); // 权限已获取，启动摄像头
+                startCameraIfReady(); // 权限已获取，模型就绪后启动摄像头
             } else {
                 Toast.makeText(this, "Camera permission denied", Toast.LENGTH_SHORT).show();
                 finish(); // 权限被拒绝，关闭应用
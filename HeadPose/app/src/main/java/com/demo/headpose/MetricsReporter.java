@@ -0,0 +1,165 @@
+package com.demo.headpose;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 周期性地输出 PipelineMetrics 快照（纯 Java，单独的低优先级线程，不在热路径上）。
+ * 每个周期把快照写入 dumpFile（先写临时文件再改名，读取方不会看到半个文件），
+ * 并在本地统计端口上提供最新快照：每个连接收到一次快照后即被关闭，例如
+ * adb forward tcp:5001 tcp:5001 &amp;&amp; nc localhost 5001
+ */
+public class MetricsReporter {
+
+    /**
+     * 错误回调，在上报线程上调用
+     */
+    public interface Listener {
+        void onError(IOException error);
+    }
+
+    private final PipelineMetrics metrics;
+    private final long periodMillis;
+    private final File dumpFile;
+    private final InetSocketAddress statsAddress;
+    private final Listener listener;
+    private final Thread thread;
+
+    private ServerSocket server;
+    private volatile boolean running;
+    private volatile byte[] latest = new byte[0];
+    private volatile long snapshotCount;
+
+    /**
+     * @param dumpFile     快照文件，为 null 时不写文件
+     * @param statsAddress 统计端口地址，为 null 时不监听
+     */
+    public MetricsReporter(PipelineMetrics metrics, long periodMillis, File dumpFile,
+                           InetSocketAddress statsAddress, Listener listener) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Report period must be positive: " + periodMillis);
+        }
+        this.metrics = metrics;
+        this.periodMillis = periodMillis;
+        this.dumpFile = dumpFile;
+        this.statsAddress = statsAddress;
+        this.listener = listener;
+        thread = new Thread(this::run, "metrics-reporter");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    public void start() throws IOException {
+        if (statsAddress != null) {
+            server = new ServerSocket();
+            server.setReuseAddress(true);
+            server.bind(statsAddress);
+            server.setSoTimeout((int) periodMillis);
+        }
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 统计端口实际监听的端口（绑定到 0 时由系统分配），未监听时返回 -1
+     */
+    public int getPort() {
+        return server == null ? -1 : server.getLocalPort();
+    }
+
+    /**
+     * 已生成的快照个数
+     */
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    /**
+     * 最近一次快照的文本
+     */
+    public String getLatestSnapshot() {
+        return new String(latest, StandardCharsets.UTF_8);
+    }
+
+    private void run() {
+        StringBuilder text = new StringBuilder(4096);
+        long next = System.currentTimeMillis();
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now >= next) {
+                text.setLength(0);
+                metrics.snapshot(text);
+                publish(text);
+                next = now + periodMillis;
+                continue;
+            }
+            if (server == null) {
+                try {
+                    Thread.sleep(next - now);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                continue;
+            }
+            try (Socket client = server.accept()) {
+                OutputStream output = client.getOutputStream();
+                output.write(latest);
+                output.flush();
+            } catch (SocketTimeoutException e) {
+                // 到了下一个周期
+            } catch (IOException e) {
+                if (running) {
+                    reportError(e);
+                }
+            }
+        }
+    }
+
+    private void publish(StringBuilder text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        latest = bytes;
+        snapshotCount++;
+        if (dumpFile == null) {
+            return;
+        }
+        File temp = new File(dumpFile.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            output.write(bytes);
+        } catch (IOException e) {
+            reportError(e);
+            return;
+        }
+        if (!temp.renameTo(dumpFile)) {
+            reportError(new IOException("Cannot rename " + temp + " to " + dumpFile));
+        }
+    }
+
+    private void reportError(IOException error) {
+        if (listener != null) {
+            listener.onError(error);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.demo.headpose;
+
+import android.graphics.Bitmap;
+import android.graphics.PointF;
+import android.graphics.Rect;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceDetection;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+import com.google.mlkit.vision.face.FaceLandmark;
+
+import java.util.List;
+
+/**
+ * 基于 MLKit 的人脸检测引擎，在检测线程上同步检测，输入有两种（PipelineConfig.DetectorInput）：
+ * BITMAP 把 YUV 帧转换为（镜像后的）整帧 Bitmap；YUV 把整帧按 NV21 连同旋转角度直接交给 MLKit，
+ * 不做 RGB 转换，结果由 DetectionTransform 映射回（镜像后的）分析帧，两种输入得到的坐标系相同。
+ * 第一张脸作为主人脸（需要眼睛关键点，另外记录 LandmarkPoseSolver 用到的五官关键点），其余人脸只记录人脸框。
+ * 关闭关键点（setLandmarks(false)）时检测更快，双眼位置按人脸框的比例估算。
+ */
+public class MlKitFaceDetector implements FaceDetectorEngine {
+
+    // 关闭关键点时双眼中心在人脸框中的相对位置（镜像后画面，主人脸的左眼在画面左侧）
+    private static final float EYE_INSET = 0.3f;
+    private static final float EYE_HEIGHT = 0.4f;
+
+    // 按 LandmarkPoseSolver 的关键点顺序
+    private static final int[] LANDMARK_TYPES = {
+            FaceLandmark.LEFT_EYE, FaceLandmark.RIGHT_EYE, FaceLandmark.NOSE_BASE,
+            FaceLandmark.MOUTH_LEFT, FaceLandmark.MOUTH_RIGHT, FaceLandmark.LEFT_EAR, FaceLandmark.RIGHT_EAR};
+
+    // MLKit 人脸检测器，只在检测线程上使用；关键点模式改变时重建
+    private FaceDetector detector;
+    private boolean detectorLandmarks;
+    private volatile boolean landmarks = true;
+
+    private final boolean mirror;
+    private final PipelineConfig.DetectorInput input;
+    private final LatencyHistogram conversionLatency;
+    private final DetectionTransform transform = new DetectionTransform();
+    private final int[] box = new int[4];
+
+    // 检测线程独占：整帧 Bitmap 与 ARGB 缓冲区，分辨率变化时重建
+    private ObjectPool<Bitmap> bitmapPool;
+    private int[] argbPixels;
+    // 检测线程独占：YUV 输入时的 NV21 缓冲区
+    private byte[] nv21;
+
+    /**
+     * @param conversionLatency 记录 YUV → Bitmap 的耗时（YUV 输入时没有这一步）
+     */
+    public MlKitFaceDetector(boolean mirror, PipelineConfig.DetectorInput input, LatencyHistogram conversionLatency) {
+        this.mirror = mirror;
+        this.input = input;
+        this.conversionLatency = conversionLatency;
+        detector = createDetector(true);
+        detectorLandmarks = true;
+    }
+
+    private static FaceDetector createDetector(boolean landmarks) {
+        // 配置人脸检测器参数
+        FaceDetectorOptions options = new FaceDetectorOptions.Builder()
+                .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST) // 快速模式
+                .setLandmarkMode(landmarks
+                        ? FaceDetectorOptions.LANDMARK_MODE_ALL                 // 检测五官关键点
+                        : FaceDetectorOptions.LANDMARK_MODE_NONE)
+                .build();
+        return FaceDetection.getClient(options);
+    }
+
+    /**
+     * 是否检测五官关键点，可在运行中调整，下一次检测生效
+     */
+    public void setLandmarks(boolean landmarks) {
+        this.landmarks = landmarks;
+    }
+
+    @Override
+    public boolean detect(FrameContext context) throws Exception {
+        boolean withLandmarks = landmarks;
+        if (withLandmarks != detectorLandmarks) {
+            detector.close();
+            detector = createDetector(withLandmarks);
+            detectorLandmarks = withLandmarks;
+        }
+        YuvFrame frame = context.frame.get();
+        List<Face> faces;
+        if (input == PipelineConfig.DetectorInput.YUV) {
+            // 整帧按 NV21 连同旋转角度交给 MLKit，结果在竖直、未镜像的画面中
+            nv21 = frame.toNv21(nv21);
+            transform.setSource(frame.width, frame.height, context.rotationDegrees, mirror);
+            faces = Tasks.await(detector.process(InputImage.fromByteArray(nv21, frame.width, frame.height,
+                    context.rotationDegrees, InputImage.IMAGE_FORMAT_NV21)));
+        } else {
+            // 将 Bitmap 封装成 InputImage 用于 MLKit 识别，在当前线程等待结果
+            long start = System.nanoTime();
+            Pooled<Bitmap> bitmap = imageToBitmap(frame);
+            conversionLatency.recordSince(start);
+            transform.setSource(frame.width, frame.height, 0, false);
+            try {
+                faces = Tasks.await(detector.process(InputImage.fromBitmap(bitmap.get(), 0)));
+            } finally {
+                bitmap.release();
+            }
+        }
+        if (faces.isEmpty()) {
+            return false;
+        }
+
+        // 取第一张脸，获取眼睛关键点（按分析帧中的左右）
+        Face face = faces.get(0);
+        context.landmarkMask = 0;
+        if (withLandmarks) {
+            for (int i = 0; i < LANDMARK_TYPES.length; i++) {
+                FaceLandmark landmark = face.getLandmark(LANDMARK_TYPES[transform.sourceLandmark(i)]);
+                if (landmark != null) {
+                    PointF position = landmark.getPosition();
+                    context.landmarks[i * 2] = transform.mapX(position.x, position.y);
+                    context.landmarks[i * 2 + 1] = transform.mapY(position.x, position.y);
+                    context.landmarkMask |= 1 << i;
+                }
+            }
+            int eyes = (1 << LandmarkPoseSolver.LEFT_EYE) | (1 << LandmarkPoseSolver.RIGHT_EYE);
+            if ((context.landmarkMask & eyes) != eyes) {
+                context.landmarkMask = 0;
+                return false;
+            }
+        }
+
+        context.faceCount = 0;
+        context.droppedFaces = 0;
+        for (int i = 0; i < faces.size(); i++) {
+            if (context.faceCount == FrameContext.MAX_FACES) {
+                // 超出上限的人脸不再映射坐标，只计数
+                context.droppedFaces += faces.size() - i;
+                break;
+            }
+            Rect bounds = faces.get(i).getBoundingBox();
+            transform.mapBox(bounds.left, bounds.top, bounds.right, bounds.bottom, box, 0);
+            context.addFace(box[0], box[1], box[2], box[3]);
+        }
+        if (withLandmarks) {
+            context.leftEyeX = context.landmarks[LandmarkPoseSolver.LEFT_EYE * 2];
+            context.leftEyeY = context.landmarks[LandmarkPoseSolver.LEFT_EYE * 2 + 1];
+            context.rightEyeX = context.landmarks[LandmarkPoseSolver.RIGHT_EYE * 2];
+            context.rightEyeY = context.landmarks[LandmarkPoseSolver.RIGHT_EYE * 2 + 1];
+        } else {
+            float width = context.faceRight - context.faceLeft;
+            float eyeY = context.faceTop + EYE_HEIGHT * (context.faceBottom - context.faceTop);
+            context.leftEyeX = context.faceLeft + EYE_INSET * width;
+            context.leftEyeY = eyeY;
+            context.rightEyeX = context.faceRight - EYE_INSET * width;
+            context.rightEyeY = eyeY;
+        }
+        return true;
+    }
+
+    /**
+     * 将 YUV 帧转换为 Bitmap（直接按 stride 转换 YUV -> ARGB，Bitmap 来自对象池）
+     */
+    private Pooled<Bitmap> imageToBitmap(YuvFrame frame) {
+        int width = frame.width;
+        int height = frame.height;
+        if (argbPixels == null || argbPixels.length != width * height) {
+            // 分辨率变化时重建池，旧对象交给 GC
+            argbPixels = new int[width * height];
+            bitmapPool = new ObjectPool<>("frameBitmap",
+                    () -> Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888), false);
+        }
+
+        YuvToRgbConverter.yuvToArgb(frame, argbPixels, mirror);
+        Pooled<Bitmap> bitmap = bitmapPool.acquire();
+        bitmap.get().setPixels(argbPixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    @Override
+    public void close() {
+        detector.close();
+    }
+}
@@ -0,0 +1,189 @@
+package com.demo.headpose;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 模型文件缓存（纯 Java）：把打包在应用内的模型拷贝到可按路径加载的目录。
+ * 拷贝时同时计算 SHA-256，先写临时文件、刷盘后原子改名，再写入记录大小、哈希与版本戳的 .meta 文件；
+ * 只有 .meta 与源的大小、版本戳以及缓存文件大小都一致时才复用缓存，半截文件和旧版本都会被重新拷贝。
+ */
+public class ModelCache {
+
+    // 拷贝与哈希使用的缓冲区大小
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * 模型来源（Android 上为 assets）
+     */
+    public interface Source {
+        /**
+         * @return 字节数，未知时返回 -1
+         */
+        long length() throws IOException;
+
+        ReadableByteChannel open() throws IOException;
+    }
+
+    private final File directory;
+    private final boolean verifyCachedHash;
+
+    private long bytesCopied;
+
+    /**
+     * @param verifyCachedHash 复用缓存前是否重新计算缓存文件的哈希（更安全，但每次启动都要读一遍文件）
+     */
+    public ModelCache(File directory, boolean verifyCachedHash) {
+        this.directory = directory;
+        this.verifyCachedHash = verifyCachedHash;
+    }
+
+    /**
+     * 返回 name 对应的缓存文件，缺失或失效时从 source 重新拷贝
+     * @param stamp          源的版本戳（如应用的安装时间），变化时重新拷贝
+     * @param expectedSha256 期望的 SHA-256（十六进制），为 null 时不校验源内容
+     */
+    public File ensure(String name, Source source, String stamp, String expectedSha256) throws IOException {
+        File file = new File(directory, name);
+        File metaFile = new File(directory, name + ".meta");
+
+        Meta meta = Meta.read(metaFile);
+        long sourceLength = source.length();
+        if (meta != null && file.length() == meta.length
+                && (sourceLength < 0 || sourceLength == meta.length)
+                && meta.stamp.equals(stamp)
+                && (expectedSha256 == null || expectedSha256.equalsIgnoreCase(meta.sha256))
+                && (!verifyCachedHash || meta.sha256.equals(sha256(file)))) {
+            return file;
+        }
+
+        // 先删 .meta，拷贝中途被杀也不会留下看似有效的缓存
+        metaFile.delete();
+        File temp = new File(directory, name + ".tmp");
+        String sha256 = copy(source, sourceLength, temp);
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+            temp.delete();
+            throw new IOException("Model " + name + " hash mismatch: expected " + expectedSha256 + ", got " + sha256);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        new Meta(file.length(), sha256, stamp).write(metaFile);
+        return file;
+    }
+
+    /**
+     * 累计拷贝的字节数（缓存命中时不增加）
+     */
+    public long getBytesCopied() {
+        return bytesCopied;
+    }
+
+    // 大缓冲区通道拷贝，同时计算哈希，最后刷盘
+    private String copy(Source source, long length, File target) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long total = 0;
+        try (ReadableByteChannel in = source.open();
+             FileOutputStream out = new FileOutputStream(target);
+             FileChannel channel = out.getChannel()) {
+            while (length < 0 || total < length) {
+                if (length >= 0) {
+                    buffer.limit((int) Math.min(buffer.capacity(), length - total));
+                }
+                int read = in.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+                total += read;
+            }
+            channel.force(true);
+        }
+        if (length >= 0 && total != length) {
+            target.delete();
+            throw new IOException("Model source truncated: read " + total + " of " + length + " bytes");
+        }
+        bytesCopied += total;
+        return hex(digest.digest());
+    }
+
+    /**
+     * 计算文件的 SHA-256（十六进制）
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"); FileChannel channel = in.getChannel()) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * .meta 文件内容：大小、哈希、版本戳，各占一行
+     */
+    private static final class Meta {
+        final long length;
+        final String sha256;
+        final String stamp;
+
+        Meta(long length, String sha256, String stamp) {
+            this.length = length;
+            this.sha256 = sha256;
+            this.stamp = stamp;
+        }
+
+        static Meta read(File file) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try {
+                String[] lines = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\n", -1);
+                return lines.length < 3 ? null : new Meta(Long.parseLong(lines[0]), lines[1], lines[2]);
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        void write(File file) throws IOException {
+            File temp = new File(file.getPath() + ".tmp");
+            Files.write(temp.toPath(), (length + "\n" + sha256 + "\n" + stamp).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
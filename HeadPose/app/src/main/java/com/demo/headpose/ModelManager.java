@@ -0,0 +1,262 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在后台线程准备推理后端：校验 / 拷贝模型缓存、加载模型、预热推理，完成后在主线程回调。
+ * 同时记录各步骤耗时（StartupMetrics）。PyTorch 后端按 ModelTierRegistry 选择模型档位，运行中可以加载其他档位（loadTier）。
+ */
+public class ModelManager {
+    private static final String TAG = "ModelManager";
+
+    // 预热时每个批大小档位的推理次数
+    private static final int WARMUP_RUNS = 3;
+
+    /**
+     * 加载结果回调（主线程）
+     */
+    public interface Listener {
+        void onReady(PoseEstimator estimator);
+
+        void onError(Exception error);
+    }
+
+    private final Context context;
+    private final StartupMetrics metrics;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "model-loader"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ModelTierRegistry tiers;
+
+    public ModelManager(Context context, StartupMetrics metrics) {
+        this.context = context.getApplicationContext();
+        this.metrics = metrics;
+        this.tiers = new ModelTierRegistry(ModelTier.defaultTiers(), assetNames(this.context));
+    }
+
+    /**
+     * assets 中实际打包的模型档位，从高到低
+     */
+    public ModelTierRegistry getTiers() {
+        return tiers;
+    }
+
+    /**
+     * 异步加载 config 选定的后端（PyTorch 后端使用 config.modelTier 档位）
+     */
+    public void load(PipelineConfig config, Listener listener) {
+        submit(() -> create(config, null, true), listener);
+    }
+
+    /**
+     * 异步加载另一个 PyTorch 模型档位（例如画质降档时换用更便宜的模型），不计入冷启动耗时
+     */
+    public void loadTier(PipelineConfig config, ModelTier tier, Listener listener) {
+        submit(() -> create(config, tier, false), listener);
+    }
+
+    /**
+     * 不再加载模型；已提交的加载照常完成并回调
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private interface Loader {
+        PoseEstimator load() throws Exception;
+    }
+
+    private void submit(Loader loader, Listener listener) {
+        executor.execute(() -> {
+            try {
+                PoseEstimator estimator = loader.load();
+                mainHandler.post(() -> listener.onReady(estimator));
+            } catch (Exception e) {
+                Log.e(TAG, "Model loading failed", e);
+                mainHandler.post(() -> listener.onError(e));
+            }
+        });
+    }
+
+    private PoseEstimator create(PipelineConfig config, ModelTier tier, boolean startup) throws Exception {
+        long start = SystemClock.elapsedRealtimeNanos();
+        boolean onnx = config.backend == PipelineConfig.Backend.ONNX;
+        if (!onnx && tier == null) {
+            tier = tiers.resolve(config.modelTier);
+        }
+        String modelPath = cachedAssetPath(context, onnx ? "fsanet.onnx" : tier.assetName);
+        long copied = SystemClock.elapsedRealtimeNanos();
+
+        PoseEstimator estimator;
+        if (!onnx) {
+            HeadPose.setNumThreads(config.inferenceThreads);
+        }
+        ModelTier modelTier = tier;
+        PoseWorkerPool.EstimatorFactory factory = (worker, threads) -> onnx
+                ? new OnnxPoseEstimator(modelPath, threads, BuildConfig.DEBUG)
+                : new HeadPose(modelPath, modelTier);
+        if (config.inferenceWorkers > 1) {
+            PoseWorkerPool pool = new PoseWorkerPool(config.inferenceWorkers, config.inferenceThreads, factory);
+            pool.start();
+            estimator = pool;
+        } else {
+            estimator = factory.create(0, config.inferenceThreads);
+        }
+        long loaded = SystemClock.elapsedRealtimeNanos();
+
+        estimator.setMaxBatchSize(config.maxBatchSize);
+        warmUp(estimator);
+        long warmedUp = SystemClock.elapsedRealtimeNanos();
+        if (startup) {
+            metrics.setCopyNanos(copied - start);
+            metrics.setLoadNanos(loaded - copied);
+            metrics.setWarmupNanos(warmedUp - loaded);
+        } else {
+            Log.i(TAG, "Loaded " + tier + " in " + (warmedUp - start) / 1_000_000 + " ms");
+        }
+        return estimator;
+    }
+
+    private static ModelTierRegistry.AssetLookup assetNames(Context context) {
+        String[] names;
+        try {
+            names = context.getAssets().list("");
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot list assets", e);
+            names = new String[0];
+        }
+        List<String> list = Arrays.asList(names);
+        return list::contains;
+    }
+
+    /**
+     * 用合成的灰色帧把每个会用到的批大小档位各跑几次，让首帧推理不再承担初始化开销
+     */
+    private static void warmUp(PoseEstimator estimator) {
+        int size = estimator.getInputSize() * 2;
+        YuvFrame frame = new YuvFrame();
+        frame.width = size;
+        frame.height = size;
+        frame.yRowStride = size;
+        frame.uvRowStride = size;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[size * size];
+        frame.u = new byte[size * size / 2];
+        frame.v = new byte[size * size / 2];
+        Arrays.fill(frame.y, (byte) 128);
+        Arrays.fill(frame.u, (byte) 128);
+        Arrays.fill(frame.v, (byte) 128);
+
+        int maxBatch = estimator.getMaxBatchSize();
+        int[] boxes = new int[maxBatch * 4];
+        for (int i = 0; i < maxBatch; i++) {
+            boxes[i * 4 + 2] = size;
+            boxes[i * 4 + 3] = size;
+        }
+        float[] degrees = new float[maxBatch * 3];
+        for (int bucket : BatchPoseEstimator.BATCH_BUCKETS) {
+            if (bucket > estimator.getMaxBatchSize()) {
+                break;
+            }
+            for (int run = 0; run < WARMUP_RUNS; run++) {
+                Pooled<? extends PoseInput> input = estimator.preprocessBatch(frame, boxes, 0, bucket, false);
+                estimator.infer(input.get(), degrees);
+                input.release();
+            }
+        }
+    }
+
+    /**
+     * 把 asset 缓存到 files 目录并返回路径。缓存按应用安装 / 更新时间与文件大小校验，
+     * debug 构建额外校验缓存文件的 SHA-256
+     */
+    public static String cachedAssetPath(Context context, String assetName) throws IOException {
+        ModelCache cache = new ModelCache(context.getFilesDir(), BuildConfig.DEBUG);
+        File file = cache.ensure(assetName, new AssetSource(context, assetName), installStamp(context), null);
+        if (cache.getBytesCopied() > 0) {
+            Log.i(TAG, "Copied " + assetName + " (" + cache.getBytesCopied() + " bytes) to cache");
+        }
+        return file.getAbsolutePath();
+    }
+
+    // APK 每次安装或更新都会改变，assets 只会随之变化
+    private static String installStamp(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.versionName + "/" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * 读取 asset：未压缩的 asset（见 build.gradle.kts 中的 noCompress）直接从 APK 文件通道读取，否则退回输入流
+     */
+    private static final class AssetSource implements ModelCache.Source {
+        private final Context context;
+        private final String name;
+
+        AssetSource(Context context, String name) {
+            this.context = context;
+            this.name = name;
+        }
+
+        @Override
+        public long length() {
+            try (AssetFileDescriptor descriptor = context.getAssets().openFd(name)) {
+                return descriptor.getLength();
+            } catch (IOException e) {
+                return -1; // 压缩存储，长度未知
+            }
+        }
+
+        @Override
+        public ReadableByteChannel open() throws IOException {
+            AssetFileDescriptor descriptor;
+            try {
+                descriptor = context.getAssets().openFd(name);
+            } catch (FileNotFoundException e) {
+                return Channels.newChannel(context.getAssets().open(name));
+            }
+            // 通道位置指向 APK 内 asset 的起点，ModelCache 只读取 length 字节
+            FileChannel channel = new FileInputStream(descriptor.getFileDescriptor()).getChannel();
+            channel.position(descriptor.getStartOffset());
+            return new ReadableByteChannel() {
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    return channel.read(dst);
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return channel.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                    descriptor.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.headpose;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PyTorch 后端的一个模型档位（纯 Java，不可变）：模型文件、加载方式、输入边长与标准化参数。
+ * 档位由 tools/export_model_tiers.py 从同一个训练好的模型导出。
+ */
+public final class ModelTier {
+
+    /**
+     * 模型文件格式
+     */
+    public enum Format {
+        // torch.jit.save 保存的完整 TorchScript，用 Module.load 加载
+        TORCHSCRIPT,
+        // _save_for_lite_interpreter 保存的移动端模型（.ptl），用 LiteModuleLoader 加载
+        LITE
+    }
+
+    public static final String FP32 = "fp32";
+    public static final String LITE = "lite";
+    public static final String INT8 = "int8";
+
+    public final String name;
+    public final String assetName;
+    public final Format format;
+    public final int inputSize;
+    public final float[] meanRgb;
+    public final float[] stdRgb;
+
+    public ModelTier(String name, String assetName, Format format, int inputSize, float[] meanRgb, float[] stdRgb) {
+        if (inputSize <= 0 || meanRgb.length != 3 || stdRgb.length != 3) {
+            throw new IllegalArgumentException("Bad model tier: " + name);
+        }
+        this.name = name;
+        this.assetName = assetName;
+        this.format = format;
+        this.inputSize = inputSize;
+        this.meanRgb = meanRgb.clone();
+        this.stdRgb = stdRgb.clone();
+    }
+
+    /**
+     * 默认档位，从高到低：原 fp32 模型；为移动端优化、输入缩小到 192 的 lite 模型；int8 动态量化模型
+     */
+    public static List<ModelTier> defaultTiers() {
+        return Arrays.asList(
+                new ModelTier(FP32, "_epoch_80_3.pt", Format.TORCHSCRIPT, 224,
+                        RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB),
+                new ModelTier(LITE, "_epoch_80_3_lite.ptl", Format.LITE, 192,
+                        RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB),
+                new ModelTier(INT8, "_epoch_80_3_int8.ptl", Format.LITE, 224,
+                        RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s(%s, %s, %dx%d)", name, assetName, format, inputSize, inputSize);
+    }
+}
@@ -0,0 +1,87 @@
+package com.demo.headpose;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 可用的模型档位（纯 Java）：按从高到低的顺序保留模型文件实际存在的档位。
+ */
+public class ModelTierRegistry {
+
+    /**
+     * 模型文件是否存在（Android 上查询 assets）
+     */
+    public interface AssetLookup {
+        boolean exists(String assetName);
+    }
+
+    private final List<ModelTier> tiers;
+
+    /**
+     * @param candidates 从高到低排列的候选档位，名称不能重复
+     */
+    public ModelTierRegistry(List<ModelTier> candidates, AssetLookup assets) {
+        List<ModelTier> available = new ArrayList<>();
+        for (ModelTier tier : candidates) {
+            if (indexOf(available, tier.name) >= 0) {
+                throw new IllegalArgumentException("Duplicate model tier: " + tier.name);
+            }
+            if (assets.exists(tier.assetName)) {
+                available.add(tier);
+            }
+        }
+        tiers = Collections.unmodifiableList(available);
+    }
+
+    /**
+     * 可用的档位，从高到低
+     */
+    public List<ModelTier> getTiers() {
+        return tiers;
+    }
+
+    public int size() {
+        return tiers.size();
+    }
+
+    public ModelTier get(int index) {
+        return tiers.get(index);
+    }
+
+    /**
+     * @return 不存在或文件缺失时返回 -1
+     */
+    public int indexOf(String name) {
+        return indexOf(tiers, name);
+    }
+
+    /**
+     * 按名称查找，不可用时退回最高的可用档位
+     * @throws IllegalStateException 没有任何可用档位
+     */
+    public ModelTier resolve(String name) {
+        if (tiers.isEmpty()) {
+            throw new IllegalStateException("No model tier available");
+        }
+        int index = indexOf(name);
+        return tiers.get(Math.max(0, index));
+    }
+
+    /**
+     * 从 base 档位往下（更便宜）数 steps 档，不超过最低的可用档位
+     */
+    public ModelTier lower(ModelTier base, int steps) {
+        int index = Math.max(0, indexOf(base.name));
+        return tiers.get(Math.min(tiers.size() - 1, index + Math.max(0, steps)));
+    }
+
+    private static int indexOf(List<ModelTier> tiers, String name) {
+        for (int i = 0; i < tiers.size(); i++) {
+            if (tiers.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -24,34 +24,29 @@ public class MyImageUtils {
 
     //由欧拉角绘制坐标轴
     public static void drawAxis(Bitmap drawBitmap, float yaw, float pitch, float roll, float centerX, float centerY, float size, float thick) {
-        // 创建一个 Canvas 对象
-        Canvas canvas = new Canvas(drawBitmap);
         // 创建一个画笔对象
         Paint paint = new Paint();
         paint.setStrokeWidth(thick);
+        drawAxis(new Canvas(drawBitmap), paint, yaw, pitch, roll, centerX, centerY, size);
+    }
 
-        yaw = (float) -(yaw * Math.PI / 180);
-        pitch = (float) (pitch * Math.PI / 180);
-        roll = (float) (roll * Math.PI / 180);
+    //同上，使用调用者复用的 Canvas 和 Paint（线宽由 paint 决定，颜色会被修改）
+    public static void drawAxis(Canvas canvas, Paint paint, float yaw, float pitch, float roll, float centerX, float centerY, float size) {
+        drawAxis(canvas, paint, new float[AxisProjection.OUT_SIZE], yaw, pitch, roll, centerX, centerY, size);
+    }
 
-        // X 轴
-        float x1 = size * (float) (Math.cos(yaw) * Math.cos(roll)) + centerX;
-        float y1 = size * (float) (Math.cos(pitch) * Math.sin(roll) + Math.cos(roll) * Math.sin(pitch) * Math.sin(yaw)) + centerY;
-        // Y 轴
-        float x2 = (float) (size * (-Math.cos(yaw) * Math.sin(roll)) + centerX);
-        float y2 = size * (float) (Math.cos(pitch) * Math.cos(roll) - Math.sin(pitch) * Math.sin(yaw) * Math.sin(roll)) + centerY;
-        // Z 轴
-        float x3 = size * (float) (Math.sin(yaw)) + centerX;
-        float y3 = (float) (size * (-Math.cos(yaw) * Math.sin(pitch)) + centerY);
+    //同上，端点写入调用者复用的 axis（长度至少 AxisProjection.OUT_SIZE），不分配内存
+    public static void drawAxis(Canvas canvas, Paint paint, float[] axis, float yaw, float pitch, float roll, float centerX, float centerY, float size) {
+        AxisProjection.project(yaw, pitch, roll, centerX, centerY, size, axis, 0);
 
         // 绘制 X 轴 （红色）
         paint.setColor(Color.RED);
-        canvas.drawLine(centerX, centerY, x1, y1, paint);
+        canvas.drawLine(centerX, centerY, axis[0], axis[1], paint);
         // 绘制 Y 轴 （绿色）
         paint.setColor(Color.GREEN);
-        canvas.drawLine(centerX, centerY, x2, y2, paint);
+        canvas.drawLine(centerX, centerY, axis[2], axis[3], paint);
         // 绘制 Z 轴 （蓝色）
         paint.setColor(Color.BLUE);
-        canvas.drawLine(centerX, centerY, x3, y3, paint);
+        canvas.drawLine(centerX, centerY, axis[4], axis[5], paint);
     }
 }
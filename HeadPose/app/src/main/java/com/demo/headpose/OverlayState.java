@@ -0,0 +1,87 @@
+package com.demo.headpose;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流水线 → 叠加层的检测结果交接（纯 Java，三缓冲，与 LatestPoseSlot 相同的做法）。
+ * 只拷贝人脸框、角度与双眼坐标这几十个数值，不拷贝图像；流水线线程从不阻塞，
+ * UI 线程每次绘制拿到的都是最新一帧，来不及绘制的旧帧直接被覆盖。
+ */
+public class OverlayState {
+
+    /**
+     * 一帧的绘制数据，坐标为镜像后分析帧坐标
+     */
+    public static class Snapshot {
+        public long sequence;
+        public int frameWidth;
+        public int frameHeight;
+        // 显示时需要顺时针旋转的角度
+        public int rotationDegrees;
+        public int faceCount;
+        public final int[] faceBoxes = new int[FrameContext.MAX_FACES * 4];
+        public final float[] faceDegrees = new float[FrameContext.MAX_FACES * 3];
+        // 主人脸的双眼坐标
+        public float leftEyeX;
+        public float leftEyeY;
+        public float rightEyeX;
+        public float rightEyeY;
+    }
+
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final Snapshot[] buffers = {new Snapshot(), new Snapshot(), new Snapshot()};
+    private final AtomicInteger state = new AtomicInteger(1);
+
+    // 生产者正在写的缓冲 / 消费者正在读的缓冲
+    private int back = 0;
+    private int front = 2;
+
+    private volatile long overwritten;
+
+    /**
+     * 流水线线程调用：拷贝一帧的检测与推理结果，不分配内存
+     */
+    public void publish(FrameContext context, int frameWidth, int frameHeight, int rotationDegrees) {
+        Snapshot snapshot = buffers[back];
+        snapshot.sequence = context.sequence;
+        snapshot.frameWidth = frameWidth;
+        snapshot.frameHeight = frameHeight;
+        snapshot.rotationDegrees = rotationDegrees;
+        int count = Math.min(context.faceCount, FrameContext.MAX_FACES);
+        snapshot.faceCount = count;
+        System.arraycopy(context.faceBoxes, 0, snapshot.faceBoxes, 0, count * 4);
+        System.arraycopy(context.faceDegrees, 0, snapshot.faceDegrees, 0, count * 3);
+        snapshot.leftEyeX = context.leftEyeX;
+        snapshot.leftEyeY = context.leftEyeY;
+        snapshot.rightEyeX = context.rightEyeX;
+        snapshot.rightEyeY = context.rightEyeY;
+
+        int previous = state.getAndSet(back | FRESH);
+        if ((previous & FRESH) != 0) {
+            overwritten++;
+        }
+        back = previous & INDEX_MASK;
+    }
+
+    /**
+     * UI 线程调用：有新数据时换到最新一帧；返回的对象在下一次 latest() 之前保持不变
+     * @return 还没有任何数据时返回 null
+     */
+    public Snapshot latest() {
+        if ((state.get() & FRESH) != 0) {
+            int previous = state.getAndSet(front);
+            front = previous & INDEX_MASK;
+        }
+        Snapshot snapshot = buffers[front];
+        return snapshot.sequence == 0 ? null : snapshot;
+    }
+
+    /**
+     * 被更新的帧覆盖、没有绘制出来的帧数
+     */
+    public long getOverwrittenCount() {
+        return overwritten;
+    }
+}
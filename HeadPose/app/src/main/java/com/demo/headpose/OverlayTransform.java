@@ -0,0 +1,107 @@
+package com.demo.headpose;
+
+/**
+ * 分析帧坐标 → 叠加层 View 坐标的映射（纯 Java，不分配内存）。
+ * 分析帧先按 rotation 顺时针旋转到竖直方向，再按 PreviewView 的 FILL_CENTER 规则
+ * 等比缩放到铺满 View 并居中裁剪，因此叠加层与预览画面对齐，不需要拷贝或旋转图像。
+ */
+public class OverlayTransform {
+
+    private int sourceWidth;
+    private int sourceHeight;
+    private int rotation;
+    private int viewWidth;
+    private int viewHeight;
+
+    private float scale = 1f;
+    private float offsetX;
+    private float offsetY;
+
+    /**
+     * @param width    分析帧宽度
+     * @param height   分析帧高度
+     * @param rotation 显示时需要顺时针旋转的角度（0 / 90 / 180 / 270）
+     * @return 参数有变化时返回 true
+     */
+    public boolean setSource(int width, int height, int rotation) {
+        rotation = ((rotation % 360) + 360) % 360;
+        if (width == sourceWidth && height == sourceHeight && rotation == this.rotation) {
+            return false;
+        }
+        sourceWidth = width;
+        sourceHeight = height;
+        this.rotation = rotation;
+        update();
+        return true;
+    }
+
+    public void setView(int width, int height) {
+        viewWidth = width;
+        viewHeight = height;
+        update();
+    }
+
+    /**
+     * 映射后的 x 坐标（需同时传入 y，旋转会交换坐标轴）
+     */
+    public float mapX(float x, float y) {
+        return rotatedX(x, y) * scale + offsetX;
+    }
+
+    public float mapY(float x, float y) {
+        return rotatedY(x, y) * scale + offsetY;
+    }
+
+    /**
+     * 分析帧中的长度在 View 中的长度
+     */
+    public float mapLength(float length) {
+        return length * scale;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    private float rotatedX(float x, float y) {
+        switch (rotation) {
+            case 90:
+                return sourceHeight - y;
+            case 180:
+                return sourceWidth - x;
+            case 270:
+                return y;
+            default:
+                return x;
+        }
+    }
+
+    private float rotatedY(float x, float y) {
+        switch (rotation) {
+            case 90:
+                return x;
+            case 180:
+                return sourceHeight - y;
+            case 270:
+                return sourceWidth - x;
+            default:
+                return y;
+        }
+    }
+
+    private void update() {
+        if (sourceWidth == 0 || sourceHeight == 0 || viewWidth == 0 || viewHeight == 0) {
+            scale = 1f;
+            offsetX = 0;
+            offsetY = 0;
+            return;
+        }
+        boolean swap = rotation == 90 || rotation == 270;
+        int uprightWidth = swap ? sourceHeight : sourceWidth;
+        int uprightHeight = swap ? sourceWidth : sourceHeight;
+        // FILL_CENTER：铺满 View，多出的部分两侧裁掉
+        scale = Math.max((float) viewWidth / uprightWidth, (float) viewHeight / uprightHeight);
+        offsetX = (viewWidth - uprightWidth * scale) / 2;
+        offsetY = (viewHeight - uprightHeight * scale) / 2;
+    }
+}
@@ -0,0 +1,136 @@
+package com.demo.headpose;
+
+/**
+ * 帧处理流水线的配置（纯 Java）。
+ * 每个阶段可单独设置输入队列容量与队列满时的策略。
+ */
+public class PipelineConfig {
+
+    /**
+     * 流水线阶段，顺序即处理顺序
+     */
+    public enum Stage {
+        DETECT,
+        PREPROCESS,
+        INFER,
+        RENDER,
+        PUBLISH
+    }
+
+    /**
+     * 头姿估计推理后端
+     */
+    public enum Backend {
+        PYTORCH,
+        ONNX
+    }
+
+    /**
+     * 头姿估计引擎
+     */
+    public enum PoseEngine {
+        // 每帧用 CNN 推理
+        CNN,
+        // 主人脸有足够的关键点时用 LandmarkPoseSolver 几何求解，否则用 CNN
+        LANDMARKS,
+        // 用 CNN，推理耗时超出 inferBudgetMillis 时改用关键点求解（见 PoseEngineSelector）
+        AUTO
+    }
+
+    /**
+     * MLKit 检测器的输入
+     */
+    public enum DetectorInput {
+        // 整帧转换为镜像后的 ARGB Bitmap，旋转角度为 0
+        BITMAP,
+        // 整帧按 NV21 连同旋转角度交给 MLKit，不做 RGB 转换，结果由 DetectionTransform 映射回分析帧
+        YUV
+    }
+
+    public final int[] queueCapacity = new int[Stage.values().length];
+    public final FramePipeline.DropPolicy[] dropPolicy = new FramePipeline.DropPolicy[Stage.values().length];
+
+    // 先检测后跟踪：每隔多少帧做一次完整检测（1 表示每帧检测，不跟踪）
+    public int detectInterval = 1;
+    // 跟踪置信度低于该值时立即重新检测
+    public float minTrackConfidence = 0.6f;
+    // 模板匹配的搜索半径（像素）
+    public int trackSearchRadius = 24;
+
+    // 多人脸批量推理：单次 forward 的最大人脸数（取 BatchPoseEstimator.BATCH_BUCKETS 中的档位），多出的人脸分几次 forward；
+    // 每帧最多推理 FrameContext.MAX_FACES 张脸，检测器多出的计入 faces_dropped
+    public int maxBatchSize = 4;
+
+    // MLKit 检测器的输入方式
+    public DetectorInput detectorInput = DetectorInput.BITMAP;
+
+    // 头姿估计引擎与 AUTO 模式下 CNN 推理的耗时预算（毫秒）
+    public PoseEngine poseEngine = PoseEngine.CNN;
+    public int inferBudgetMillis = 25;
+
+    // 姿态缓存（见 PoseCache）：单张脸的区域与参照帧相比几乎没有变化时沿用参照帧的姿态、跳过推理。
+    // poseCacheMaxAgeMillis 为参照帧最长沿用的时间，0 表示不启用
+    public int poseCacheMaxAgeMillis = 0;
+    public float poseCacheMaxLumaDifference = PoseCache.DEFAULT_MAX_LUMA_DIFFERENCE;
+    public float poseCacheMaxBoxDrift = PoseCache.DEFAULT_MAX_BOX_DRIFT;
+
+    // 推理后端，启动时选定
+    public Backend backend = Backend.PYTORCH;
+    // PyTorch 后端的模型档位（ModelTier 的名称），文件缺失时退回最高的可用档位
+    public String modelTier = ModelTier.FP32;
+    // 推理的算子内线程数，0 表示由推理库决定（PyTorch 的设置对整个进程生效）
+    public int inferenceThreads = 0;
+    // 推理工作线程数：大于 1 时每个工作线程加载一份模型，多张脸或多路调用并行推理（见 PoseWorkerPool），内存占用随之成倍增加
+    public int inferenceWorkers = 1;
+
+    // 固定频率发布（Hz）：大于 0 时推理结果先经 PoseFilter 滤波，再按该频率外推发布；0 表示每帧直接发送
+    public int publishRateHz = 0;
+    // 在流水线延迟之外额外外推的时间（毫秒）
+    public int predictionLeadMillis = 0;
+
+    // 自适应画质：端到端延迟预算（毫秒），大于 0 时由 AdaptiveQualityController 从 qualityLevel 档位开始，
+    // 在 QualityLevel.defaultLadder() 的档位间升降；0 表示不调整
+    public int latencyBudgetMillis = 0;
+    public int qualityLevel = QualityLevel.DEFAULT_LEVEL;
+
+    // 前置摄像头画面需要镜像：检测、预处理与显示都使用镜像后的坐标
+    public boolean mirror = true;
+
+    // 对象池泄漏检测（记录 acquire 调用栈，开销较大，只在 debug 构建中打开）
+    public boolean leakDetection = false;
+
+    // 无界面模式：不创建绘制阶段，只检测、推理并发送（例如作为纯传感器运行时）
+    public boolean headless = false;
+
+    // 指标快照的输出周期（毫秒）与本地统计端口（0 表示不监听）
+    public int metricsPeriodMillis = 1000;
+    public int metricsPort = 5001;
+
+    public PipelineConfig() {
+        for (Stage stage : Stage.values()) {
+            // 默认只保留最新的一帧，保证低延迟
+            queueCapacity[stage.ordinal()] = 1;
+            dropPolicy[stage.ordinal()] = FramePipeline.DropPolicy.LATEST_WINS;
+        }
+    }
+
+    public PipelineConfig setStage(Stage stage, int capacity, FramePipeline.DropPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        queueCapacity[stage.ordinal()] = capacity;
+        dropPolicy[stage.ordinal()] = policy;
+        return this;
+    }
+
+    /**
+     * 同时在途的最大帧数：所有队列容量加上每个阶段正在处理的一帧
+     */
+    public int maxFramesInFlight() {
+        int total = 0;
+        for (int capacity : queueCapacity) {
+            total += capacity + 1;
+        }
+        return total;
+    }
+}
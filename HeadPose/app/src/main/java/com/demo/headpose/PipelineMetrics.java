@@ -0,0 +1,121 @@
+package com.demo.headpose;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流水线指标（纯 Java）：每个环节一个无锁 LatencyHistogram，外加按名称注册的计数器（丢帧数等）。
+ * 热路径上只调用 histogram(...).record / recordSince；snapshot 由上报线程周期性调用，
+ * 输出累计值与距上一次快照的区间分位数，格式为每行 "名称 key=value ..."，便于 grep 与脚本解析。
+ */
+public class PipelineMetrics {
+
+    /**
+     * 计时环节
+     */
+    public enum Stage {
+        // analyze() 中拷贝 YUV 平面
+        FRAME_COPY,
+        // YUV → ARGB 转换（镜像在同一遍中完成）
+        YUV_TO_RGB,
+        // 人脸检测或跟踪（检测器需要 RGB 图像时包含 YUV_TO_RGB）
+        DETECT,
+        // 从 YUV 平面裁剪、缩放、归一化到模型输入（裁剪与预处理在同一遍中完成）
+        PREPROCESS,
+        // 模型推理与输出解码（旋转矩阵 → 欧拉角）
+        INFER,
+        // 把结果交给叠加层
+        RENDER,
+        // 写线程把一条记录写到传输层（socket）
+        SEND,
+        // 相机采集 → 发送阶段交出结果
+        END_TO_END
+    }
+
+    /**
+     * 计数器：在上报时读取，由各组件自己维护（例如 FramePipeline 的丢帧数）
+     */
+    public interface Counter {
+        long get();
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final ArrayList<String> counterNames = new ArrayList<>();
+    private final ArrayList<Counter> counters = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+
+    // 以下只在 snapshot 中使用（由锁保护）
+    private final long[][] previousCounts = new long[STAGES.length][LatencyHistogram.BUCKETS];
+    private final long[] counts = new long[LatencyHistogram.BUCKETS];
+    private final long[] interval = new long[LatencyHistogram.BUCKETS];
+    private long previousSnapshotNanos = startNanos;
+
+    public PipelineMetrics() {
+        for (int i = 0; i < STAGES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * 注册一个计数器，名称按注册顺序输出
+     */
+    public synchronized void addCounter(String name, Counter counter) {
+        counterNames.add(name);
+        counters.add(counter);
+    }
+
+    /**
+     * 追加一次快照：每个环节输出累计的次数、平均值、p50 / p90 / p99 / 最大值，
+     * 以及本区间的次数与 p50 / p99（微秒）；然后输出所有计数器
+     */
+    public synchronized void snapshot(StringBuilder out) {
+        long now = System.nanoTime();
+        out.append("metrics uptime_ms=").append(TimeUnit.NANOSECONDS.toMillis(now - startNanos))
+                .append(" interval_ms=").append(TimeUnit.NANOSECONDS.toMillis(now - previousSnapshotNanos))
+                .append('\n');
+        previousSnapshotNanos = now;
+
+        for (int i = 0; i < STAGES.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            long count = histogram.getCount();
+            long sum = histogram.getSumNanos();
+            histogram.copyCounts(counts);
+            long intervalCount = 0;
+            long[] previous = previousCounts[i];
+            for (int b = 0; b < LatencyHistogram.BUCKETS; b++) {
+                interval[b] = counts[b] - previous[b];
+                intervalCount += interval[b];
+                previous[b] = counts[b];
+            }
+
+            out.append("stage ").append(STAGES[i].name().toLowerCase())
+                    .append(" count=").append(count);
+            appendMicros(out, " mean_us=", count == 0 ? 0 : sum / count);
+            // 分位数取桶的上界，不超过实际最大值
+            long max = histogram.getMaxNanos();
+            appendMicros(out, " p50_us=", Math.min(max, LatencyHistogram.valueAtPercentile(counts, 50)));
+            appendMicros(out, " p90_us=", Math.min(max, LatencyHistogram.valueAtPercentile(counts, 90)));
+            appendMicros(out, " p99_us=", Math.min(max, LatencyHistogram.valueAtPercentile(counts, 99)));
+            appendMicros(out, " max_us=", max);
+            out.append(" interval_count=").append(intervalCount);
+            appendMicros(out, " interval_p50_us=", Math.min(max, LatencyHistogram.valueAtPercentile(interval, 50)));
+            appendMicros(out, " interval_p99_us=", Math.min(max, LatencyHistogram.valueAtPercentile(interval, 99)));
+            out.append('\n');
+        }
+
+        for (int i = 0; i < counters.size(); i++) {
+            out.append("counter ").append(counterNames.get(i)).append('=').append(counters.get(i).get()).append('\n');
+        }
+    }
+
+    // 纳秒 → 微秒，保留一位小数
+    private static void appendMicros(StringBuilder out, String key, long nanos) {
+        out.append(key).append(nanos / 1000).append('.').append(nanos % 1000 / 100);
+    }
+}
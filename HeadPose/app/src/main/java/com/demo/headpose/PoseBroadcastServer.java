@@ -0,0 +1,432 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Selector 的多订阅者头姿广播服务端（纯 Java）。
+ * 作为 PoseStreamWriter 的 Sink：写线程编码好的一帧只拷贝一次到共享的帧缓冲，
+ * 交给单个 selector 线程后，所有订阅者引用同一个缓冲发送（引用计数，不按客户端拷贝）。
+ * 每个订阅者有自己的有界发送队列，慢客户端按 SlowConsumerPolicy 丢最旧的帧或被断开，
+ * 不会拖慢其他订阅者，也不会阻塞写线程。
+ */
+public class PoseBroadcastServer implements PoseTransport {
+
+    /**
+     * 订阅者发送队列已满时的处理方式
+     */
+    public enum SlowConsumerPolicy {
+        // 丢掉队列中最旧的、尚未开始发送的帧
+        DROP_OLDEST,
+        // 直接断开该订阅者
+        DISCONNECT
+    }
+
+    // 写线程到 selector 线程的交接队列容量（帧）
+    private static final int HANDOFF_CAPACITY = 64;
+    private static final int MAX_FRAME_SIZE = Math.max(PoseRecord.BINARY_SIZE, PoseRecord.MAX_TEXT_SIZE);
+
+    private final InetSocketAddress address;
+    private final int subscriberCapacity;
+    private final SlowConsumerPolicy policy;
+    private final PoseTransport.Listener listener;
+    private int sendBufferSize;
+
+    private final ObjectPool<ByteBuffer> framePool = new ObjectPool<>("broadcast-frame",
+            () -> ByteBuffer.allocateDirect(MAX_FRAME_SIZE), false);
+
+    // 单生产者（写线程）/ 单消费者（selector 线程）交接环
+    private final Object[] handoff = new Object[HANDOFF_CAPACITY];
+    private final AtomicLong handoffHead = new AtomicLong();
+    private final AtomicLong handoffTail = new AtomicLong();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    // 只在 selector 线程上访问
+    private final ArrayList<Subscriber> subscribers = new ArrayList<>();
+    private final ByteBuffer readScratch = ByteBuffer.allocateDirect(256);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    private volatile int subscriberCount;
+    private volatile long broadcastCount;
+    private volatile long handoffDropped;
+    private volatile long frameDropped;
+    private volatile long slowDisconnects;
+
+    /**
+     * @param subscriberCapacity 每个订阅者最多排队的帧数
+     */
+    public PoseBroadcastServer(InetSocketAddress address, int subscriberCapacity,
+                               SlowConsumerPolicy policy, PoseTransport.Listener listener) {
+        if (subscriberCapacity < 1) {
+            throw new IllegalArgumentException("Subscriber capacity must be positive: " + subscriberCapacity);
+        }
+        this.address = address;
+        this.subscriberCapacity = subscriberCapacity;
+        this.policy = policy;
+        this.listener = listener != null ? listener : new PoseTransport.Listener() {
+        };
+        framePool.prefill(HANDOFF_CAPACITY + subscriberCapacity + 1);
+    }
+
+    /**
+     * 为新连接设置内核发送缓冲大小（字节），0 表示使用系统默认值。
+     * 缓冲越小，慢客户端越早进入自己的有界队列，排队延迟也越小
+     */
+    public PoseBroadcastServer setSendBufferSize(int bytes) {
+        this.sendBufferSize = bytes;
+        return this;
+    }
+
+    /**
+     * 绑定端口并启动 selector 线程
+     */
+    @Override
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::run, "pose-broadcast");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 写线程调用：把已编码的一帧交给 selector 线程广播，不阻塞。
+     * 交接队列已满（selector 线程跟不上）时丢弃该帧
+     */
+    @Override
+    public void write(ByteBuffer frame) {
+        if (subscriberCount == 0) {
+            frame.position(frame.limit());
+            return;
+        }
+        long head = handoffHead.get();
+        if (head - handoffTail.get() >= HANDOFF_CAPACITY) {
+            handoffDropped++;
+            frame.position(frame.limit());
+            return;
+        }
+        Pooled<ByteBuffer> shared = framePool.acquire();
+        ByteBuffer buffer = shared.get();
+        buffer.clear();
+        buffer.put(frame);
+        buffer.flip();
+        handoff[(int) (head % HANDOFF_CAPACITY)] = shared;
+        handoffHead.lazySet(head + 1);
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Subscriber subscriber = (Subscriber) key.attachment();
+                    if (key.isReadable()) {
+                        drainInput(subscriber);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(subscriber);
+                    }
+                }
+                dispatch();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                listener.onError(e instanceof IOException ? (IOException) e : new IOException(e));
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * 取出交接队列中的帧，追加到每个订阅者的队列后尝试立即发送
+     */
+    private void dispatch() {
+        long tail = handoffTail.get();
+        long head = handoffHead.get();
+        if (tail == head) {
+            return;
+        }
+        for (; tail < head; tail++) {
+            int index = (int) (tail % HANDOFF_CAPACITY);
+            @SuppressWarnings("unchecked")
+            Pooled<ByteBuffer> frame = (Pooled<ByteBuffer>) handoff[index];
+            handoff[index] = null;
+            // 倒序遍历，enqueue 可能断开并移除订阅者
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                enqueue(subscribers.get(i), frame);
+            }
+            frame.release();
+            broadcastCount++;
+        }
+        handoffTail.lazySet(head);
+
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = subscribers.get(i);
+            if (subscriber.size > 0 && (subscriber.key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+                flush(subscriber);
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Pooled<ByteBuffer> frame) {
+        if (subscriber.size == subscriberCapacity) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                slowDisconnects++;
+                close(subscriber, "slow consumer");
+                return;
+            }
+            frameDropped++;
+            if (!subscriber.dropOldest()) {
+                return; // 唯一的一帧正在发送，丢弃新帧
+            }
+        }
+        subscriber.add(frame.retain());
+    }
+
+    /**
+     * 尽量写出订阅者队列中的帧；内核缓冲满时关注 OP_WRITE，等可写后继续
+     */
+    private void flush(Subscriber subscriber) {
+        try {
+            while (subscriber.size > 0) {
+                Pooled<ByteBuffer> frame = subscriber.peek();
+                // 共享缓冲只在本线程上使用：每次写之前设置 position，limit 保持为帧长
+                ByteBuffer buffer = frame.get();
+                buffer.position(subscriber.offset);
+                subscriber.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    subscriber.offset = buffer.position();
+                    subscriber.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                subscriber.offset = 0;
+                subscriber.removeFirst();
+            }
+            subscriber.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(subscriber, e.toString());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (sendBufferSize > 0) {
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+                }
+                Subscriber subscriber = new Subscriber(channel, subscriberCapacity);
+                subscriber.remote = channel.getRemoteAddress();
+                subscriber.key = channel.register(selector, SelectionKey.OP_READ, subscriber);
+                subscribers.add(subscriber);
+                subscriberCount = subscribers.size();
+                listener.onSubscribed(subscriber.remote);
+            } catch (IOException e) {
+                listener.onError(e);
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 订阅者不发送数据，读到的内容直接丢弃；读到 EOF 表示对端关闭
+     */
+    private void drainInput(Subscriber subscriber) {
+        try {
+            int read;
+            do {
+                readScratch.clear();
+                read = subscriber.channel.read(readScratch);
+            } while (read > 0);
+            if (read < 0) {
+                close(subscriber, "closed by peer");
+            }
+        } catch (IOException e) {
+            close(subscriber, e.toString());
+        }
+    }
+
+    private void close(Subscriber subscriber, String reason) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount = subscribers.size();
+        while (subscriber.size > 0) {
+            subscriber.removeFirst();
+        }
+        subscriber.key.cancel();
+        try {
+            subscriber.channel.close();
+        } catch (IOException ignored) {
+        }
+        listener.onUnsubscribed(subscriber.remote, reason);
+    }
+
+    private void shutdown() {
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            close(subscribers.get(i), "server stopped");
+        }
+        // 归还交接队列中尚未广播的帧
+        long head = handoffHead.get();
+        for (long tail = handoffTail.get(); tail < head; tail++) {
+            int index = (int) (tail % HANDOFF_CAPACITY);
+            ((Pooled<?>) handoff[index]).release();
+            handoff[index] = null;
+        }
+        handoffTail.lazySet(head);
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            listener.onError(e);
+        }
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    /**
+     * 已分发给订阅者队列的帧数
+     */
+    public long getBroadcastCount() {
+        return broadcastCount;
+    }
+
+    /**
+     * selector 线程跟不上、在交接时被丢弃的帧数
+     */
+    public long getHandoffDroppedCount() {
+        return handoffDropped;
+    }
+
+    /**
+     * DROP_OLDEST 策略下所有订阅者累计丢弃的帧数
+     */
+    public long getFrameDroppedCount() {
+        return frameDropped;
+    }
+
+    /**
+     * DISCONNECT 策略下因发送队列满被断开的订阅者数
+     */
+    public long getSlowDisconnectCount() {
+        return slowDisconnects;
+    }
+
+    /**
+     * 一个订阅者：连接与其有界发送队列（共享帧的引用环）
+     */
+    private static final class Subscriber {
+        final SocketChannel channel;
+        final Pooled<?>[] queue;
+        SocketAddress remote;
+        SelectionKey key;
+        int head;
+        int size;
+        // 队首帧已发送的字节数
+        int offset;
+
+        Subscriber(SocketChannel channel, int capacity) {
+            this.channel = channel;
+            this.queue = new Pooled<?>[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        Pooled<ByteBuffer> peek() {
+            return (Pooled<ByteBuffer>) queue[head];
+        }
+
+        void add(Pooled<ByteBuffer> frame) {
+            queue[(head + size) % queue.length] = frame;
+            size++;
+        }
+
+        void removeFirst() {
+            queue[head].release();
+            queue[head] = null;
+            head = (head + 1) % queue.length;
+            size--;
+        }
+
+        /**
+         * 丢弃最旧的、尚未开始发送的帧。队首帧已发出一部分时保留它以免破坏帧边界，改丢第二旧的帧
+         * @return 没有可丢弃的帧时返回 false
+         */
+        boolean dropOldest() {
+            if (offset == 0) {
+                removeFirst();
+                return true;
+            }
+            if (size < 2) {
+                return false;
+            }
+            int second = (head + 1) % queue.length;
+            queue[second].release();
+            queue[second] = queue[head];
+            queue[head] = null;
+            head = second;
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.demo.headpose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PoseDatagramServer 的接收端（纯 Java，单线程使用，接收时不分配内存）。
+ * 负责订阅握手与定期保活；按包序号只交付比上一个更新的数据包，迟到或重复的包直接丢弃，
+ * 并统计丢包数与到达抖动（RFC 3550 的平滑估计，基于采集时间戳，与两端时钟偏差无关）。
+ * 包头的 session 变化说明服务端重启过（序号从 1 重新开始），此时从新会话的第一个包重新计数，不会把新包当作迟到的包丢弃。
+ */
+public class PoseDatagramReceiver implements Closeable {
+
+    // 保活间隔，需明显小于服务端的超时
+    public static final long KEEPALIVE_MILLIS = 1000;
+
+    private final DatagramSocket socket;
+    private final byte[] data = new byte[64];
+    private final DatagramPacket packet = new DatagramPacket(data, data.length);
+    private final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] controlData = new byte[PoseDatagramServer.CONTROL_SIZE];
+    private final DatagramPacket controlPacket = new DatagramPacket(controlData, controlData.length);
+    private final ByteBuffer controlBuffer = ByteBuffer.wrap(controlData).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long lastKeepaliveNanos;
+    private boolean hasSequence;
+    private int session;
+    private long lastSequence;
+    private long lastTransitNanos;
+    private boolean hasTransit;
+
+    private long received;
+    private long lost;
+    private long outOfOrder;
+    private double jitterNanos;
+    private long sessions;
+
+    public PoseDatagramReceiver(InetSocketAddress server) throws IOException {
+        socket = new DatagramSocket();
+        // 只接收来自服务端的包
+        socket.connect(server);
+    }
+
+    /**
+     * 发送 SUBSCRIBE 并等待 ACK，未收到时每 200 ms 重发一次
+     * @return 收到 ACK 返回 true；被拒绝或超时返回 false
+     */
+    public boolean subscribe(long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (System.nanoTime() < deadline) {
+            sendControl(PoseDatagramServer.SUBSCRIBE);
+            long retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            while (System.nanoTime() < Math.min(retryAt, deadline)) {
+                if (!receivePacket(Math.min(retryAt, deadline))) {
+                    break;
+                }
+                if (packet.getLength() == PoseDatagramServer.CONTROL_SIZE
+                        && buffer.getInt(0) == PoseDatagramServer.MAGIC) {
+                    byte type = data[4];
+                    if (type == PoseDatagramServer.ACK) {
+                        return true;
+                    }
+                    if (type == PoseDatagramServer.REJECT) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public void unsubscribe() throws IOException {
+        sendControl(PoseDatagramServer.UNSUBSCRIBE);
+    }
+
+    /**
+     * 等待下一个比已交付的更新的数据包，解码到 out；需要时顺便发送保活
+     * @return 超时返回 false
+     */
+    public boolean receive(PoseRecord out, long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long now = System.nanoTime();
+            if (now - lastKeepaliveNanos > TimeUnit.MILLISECONDS.toNanos(KEEPALIVE_MILLIS)) {
+                sendControl(PoseDatagramServer.SUBSCRIBE);
+            }
+            if (!receivePacket(deadline)) {
+                return false;
+            }
+            if (packet.getLength() != PoseDatagramServer.DATAGRAM_SIZE) {
+                continue; // ACK 等控制包
+            }
+            long arrival = System.nanoTime();
+            buffer.clear();
+            long sequence = buffer.getLong();
+            int packetSession = buffer.getInt();
+            if (!hasSequence || packetSession != session) {
+                // 第一个包或服务端重启后的新会话：从这个包重新开始，旧会话的传输时间不参与抖动
+                session = packetSession;
+                sessions++;
+                hasTransit = false;
+            } else if (sequence <= lastSequence) {
+                outOfOrder++;
+                continue;
+            } else {
+                lost += sequence - lastSequence - 1;
+            }
+            hasSequence = true;
+            lastSequence = sequence;
+            out.readBinary(buffer);
+            received++;
+
+            // 抖动：相邻两包传输时间之差的平滑平均，J += (|D| - J) / 16
+            long transit = arrival - out.timestampNanos;
+            if (hasTransit) {
+                jitterNanos += (Math.abs(transit - lastTransitNanos) - jitterNanos) / 16;
+            }
+            lastTransitNanos = transit;
+            hasTransit = true;
+            return true;
+        }
+    }
+
+    /**
+     * 阻塞接收一个包，直到 deadline（System.nanoTime）
+     */
+    private boolean receivePacket(long deadline) throws IOException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            return false;
+        }
+        socket.setSoTimeout((int) Math.min(remaining, Integer.MAX_VALUE));
+        packet.setLength(data.length);
+        try {
+            socket.receive(packet);
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+    }
+
+    private void sendControl(byte type) throws IOException {
+        controlBuffer.clear();
+        controlBuffer.putInt(PoseDatagramServer.MAGIC).put(type);
+        socket.send(controlPacket);
+        lastKeepaliveNanos = System.nanoTime();
+    }
+
+    /**
+     * 已交付的数据包数
+     */
+    public long getReceivedCount() {
+        return received;
+    }
+
+    /**
+     * 按包序号推算丢失的包数（之后迟到的包不会再计回）
+     */
+    public long getLostCount() {
+        return lost;
+    }
+
+    /**
+     * 迟到或重复而被丢弃的包数
+     */
+    public long getOutOfOrderCount() {
+        return outOfOrder;
+    }
+
+    /**
+     * 收到过的服务端会话数（服务端每重启一次加 1）
+     */
+    public long getSessionCount() {
+        return sessions;
+    }
+
+    /**
+     * 到达抖动的平滑估计（纳秒）
+     */
+    public double getJitterNanos() {
+        return jitterNanos;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,299 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UDP 头姿数据发送端（纯 Java），用于机械臂闭环控制：丢一个包只丢这一帧，不会像 TCP 那样
+ * 让后面更新的数据排队等重传。发送端不保留任何重传队列，内核缓冲满时直接丢弃。
+ * <p>
+ * 订阅：客户端向服务端端口发送 SUBSCRIBE 控制包，服务端回复 ACK（人数已满时回复 REJECT）；
+ * 客户端需在 timeout 内重复发送 SUBSCRIBE 作为保活，否则被移除；UNSUBSCRIBE 立即移除。
+ * 控制包 5 字节，小端序：int MAGIC + byte 类型。
+ * <p>
+ * 数据包 56 字节，小端序：
+ * <pre>
+ * 0   long  datagramSequence  每发出一帧加 1，接收端据此判断丢包与乱序
+ * 8   int   session           每次 start 随机生成；服务端重启后序号从 1 重新开始，接收端据此识别新的会话
+ * 12  PoseRecord 二进制记录（帧序号、采集时间戳与 7 个浮点数）
+ * </pre>
+ * 接收端见 PoseDatagramReceiver。
+ */
+public class PoseDatagramServer implements PoseTransport {
+
+    // 'H' 'P' 'S' 'U'
+    public static final int MAGIC = 0x55535048;
+    public static final byte SUBSCRIBE = 1;
+    public static final byte UNSUBSCRIBE = 2;
+    public static final byte ACK = 3;
+    public static final byte REJECT = 4;
+    public static final int CONTROL_SIZE = 5;
+    public static final int HEADER_SIZE = 12;
+    public static final int DATAGRAM_SIZE = HEADER_SIZE + PoseRecord.BINARY_SIZE;
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private final InetSocketAddress address;
+    private final int maxSubscribers;
+    private final long timeoutNanos;
+    private final PoseTransport.Listener listener;
+
+    private DatagramChannel channel;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running;
+
+    // 订阅者快照，控制线程整体替换（写时复制），写线程只读
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+
+    // 写线程使用：包头 + 记录
+    private final ByteBuffer packet = ByteBuffer.allocateDirect(HEADER_SIZE + PoseRecord.MAX_TEXT_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private long datagramSequence;
+    private int session;
+
+    // 控制线程使用
+    private final ByteBuffer control = ByteBuffer.allocateDirect(64).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer reply = ByteBuffer.allocateDirect(CONTROL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile long sent;
+    private volatile long dropped;
+
+    /**
+     * @param timeoutMillis 超过该时间没有收到 SUBSCRIBE 保活的订阅者会被移除
+     */
+    public PoseDatagramServer(InetSocketAddress address, int maxSubscribers, long timeoutMillis,
+                              PoseTransport.Listener listener) {
+        this.address = address;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.listener = listener != null ? listener : new PoseTransport.Listener() {
+        };
+    }
+
+    /**
+     * 绑定端口并启动处理订阅请求的控制线程
+     */
+    @Override
+    public void start() throws IOException {
+        session = ThreadLocalRandom.current().nextInt();
+        datagramSequence = 0;
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(address);
+        // 非阻塞：内核发送缓冲满时 send 返回 0，该帧直接丢弃
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+        thread = new Thread(this::run, "pose-udp-control");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int getPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 写线程调用：加上包头后逐个发送给仍在保活期内的订阅者，同一个缓冲复用，不按订阅者拷贝
+     */
+    @Override
+    public void write(ByteBuffer frame) throws IOException {
+        Subscriber[] targets = subscribers;
+        if (targets.length == 0) {
+            frame.position(frame.limit());
+            return;
+        }
+        packet.clear();
+        packet.putLong(++datagramSequence);
+        packet.putInt(session);
+        packet.put(frame);
+        packet.flip();
+
+        long now = System.nanoTime();
+        IOException failure = null;
+        for (Subscriber subscriber : targets) {
+            if (now - subscriber.lastSeenNanos > timeoutNanos) {
+                continue;
+            }
+            packet.position(0);
+            try {
+                if (channel.send(packet, subscriber.address) == 0) {
+                    dropped++;
+                } else {
+                    sent++;
+                }
+            } catch (IOException e) {
+                // 继续发给其他订阅者，最后统一上报
+                dropped++;
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos) / 2));
+                selector.selectedKeys().clear();
+                SocketAddress source;
+                while ((source = receiveControl()) != null) {
+                    handleControl(source);
+                }
+                expire();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                listener.onError(e instanceof IOException ? (IOException) e : new IOException(e));
+            }
+        } finally {
+            subscribers = new Subscriber[0];
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+    }
+
+    private SocketAddress receiveControl() throws IOException {
+        control.clear();
+        SocketAddress source = channel.receive(control);
+        control.flip();
+        return source;
+    }
+
+    private void handleControl(SocketAddress source) throws IOException {
+        if (control.remaining() != CONTROL_SIZE || control.getInt(0) != MAGIC) {
+            return; // 不认识的包直接忽略
+        }
+        byte type = control.get(4);
+        if (type == SUBSCRIBE) {
+            Subscriber existing = find(source);
+            if (existing != null) {
+                existing.lastSeenNanos = System.nanoTime();
+                sendReply(source, ACK);
+            } else if (subscribers.length < maxSubscribers) {
+                add(new Subscriber(source));
+                sendReply(source, ACK);
+                listener.onSubscribed(source);
+            } else {
+                sendReply(source, REJECT);
+            }
+        } else if (type == UNSUBSCRIBE) {
+            Subscriber existing = find(source);
+            if (existing != null) {
+                remove(existing);
+                listener.onUnsubscribed(source, "unsubscribed");
+            }
+        }
+    }
+
+    private void sendReply(SocketAddress target, byte type) throws IOException {
+        reply.clear();
+        reply.putInt(MAGIC).put(type).flip();
+        channel.send(reply, target);
+    }
+
+    /**
+     * 移除超过保活期限的订阅者
+     */
+    private void expire() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (now - subscriber.lastSeenNanos > timeoutNanos) {
+                remove(subscriber);
+                listener.onUnsubscribed(subscriber.address, "timed out");
+            }
+        }
+    }
+
+    private Subscriber find(SocketAddress source) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.address.equals(source)) {
+                return subscriber;
+            }
+        }
+        return null;
+    }
+
+    private void add(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        Subscriber[] next = new Subscriber[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = subscriber;
+        subscribers = next;
+    }
+
+    private void remove(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        Subscriber[] next = new Subscriber[current.length - 1];
+        int index = 0;
+        for (Subscriber s : current) {
+            if (s != subscriber) {
+                next[index++] = s;
+            }
+        }
+        subscribers = next;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.length;
+    }
+
+    /**
+     * 成功交给内核的数据包数（每个订阅者各算一次）
+     */
+    public long getSentCount() {
+        return sent;
+    }
+
+    /**
+     * 发送缓冲满或发送失败而丢弃的数据包数
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    private static final class Subscriber {
+        final SocketAddress address;
+        volatile long lastSeenNanos;
+
+        Subscriber(SocketAddress address) {
+            this.address = address;
+            this.lastSeenNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.demo.headpose;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为每帧选择头姿估计引擎（纯 Java）：CNN 推理或关键点几何求解（LandmarkPoseSolver）。
+ * <p>
+ * AUTO 模式下跟踪 CNN 推理耗时的指数滑动平均：超出预算时改用关键点求解，其间每 probeInterval 帧仍跑一次 CNN
+ * 以更新耗时，滑动平均回落到预算的 RECOVER_RATIO 以下时恢复 CNN（滞回，避免在预算附近来回切换）。
+ * 没有足够关键点的帧（例如关键点检测已被画质档位关闭）总是用 CNN。
+ * <p>
+ * useLandmarks 只在一个线程（预处理阶段）上调用，onCnnLatency 只在一个线程（推理阶段）上调用；getter 可在任意线程读取。
+ */
+public class PoseEngineSelector {
+
+    public static final int DEFAULT_PROBE_INTERVAL = 15;
+
+    static final float RECOVER_RATIO = 0.8f;
+    private static final float AVERAGE_WEIGHT = 0.25f;
+
+    private final PipelineConfig.PoseEngine engine;
+    private final long budgetNanos;
+    private final int probeInterval;
+
+    // CNN 推理耗时的滑动平均（纳秒），还没有样本时为 0
+    private volatile long averageNanos;
+
+    // 只在预处理阶段线程上修改
+    private volatile boolean fallback;
+    private int framesSinceProbe;
+
+    private volatile long landmarkFrames;
+    private volatile long fallbackChanges;
+
+    public PoseEngineSelector(PipelineConfig.PoseEngine engine, long budgetMillis) {
+        this(engine, budgetMillis, DEFAULT_PROBE_INTERVAL);
+    }
+
+    /**
+     * @param budgetMillis  AUTO 模式下 CNN 推理的耗时预算
+     * @param probeInterval AUTO 模式改用关键点求解后，每隔多少帧仍跑一次 CNN
+     */
+    public PoseEngineSelector(PipelineConfig.PoseEngine engine, long budgetMillis, int probeInterval) {
+        if (budgetMillis <= 0 || probeInterval < 1) {
+            throw new IllegalArgumentException("Bad engine selector: " + budgetMillis + " ms, probe " + probeInterval);
+        }
+        this.engine = engine;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.probeInterval = probeInterval;
+    }
+
+    /**
+     * @param landmarkMask 本帧主人脸的关键点掩码（FrameContext.landmarkMask）
+     * @return true 表示本帧用关键点求解，不需要 CNN 的预处理与推理
+     */
+    public boolean useLandmarks(int landmarkMask) {
+        if (engine == PipelineConfig.PoseEngine.CNN || !LandmarkPoseSolver.canSolve(landmarkMask)) {
+            return false;
+        }
+        if (engine == PipelineConfig.PoseEngine.AUTO) {
+            long average = averageNanos;
+            boolean over = fallback ? average >= budgetNanos * RECOVER_RATIO : average > budgetNanos;
+            if (over != fallback) {
+                fallback = over;
+                framesSinceProbe = 0;
+                fallbackChanges++;
+            }
+            if (!fallback || ++framesSinceProbe >= probeInterval) {
+                framesSinceProbe = 0;
+                return false;
+            }
+        }
+        landmarkFrames++;
+        return true;
+    }
+
+    /**
+     * 记录一次 CNN 推理的耗时（纳秒）
+     */
+    public void onCnnLatency(long nanos) {
+        long average = averageNanos;
+        averageNanos = average == 0 ? nanos : average + (long) (AVERAGE_WEIGHT * (nanos - average));
+    }
+
+    public PipelineConfig.PoseEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * AUTO 模式下当前是否因 CNN 超出预算而改用关键点求解
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * 用关键点求解的帧数
+     */
+    public long getLandmarkFrameCount() {
+        return landmarkFrames;
+    }
+
+    /**
+     * AUTO 模式下进入与退出关键点求解的次数
+     */
+    public long getFallbackChangeCount() {
+        return fallbackChanges;
+    }
+
+    /**
+     * CNN 推理耗时的滑动平均（纳秒）
+     */
+    public long getAverageCnnNanos() {
+        return averageNanos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.demo.headpose;
+
+/**
+ * 头姿结果的输出目标（纯 Java），例如 SocketManager::sendData 或 FixedRatePublisher。
+ * 只在单个线程上调用，实现不应阻塞。
+ */
+public interface PoseOutput {
+    void publish(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                 float lx, float ly, float rx, float ry);
+}
@@ -0,0 +1,132 @@
+package com.demo.headpose;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * 覆盖在 PreviewView 上的透明叠加层：只接收人脸框、头姿角度与双眼坐标，
+ * 在 UI 线程上直接绘制人脸框、角度文字与姿态坐标轴，不拷贝、不旋转、不上传整帧图像。
+ * 坐标由 OverlayTransform 从镜像后的分析帧映射到 View（与 PreviewView 的 FILL_CENTER 一致）。
+ */
+public class PoseOverlayView extends View implements PoseProcessor.Renderer {
+
+    private static final float AXIS_SIZE = 150;
+    private static final float LABEL_SPACING = 50;
+    private static final float EYE_RADIUS = 6;
+
+    private final OverlayState state = new OverlayState();
+
+    // 以下只在 UI 线程上使用
+    private final OverlayTransform transform = new OverlayTransform();
+    private final Paint boxPaint = new Paint();
+    private final Paint yawPaint = new Paint();
+    private final Paint pitchPaint = new Paint();
+    private final Paint rollPaint = new Paint();
+    private final Paint axisPaint = new Paint();
+    private final Paint eyePaint = new Paint();
+    private final char[] label = new char[32];
+    private final float[] axis = new float[AxisProjection.OUT_SIZE];
+
+    public PoseOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public PoseOverlayView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        boxPaint.setStyle(Paint.Style.STROKE);
+        boxPaint.setStrokeWidth(4);
+        boxPaint.setColor(Color.RED);
+        initTextPaint(yawPaint, Color.RED);
+        initTextPaint(pitchPaint, Color.BLUE);
+        initTextPaint(rollPaint, Color.GREEN);
+        axisPaint.setStrokeWidth(5);
+        axisPaint.setAntiAlias(true);
+        eyePaint.setColor(Color.YELLOW);
+        eyePaint.setAntiAlias(true);
+    }
+
+    private static void initTextPaint(Paint paint, int color) {
+        paint.setColor(color);
+        paint.setTextSize(40);
+        paint.setAntiAlias(true);
+    }
+
+    /**
+     * 流水线绘制阶段调用（任意线程）：交接一帧结果并请求在下一个 vsync 重绘
+     */
+    @Override
+    public void render(FrameContext context, int frameWidth, int frameHeight, int rotationDegrees) {
+        state.publish(context, frameWidth, frameHeight, rotationDegrees);
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * 被覆盖、没有绘制出来的帧数
+     */
+    public long getOverwrittenCount() {
+        return state.getOverwrittenCount();
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        transform.setView(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        OverlayState.Snapshot snapshot = state.latest();
+        if (snapshot == null) {
+            return;
+        }
+        transform.setSource(snapshot.frameWidth, snapshot.frameHeight, snapshot.rotationDegrees);
+
+        for (int i = 0; i < snapshot.faceCount; i++) {
+            float yaw = snapshot.faceDegrees[i * 3];
+            if (Float.isNaN(yaw)) {
+                continue;
+            }
+            int[] boxes = snapshot.faceBoxes;
+            drawFace(canvas, boxes[i * 4], boxes[i * 4 + 1], boxes[i * 4 + 2], boxes[i * 4 + 3],
+                    yaw, snapshot.faceDegrees[i * 3 + 1], snapshot.faceDegrees[i * 3 + 2]);
+        }
+        if (snapshot.faceCount > 0) {
+            drawEye(canvas, snapshot.leftEyeX, snapshot.leftEyeY);
+            drawEye(canvas, snapshot.rightEyeX, snapshot.rightEyeY);
+        }
+    }
+
+    // 绘制人脸框、角度文字与姿态坐标轴（框在旋转后取对角两点的包围盒）
+    private void drawFace(Canvas canvas, int left, int top, int right, int bottom, float yaw, float pitch, float roll) {
+        float x0 = transform.mapX(left, top);
+        float y0 = transform.mapY(left, top);
+        float x1 = transform.mapX(right, bottom);
+        float y1 = transform.mapY(right, bottom);
+        float viewLeft = Math.min(x0, x1);
+        float viewTop = Math.min(y0, y1);
+        canvas.drawRect(viewLeft, viewTop, Math.max(x0, x1), Math.max(y0, y1), boxPaint);
+
+        drawLabel(canvas, "Yaw: ", yaw, viewLeft, viewTop, yawPaint);
+        drawLabel(canvas, "Pitch: ", pitch, viewLeft, viewTop + LABEL_SPACING, pitchPaint);
+        drawLabel(canvas, "Roll: ", roll, viewLeft, viewTop + 2 * LABEL_SPACING, rollPaint);
+
+        float cx = (left + right) / 2f;
+        float cy = (top + bottom) / 2f;
+        MyImageUtils.drawAxis(canvas, axisPaint, axis, yaw, pitch, roll,
+                transform.mapX(cx, cy), transform.mapY(cx, cy), transform.mapLength(AXIS_SIZE));
+    }
+
+    private void drawEye(Canvas canvas, float x, float y) {
+        canvas.drawCircle(transform.mapX(x, y), transform.mapY(x, y), EYE_RADIUS, eyePaint);
+    }
+
+    // 绘制 "名称: 数值"，保留一位小数，不创建字符串
+    private void drawLabel(Canvas canvas, String name, float value, float x, float y, Paint paint) {
+        int length = FixedPointFormat.append(label, 0, name);
+        length = FixedPointFormat.append(label, length, value, 1);
+        canvas.drawText(label, 0, length, x, y, paint);
+    }
+}
@@ -0,0 +1,570 @@
+package com.demo.headpose;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 人脸检测与头姿估计的处理核心（纯 Java，不依赖 Android）。
+ * onFrame 只负责拷贝 YUV 平面，其余工作交给分阶段流水线：
+ * 检测 → 预处理 → 推理 → 绘制 → 发送，每个阶段在自己的线程上运行。
+ * 姿态默认由 CNN 推理得到；按 PipelineConfig.poseEngine，有足够关键点的帧也可以改用 LandmarkPoseSolver 几何求解，
+ * 这样的帧跳过 CNN 的预处理与推理；启用 PoseCache 时，单张脸的区域几乎没有变化的帧沿用上一次推理的姿态，同样跳过推理。
+ * 帧可以来自相机（FaceAnalyzer）或录像回放（ReplayFrameSource）；检测器、推理后端、
+ * 绘制与输出都由调用者提供，因此同一条路径也能在桌面 JVM 上运行（例如配合 StubFaceDetector 与 ONNX 后端）。
+ */
+public class PoseProcessor implements FrameSink {
+
+    // 每隔多少帧检查一次泄漏，借出超过多少次 acquire 视为泄漏
+    private static final int LEAK_CHECK_INTERVAL = 300;
+    private static final long LEAK_MAX_AGE = 64;
+
+    // 测量过期后停止外推
+    private static final long PREDICTION_STALE_MILLIS = 250;
+
+    // 相机时间戳与 System.nanoTime() 同一时基时，采集到到达的耗时不会超过该值
+    private static final long MAX_CAPTURE_TO_ARRIVAL_NANOS = 1_000_000_000L;
+
+    /**
+     * 绘制目标（例如 PoseOverlayView），在绘制阶段线程上调用
+     */
+    public interface Renderer {
+        /**
+         * @param rotationDegrees 显示时需要顺时针旋转的角度（已考虑镜像）
+         */
+        void render(FrameContext context, int frameWidth, int frameHeight, int rotationDegrees);
+    }
+
+    /**
+     * 处理过程中的事件，在流水线线程上调用
+     */
+    public interface Listener {
+        default void onStageError(FrameContext context, String stageName, Throwable error) {
+        }
+
+        /**
+         * 泄漏检测（PipelineConfig.leakDetection）发现长期未归还的池对象
+         */
+        default void onLeak(String poolName, Object value, Throwable acquireSite) {
+        }
+
+        /**
+         * 一帧的结果已交给输出，context.endToEndNanos 为本帧的端到端延迟
+         */
+        default void onPosePublished(FrameContext context) {
+        }
+    }
+
+    /**
+     * 相机时间戳可能使用的另一个时钟（Android 上为 CLOCK_BOOTTIME）
+     */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private final boolean mirror;
+    private final boolean leakDetection;
+    private final TrackingFaceDetector detector;
+    // 推理后端，可在运行中切换（setEstimator）；被换下的后端等在途帧推理完后由推理阶段关闭
+    private volatile PoseEstimator headPose;
+    private volatile PoseEstimator retiredEstimator;
+    private final int maxBatchSize;
+    // 引擎选择（预处理阶段）与关键点求解器（推理阶段线程独占）
+    private final PoseEngineSelector engineSelector;
+    private final LandmarkPoseSolver landmarkSolver = new LandmarkPoseSolver();
+    private final AtomicLong landmarkFailures = new AtomicLong();
+    // 姿态缓存（未启用时为 null）
+    private final PoseCache poseCache;
+    private final PoseOutput output;
+    private final Renderer renderer;
+
+    // 固定频率发布：滤波并外推后由发布线程输出（未启用时为 null，每帧直接输出）
+    private final FixedRatePublisher posePublisher;
+
+    // 分阶段流水线与循环复用的帧上下文（空闲队列为空时说明在途帧已满，新帧直接丢弃）
+    private final FramePipeline<FrameContext> pipeline;
+    private final ArrayBlockingQueue<FrameContext> freeContexts;
+    private final int contextCount;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong gateDrops = new AtomicLong();
+    // 检测到但超出 FrameContext.MAX_FACES 而没有推理的人脸数
+    private final AtomicLong droppedFaces = new AtomicLong();
+    private volatile long published;
+
+    // YUV 平面拷贝，预热后不再分配
+    private final ObjectPool<YuvFrame> framePool;
+
+    // 各环节延迟直方图与丢帧计数
+    private final PipelineMetrics metrics;
+    private final LatencyHistogram frameCopyLatency;
+    private final LatencyHistogram detectLatency;
+    private final LatencyHistogram preprocessLatency;
+    private final LatencyHistogram inferLatency;
+    private final LatencyHistogram renderLatency;
+    private final LatencyHistogram endToEndLatency;
+
+    // 检测阶段线程独占
+    private long frameCount;
+
+    // 姿态会话日志（未启用时为 null），只在发送阶段线程上追加
+    private volatile PoseLogWriter poseLog;
+    private final PoseLogRecord logRecord = new PoseLogRecord();
+
+    private volatile Listener listener = new Listener() {
+    };
+    private volatile Clock captureClock = System::nanoTime;
+
+    /**
+     * @param detector 完整人脸检测器，按 config.detectInterval 包装为先检测后跟踪
+     * @param output   发送目标，只在一个线程上调用
+     * @param renderer 绘制目标；为 null 或 config.headless 时没有绘制阶段
+     */
+    public PoseProcessor(PipelineConfig config, PipelineMetrics metrics, FaceDetectorEngine detector,
+                         PoseEstimator headPose, PoseOutput output, Renderer renderer) {
+        this.mirror = config.mirror;
+        this.leakDetection = config.leakDetection;
+        this.metrics = metrics;
+        this.headPose = headPose;
+        this.output = output;
+        this.renderer = config.headless ? null : renderer;
+        framePool = new ObjectPool<>("yuv", YuvFrame::new, leakDetection);
+        frameCopyLatency = metrics.histogram(PipelineMetrics.Stage.FRAME_COPY);
+        detectLatency = metrics.histogram(PipelineMetrics.Stage.DETECT);
+        preprocessLatency = metrics.histogram(PipelineMetrics.Stage.PREPROCESS);
+        inferLatency = metrics.histogram(PipelineMetrics.Stage.INFER);
+        renderLatency = metrics.histogram(PipelineMetrics.Stage.RENDER);
+        endToEndLatency = metrics.histogram(PipelineMetrics.Stage.END_TO_END);
+
+        maxBatchSize = config.maxBatchSize;
+        engineSelector = new PoseEngineSelector(config.poseEngine, config.inferBudgetMillis);
+        poseCache = config.poseCacheMaxAgeMillis > 0
+                ? new PoseCache(config.poseCacheMaxLumaDifference, config.poseCacheMaxBoxDrift,
+                config.poseCacheMaxAgeMillis)
+                : null;
+        headPose.setMaxBatchSize(maxBatchSize);
+        if (config.publishRateHz > 0) {
+            posePublisher = new FixedRatePublisher(new PoseFilter(), config.publishRateHz,
+                    config.predictionLeadMillis, PREDICTION_STALE_MILLIS, output);
+            posePublisher.start();
+        } else {
+            posePublisher = null;
+        }
+        this.detector = new TrackingFaceDetector(detector, mirror,
+                config.detectInterval, config.minTrackConfidence, config.trackSearchRadius);
+
+        contextCount = config.maxFramesInFlight();
+        freeContexts = new ArrayBlockingQueue<>(contextCount);
+        for (int i = 0; i < contextCount; i++) {
+            freeContexts.add(new FrameContext());
+        }
+
+        pipeline = new FramePipeline<>(new FramePipeline.Listener<FrameContext>() {
+            @Override
+            public void onRetired(FrameContext context) {
+                context.recycle();
+                freeContexts.offer(context);
+            }
+
+            @Override
+            public void onError(FrameContext context, String stageName, Throwable error) {
+                listener.onStageError(context, stageName, error);
+            }
+        });
+        addStage(config, PipelineConfig.Stage.DETECT, this::detect);
+        addStage(config, PipelineConfig.Stage.PREPROCESS, this::preprocess);
+        addStage(config, PipelineConfig.Stage.INFER, this::infer);
+        if (this.renderer != null) {
+            addStage(config, PipelineConfig.Stage.RENDER, this::render);
+        }
+        addStage(config, PipelineConfig.Stage.PUBLISH, this::publish);
+        registerCounters();
+        pipeline.start();
+    }
+
+    // 丢帧计数：在途帧已满时的入口丢弃，以及各阶段队列满时的丢弃（反压）
+    private void registerCounters() {
+        metrics.addCounter("gate_dropped", gateDrops::get);
+        for (int i = 0; i < pipeline.getStageCount(); i++) {
+            int stage = i;
+            metrics.addCounter(pipeline.getStageName(i) + "_dropped", () -> pipeline.getDroppedCount(stage));
+        }
+        metrics.addCounter("faces_dropped", droppedFaces::get);
+        metrics.addCounter("landmark_pose_frames", engineSelector::getLandmarkFrameCount);
+        metrics.addCounter("landmark_pose_failed", landmarkFailures::get);
+        metrics.addCounter("landmark_fallback_changes", engineSelector::getFallbackChangeCount);
+        if (poseCache != null) {
+            // 命中即跳过的推理次数；误差为百分之一度
+            metrics.addCounter("pose_cache_hits", poseCache::getHitCount);
+            metrics.addCounter("pose_cache_misses", poseCache::getChangedMissCount);
+            metrics.addCounter("pose_cache_stale", poseCache::getStaleMissCount);
+            metrics.addCounter("pose_cache_fetch_failed", poseCache::getFetchFailureCount);
+            metrics.addCounter("pose_cache_hit_rate_pct", () -> Math.round(poseCache.getHitRate()));
+            metrics.addCounter("pose_cache_error_mean_cdeg", () -> Math.round(poseCache.getMeanError() * 100));
+            metrics.addCounter("pose_cache_error_max_cdeg", () -> Math.round(poseCache.getMaxError() * 100));
+        }
+        if (posePublisher != null) {
+            metrics.addCounter("publisher_published", posePublisher::getPublishedCount);
+            metrics.addCounter("publisher_stale_ticks", posePublisher::getStaleTickCount);
+        }
+    }
+
+    private void addStage(PipelineConfig config, PipelineConfig.Stage stage, FramePipeline.Stage<FrameContext> handler) {
+        pipeline.addStage(stage.name().toLowerCase(), handler,
+                config.queueCapacity[stage.ordinal()], config.dropPolicy[stage.ordinal()]);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setCaptureClock(Clock captureClock) {
+        this.captureClock = captureClock;
+    }
+
+    /**
+     * 切换推理后端（例如换用另一个模型档位），新进入预处理的帧使用新后端。
+     * 旧后端上已预处理的帧照常推理，之后由推理阶段关闭旧后端
+     * @return 上一次切换还没有完成时返回 false，调用者负责关闭 estimator
+     */
+    public boolean setEstimator(PoseEstimator estimator) {
+        if (retiredEstimator != null) {
+            return false;
+        }
+        estimator.setMaxBatchSize(maxBatchSize);
+        // 先登记待关闭的后端再切换：推理阶段看到新后端的帧时，旧后端一定已经登记
+        retiredEstimator = headPose;
+        headPose = estimator;
+        return true;
+    }
+
+    public PoseEstimator getEstimator() {
+        return headPose;
+    }
+
+    public PoseEngineSelector getEngineSelector() {
+        return engineSelector;
+    }
+
+    /**
+     * 姿态缓存，未启用时为 null
+     */
+    public PoseCache getPoseCache() {
+        return poseCache;
+    }
+
+    /**
+     * 调整完整检测的间隔（例如由 AdaptiveQualityController 调整），下一帧生效
+     */
+    public void setDetectInterval(int detectInterval) {
+        detector.setDetectInterval(detectInterval);
+    }
+
+    /**
+     * 把每帧的测量结果（未经滤波）与各阶段耗时追加到会话日志；为 null 时停止记录。
+     * 写入失败时通过 Listener.onStageError 报告并停止记录
+     */
+    public void setPoseLog(PoseLogWriter poseLog) {
+        this.poseLog = poseLog;
+    }
+
+    /**
+     * 拷贝平面后交给流水线；在途帧已满时丢弃
+     */
+    @Override
+    public boolean onFrame(int width, int height,
+                           ByteBuffer y, int yRowStride,
+                           ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                           long timestampNanos, int rotationDegrees) {
+        FrameContext context = freeContexts.poll();
+        if (context == null) {
+            gateDrops.incrementAndGet(); // 在途帧已满，跳过
+            return false;
+        }
+        long arrival = System.nanoTime();
+        context.sequence = sequence.incrementAndGet();
+        context.captureTimeNanos = timestampNanos;
+        context.arrivalNanos = arrival;
+        context.captureToArrivalNanos = captureToArrival(timestampNanos, arrival);
+        context.rotationDegrees = rotationDegrees;
+        Pooled<YuvFrame> frame = framePool.acquire();
+        frame.get().copyFrom(width, height, y, yRowStride, u, v, uvRowStride, uvPixelStride);
+        context.frame = frame;
+        context.copyNanos = frameCopyLatency.recordSince(arrival) - arrival;
+        pipeline.submit(context);
+        return true;
+    }
+
+    @Override
+    public boolean hasCapacity() {
+        return !freeContexts.isEmpty();
+    }
+
+    /**
+     * 相机时间戳的时基可能是 CLOCK_MONOTONIC（与 System.nanoTime() 相同）或 captureClock，
+     * 按差值是否合理选择对应的时钟
+     */
+    private long captureToArrival(long captureTimeNanos, long arrivalNanos) {
+        long delta = arrivalNanos - captureTimeNanos;
+        if (delta >= 0 && delta < MAX_CAPTURE_TO_ARRIVAL_NANOS) {
+            return delta;
+        }
+        return Math.max(0, captureClock.nanoTime() - captureTimeNanos);
+    }
+
+    /**
+     * 等待所有在途帧离开流水线
+     * @return 超时返回 false
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (freeContexts.size() < contextCount) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 到达发送阶段的帧数
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * 在途帧已满而在入口丢弃的帧数
+     */
+    public long getGateDroppedCount() {
+        return gateDrops.get();
+    }
+
+    /**
+     * 检测到但超出每帧人脸上限 FrameContext.MAX_FACES 而丢弃的人脸数
+     */
+    public long getDroppedFaceCount() {
+        return droppedFaces.get();
+    }
+
+    /**
+     * 停止流水线并释放检测器，以及切换后尚未关闭的旧推理后端（当前后端由调用者关闭）
+     */
+    public void close() {
+        pipeline.shutdown();
+        if (posePublisher != null) {
+            posePublisher.stop();
+        }
+        detector.close();
+        PoseEstimator retired = retiredEstimator;
+        if (retired != null) {
+            retiredEstimator = null;
+            retired.close();
+        }
+    }
+
+    /**
+     * 检测阶段：检测或跟踪人脸
+     */
+    private boolean detect(FrameContext context) throws Exception {
+        if (leakDetection && ++frameCount % LEAK_CHECK_INTERVAL == 0) {
+            checkLeaks();
+        }
+        long start = System.nanoTime();
+        try {
+            return detector.detect(context);
+        } finally {
+            context.detectNanos = detectLatency.recordSince(start) - start;
+            if (context.droppedFaces > 0) {
+                droppedFaces.addAndGet(context.droppedFaces);
+            }
+        }
+    }
+
+    /**
+     * 预处理阶段：直接从 YUV 平面采样人脸区域到模型输入缓冲区，多张脸打包成一批；
+     * 本帧改用关键点求解或命中姿态缓存时什么也不做
+     */
+    private boolean preprocess(FrameContext context) {
+        PoseEstimator estimator = headPose;
+        context.estimator = estimator;
+        if (engineSelector.useLandmarks(context.landmarkMask)) {
+            context.landmarkPose = true;
+            return true;
+        }
+        if (poseCache != null && gate(context)) {
+            return true;
+        }
+        long start = System.nanoTime();
+        if (context.faceCount > 1) {
+            // 全部人脸打包成一批：检测阶段已截断到 FrameContext.MAX_FACES（即 MAX_BATCH），
+            // 超过 maxBatchSize 时由推理后端分几次 forward
+            context.input = estimator.preprocessBatch(context.frame.get(), context.faceBoxes, 0,
+                    context.faceCount, mirror);
+        } else {
+            context.input = estimator.preprocess(context.frame.get(),
+                    context.faceLeft, context.faceTop, context.faceRight, context.faceBottom, mirror);
+        }
+        context.preprocessNanos = preprocessLatency.recordSince(start) - start;
+        return context.input != null;
+    }
+
+    /**
+     * 推理阶段：调用模型预测每张脸的头姿角度：yaw, pitch, roll
+     */
+    private boolean infer(FrameContext context) {
+        closeRetiredEstimator(context);
+        if (context.landmarkPose) {
+            return solveLandmarks(context);
+        }
+        if (context.cachedPoseReference >= 0) {
+            return reuseCachedPose(context);
+        }
+        PoseInput input = (PoseInput) context.input.get();
+        long start = System.nanoTime();
+        context.estimator.infer(input, context.faceDegrees);
+        context.inferNanos = inferLatency.recordSince(start) - start;
+        engineSelector.onCnnLatency(context.inferNanos);
+        if (context.cacheReference) {
+            poseCache.store(context.sequence, context.faceDegrees, 0);
+        }
+        System.arraycopy(context.faceDegrees, 0, context.degree, 0, 3);
+        context.faceCount = input.count;
+        context.input.release();
+        context.input = null;
+        return !Float.isNaN(context.degree[0]);
+    }
+
+    /**
+     * 从主人脸的关键点几何求解姿态，其余人脸不输出
+     */
+    private boolean solveLandmarks(FrameContext context) {
+        YuvFrame frame = context.frame.get();
+        long start = System.nanoTime();
+        boolean solved = landmarkSolver.solve(context.landmarks, context.landmarkMask,
+                frame.width, frame.height, context.degree, 0);
+        context.inferNanos = inferLatency.recordSince(start) - start;
+        if (!solved) {
+            landmarkFailures.incrementAndGet();
+            return false;
+        }
+        System.arraycopy(context.degree, 0, context.faceDegrees, 0, 3);
+        context.faceCount = 1;
+        return true;
+    }
+
+    /**
+     * 姿态缓存的判定：只缓存单张脸，多张脸时清空参照帧
+     * @return 命中时返回 true，本帧不需要预处理与推理
+     */
+    private boolean gate(FrameContext context) {
+        if (context.faceCount != 1) {
+            poseCache.reset();
+            return false;
+        }
+        long reference = poseCache.lookup(context.frame.get(), mirror, context.sequence, context.arrivalNanos,
+                context.faceLeft, context.faceTop, context.faceRight, context.faceBottom);
+        if (reference >= 0) {
+            context.cachedPoseReference = reference;
+            return true;
+        }
+        context.cacheReference = true;
+        return false;
+    }
+
+    /**
+     * 沿用参照帧的姿态；参照帧没有推理结果（被丢弃或推理失败）时丢弃本帧
+     */
+    private boolean reuseCachedPose(FrameContext context) {
+        if (!poseCache.fetch(context.cachedPoseReference, context.degree, 0)) {
+            return false;
+        }
+        System.arraycopy(context.degree, 0, context.faceDegrees, 0, 3);
+        context.faceCount = 1;
+        return true;
+    }
+
+    private void closeRetiredEstimator(FrameContext context) {
+        PoseEstimator retired = retiredEstimator;
+        if (retired != null && context.estimator != retired) {
+            // 已经轮到切换后进入预处理的帧，旧后端上不会再有待推理的输入
+            retiredEstimator = null;
+            retired.close();
+        }
+    }
+
+    /**
+     * 绘制阶段：只把人脸框、头姿角度与双眼坐标交给绘制目标，不绘制整帧图像
+     */
+    private boolean render(FrameContext context) {
+        long start = System.nanoTime();
+        YuvFrame frame = context.frame.get();
+        // 分析帧已镜像，显示方向的旋转随之反向
+        int rotation = mirror ? (360 - context.rotationDegrees) % 360 : context.rotationDegrees;
+        renderer.render(context, frame.width, frame.height, rotation);
+        context.renderNanos = renderLatency.recordSince(start) - start;
+        return true;
+    }
+
+    /**
+     * 发送阶段：输出主人脸的数据；启用固定频率发布时只交给滤波器
+     */
+    private boolean publish(FrameContext context) {
+        float[] degree = context.degree;
+        if (posePublisher != null) {
+            posePublisher.update(context.captureTimeNanos, context.arrivalNanos, degree[0], degree[1], degree[2],
+                    context.leftEyeX, context.leftEyeY, context.rightEyeX, context.rightEyeY);
+        } else {
+            output.publish(context.sequence, context.captureTimeNanos, degree[0], degree[1], degree[2],
+                    context.leftEyeX, context.leftEyeY, context.rightEyeX, context.rightEyeY);
+        }
+        long endToEnd = context.captureToArrivalNanos + System.nanoTime() - context.arrivalNanos;
+        endToEndLatency.record(endToEnd);
+        context.endToEndNanos = endToEnd;
+        PoseLogWriter log = poseLog;
+        if (log != null) {
+            appendLog(log, context, endToEnd);
+        }
+        published++;
+        listener.onPosePublished(context);
+        return true;
+    }
+
+    private void appendLog(PoseLogWriter log, FrameContext context, long endToEndNanos) {
+        PoseLogRecord record = logRecord;
+        float[] degree = context.degree;
+        record.set(context.sequence, context.captureTimeNanos, degree[0], degree[1], degree[2],
+                context.leftEyeX, context.leftEyeY, context.rightEyeX, context.rightEyeY);
+        record.setFace(context.faceLeft, context.faceTop, context.faceRight, context.faceBottom,
+                context.faceCount, context.tracked);
+        record.setStageNanos(PoseLogRecord.STAGE_FRAME_COPY, context.copyNanos);
+        record.setStageNanos(PoseLogRecord.STAGE_DETECT, context.detectNanos);
+        record.setStageNanos(PoseLogRecord.STAGE_PREPROCESS, context.preprocessNanos);
+        record.setStageNanos(PoseLogRecord.STAGE_INFER, context.inferNanos);
+        record.setStageNanos(PoseLogRecord.STAGE_RENDER, context.renderNanos);
+        record.setStageNanos(PoseLogRecord.STAGE_END_TO_END, endToEndNanos);
+        try {
+            log.append(record);
+        } catch (UncheckedIOException e) {
+            poseLog = null;
+            listener.onStageError(context, "pose_log", e);
+        }
+    }
+
+    /**
+     * 报告长期未归还的池对象
+     */
+    private void checkLeaks() {
+        Listener current = listener;
+        ObjectPool.LeakListener leaks = current::onLeak;
+        framePool.checkLeaks(LEAK_MAX_AGE, leaks);
+        headPose.checkLeaks(LEAK_MAX_AGE, leaks);
+    }
+}
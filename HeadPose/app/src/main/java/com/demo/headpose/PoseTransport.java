@@ -0,0 +1,42 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * 头姿数据的网络传输（纯 Java）：作为 PoseStreamWriter 的 Sink，由 SocketManager 启停。
+ * TCP 见 PoseBroadcastServer，UDP 见 PoseDatagramServer。
+ */
+public interface PoseTransport extends PoseStreamWriter.Sink {
+
+    /**
+     * 订阅者加入 / 离开通知，在传输的后台线程上调用
+     */
+    interface Listener {
+        default void onSubscribed(SocketAddress remote) {
+        }
+
+        default void onUnsubscribed(SocketAddress remote, String reason) {
+        }
+
+        default void onError(IOException error) {
+        }
+    }
+
+    /**
+     * 绑定端口并开始接受订阅
+     */
+    void start() throws IOException;
+
+    void stop();
+
+    /**
+     * 实际监听的端口（绑定 0 端口时由系统分配）
+     */
+    int getPort();
+
+    /**
+     * 当前订阅者数
+     */
+    int getSubscriberCount();
+}
@@ -0,0 +1,58 @@
+package com.demo.headpose;
+
+import java.util.Locale;
+
+/**
+ * 一个画质档位（纯 Java，不可变）：AdaptiveQualityController 在档位之间升降，由调用者把档位应用到相机与流水线。
+ */
+public final class QualityLevel {
+
+    public final String name;
+    // 相机分析流的目标分辨率（改变时需要重新绑定 ImageAnalysis）
+    public final int analysisWidth;
+    public final int analysisHeight;
+    // 检测器是否输出五官关键点；关闭时双眼位置由人脸框估算
+    public final boolean landmarks;
+    // 每隔多少帧做一次完整检测，其余帧跟踪
+    public final int detectInterval;
+    // 模型档位：0 为启动时加载的模型，n 为 ModelTierRegistry 中往下数 n 档（没有时用最低的可用档位）
+    public final int modelTier;
+
+    public QualityLevel(String name, int analysisWidth, int analysisHeight,
+                        boolean landmarks, int detectInterval, int modelTier) {
+        if (analysisWidth <= 0 || analysisHeight <= 0 || detectInterval < 1 || modelTier < 0) {
+            throw new IllegalArgumentException("Bad quality level: " + name);
+        }
+        this.name = name;
+        this.analysisWidth = analysisWidth;
+        this.analysisHeight = analysisHeight;
+        this.landmarks = landmarks;
+        this.detectInterval = detectInterval;
+        this.modelTier = modelTier;
+    }
+
+    public boolean sameResolution(QualityLevel other) {
+        return analysisWidth == other.analysisWidth && analysisHeight == other.analysisHeight;
+    }
+
+    /**
+     * 默认档位，从高到低；下标 DEFAULT_LEVEL 即原来固定的配置（480×360、全部关键点、每帧检测）
+     */
+    public static QualityLevel[] defaultLadder() {
+        return new QualityLevel[]{
+                new QualityLevel("high", 640, 480, true, 1, 0),
+                new QualityLevel("default", 480, 360, true, 1, 0),
+                new QualityLevel("tracked", 480, 360, true, 3, 0),
+                new QualityLevel("no_landmarks", 480, 360, false, 5, 0),
+                new QualityLevel("low", 320, 240, false, 8, 1),
+        };
+    }
+
+    public static final int DEFAULT_LEVEL = 1;
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s(%dx%d landmarks=%b detect_interval=%d model_tier=%d)",
+                name, analysisWidth, analysisHeight, landmarks, detectInterval, modelTier);
+    }
+}
@@ -0,0 +1,197 @@
+package com.demo.headpose;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回放 FrameRecorder 录制的文件（纯 Java）：整个文件只读映射到内存，
+ * 每帧的三个平面直接以映射缓冲区的视图交给 FrameSink，不经过额外拷贝，回放过程中不分配内存。
+ * <p>
+ * NATIVE 按录制时的帧间隔推送，sink 忙时与相机一样丢帧；FAST 不等待，sink 忙时等到有空位再推送，
+ * 不丢帧，用于测量吞吐量。推送给 sink 的时间戳为推送时刻的 System.nanoTime()，
+ * 端到端延迟因此从回放时刻算起；录制时的时间戳只用于 NATIVE 的节奏。
+ */
+public class ReplayFrameSource implements FrameSource {
+
+    public enum Pacing {
+        NATIVE,
+        FAST
+    }
+
+    // 帧头中时间戳的位置
+    private static final int TIMESTAMP_OFFSET = 40;
+
+    // FAST 模式下等待 sink 空位的间隔
+    private static final long BUSY_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Pacing pacing;
+    private final int loops;
+    private final MappedByteBuffer mapped;
+    private final int[] offsets;
+
+    // 三个平面的视图，每帧只调整 position / limit
+    private final ByteBuffer yView;
+    private final ByteBuffer uView;
+    private final ByteBuffer vView;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long pushed;
+    private volatile long dropped;
+
+    /**
+     * @param loops 回放遍数，至少为 1
+     */
+    public ReplayFrameSource(File file, Pacing pacing, int loops) throws IOException {
+        this.pacing = pacing;
+        this.loops = Math.max(1, loops);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > FrameRecorder.MAX_FILE_SIZE) {
+                throw new IOException("Recording larger than 2 GB: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        offsets = index(mapped, file);
+        yView = mapped.duplicate();
+        uView = mapped.duplicate();
+        vView = mapped.duplicate();
+    }
+
+    /**
+     * 校验文件头并记录每帧的起始位置
+     */
+    private static int[] index(ByteBuffer buffer, File file) throws IOException {
+        if (buffer.limit() < FrameRecorder.FILE_HEADER_SIZE
+                || buffer.getInt(0) != FrameRecorder.MAGIC
+                || buffer.getInt(4) != FrameRecorder.VERSION
+                || buffer.getInt(8) != FrameRecorder.FRAME_HEADER_SIZE) {
+            throw new IOException("Not a frame recording: " + file);
+        }
+        int count = 0;
+        int position = FrameRecorder.FILE_HEADER_SIZE;
+        int[] offsets = new int[64];
+        while (position + FrameRecorder.FRAME_HEADER_SIZE <= buffer.limit()) {
+            int frameSize = buffer.getInt(position);
+            if (frameSize < FrameRecorder.FRAME_HEADER_SIZE || position + (long) frameSize > buffer.limit()) {
+                break; // 录制中断留下的不完整帧
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            position += frameSize;
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    public int getFrameCount() {
+        return offsets.length;
+    }
+
+    @Override
+    public void start(FrameSink sink) {
+        running = true;
+        thread = new Thread(() -> run(sink), "frame-replay");
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 等待所有帧推送完毕
+     * @return 超时返回 false
+     */
+    public boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+        thread.join(timeoutMillis);
+        return !thread.isAlive();
+    }
+
+    /**
+     * 被 sink 接收的帧数
+     */
+    public long getPushedCount() {
+        return pushed;
+    }
+
+    /**
+     * NATIVE 模式下 sink 忙而丢弃的帧数
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    private void run(FrameSink sink) {
+        if (offsets.length == 0) {
+            return;
+        }
+        long firstTimestamp = mapped.getLong(offsets[0] + TIMESTAMP_OFFSET);
+        for (int loop = 0; loop < loops && running; loop++) {
+            long loopStart = System.nanoTime();
+            for (int i = 0; i < offsets.length && running; i++) {
+                int offset = offsets[i];
+                if (pacing == Pacing.NATIVE) {
+                    long due = loopStart + mapped.getLong(offset + TIMESTAMP_OFFSET) - firstTimestamp;
+                    long wait;
+                    while (running && (wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                } else {
+                    while (running && !sink.hasCapacity()) {
+                        LockSupport.parkNanos(this, BUSY_PARK_NANOS);
+                    }
+                }
+                if (!running) {
+                    break;
+                }
+                if (push(sink, offset)) {
+                    pushed++;
+                } else {
+                    dropped++;
+                }
+            }
+        }
+    }
+
+    private boolean push(FrameSink sink, int offset) {
+        ByteBuffer b = mapped;
+        int width = b.getInt(offset + 4);
+        int height = b.getInt(offset + 8);
+        int yRowStride = b.getInt(offset + 12);
+        int uvRowStride = b.getInt(offset + 16);
+        int uvPixelStride = b.getInt(offset + 20);
+        int rotationDegrees = b.getInt(offset + 24);
+        int yLength = b.getInt(offset + 28);
+        int uLength = b.getInt(offset + 32);
+        int vLength = b.getInt(offset + 36);
+
+        int yStart = offset + FrameRecorder.FRAME_HEADER_SIZE;
+        int uStart = yStart + yLength;
+        int vStart = uStart + uLength;
+        // 先设 limit（position 超出时会被截到 limit），再设 position
+        yView.limit(yStart + yLength).position(yStart);
+        uView.limit(uStart + uLength).position(uStart);
+        vView.limit(vStart + vLength).position(vStart);
+        return sink.onFrame(width, height, yView, yRowStride, uView, vView, uvRowStride, uvPixelStride,
+                System.nanoTime(), rotationDegrees);
+    }
+}
@@ -2,18 +2,84 @@ package com.demo.headpose;
 
 import android.util.Log;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 
+/**
+ * 头姿数据的网络服务端（端口 5000）。
+ * 数据由单个写线程（PoseStreamWriter）编码，sendData 只把记录放入无锁队列，不创建线程、不阻塞。
+ * TCP 模式由 PoseBroadcastServer 管理连接：可同时服务任意多个订阅者，断开的客户端可以随时重新连接；
+ * UDP 模式由 PoseDatagramServer 按订阅握手发送数据包，不重传，适合闭环控制。
+ */
 public class SocketManager {
 
+    /**
+     * 传输方式
+     */
+    public enum Transport {
+        TCP,
+        UDP
+    }
+
     private static final String TAG = "SocketManager"; // 用于日志输出的标记
-    private ServerSocket serverSocket;  // Socket服务器对象
-    private Socket clientSocket;        // 连接进来的客户端
-    private DataOutputStream outputStream; // 用于发送数据到服务器的输出流
-    private boolean isServerRunning = false;
+    private static final int PORT = 5000;
+    // 按顺序发送时的队列容量
+    private static final int QUEUE_CAPACITY = 256;
+    // TCP：每个订阅者最多排队的帧数，约 2 秒的数据
+    private static final int SUBSCRIBER_CAPACITY = 64;
+    // UDP：最多订阅者数
+    private static final int MAX_DATAGRAM_SUBSCRIBERS = 16;
+
+    private final PoseTransport server;
+    private volatile boolean isServerRunning = false;
+
+    private final PoseStreamWriter writer;
+
+    /**
+     * 默认通过 TCP 发送二进制记录，按顺序交付，慢客户端丢最旧的帧
+     */
+    public SocketManager() {
+        this(Transport.TCP, PoseStreamWriter.Format.BINARY, false, PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param transport UDP 时固定使用 BINARY 格式，policy 不起作用
+     * @param format    BINARY 为 44 字节小端序记录，TEXT 为原文本行协议（socket.py）
+     * @param coalesce  true 时只发送最新的一条，来不及发送的旧数据直接丢弃
+     * @param policy    TCP 订阅者发送队列满时丢最旧的帧还是断开
+     */
+    public SocketManager(Transport transport, PoseStreamWriter.Format format, boolean coalesce,
+                         PoseBroadcastServer.SlowConsumerPolicy policy) {
+        PoseTransport.Listener listener = new PoseTransport.Listener() {
+            @Override
+            public void onSubscribed(SocketAddress remote) {
+                Log.i(TAG, "Client connected: " + remote);
+            }
+
+            @Override
+            public void onUnsubscribed(SocketAddress remote, String reason) {
+                Log.i(TAG, "Client disconnected: " + remote + " (" + reason + ")");
+            }
+
+            @Override
+            public void onError(IOException error) {
+                Log.e(TAG, "Socket server error", error);
+                isServerRunning = false;
+            }
+        };
+        InetSocketAddress address = new InetSocketAddress("0.0.0.0", PORT);
+        if (transport == Transport.UDP) {
+            server = new PoseDatagramServer(address, MAX_DATAGRAM_SUBSCRIBERS,
+                    PoseDatagramServer.DEFAULT_TIMEOUT_MILLIS, listener);
+            format = PoseStreamWriter.Format.BINARY;
+        } else {
+            server = new PoseBroadcastServer(address, SUBSCRIBER_CAPACITY, policy, listener);
+        }
+        PoseQueue queue = coalesce ? new LatestPoseSlot() : new SpscPoseRing(QUEUE_CAPACITY);
+        writer = new PoseStreamWriter(queue, format, server);
+        writer.start();
+    }
 
     // 获取本机实际IP地址
     private String getLocalIpAddress() {
@@ -40,91 +106,62 @@ public class SocketManager {
         return null;
     }
 
-    // 启动Socket服务器并等待客户端连接
+    // 启动Socket服务器，在后台线程上绑定端口
     public void startServer() {
         if (isServerRunning) {
             Log.i(TAG, "Server is already running");
             return;
         }
+        isServerRunning = true;
 
         new Thread(() -> {
             try {
-                // 先关闭之前的连接
-                closeConnection();
-                
                 // 获取实际IP地址
                 String localIp = getLocalIpAddress();
                 Log.i(TAG, "Local IP address: " + localIp);
-                
-                // 创建新的服务器
-                serverSocket = new ServerSocket(5000, 0, java.net.InetAddress.getByName("0.0.0.0"));
-                isServerRunning = true;
-                Log.i(TAG, "Socket server started on port 5000. Waiting for client...");
-                Log.i(TAG, "Server IP: " + serverSocket.getInetAddress().getHostAddress());
-                Log.i(TAG, "Server is listening on all interfaces (0.0.0.0)");
-                Log.i(TAG, "Connect using IP: " + localIp);
-                
-                while (isServerRunning) {
-                    try {
-                        clientSocket = serverSocket.accept();
-                outputStream = new DataOutputStream(clientSocket.getOutputStream());
-                Log.i(TAG, "Client connected: " + clientSocket.getInetAddress());
-                        break;
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error accepting client connection", e);
-                        if (!isServerRunning) break;
-                        continue;
-                    }
-                }
+
+                // 监听所有网卡
+                server.start();
+                Log.i(TAG, "Socket server started on port " + PORT + " (" + server.getClass().getSimpleName() + ", "
+                        + writer.getFormat() + "). Connect using IP: " + localIp);
             } catch (IOException e) {
                 Log.e(TAG, "Socket server error", e);
                 isServerRunning = false;
             }
-        }).start();
+        }, "socket-start").start();
     }
 
-    // 发送数据到客户端
-    public void sendData(float yaw, float pitch, float roll, float lx, float ly, float rx, float ry) {
-        new Thread(() -> {
-            try {
-                if (outputStream != null) {
-                    // 格式化消息，确保每个值的精度一致
-                    String message = String.format("%.2f %.2f %.2f %.2f %.2f %.2f %.2f", yaw, pitch, roll, lx, ly, rx, ry);
-
-                    // 在消息末尾添加换行符，确保数据分隔
-                    message += "\n";
-
-                    // 使用writeBytes避免UTF限制，可以通过getBytes获取字节数据发送
-                    outputStream.write(message.getBytes());
-                    outputStream.flush();
-                } else {
-                    Log.w(TAG, "Client not connected yet. Cannot send data.");
-                }
-            } catch (IOException e) {
-                Log.e(TAG, "Send failed", e);
-            }
-        }).start();
+    /**
+     * 发送一帧头姿数据。只能在单个线程上调用（流水线的发送阶段），不阻塞、不分配内存
+     */
+    public void sendData(long sequence, long timestampNanos,
+                         float yaw, float pitch, float roll, float lx, float ly, float rx, float ry) {
+        writer.publish(sequence, timestampNanos, yaw, pitch, roll, lx, ly, rx, ry);
+    }
+
+    /**
+     * 把发送耗时与发送队列的丢弃数登记到流水线指标
+     */
+    public void registerMetrics(PipelineMetrics metrics) {
+        writer.setWriteLatency(metrics.histogram(PipelineMetrics.Stage.SEND));
+        metrics.addCounter("send_queue_dropped", writer::getDroppedCount);
+        metrics.addCounter("send_errors", writer::getErrorCount);
+        metrics.addCounter("subscribers", server::getSubscriberCount);
+    }
+
+    public PoseStreamWriter getWriter() {
+        return writer;
+    }
+
+    public PoseTransport getServer() {
+        return server;
     }
 
     // 关闭Socket连接
     public void closeConnection() {
         isServerRunning = false;
-        try {
-            if (outputStream != null) {
-                outputStream.close();
-                outputStream = null;
-            }
-            if (clientSocket != null) {
-                clientSocket.close();
-                clientSocket = null;
-            }
-            if (serverSocket != null) {
-                serverSocket.close();
-                serverSocket = null;
-            }
-            Log.i(TAG, "Socket connection closed.");
-        } catch (IOException e) {
-            Log.e(TAG, "Error closing socket", e);
-        }
+        writer.stop();
+        server.stop();
+        Log.i(TAG, "Socket connection closed.");
     }
 }
@@ -0,0 +1,72 @@
+package com.demo.headpose;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 冷启动耗时统计（纯 Java）。所有时间点使用同一时钟的纳秒值，以进程启动时间为起点：
+ * 模型拷贝、模型加载、预热各自的耗时，可交互时间（模型就绪、开始接收相机帧）与第一个头姿结果的时间。
+ */
+public class StartupMetrics {
+
+    private final long startNanos;
+
+    private volatile long copyNanos;
+    private volatile long loadNanos;
+    private volatile long warmupNanos;
+    private volatile long readyAtNanos;
+    private final AtomicLong firstPoseAtNanos = new AtomicLong();
+
+    public StartupMetrics(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public void setCopyNanos(long copyNanos) {
+        this.copyNanos = copyNanos;
+    }
+
+    public void setLoadNanos(long loadNanos) {
+        this.loadNanos = loadNanos;
+    }
+
+    public void setWarmupNanos(long warmupNanos) {
+        this.warmupNanos = warmupNanos;
+    }
+
+    public void markReady(long nowNanos) {
+        readyAtNanos = nowNanos;
+    }
+
+    /**
+     * 只记录第一次调用
+     * @return 是否为第一个头姿结果
+     */
+    public boolean markFirstPose(long nowNanos) {
+        return firstPoseAtNanos.compareAndSet(0, nowNanos);
+    }
+
+    public boolean hasFirstPose() {
+        return firstPoseAtNanos.get() != 0;
+    }
+
+    /**
+     * 进程启动到模型就绪（可交互）的毫秒数，尚未就绪时返回 -1
+     */
+    public double timeToInteractiveMs() {
+        long ready = readyAtNanos;
+        return ready == 0 ? -1 : (ready - startNanos) / 1e6;
+    }
+
+    /**
+     * 进程启动到第一个头姿结果的毫秒数，尚未得到结果时返回 -1
+     */
+    public double timeToFirstPoseMs() {
+        long firstPose = firstPoseAtNanos.get();
+        return firstPose == 0 ? -1 : (firstPose - startNanos) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("copy %.1f ms, load %.1f ms, warm-up %.1f ms, time to interactive %.1f ms, time to first pose %.1f ms",
+                copyNanos / 1e6, loadNanos / 1e6, warmupNanos / 1e6, timeToInteractiveMs(), timeToFirstPoseMs());
+    }
+}
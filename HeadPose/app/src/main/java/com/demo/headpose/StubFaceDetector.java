@@ -0,0 +1,35 @@
+package com.demo.headpose;
+
+/**
+ * 不依赖 MLKit 的占位检测器（纯 Java）：每帧报告一张位于画面中央的固定人脸与双眼位置。
+ * 用于在桌面 JVM 上回放录像、测量吞吐量与做回归基准，检测结果确定不变。
+ */
+public class StubFaceDetector implements FaceDetectorEngine {
+
+    private final float faceFraction;
+
+    /**
+     * @param faceFraction 人脸框边长占画面短边的比例（0 ~ 1）
+     */
+    public StubFaceDetector(float faceFraction) {
+        if (faceFraction <= 0 || faceFraction > 1) {
+            throw new IllegalArgumentException("Face fraction must be in (0, 1]: " + faceFraction);
+        }
+        this.faceFraction = faceFraction;
+    }
+
+    @Override
+    public boolean detect(FrameContext context) {
+        YuvFrame frame = context.frame.get();
+        int side = (int) (Math.min(frame.width, frame.height) * faceFraction);
+        int left = (frame.width - side) / 2;
+        int top = (frame.height - side) / 2;
+        context.faceCount = 0;
+        context.addFace(left, top, left + side, top + side);
+        context.leftEyeX = left + side * 0.3f;
+        context.leftEyeY = top + side * 0.4f;
+        context.rightEyeX = left + side * 0.7f;
+        context.rightEyeY = top + side * 0.4f;
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.headpose;
+
+import org.pytorch.IValue;
+import org.pytorch.MemoryFormat;
+import org.pytorch.Tensor;
+
+/**
+ * PyTorch 后端的模型输入：在 PoseInput 的缓冲区上一次性包装好 Tensor / IValue，放在 ObjectPool 中复用。
+ */
+public class TensorBlob extends PoseInput {
+
+    public final Tensor tensor;
+    public final IValue value;
+
+    public TensorBlob(int batchSize, int inputSize) {
+        super(batchSize, inputSize);
+        tensor = Tensor.fromBlob(buffer, new long[]{batchSize, 3, inputSize, inputSize}, MemoryFormat.CHANNELS_LAST);
+        value = IValue.from(tensor);
+    }
+}
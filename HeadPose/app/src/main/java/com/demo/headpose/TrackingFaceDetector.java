@@ -0,0 +1,92 @@
+package com.demo.headpose;
+
+/**
+ * 先检测后跟踪（纯 Java）。
+ * 每 detectInterval 帧或跟踪置信度低于阈值时调用完整检测器，其余帧用 FaceTracker 在亮度平面上跟踪人脸。
+ * detectInterval 为 1 时每帧都做完整检测。
+ */
+public class TrackingFaceDetector implements FaceDetectorEngine {
+
+    private final FaceDetectorEngine detector;
+    private final FaceTracker tracker;
+    private final boolean mirror;
+
+    private volatile int detectInterval;
+    private volatile float minConfidence;
+    private int framesSinceDetect;
+
+    private long detections;
+    private long trackedFrames;
+
+    public TrackingFaceDetector(FaceDetectorEngine detector, boolean mirror,
+                                int detectInterval, float minConfidence, int searchRadius) {
+        this.detector = detector;
+        this.mirror = mirror;
+        this.tracker = new FaceTracker(32, searchRadius);
+        setDetectInterval(detectInterval);
+        setMinConfidence(minConfidence);
+    }
+
+    @Override
+    public boolean detect(FrameContext context) throws Exception {
+        YuvFrame frame = context.frame.get();
+
+        if (tracker.isInitialized() && framesSinceDetect + 1 < detectInterval) {
+            float confidence = tracker.track(frame, mirror, context);
+            if (confidence >= minConfidence) {
+                framesSinceDetect++;
+                trackedFrames++;
+                context.tracked = true;
+                return true;
+            }
+            // 置信度过低，同一帧回退到完整检测
+            context.hasFace = false;
+            context.faceCount = 0;
+            context.landmarkMask = 0;
+        }
+
+        detections++;
+        framesSinceDetect = 0;
+        context.tracked = false;
+        if (detector.detect(context)) {
+            tracker.start(frame, mirror, context);
+            return true;
+        }
+        tracker.reset();
+        return false;
+    }
+
+    @Override
+    public void close() {
+        detector.close();
+    }
+
+    /**
+     * 可在运行中调整，下一帧生效
+     */
+    public void setDetectInterval(int detectInterval) {
+        this.detectInterval = Math.max(1, detectInterval);
+    }
+
+    public void setMinConfidence(float minConfidence) {
+        this.minConfidence = minConfidence;
+    }
+
+    public float getConfidence() {
+        return tracker.getConfidence();
+    }
+
+    /**
+     * 完整检测次数
+     */
+    public long getDetectionCount() {
+        return detections;
+    }
+
+    /**
+     * 通过跟踪得到人脸的帧数
+     */
+    public long getTrackedCount() {
+        return trackedFrames;
+    }
+}
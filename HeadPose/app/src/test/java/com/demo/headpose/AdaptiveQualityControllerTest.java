@@ -0,0 +1,122 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * AdaptiveQualityController：用模拟的延迟序列检查降档、升档、滞回与试探退避。
+ * 模拟设备上每个档位有一个基础耗时，乘以负载系数后加上抖动。
+ */
+public class AdaptiveQualityControllerTest {
+
+    private static final long BUDGET_MILLIS = 33;
+    private static final int WINDOW = AdaptiveQualityController.DEFAULT_WINDOW_FRAMES;
+
+    private final List<String> transitions = new ArrayList<>();
+    private final Random random = new Random(42);
+    private AdaptiveQualityController controller;
+    private final QualityLevel[] ladder = QualityLevel.defaultLadder();
+
+    // 在预算内但没有足够余量升档：保持当前档位
+    @Test
+    public void holdsLevelInsideHysteresisBand() {
+        start(QualityLevel.DEFAULT_LEVEL);
+        run(100 * WINDOW, new double[]{40, 25, 20, 15, 10}, 1.0);
+        assertEquals(QualityLevel.DEFAULT_LEVEL, controller.getLevelIndex());
+        assertEquals(0, controller.getChangeCount());
+        assertTrue(controller.getLastWindowNanos() > 0);
+    }
+
+    @Test
+    public void stepsDownUnderLoadAndBackUpWhenLoadDrops() {
+        start(QualityLevel.DEFAULT_LEVEL);
+        double[] costs = {45, 36, 28, 20, 14};
+        run(20 * WINDOW, costs, 1.0);
+        // 36 ms 超出预算，降到 28 ms 的档位后落在滞回区间内，不再变化
+        assertEquals(2, controller.getLevelIndex());
+        assertEquals(1, controller.getChangeCount());
+        assertEquals("default->tracked", transitions.get(0));
+
+        // 负载减半：逐档升回，直到最高档（22.5 ms 落在滞回区间）
+        run(60 * WINDOW, costs, 0.5);
+        assertEquals(0, controller.getLevelIndex());
+        assertEquals(3, controller.getChangeCount());
+
+        // 负载加倍：一路降到最低档，不越界
+        run(60 * WINDOW, costs, 2.0);
+        assertEquals(ladder.length - 1, controller.getLevelIndex());
+        assertEquals("no_landmarks->low", transitions.get(transitions.size() - 1));
+    }
+
+    // 单个窗口的尖峰（例如 GC 或后台任务）不触发降档
+    @Test
+    public void ignoresSingleWindowSpike() {
+        start(QualityLevel.DEFAULT_LEVEL);
+        double[] costs = {40, 25, 20, 15, 10};
+        run(5 * WINDOW, costs, 1.0);
+        run(WINDOW, costs, 3.0);
+        run(5 * WINDOW, costs, 1.0);
+        assertEquals(QualityLevel.DEFAULT_LEVEL, controller.getLevelIndex());
+        assertEquals(0, controller.getChangeCount());
+    }
+
+    // 上一档刚好超出预算、当前档很宽裕：试探升档失败后逐次放慢，不会周期性地来回切换
+    @Test
+    public void backsOffFailedUpgradeProbes() {
+        start(2);
+        double[] costs = {60, 36, 12, 10, 8};
+        int frames = 400 * WINDOW;
+        int overBudget = run(frames, costs, 1.0);
+
+        long changes = controller.getChangeCount();
+        // 没有退避时约每 7 个窗口试探一次（约 110 次切换）
+        assertTrue("changes " + changes, changes <= 14);
+        assertTrue("over budget " + overBudget, overBudget < frames / 20);
+        for (int i = 0; i < transitions.size(); i++) {
+            assertEquals(i % 2 == 0 ? "tracked->default" : "default->tracked", transitions.get(i));
+        }
+    }
+
+    @Test
+    public void rejectsBadParameters() {
+        try {
+            new AdaptiveQualityController(ladder, ladder.length, BUDGET_MILLIS, (previous, next) -> {
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new AdaptiveQualityController(ladder, 0, BUDGET_MILLIS, 30, 2, 5, 1.2f, 0, (previous, next) -> {
+            });
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private void start(int level) {
+        controller = new AdaptiveQualityController(ladder, level, BUDGET_MILLIS,
+                (previous, next) -> transitions.add(previous.name + "->" + next.name));
+    }
+
+    /**
+     * 按当前档位的耗时 × load 加上 ±10% 抖动模拟 frames 帧
+     * @return 超出预算的帧数
+     */
+    private int run(int frames, double[] costMillis, double load) {
+        int overBudget = 0;
+        for (int i = 0; i < frames; i++) {
+            double millis = costMillis[controller.getLevelIndex()] * load * (0.9 + 0.2 * random.nextDouble());
+            long nanos = (long) (millis * 1_000_000);
+            if (nanos > controller.getBudgetNanos()) {
+                overBudget++;
+            }
+            controller.onLatency(nanos);
+        }
+        return overBudget;
+    }
+}
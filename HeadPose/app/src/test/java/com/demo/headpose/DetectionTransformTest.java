@@ -0,0 +1,151 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * YUV 检测输入：MLKit 在旋转后的竖直画面中给出的人脸框与关键点，经 DetectionTransform 映射后
+ * 应与整帧镜像 Bitmap（旋转 0）路径给出的结果相同。竖直画面由 OverlayTransform（缩放为 1）正向旋转得到，
+ * MLKit 按画面中人脸的样子标注左右：未镜像的画面中“左眼”是真实的左眼，镜像画面中是真实的右眼。
+ */
+public class DetectionTransformTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+    private static final float EPSILON = 1e-3f;
+
+    // 分析帧（未镜像）中的人脸框与真实的关键点：按 LandmarkPoseSolver 的顺序，左右指人物自己的左右
+    private static final int[] FACE = {150, 60, 310, 240};
+    private static final float[] LANDMARKS = {
+            262, 128, 198, 131, 231, 170, 257, 206, 207, 208, 305, 150, 158, 152};
+
+    @Test
+    public void boxesAndLandmarksMatchBitmapPath() {
+        DetectionTransform transform = new DetectionTransform();
+        int[] box = new int[4];
+        float[] upright = new float[LANDMARKS.length];
+        for (boolean mirror : new boolean[]{false, true}) {
+            float[] expected = bitmapLandmarks(mirror);
+            int[] expectedBox = mirror
+                    ? new int[]{WIDTH - FACE[2], FACE[1], WIDTH - FACE[0], FACE[3]}
+                    : FACE.clone();
+            for (int rotation : ROTATIONS) {
+                String message = "mirror " + mirror + " rotation " + rotation;
+                int[] uprightBox = rotateBox(FACE, rotation);
+                rotatePoints(LANDMARKS, rotation, upright);
+                transform.setSource(WIDTH, HEIGHT, rotation, mirror);
+
+                transform.mapBox(uprightBox[0], uprightBox[1], uprightBox[2], uprightBox[3], box, 0);
+                assertArrayEquals(message, expectedBox, box);
+                for (int i = 0; i < LandmarkPoseSolver.LANDMARK_COUNT; i++) {
+                    int source = transform.sourceLandmark(i);
+                    float x = upright[source * 2];
+                    float y = upright[source * 2 + 1];
+                    assertEquals(message, expected[i * 2], transform.mapX(x, y), EPSILON);
+                    assertEquals(message, expected[i * 2 + 1], transform.mapY(x, y), EPSILON);
+                }
+            }
+        }
+    }
+
+    /**
+     * 竖直画面中每个像素中心映射回镜像分析帧后，落在整帧镜像 Bitmap 中颜色相同的像素上
+     */
+    @Test
+    public void pixelCentersLandOnSameBitmapPixels() {
+        YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, 512, 512, 2, new Random(7));
+        int[] plain = new int[WIDTH * HEIGHT];
+        int[] mirrored = new int[WIDTH * HEIGHT];
+        YuvToRgbConverter.yuvToArgb(frame, plain, false);
+        YuvToRgbConverter.yuvToArgb(frame, mirrored, true);
+        OverlayTransform rotate = new OverlayTransform();
+        DetectionTransform transform = new DetectionTransform();
+        for (int rotation : ROTATIONS) {
+            boolean swap = rotation == 90 || rotation == 270;
+            int uprightWidth = swap ? HEIGHT : WIDTH;
+            int uprightHeight = swap ? WIDTH : HEIGHT;
+            rotate.setSource(WIDTH, HEIGHT, rotation);
+            rotate.setView(uprightWidth, uprightHeight);
+            // 竖直画面：按像素中心正向旋转
+            int[] upright = new int[WIDTH * HEIGHT];
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    int u = (int) rotate.mapX(x + 0.5f, y + 0.5f);
+                    int v = (int) rotate.mapY(x + 0.5f, y + 0.5f);
+                    upright[v * uprightWidth + u] = plain[y * WIDTH + x];
+                }
+            }
+            transform.setSource(WIDTH, HEIGHT, rotation, true);
+            for (int v = 0; v < uprightHeight; v++) {
+                for (int u = 0; u < uprightWidth; u++) {
+                    int x = (int) transform.mapX(u + 0.5f, v + 0.5f);
+                    int y = (int) transform.mapY(u + 0.5f, v + 0.5f);
+                    assertEquals("rotation " + rotation, upright[v * uprightWidth + u], mirrored[y * WIDTH + x]);
+                }
+            }
+        }
+    }
+
+    // 交给 MLKit 的 NV21 与原帧是同一幅图像
+    @Test
+    public void nv21HoldsSamePixels() {
+        YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, 512, 512, 2, new Random(8));
+        byte[] nv21 = frame.toNv21(null);
+        assertEquals(WIDTH * HEIGHT * 3 / 2, nv21.length);
+        assertSame(nv21, frame.toNv21(nv21));
+
+        YuvFrame packed = new YuvFrame();
+        packed.width = WIDTH;
+        packed.height = HEIGHT;
+        packed.yRowStride = WIDTH;
+        packed.uvRowStride = WIDTH;
+        packed.uvPixelStride = 2;
+        packed.y = nv21;
+        packed.v = Arrays.copyOfRange(nv21, WIDTH * HEIGHT, nv21.length);
+        packed.u = Arrays.copyOfRange(nv21, WIDTH * HEIGHT + 1, nv21.length);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(TestFrames.referenceArgb(frame, x, y), TestFrames.referenceArgb(packed, x, y));
+            }
+        }
+    }
+
+    // Bitmap 路径（整帧镜像、旋转 0）中 MLKit 给出的关键点：镜像时左右互换标注
+    private static float[] bitmapLandmarks(boolean mirror) {
+        float[] points = LANDMARKS.clone();
+        if (mirror) {
+            int[] swap = {1, 0, 2, 4, 3, 6, 5};
+            for (int i = 0; i < swap.length; i++) {
+                points[i * 2] = WIDTH - LANDMARKS[swap[i] * 2];
+                points[i * 2 + 1] = LANDMARKS[swap[i] * 2 + 1];
+            }
+        }
+        return points;
+    }
+
+    private static int[] rotateBox(int[] box, int rotation) {
+        float[] corners = {box[0], box[1], box[2], box[3]};
+        float[] rotated = new float[4];
+        rotatePoints(corners, rotation, rotated);
+        return new int[]{
+                (int) Math.min(rotated[0], rotated[2]), (int) Math.min(rotated[1], rotated[3]),
+                (int) Math.max(rotated[0], rotated[2]), (int) Math.max(rotated[1], rotated[3])};
+    }
+
+    // 按 OverlayTransform 的约定顺时针旋转到竖直画面（View 与竖直画面同样大小，缩放为 1）
+    private static void rotatePoints(float[] points, int rotation, float[] dst) {
+        boolean swap = rotation == 90 || rotation == 270;
+        OverlayTransform rotate = new OverlayTransform();
+        rotate.setSource(WIDTH, HEIGHT, rotation);
+        rotate.setView(swap ? HEIGHT : WIDTH, swap ? WIDTH : HEIGHT);
+        for (int i = 0; i < points.length; i += 2) {
+            dst[i] = rotate.mapX(points[i], points[i + 1]);
+            dst[i + 1] = rotate.mapY(points[i], points[i + 1]);
+        }
+    }
+}
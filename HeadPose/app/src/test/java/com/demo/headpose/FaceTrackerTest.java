@@ -0,0 +1,211 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FaceTracker / TrackingFaceDetector 在合成帧上的测试：纹理块在平滑背景上匀速移动。
+ */
+public class FaceTrackerTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final int PATCH = 64;
+
+    private final byte[] texture = new byte[PATCH * PATCH];
+
+    public FaceTrackerTest() {
+        // 低分辨率随机网格双线性放大，得到与人脸类似的平滑纹理
+        int grid = PATCH / 8 + 1;
+        int[] coarse = new int[grid * grid];
+        Random random = new Random(7);
+        for (int i = 0; i < coarse.length; i++) {
+            coarse[i] = 30 + random.nextInt(200);
+        }
+        for (int y = 0; y < PATCH; y++) {
+            for (int x = 0; x < PATCH; x++) {
+                float gx = x / 8f;
+                float gy = y / 8f;
+                int x0 = (int) gx;
+                int y0 = (int) gy;
+                float fx = gx - x0;
+                float fy = gy - y0;
+                float top = coarse[y0 * grid + x0] * (1 - fx) + coarse[y0 * grid + x0 + 1] * fx;
+                float bottom = coarse[(y0 + 1) * grid + x0] * (1 - fx) + coarse[(y0 + 1) * grid + x0 + 1] * fx;
+                texture[y * PATCH + x] = (byte) Math.round(top * (1 - fy) + bottom * fy);
+            }
+        }
+    }
+
+    /**
+     * 平滑渐变背景，(x, y) 处（画面坐标，mirror 时按镜像后坐标）放置纹理块
+     */
+    private YuvFrame frameWithPatch(int x, int y, boolean mirror) {
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH + 16;
+        frame.uvRowStride = WIDTH;
+        frame.uvPixelStride = 2;
+        frame.y = new byte[frame.yRowStride * HEIGHT];
+        frame.u = new byte[frame.uvRowStride * HEIGHT / 2];
+        frame.v = new byte[frame.uvRowStride * HEIGHT / 2];
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                int sx = mirror ? WIDTH - 1 - col : col;
+                int value = (col + row) / 4;
+                int px = sx - x;
+                int py = row - y;
+                if (px >= 0 && px < PATCH && py >= 0 && py < PATCH) {
+                    value = texture[py * PATCH + px] & 0xFF;
+                }
+                frame.y[row * frame.yRowStride + col] = (byte) value;
+            }
+        }
+        return frame;
+    }
+
+    private static FrameContext detection(int x, int y) {
+        FrameContext context = new FrameContext();
+        context.hasFace = true;
+        context.faceLeft = x;
+        context.faceTop = y;
+        context.faceRight = x + PATCH;
+        context.faceBottom = y + PATCH;
+        context.leftEyeX = x + 16;
+        context.leftEyeY = y + 20;
+        context.rightEyeX = x + 48;
+        context.rightEyeY = y + 20;
+        return context;
+    }
+
+    @Test
+    public void followsConstantVelocityMotion() {
+        for (boolean mirror : new boolean[]{false, true}) {
+            FaceTracker tracker = new FaceTracker(32, 24);
+            tracker.start(frameWithPatch(40, 50, mirror), mirror, detection(40, 50));
+
+            FrameContext out = new FrameContext();
+            for (int i = 1; i <= 20; i++) {
+                int x = 40 + 7 * i;
+                int y = 50 + 3 * i;
+                float confidence = tracker.track(frameWithPatch(x, y, mirror), mirror, out);
+
+                assertTrue("confidence " + confidence, confidence > 0.8f);
+                assertTrue(out.hasFace);
+                assertEquals(x, out.faceLeft, 2);
+                assertEquals(y, out.faceTop, 2);
+                assertEquals(PATCH, out.faceRight - out.faceLeft);
+                assertEquals(x + 16, out.leftEyeX, 2f);
+                assertEquals(y + 20, out.rightEyeY, 2f);
+            }
+        }
+    }
+
+    @Test
+    public void confidenceDropsWhenFaceDisappears() {
+        FaceTracker tracker = new FaceTracker(32, 24);
+        tracker.start(frameWithPatch(100, 80, false), false, detection(100, 80));
+
+        float confidence = tracker.track(frameWithPatch(-500, -500, false), false, new FrameContext());
+        assertTrue("confidence " + confidence, confidence < 0.5f);
+
+        tracker.reset();
+        assertFalse(tracker.isInitialized());
+        assertEquals(0f, tracker.track(frameWithPatch(100, 80, false), false, new FrameContext()), 0f);
+    }
+
+    @Test
+    public void fullDetectionEveryInterval() throws Exception {
+        CountingDetector full = new CountingDetector();
+        TrackingFaceDetector detector = new TrackingFaceDetector(full, false, 5, 0.5f, 24);
+
+        int trackedFrames = 0;
+        for (int i = 0; i < 20; i++) {
+            full.x = 40 + 2 * i;
+            FrameContext context = contextFor(frameWithPatch(full.x, 60, false));
+            assertTrue(detector.detect(context));
+            assertEquals(full.x, context.faceLeft, 2);
+            if (context.tracked) {
+                trackedFrames++;
+            }
+        }
+        assertEquals(4, full.calls);
+        assertEquals(16, trackedFrames);
+        assertEquals(4, detector.getDetectionCount());
+        assertEquals(16, detector.getTrackedCount());
+    }
+
+    @Test
+    public void lowConfidenceFallsBackToDetection() throws Exception {
+        CountingDetector full = new CountingDetector();
+        TrackingFaceDetector detector = new TrackingFaceDetector(full, false, 100, 0.5f, 24);
+
+        full.x = 60;
+        assertTrue(detector.detect(contextFor(frameWithPatch(60, 60, false))));
+        assertEquals(1, full.calls);
+
+        // 人脸离开画面：跟踪置信度过低，同一帧重新检测且检测失败
+        full.x = -1;
+        FrameContext lost = contextFor(frameWithPatch(-500, -500, false));
+        assertFalse(detector.detect(lost));
+        assertFalse(lost.hasFace);
+        assertFalse(lost.tracked);
+        assertEquals(2, full.calls);
+
+        // 跟踪器已重置，下一帧直接完整检测
+        full.x = 80;
+        assertTrue(detector.detect(contextFor(frameWithPatch(80, 60, false))));
+        assertEquals(3, full.calls);
+    }
+
+    @Test
+    public void intervalOneDetectsEveryFrame() throws Exception {
+        CountingDetector full = new CountingDetector();
+        TrackingFaceDetector detector = new TrackingFaceDetector(full, false, 1, 0.5f, 24);
+        for (int i = 0; i < 5; i++) {
+            full.x = 50;
+            FrameContext context = contextFor(frameWithPatch(50, 60, false));
+            assertTrue(detector.detect(context));
+            assertFalse(context.tracked);
+        }
+        assertEquals(5, full.calls);
+    }
+
+    private static FrameContext contextFor(YuvFrame frame) {
+        ObjectPool<YuvFrame> pool = new ObjectPool<>("frame", () -> frame, false);
+        FrameContext context = new FrameContext();
+        context.frame = pool.acquire();
+        return context;
+    }
+
+    /**
+     * 模拟完整检测器：x < 0 表示没有人脸
+     */
+    private static final class CountingDetector implements FaceDetectorEngine {
+        int x;
+        int calls;
+
+        @Override
+        public boolean detect(FrameContext context) {
+            calls++;
+            if (x < 0) {
+                return false;
+            }
+            FrameContext detected = detection(x, 60);
+            context.hasFace = true;
+            context.faceLeft = detected.faceLeft;
+            context.faceTop = detected.faceTop;
+            context.faceRight = detected.faceRight;
+            context.faceBottom = detected.faceBottom;
+            context.leftEyeX = detected.leftEyeX;
+            context.leftEyeY = detected.leftEyeY;
+            context.rightEyeX = detected.rightEyeX;
+            context.rightEyeY = detected.rightEyeY;
+            return true;
+        }
+    }
+}
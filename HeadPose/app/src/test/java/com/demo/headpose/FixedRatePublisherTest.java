@@ -0,0 +1,57 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * FixedRatePublisher：按固定频率发布 PoseFilter 外推的姿态，测量过时后停止发布。
+ */
+public class FixedRatePublisherTest {
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+
+    @Test
+    public void publishesAtFixedRateAndStopsWhenStale() {
+        AtomicLong count = new AtomicLong();
+        AtomicLong lastSequence = new AtomicLong();
+        AtomicLong lastTimestamp = new AtomicLong();
+        FixedRatePublisher publisher = new FixedRatePublisher(new PoseFilter(), 100, 0, 100,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> {
+                    assertEquals(lastSequence.get() + 1, sequence);
+                    lastSequence.set(sequence);
+                    lastTimestamp.set(timestamp);
+                    count.incrementAndGet();
+                });
+        publisher.start();
+
+        // 30 fps 的测量持续 500 ms，采集时间基准比 nanoTime 早 1 秒
+        long offset = -TimeUnit.SECONDS.toNanos(1);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(500);
+        while (System.nanoTime() < end) {
+            long arrival = System.nanoTime();
+            publisher.update(arrival + offset, arrival, 1, 2, 3, 4, 5, 6, 7);
+            LockSupport.parkNanos(FRAME_NANOS);
+        }
+        long published = count.get();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 输出时间戳已换算到采集时间基准
+        assertEquals(System.nanoTime() + offset, lastTimestamp.get(), TimeUnit.MILLISECONDS.toNanos(150));
+
+        // 测量停止后不再发布
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300));
+        long afterStale = count.get();
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+        publisher.stop();
+
+        assertTrue("published " + published, published >= elapsedMillis / 10 * 7 / 10);
+        assertTrue(published <= elapsedMillis / 10 + 2);
+        assertEquals(afterStale, count.get());
+        assertTrue(publisher.getStaleTickCount() > 0);
+        assertTrue(publisher.getPipelineLatencyNanos() >= 0);
+    }
+}
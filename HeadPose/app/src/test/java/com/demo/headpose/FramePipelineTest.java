@@ -0,0 +1,206 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * FramePipeline 的顺序、丢帧策略、阶段并行与资源归还测试。
+ */
+public class FramePipelineTest {
+
+    private final List<Long> retired = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> dropped = Collections.synchronizedList(new ArrayList<>());
+    private FramePipeline<FrameContext> pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void framesKeepOrderAndSequenceAcrossStages() throws Exception {
+        List<Long> published = Collections.synchronizedList(new ArrayList<>());
+        List<Long> timestamps = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+        pipeline = newPipeline(done);
+        pipeline.addStage("a", c -> true, 64, FramePipeline.DropPolicy.BLOCK)
+                .addStage("b", c -> true, 64, FramePipeline.DropPolicy.BLOCK)
+                .addStage("publish", c -> {
+                    timestamps.add(c.captureTimeNanos);
+                    return published.add(c.sequence);
+                }, 64, FramePipeline.DropPolicy.BLOCK)
+                .start();
+
+        for (int i = 1; i <= 50; i++) {
+            pipeline.submit(frame(i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i + 1, (long) published.get(i));
+            assertEquals(1000L * (i + 1), (long) timestamps.get(i));
+        }
+        assertEquals(50, retired.size());
+    }
+
+    @Test
+    public void latestWins_dropsOldestQueuedFrame() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(5);
+        pipeline = newPipeline(done);
+        pipeline.addStage("slow", c -> {
+            started.countDown();
+            blocker.await();
+            processed.add(c.sequence);
+            return true;
+        }, 1, FramePipeline.DropPolicy.LATEST_WINS).start();
+
+        pipeline.submit(frame(1));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 第 1 帧处理中，2..5 依次挤掉前一帧，只剩 5
+        for (int i = 2; i <= 5; i++) {
+            pipeline.submit(frame(i));
+        }
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(1L, 5L), processed);
+        assertEquals(List.of(2L, 3L, 4L), dropped);
+        assertEquals(3, pipeline.getDroppedCount(0));
+        assertEquals(5, retired.size());
+    }
+
+    @Test
+    public void block_appliesBackpressureWithoutDropping() throws Exception {
+        CountDownLatch done = new CountDownLatch(20);
+        pipeline = newPipeline(done);
+        pipeline.addStage("fast", c -> true, 1, FramePipeline.DropPolicy.BLOCK)
+                .addStage("slow", c -> {
+                    Thread.sleep(2);
+                    return true;
+                }, 1, FramePipeline.DropPolicy.BLOCK)
+                .start();
+
+        for (int i = 1; i <= 20; i++) {
+            pipeline.submit(frame(i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(dropped.isEmpty());
+        assertEquals(20, pipeline.getProcessedCount(1));
+    }
+
+    @Test
+    public void stagesOverlapOnDifferentFrames() throws Exception {
+        // 推理第 1 帧时，检测阶段可以同时处理第 2 帧
+        CountDownLatch inferStarted = new CountDownLatch(1);
+        CountDownLatch detectSecond = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        pipeline = newPipeline(done);
+        pipeline.addStage("detect", c -> {
+            if (c.sequence == 2) {
+                detectSecond.countDown();
+            }
+            return true;
+        }, 2, FramePipeline.DropPolicy.BLOCK).addStage("infer", c -> {
+            if (c.sequence == 1) {
+                inferStarted.countDown();
+                assertTrue(detectSecond.await(5, TimeUnit.SECONDS));
+            }
+            return true;
+        }, 2, FramePipeline.DropPolicy.BLOCK).start();
+
+        pipeline.submit(frame(1));
+        assertTrue(inferStarted.await(5, TimeUnit.SECONDS));
+        pipeline.submit(frame(2));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stoppedOrFailedFrames_areRetired() throws Exception {
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(3);
+        pipeline = new FramePipeline<>(new FramePipeline.Listener<FrameContext>() {
+            @Override
+            public void onRetired(FrameContext item) {
+                retired.add(item.sequence);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(FrameContext item, String stageName, Throwable error) {
+                errors.incrementAndGet();
+            }
+        });
+        List<Long> reachedEnd = Collections.synchronizedList(new ArrayList<>());
+        pipeline.addStage("filter", c -> {
+            if (c.sequence == 2) {
+                throw new IllegalStateException("boom");
+            }
+            return c.sequence != 3;
+        }, 4, FramePipeline.DropPolicy.BLOCK).addStage("end", c -> reachedEnd.add(c.sequence), 4, FramePipeline.DropPolicy.BLOCK).start();
+
+        for (int i = 1; i <= 3; i++) {
+            pipeline.submit(frame(i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L), reachedEnd);
+        assertEquals(1, errors.get());
+    }
+
+    @Test
+    public void shutdown_retiresQueuedFrames() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        pipeline = newPipeline(new CountDownLatch(0));
+        pipeline.addStage("stuck", c -> {
+            started.countDown();
+            Thread.sleep(60_000);
+            return true;
+        }, 4, FramePipeline.DropPolicy.BLOCK).start();
+
+        for (int i = 1; i <= 3; i++) {
+            pipeline.submit(frame(i));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.shutdown();
+        assertEquals(3, retired.size());
+
+        // 停止后提交的帧直接归还
+        pipeline.submit(frame(4));
+        assertEquals(4, retired.size());
+    }
+
+    private FramePipeline<FrameContext> newPipeline(CountDownLatch done) {
+        return new FramePipeline<>(new FramePipeline.Listener<FrameContext>() {
+            @Override
+            public void onRetired(FrameContext item) {
+                retired.add(item.sequence);
+                done.countDown();
+            }
+
+            @Override
+            public void onDropped(FrameContext item, String stageName) {
+                dropped.add(item.sequence);
+            }
+        });
+    }
+
+    private static FrameContext frame(long sequence) {
+        FrameContext context = new FrameContext();
+        context.sequence = sequence;
+        context.captureTimeNanos = 1000L * sequence;
+        return context;
+    }
+}
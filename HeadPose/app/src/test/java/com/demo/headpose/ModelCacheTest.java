@@ -0,0 +1,137 @@
+package com.demo.headpose;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * ModelCache：缓存命中、失效重拷、半截文件与哈希校验。
+ */
+public class ModelCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sourceFile;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        sourceFile = folder.newFile("model.bin");
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(data);
+        Files.write(sourceFile.toPath(), data);
+        cacheDir = folder.newFolder("cache");
+    }
+
+    @Test
+    public void copiesOnceThenReusesCache() throws IOException {
+        ModelCache cache = new ModelCache(cacheDir, false);
+        File first = cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+        assertArrayEquals(Files.readAllBytes(sourceFile.toPath()), Files.readAllBytes(first.toPath()));
+        assertEquals(sourceFile.length(), cache.getBytesCopied());
+
+        File second = cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+        assertEquals(first, second);
+        assertEquals(sourceFile.length(), cache.getBytesCopied());
+        assertFalse(new File(cacheDir, "model.bin.tmp").exists());
+    }
+
+    @Test
+    public void recopiesWhenStampOrSizeChanges() throws IOException {
+        ModelCache cache = new ModelCache(cacheDir, false);
+        cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+
+        cache.ensure("model.bin", source(sourceFile, true), "v2", null);
+        assertEquals(2 * sourceFile.length(), cache.getBytesCopied());
+
+        // 同一版本戳下源文件大小变化
+        Files.write(sourceFile.toPath(), new byte[]{1, 2, 3});
+        File cached = cache.ensure("model.bin", source(sourceFile, true), "v2", null);
+        assertEquals(3, cached.length());
+    }
+
+    @Test
+    public void truncatedCacheIsReplaced() throws IOException {
+        ModelCache cache = new ModelCache(cacheDir, false);
+        File cached = cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+        try (RandomAccessFile file = new RandomAccessFile(cached, "rw")) {
+            file.setLength(1000);
+        }
+
+        cached = cache.ensure("model.bin", source(sourceFile, false), "v1", null);
+        assertArrayEquals(Files.readAllBytes(sourceFile.toPath()), Files.readAllBytes(cached.toPath()));
+    }
+
+    @Test
+    public void hashVerificationDetectsCorruptedCache() throws IOException {
+        ModelCache cache = new ModelCache(cacheDir, true);
+        File cached = cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+        // 大小不变、内容被改
+        try (RandomAccessFile file = new RandomAccessFile(cached, "rw")) {
+            file.seek(12345);
+            file.write(~file.read());
+        }
+
+        cached = cache.ensure("model.bin", source(sourceFile, true), "v1", null);
+        assertEquals(ModelCache.sha256(sourceFile), ModelCache.sha256(cached));
+        assertEquals(2 * sourceFile.length(), cache.getBytesCopied());
+    }
+
+    @Test
+    public void expectedHashIsChecked() throws IOException {
+        ModelCache cache = new ModelCache(cacheDir, false);
+        String hash = ModelCache.sha256(sourceFile);
+        assertTrue(cache.ensure("model.bin", source(sourceFile, true), "v1", hash.toUpperCase()).isFile());
+
+        try {
+            cache.ensure("other.bin", source(sourceFile, true), "v1", "00" + hash.substring(2));
+            fail("hash mismatch not detected");
+        } catch (IOException expected) {
+            assertFalse(new File(cacheDir, "other.bin").exists());
+            assertFalse(new File(cacheDir, "other.bin.tmp").exists());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shortSourceIsRejected() throws IOException {
+        File file = sourceFile;
+        ModelCache.Source lying = new ModelCache.Source() {
+            @Override
+            public long length() {
+                return file.length() + 10;
+            }
+
+            @Override
+            public ReadableByteChannel open() throws IOException {
+                return FileChannel.open(file.toPath());
+            }
+        };
+        new ModelCache(cacheDir, false).ensure("model.bin", lying, "v1", null);
+    }
+
+    private static ModelCache.Source source(File file, boolean knownLength) {
+        return new ModelCache.Source() {
+            @Override
+            public long length() {
+                return knownLength ? file.length() : -1;
+            }
+
+            @Override
+            public ReadableByteChannel open() throws IOException {
+                return FileChannel.open(file.toPath());
+            }
+        };
+    }
+}
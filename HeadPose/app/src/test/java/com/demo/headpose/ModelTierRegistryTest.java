@@ -0,0 +1,57 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ModelTierRegistryTest {
+
+    @Test
+    public void keepsOnlyPackagedTiersInOrder() {
+        ModelTierRegistry registry = registry("_epoch_80_3.pt", "_epoch_80_3_int8.ptl");
+        assertEquals(2, registry.size());
+        assertEquals(ModelTier.FP32, registry.get(0).name);
+        assertEquals(ModelTier.INT8, registry.get(1).name);
+        assertEquals(-1, registry.indexOf(ModelTier.LITE));
+        assertEquals(ModelTier.INT8, registry.resolve(ModelTier.INT8).name);
+        // 缺失或未知的档位退回最高的可用档位
+        assertEquals(ModelTier.FP32, registry.resolve(ModelTier.LITE).name);
+        assertEquals(ModelTier.FP32, registry.resolve("fp16").name);
+    }
+
+    @Test
+    public void lowerClampsToCheapestTier() {
+        ModelTierRegistry registry = registry("_epoch_80_3.pt", "_epoch_80_3_lite.ptl", "_epoch_80_3_int8.ptl");
+        ModelTier fp32 = registry.get(0);
+        ModelTier lite = registry.get(1);
+        assertSame(fp32, registry.lower(fp32, 0));
+        assertSame(lite, registry.lower(fp32, 1));
+        assertSame(registry.get(2), registry.lower(lite, 5));
+
+        // 只有一个档位时画质降档不换模型
+        ModelTierRegistry single = registry("_epoch_80_3.pt");
+        assertSame(single.get(0), single.lower(single.get(0), 1));
+    }
+
+    @Test
+    public void rejectsDuplicateAndEmpty() {
+        List<ModelTier> tiers = ModelTier.defaultTiers();
+        try {
+            new ModelTierRegistry(Arrays.asList(tiers.get(0), tiers.get(0)), name -> true);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            registry().resolve(ModelTier.FP32);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static ModelTierRegistry registry(String... assets) {
+        return new ModelTierRegistry(ModelTier.defaultTiers(), Arrays.asList(assets)::contains);
+    }
+}
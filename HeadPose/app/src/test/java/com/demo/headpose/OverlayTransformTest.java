@@ -0,0 +1,98 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 叠加层：分析帧 → View 的坐标映射（旋转 + FILL_CENTER）与三缓冲交接。
+ */
+public class OverlayTransformTest {
+
+    private static final float EPSILON = 1e-3f;
+
+    @Test
+    public void rotatesAndFillsCenter() {
+        // 480x360 的横向分析帧，顺时针旋转 90 度后为 360x480，铺满 720x1280 的竖屏 View
+        OverlayTransform transform = new OverlayTransform();
+        transform.setView(720, 1280);
+        assertTrue(transform.setSource(480, 360, 90));
+        assertFalse(transform.setSource(480, 360, 90));
+
+        // 高度方向决定缩放（1280 / 480），宽度方向 360 * 2.667 = 960，两侧各裁掉 120
+        float scale = 1280f / 480;
+        assertEquals(scale, transform.getScale(), EPSILON);
+        // 分析帧左上角旋转后位于右上角
+        assertEquals(360 * scale - 120, transform.mapX(0, 0), EPSILON);
+        assertEquals(0, transform.mapY(0, 0), EPSILON);
+        // 左下角旋转后位于左上角
+        assertEquals(-120, transform.mapX(0, 360), EPSILON);
+        assertEquals(0, transform.mapY(0, 360), EPSILON);
+        // 中心仍在中心
+        assertEquals(360, transform.mapX(240, 180), EPSILON);
+        assertEquals(640, transform.mapY(240, 180), EPSILON);
+        assertEquals(150 * scale, transform.mapLength(150), EPSILON);
+    }
+
+    @Test
+    public void mapsAllRotations() {
+        OverlayTransform transform = new OverlayTransform();
+        transform.setView(400, 300);
+        transform.setSource(400, 300, 0);
+        assertEquals(10, transform.mapX(10, 20), EPSILON);
+        assertEquals(20, transform.mapY(10, 20), EPSILON);
+
+        transform.setSource(400, 300, 180);
+        assertEquals(390, transform.mapX(10, 20), EPSILON);
+        assertEquals(280, transform.mapY(10, 20), EPSILON);
+
+        // 270 度：旋转后 300x400，按宽度 400 / 300 缩放，上下各裁掉 (400 * 4 / 3 - 300) / 2
+        transform.setSource(400, 300, -90);
+        float scale = 400f / 300;
+        float offsetY = (300 - 400 * scale) / 2;
+        assertEquals(20 * scale, transform.mapX(10, 20), EPSILON);
+        assertEquals((400 - 10) * scale + offsetY, transform.mapY(10, 20), EPSILON);
+    }
+
+    @Test
+    public void handsOverLatestSnapshot() {
+        OverlayState state = new OverlayState();
+        assertNull(state.latest());
+
+        FrameContext context = new FrameContext();
+        context.sequence = 1;
+        context.addFace(10, 20, 110, 140);
+        context.faceDegrees[0] = 15f;
+        context.leftEyeX = 40;
+        state.publish(context, 480, 360, 90);
+
+        OverlayState.Snapshot first = state.latest();
+        assertNotNull(first);
+        assertEquals(1, first.sequence);
+        assertEquals(1, first.faceCount);
+        assertEquals(110, first.faceBoxes[2]);
+        assertEquals(15f, first.faceDegrees[0], 0f);
+        assertEquals(40f, first.leftEyeX, 0f);
+        assertEquals(90, first.rotationDegrees);
+        // 没有新数据时保持上一帧
+        assertSame(first, state.latest());
+
+        // 两帧都在一次绘制之前到达：第 2 帧被覆盖，绘制第 3 帧
+        context.sequence = 2;
+        state.publish(context, 480, 360, 90);
+        context.sequence = 3;
+        context.faceCount = 0;
+        state.publish(context, 480, 360, 90);
+        OverlayState.Snapshot latest = state.latest();
+        assertEquals(3, latest.sequence);
+        assertEquals(0, latest.faceCount);
+        assertEquals(1, state.getOverwrittenCount());
+        // 正在绘制的那一帧不会被生产者改写
+        for (int sequence = 4; sequence < 10; sequence++) {
+            context.sequence = sequence;
+            state.publish(context, 480, 360, 90);
+            assertEquals(3, latest.sequence);
+        }
+        assertEquals(9, state.latest().sequence);
+    }
+}
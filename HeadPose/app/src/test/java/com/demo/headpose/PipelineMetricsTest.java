@@ -0,0 +1,96 @@
+package com.demo.headpose;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * 指标快照的文件与统计端口输出（直方图本身见 :core 的 LatencyHistogramTest）。
+ */
+public class PipelineMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportsSnapshotToFileAndStatsSocket() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics();
+        long[] dropped = {7};
+        metrics.addCounter("gate_dropped", () -> dropped[0]);
+        for (int i = 1; i <= 100; i++) {
+            metrics.histogram(PipelineMetrics.Stage.INFER).record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        File dump = new File(folder.getRoot(), "metrics.txt");
+        MetricsReporter reporter = new MetricsReporter(metrics, 50, dump,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+        reporter.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (reporter.getSnapshotCount() < 2) {
+                assertTrue(System.nanoTime() < deadline);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+            String fromSocket = read(reporter.getPort());
+            String fromFile = new String(Files.readAllBytes(dump.toPath()), StandardCharsets.UTF_8);
+
+            for (String snapshot : new String[]{fromSocket, fromFile}) {
+                assertTrue(snapshot, snapshot.startsWith("metrics uptime_ms="));
+                String infer = line(snapshot, "stage infer ");
+                assertTrue(infer, infer.contains(" count=100 "));
+                assertEquals(50, value(infer, "p50_us="), 50 / 16.0 + 0.1);
+                assertEquals(99, value(infer, "p99_us="), 99 / 16.0 + 0.1);
+                assertEquals(100, value(infer, "max_us="), 0.1);
+                assertTrue(line(snapshot, "stage detect ").contains(" count=0 "));
+                assertEquals("counter gate_dropped=7", line(snapshot, "counter gate_dropped"));
+            }
+            // 第二次及以后的快照中，区间内没有新的记录
+            assertTrue(fromSocket.contains("interval_count=0"));
+        } finally {
+            reporter.stop();
+        }
+    }
+
+    private static String read(int port) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            InputStream input = socket.getInputStream();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String line(String snapshot, String prefix) {
+        for (String line : snapshot.split("\n")) {
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        fail("No line starting with " + prefix + " in\n" + snapshot);
+        return null;
+    }
+
+    // 单位为微秒，换算为毫秒
+    private static double value(String line, String key) {
+        int start = line.indexOf(key) + key.length();
+        int end = line.indexOf(' ', start);
+        return Double.parseDouble(line.substring(start, end < 0 ? line.length() : end)) / 1000;
+    }
+}
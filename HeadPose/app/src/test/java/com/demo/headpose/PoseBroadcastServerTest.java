@@ -0,0 +1,353 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseBroadcastServer：回环上的多订阅者扇出、慢客户端策略与重连，以及 :core 的 PoseStreamClient 对接真实服务器。
+ */
+public class PoseBroadcastServerTest {
+
+    private PoseBroadcastServer server;
+    private PoseStreamWriter writer;
+    private final List<Client> clients = new ArrayList<>();
+    private ClientReader reader;
+    private PoseStreamClient streamClient;
+
+    @After
+    public void tearDown() throws Exception {
+        if (streamClient != null) {
+            streamClient.close();
+        }
+        if (reader != null) {
+            reader.stop();
+        }
+        for (Client client : clients) {
+            client.channel.close();
+        }
+        if (writer != null) {
+            writer.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void fansOutToManySubscribersAndReportsLatency() throws Exception {
+        int subscriberCount = 32;
+        int count = 2_000;
+        start(64, PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST, 0);
+        for (int i = 0; i < subscriberCount; i++) {
+            connect(count, 0);
+        }
+        awaitSubscribers(subscriberCount);
+        reader = new ClientReader(clients);
+
+        // 1 kHz，远高于相机帧率
+        for (int i = 1; i <= count; i++) {
+            while (!writer.publish(i, System.nanoTime(), i, 0, 0, 0, 0, 0, 0)) {
+                Thread.yield();
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        awaitReceived(clients, count);
+
+        assertEquals(0, server.getFrameDroppedCount());
+        assertEquals(0, server.getHandoffDroppedCount());
+        // 每条记录送达最后一个订阅者的延迟
+        long[] slowest = new long[count];
+        for (Client client : clients) {
+            assertFalse(client.corrupt);
+            assertEquals(count, client.received);
+            for (int i = 0; i < count; i++) {
+                slowest[i] = Math.max(slowest[i], client.latencies[i]);
+            }
+        }
+        Arrays.sort(slowest);
+        assertTrue("p50 " + slowest[count / 2] + " ns", slowest[count / 2] < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void slowSubscriberDropsOldestWithoutStallingOthers() throws Exception {
+        start(8, PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST, 4096);
+        Client fast = connect(100_000, 0);
+        Client slow = connect(100_000, 4096);
+        awaitSubscribers(2);
+        reader = new ClientReader(Arrays.asList(fast));
+
+        publishBurst(5_000);
+        awaitReceived(Arrays.asList(fast), (int) server.getBroadcastCount());
+
+        assertFalse(fast.corrupt);
+        assertEquals(server.getBroadcastCount(), fast.received);
+        assertTrue("dropped " + server.getFrameDroppedCount(), server.getFrameDroppedCount() > 0);
+        assertEquals(2, server.getSubscriberCount());
+
+        // 慢客户端读出积压：帧边界完整，序号递增但有缺口
+        slow.channel.configureBlocking(false);
+        long idleSince = System.nanoTime();
+        while (System.nanoTime() - idleSince < TimeUnit.MILLISECONDS.toNanos(300)) {
+            if (slow.read() > 0) {
+                idleSince = System.nanoTime();
+            }
+        }
+        assertFalse(slow.corrupt);
+        assertTrue(slow.received > 0);
+        assertTrue("slow received " + slow.received, slow.received < fast.received);
+        assertEquals(fast.lastSequence, slow.lastSequence);
+    }
+
+    @Test
+    public void disconnectPolicyClosesSlowSubscriber() throws Exception {
+        start(8, PoseBroadcastServer.SlowConsumerPolicy.DISCONNECT, 4096);
+        Client fast = connect(100_000, 0);
+        connect(100_000, 4096);
+        awaitSubscribers(2);
+        reader = new ClientReader(Arrays.asList(fast));
+
+        publishBurst(5_000);
+        awaitReceived(Arrays.asList(fast), (int) server.getBroadcastCount());
+
+        assertEquals(1, server.getSlowDisconnectCount());
+        assertEquals(1, server.getSubscriberCount());
+        assertEquals(0, server.getFrameDroppedCount());
+        assertFalse(fast.corrupt);
+        assertEquals(server.getBroadcastCount(), fast.received);
+    }
+
+    @Test
+    public void acceptsNewSubscribersAfterDisconnect() throws Exception {
+        start(64, PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST, 0);
+        Client first = connect(10, 0);
+        awaitSubscribers(1);
+        first.channel.close();
+        awaitSubscribers(0);
+
+        Client second = connect(10, 0);
+        awaitSubscribers(1);
+        reader = new ClientReader(Arrays.asList(second));
+        for (int i = 1; i <= 10; i++) {
+            writer.publish(i, System.nanoTime(), i, 0, 0, 0, 0, 0, 0);
+        }
+        awaitReceived(Arrays.asList(second), 10);
+        assertFalse(second.corrupt);
+        assertEquals(10, second.lastSequence);
+    }
+
+    @Test
+    public void streamClientReceivesBinary() throws Exception {
+        List<PoseRecord> poses = receiveWithStreamClient(PoseStreamWriter.Format.BINARY, 300);
+        for (int i = 0; i < poses.size(); i++) {
+            PoseRecord pose = poses.get(i);
+            assertEquals(i + 1, pose.sequence);
+            assertEquals(1_000L * (i + 1), pose.timestampNanos);
+            assertEquals(i * 0.125f, pose.values[0], 0);
+            assertEquals(-i * 0.5f, pose.values[6], 0);
+        }
+    }
+
+    @Test
+    public void streamClientReceivesText() throws Exception {
+        List<PoseRecord> poses = receiveWithStreamClient(PoseStreamWriter.Format.TEXT, 300);
+        for (int i = 0; i < poses.size(); i++) {
+            PoseRecord pose = poses.get(i);
+            // 文本不带序号，由客户端按到达顺序编号
+            assertEquals(i + 1, pose.sequence);
+            assertEquals(i * 0.125f, pose.values[0], 0.01f); // 两位小数
+            assertEquals(2.5f, pose.values[3], 0);
+            assertEquals(-i * 0.5f, pose.values[6], 0);
+        }
+        assertEquals(0, streamClient.getMalformedCount());
+    }
+
+    private void start(int capacity, PoseBroadcastServer.SlowConsumerPolicy policy, int sendBuffer) throws IOException {
+        server = new PoseBroadcastServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                capacity, policy, null).setSendBufferSize(sendBuffer);
+        server.start();
+        writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.BINARY, server);
+        writer.start();
+    }
+
+    private Client connect(int capacity, int receiveBuffer) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        if (receiveBuffer > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        }
+        channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        Client client = new Client(channel, capacity);
+        clients.add(client);
+        return client;
+    }
+
+    /**
+     * 约 10 kHz 发布，快客户端跟得上，不读数据的慢客户端必然积压
+     */
+    private void publishBurst(int count) {
+        for (int i = 1; i <= count; i++) {
+            while (!writer.publish(i, System.nanoTime(), i, 0, 0, 0, 0, 0, 0)) {
+                Thread.yield();
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        // 等写线程与 selector 线程处理完
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getWrittenCount() < writer.getPublishedCount() - writer.getDroppedCount()
+                && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    private List<PoseRecord> receiveWithStreamClient(PoseStreamWriter.Format format, int count) throws Exception {
+        server = new PoseBroadcastServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                64, PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST, null);
+        server.start();
+        writer = new PoseStreamWriter(new SpscPoseRing(1024), format, server);
+        writer.start();
+
+        List<PoseRecord> poses = new ArrayList<>();
+        streamClient = new PoseStreamClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), format);
+        streamClient.start(pose -> {
+            PoseRecord copy = new PoseRecord();
+            copy.copyFrom(pose);
+            synchronized (poses) {
+                poses.add(copy);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getSubscriberCount() == 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+
+        for (int i = 0; i < count; i++) {
+            while (!writer.publish(i + 1, 1_000L * (i + 1), i * 0.125f, 1, -1, 2.5f, 0, 0, -i * 0.5f)) {
+                Thread.yield();
+            }
+            // 按远高于相机帧率的速度发送，但不让服务器的有界队列丢帧
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(500));
+        }
+        while (streamClient.getReceivedCount() < count) {
+            assertTrue("received " + streamClient.getReceivedCount(), System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        assertEquals(0, server.getFrameDroppedCount());
+        assertEquals(1, streamClient.getConnectCount());
+        synchronized (poses) {
+            assertEquals(count, poses.size());
+            return new ArrayList<>(poses);
+        }
+    }
+
+    private void awaitSubscribers(int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getSubscriberCount() != expected) {
+            assertTrue("subscribers " + server.getSubscriberCount(), System.nanoTime() < deadline);
+            Thread.yield();
+        }
+    }
+
+    private static void awaitReceived(List<Client> targets, int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Client client : targets) {
+            while (client.received < expected && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * 一个回环订阅者：按 44 字节切分记录，检查序号递增与内容，记录每条的延迟
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        final PoseRecord record = new PoseRecord();
+        final long[] latencies;
+        volatile int received;
+        volatile long lastSequence;
+        volatile boolean corrupt;
+
+        Client(SocketChannel channel, int capacity) {
+            this.channel = channel;
+            this.latencies = new long[capacity];
+        }
+
+        int read() throws IOException {
+            int read = channel.read(buffer);
+            long now = System.nanoTime();
+            buffer.flip();
+            while (buffer.remaining() >= PoseRecord.BINARY_SIZE) {
+                record.readBinary(buffer);
+                if (record.sequence <= lastSequence || record.values[0] != record.sequence) {
+                    corrupt = true;
+                }
+                lastSequence = record.sequence;
+                if (received < latencies.length) {
+                    latencies[received] = now - record.timestampNanos;
+                }
+                received++;
+            }
+            buffer.compact();
+            return read;
+        }
+    }
+
+    /**
+     * 单线程 selector 读取所有订阅者
+     */
+    private static final class ClientReader {
+        private final Selector selector;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        ClientReader(List<Client> clients) throws IOException {
+            selector = Selector.open();
+            for (Client client : clients) {
+                client.channel.configureBlocking(false);
+                client.channel.register(selector, SelectionKey.OP_READ, client);
+            }
+            thread = new Thread(this::run, "client-reader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    selector.select(10);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        ((Client) key.attachment()).read();
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        void stop() throws Exception {
+            running = false;
+            selector.wakeup();
+            thread.join(1000);
+            selector.close();
+        }
+    }
+}
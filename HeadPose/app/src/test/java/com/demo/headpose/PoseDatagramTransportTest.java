@@ -0,0 +1,265 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * UDP 传输：订阅握手与超时、接收端的乱序丢弃 / 丢包 / 抖动统计，以及回环上与 TCP 的延迟对比。
+ */
+public class PoseDatagramTransportTest {
+
+    private PoseTransport server;
+    private PoseStreamWriter writer;
+    private PoseDatagramReceiver receiver;
+
+    @After
+    public void tearDown() {
+        if (receiver != null) {
+            receiver.close();
+        }
+        if (writer != null) {
+            writer.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void handshakeRegistersAndExpiresSubscribers() throws Exception {
+        PoseDatagramServer udp = new PoseDatagramServer(loopback(0), 1, 300, null);
+        server = udp;
+        udp.start();
+
+        receiver = new PoseDatagramReceiver(loopback(udp.getPort()));
+        assertTrue(receiver.subscribe(1000));
+        assertEquals(1, udp.getSubscriberCount());
+
+        // 人数已满，第二个订阅者被拒绝
+        try (PoseDatagramReceiver second = new PoseDatagramReceiver(loopback(udp.getPort()))) {
+            assertFalse(second.subscribe(1000));
+        }
+
+        receiver.unsubscribe();
+        awaitSubscribers(udp, 0);
+
+        // 不再保活的订阅者超时后被移除
+        assertTrue(receiver.subscribe(1000));
+        assertEquals(1, udp.getSubscriberCount());
+        awaitSubscribers(udp, 0);
+    }
+
+    @Test
+    public void receiverDiscardsOutOfOrderAndCountsLoss() throws Exception {
+        try (DatagramChannel fake = DatagramChannel.open().bind(loopback(0))) {
+            receiver = new PoseDatagramReceiver((InetSocketAddress) fake.getLocalAddress());
+            // 模拟服务端：收到 SUBSCRIBE 后回复 ACK，再按给定顺序发送数据包
+            Thread serverThread = new Thread(() -> {
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+                    SocketAddress client = fake.receive(buffer);
+                    buffer.clear();
+                    buffer.putInt(PoseDatagramServer.MAGIC).put(PoseDatagramServer.ACK).flip();
+                    fake.send(buffer, client);
+                    PoseRecord record = new PoseRecord();
+                    for (long sequence : new long[]{1, 2, 4, 3, 5, 5, 9, 10}) {
+                        record.set(sequence * 10, System.nanoTime(), sequence, 0, 0, 0, 0, 0, 0);
+                        buffer.clear();
+                        buffer.putLong(sequence).putInt(7);
+                        record.writeBinary(buffer);
+                        buffer.flip();
+                        fake.send(buffer, client);
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            serverThread.start();
+            assertTrue(receiver.subscribe(1000));
+
+            PoseRecord record = new PoseRecord();
+            long[] delivered = new long[6];
+            for (int i = 0; i < delivered.length; i++) {
+                assertTrue(receiver.receive(record, 1000));
+                delivered[i] = (long) record.values[0];
+                assertEquals(delivered[i] * 10, record.sequence);
+            }
+            serverThread.join();
+            assertFalse(receiver.receive(record, 50));
+
+            assertArrayEquals(new long[]{1, 2, 4, 5, 9, 10}, delivered);
+            assertEquals(6, receiver.getReceivedCount());
+            // 3 迟到被丢弃，仍计为丢失；6、7、8 丢失；3 与重复的 5 计为乱序
+            assertEquals(4, receiver.getLostCount());
+            assertEquals(2, receiver.getOutOfOrderCount());
+            assertTrue(receiver.getJitterNanos() >= 0);
+            assertEquals(1, receiver.getSessionCount());
+        }
+    }
+
+    /**
+     * 服务端在同一端口重启后序号从 1 重新开始：接收端按新会话继续交付，不把新包当作迟到的包丢弃
+     */
+    @Test
+    public void receiverFollowsRestartedServer() throws Exception {
+        PoseDatagramServer udp = startUdp();
+        int port = udp.getPort();
+        PoseRecord record = new PoseRecord();
+        Thread publisher = publisher(500, 100);
+        publisher.start();
+        publisher.join();
+        long last = 0;
+        while (receiver.receive(record, 200)) {
+            last = (long) record.values[0];
+        }
+        // 旧会话的序号已经超过新会话要发的 100 个包
+        assertTrue("last " + last, last > 100);
+        long firstSession = receiver.getReceivedCount();
+        long firstLost = receiver.getLostCount();
+        writer.stop();
+        udp.stop();
+
+        udp = new PoseDatagramServer(loopback(port), 4, PoseDatagramServer.DEFAULT_TIMEOUT_MILLIS, null);
+        server = udp;
+        udp.start();
+        writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.BINARY, udp);
+        writer.start();
+        assertTrue(receiver.subscribe(1000));
+        publisher = publisher(100, 1000);
+        publisher.start();
+        last = 0;
+        while (receiver.receive(record, 500)) {
+            assertTrue(record.values[0] > last);
+            last = (long) record.values[0];
+        }
+        publisher.join();
+
+        assertEquals(100, last);
+        assertEquals(2, receiver.getSessionCount());
+        assertEquals(100, receiver.getReceivedCount() - firstSession + receiver.getLostCount() - firstLost);
+        assertEquals(0, receiver.getOutOfOrderCount());
+    }
+
+    @Test
+    public void deliversStreamOverLoopback() throws Exception {
+        PoseDatagramServer udp = startUdp();
+        int count = 2_000;
+        PoseRecord record = new PoseRecord();
+        Thread publisher = publisher(count, 100);
+        publisher.start();
+        long last = 0;
+        while (receiver.receive(record, 500)) {
+            assertTrue(record.sequence > last);
+            assertEquals(record.sequence, (long) record.values[0]);
+            last = record.sequence;
+        }
+        publisher.join();
+
+        assertEquals(count, receiver.getReceivedCount() + receiver.getLostCount());
+        assertEquals(0, receiver.getOutOfOrderCount());
+        assertEquals(count, udp.getSentCount() + udp.getDroppedCount());
+    }
+
+    // 同一条按节奏发布的姿态流分别经 UDP 与 TCP 送达
+    @Test
+    public void deliversPacedStreamOverUdpAndTcp() throws Exception {
+        int count = 5_000;
+
+        startUdp();
+        PoseRecord record = new PoseRecord();
+        Thread publisher = publisher(count, 200);
+        publisher.start();
+        int udpReceived = 0;
+        while (udpReceived < count && receiver.receive(record, 500)) {
+            udpReceived++;
+        }
+        publisher.join();
+        assertEquals(count, udpReceived + receiver.getLostCount());
+        tearDown();
+        receiver = null;
+
+        PoseBroadcastServer tcp = new PoseBroadcastServer(loopback(0), 64,
+                PoseBroadcastServer.SlowConsumerPolicy.DROP_OLDEST, null);
+        server = tcp;
+        tcp.start();
+        writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.BINARY, tcp);
+        writer.start();
+        int tcpReceived = 0;
+        try (SocketChannel client = SocketChannel.open(loopback(tcp.getPort()))) {
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            awaitSubscribers(tcp, 1);
+            publisher = publisher(count, 200);
+            publisher.start();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (tcpReceived < count) {
+                if (client.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.remaining() >= PoseRecord.BINARY_SIZE && tcpReceived < count) {
+                    record.readBinary(buffer);
+                    assertEquals(++tcpReceived, record.sequence);
+                }
+                buffer.compact();
+            }
+            publisher.join();
+        }
+
+        assertTrue(udpReceived > count * 9 / 10);
+        assertEquals(count, tcpReceived);
+    }
+
+    private PoseDatagramServer startUdp() throws IOException {
+        PoseDatagramServer udp = new PoseDatagramServer(loopback(0), 4,
+                PoseDatagramServer.DEFAULT_TIMEOUT_MILLIS, null);
+        server = udp;
+        udp.start();
+        writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.BINARY, udp);
+        writer.start();
+        receiver = new PoseDatagramReceiver(loopback(udp.getPort()));
+        assertTrue(receiver.subscribe(1000));
+        return udp;
+    }
+
+    /**
+     * 以固定间隔发布 count 条记录，时间戳为发布时刻
+     */
+    private Thread publisher(int count, long intervalMicros) {
+        PoseStreamWriter target = writer;
+        return new Thread(() -> {
+            for (int i = 1; i <= count; i++) {
+                while (!target.publish(i, System.nanoTime(), i, 0, 0, 0, 0, 0, 0)) {
+                    Thread.yield();
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(intervalMicros));
+            }
+        }, "publisher");
+    }
+
+    private static void awaitSubscribers(PoseTransport transport, int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (transport.getSubscriberCount() != expected) {
+            assertTrue("subscribers " + transport.getSubscriberCount(), System.nanoTime() < deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+}
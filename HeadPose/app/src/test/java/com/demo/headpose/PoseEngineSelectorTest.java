@@ -0,0 +1,80 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseEngineSelector：固定引擎、缺少关键点时退回 CNN，以及 AUTO 模式按 CNN 耗时进入与退出关键点求解。
+ */
+public class PoseEngineSelectorTest {
+
+    private static final int ALL = (1 << LandmarkPoseSolver.LANDMARK_COUNT) - 1;
+    private static final int EYES_ONLY = (1 << LandmarkPoseSolver.LEFT_EYE) | (1 << LandmarkPoseSolver.RIGHT_EYE);
+
+    @Test
+    public void fixedEnginesFollowLandmarkAvailability() {
+        PoseEngineSelector cnn = new PoseEngineSelector(PipelineConfig.PoseEngine.CNN, 20);
+        PoseEngineSelector landmarks = new PoseEngineSelector(PipelineConfig.PoseEngine.LANDMARKS, 20);
+        assertFalse(cnn.useLandmarks(ALL));
+        assertTrue(landmarks.useLandmarks(ALL));
+        // 关键点不足（例如画质档位关闭了关键点检测）
+        assertFalse(landmarks.useLandmarks(EYES_ONLY));
+        assertFalse(landmarks.useLandmarks(0));
+        assertEquals(1, landmarks.getLandmarkFrameCount());
+    }
+
+    @Test
+    public void autoFallsBackWhileCnnIsOverBudgetAndProbes() {
+        PoseEngineSelector selector = new PoseEngineSelector(PipelineConfig.PoseEngine.AUTO, 20, 5);
+        feed(selector, 15, 10);
+        assertEquals(0, countLandmarkFrames(selector, 10, 15));
+        assertFalse(selector.isFallback());
+
+        // CNN 变慢：改用关键点求解，每 5 帧仍跑一次 CNN
+        feed(selector, 40, 10);
+        assertEquals(8, countLandmarkFrames(selector, 10, 40));
+        assertTrue(selector.isFallback());
+        assertEquals(1, selector.getFallbackChangeCount());
+
+        // 回到预算与 RECOVER_RATIO 之间：保持关键点求解
+        feed(selector, 18, 20);
+        assertEquals(8, countLandmarkFrames(selector, 10, 18));
+        assertTrue(selector.isFallback());
+
+        // 明显低于预算：恢复 CNN
+        feed(selector, 10, 20);
+        assertEquals(0, countLandmarkFrames(selector, 10, 10));
+        assertFalse(selector.isFallback());
+        assertEquals(2, selector.getFallbackChangeCount());
+    }
+
+    @Test
+    public void autoUsesCnnWithoutLandmarks() {
+        PoseEngineSelector selector = new PoseEngineSelector(PipelineConfig.PoseEngine.AUTO, 20);
+        feed(selector, 50, 10);
+        assertFalse(selector.useLandmarks(EYES_ONLY));
+        assertTrue(selector.useLandmarks(ALL));
+    }
+
+    private static void feed(PoseEngineSelector selector, long millis, int frames) {
+        for (int i = 0; i < frames; i++) {
+            selector.onCnnLatency(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    // 模拟 frames 帧：用 CNN 的帧把 cnnMillis 计入耗时
+    private static int countLandmarkFrames(PoseEngineSelector selector, int frames, long cnnMillis) {
+        int landmarks = 0;
+        for (int i = 0; i < frames; i++) {
+            if (selector.useLandmarks(ALL)) {
+                landmarks++;
+            } else {
+                selector.onCnnLatency(TimeUnit.MILLISECONDS.toNanos(cnnMillis));
+            }
+        }
+        return landmarks;
+    }
+}
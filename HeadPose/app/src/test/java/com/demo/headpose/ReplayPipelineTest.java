@@ -0,0 +1,437 @@
+package com.demo.headpose;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 录制 → 内存映射回放 → 完整处理流水线（占位检测器 + ONNX 后端），全部在桌面 JVM 上运行。
+ */
+public class ReplayPipelineTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysRecordedPlanesExactly() throws Exception {
+        File file = folder.newFile("frames.yuv");
+        List<YuvFrame> frames = record(file, 5, new Random(1));
+
+        ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 2);
+        assertEquals(5, replay.getFrameCount());
+        List<YuvFrame> replayed = new ArrayList<>();
+        List<Integer> rotations = new ArrayList<>();
+        replay.start((width, height, y, yRowStride, u, v, uvRowStride, uvPixelStride, timestamp, rotation) -> {
+            int position = y.position();
+            YuvFrame copy = new YuvFrame();
+            copy.copyFrom(width, height, y, yRowStride, u, v, uvRowStride, uvPixelStride);
+            assertEquals(position, y.position());
+            replayed.add(copy);
+            rotations.add(rotation);
+            return true;
+        });
+        assertTrue(replay.awaitCompletion(5000));
+
+        assertEquals(10, replayed.size());
+        assertEquals(10, replay.getPushedCount());
+        for (int i = 0; i < replayed.size(); i++) {
+            YuvFrame expected = frames.get(i % frames.size());
+            YuvFrame actual = replayed.get(i);
+            assertEquals(expected.width, actual.width);
+            assertEquals(expected.yRowStride, actual.yRowStride);
+            assertEquals(expected.uvPixelStride, actual.uvPixelStride);
+            assertArrayEquals(expected.y, Arrays.copyOf(actual.y, expected.y.length));
+            assertArrayEquals(expected.u, Arrays.copyOf(actual.u, expected.u.length));
+            assertArrayEquals(expected.v, Arrays.copyOf(actual.v, expected.v.length));
+            assertEquals(270, (int) rotations.get(i));
+        }
+    }
+
+    @Test
+    public void ignoresTruncatedTailAndRejectsOtherFiles() throws Exception {
+        File file = folder.newFile("truncated.yuv");
+        record(file, 3, new Random(2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 100); // 录制中断
+        }
+        assertEquals(2, new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 1).getFrameCount());
+
+        File other = folder.newFile("other.bin");
+        Files.write(other.toPath(), new byte[64]);
+        try {
+            new ReplayFrameSource(other, ReplayFrameSource.Pacing.FAST, 1);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void nativePacingFollowsRecordedTimestamps() throws Exception {
+        File file = folder.newFile("paced.yuv");
+        record(file, 10, new Random(3));
+        ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.NATIVE, 1);
+        long start = System.nanoTime();
+        replay.start((width, height, y, yRowStride, u, v, uvRowStride, uvPixelStride, timestamp, rotation) -> true);
+        assertTrue(replay.awaitCompletion(5000));
+        long elapsed = System.nanoTime() - start;
+        assertTrue("elapsed " + elapsed, elapsed >= 9 * FRAME_NANOS);
+        assertTrue("elapsed " + elapsed, elapsed < 9 * FRAME_NANOS + TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    /**
+     * 按最快速度回放 3 遍，每帧都经过检测（占位）、预处理、ONNX 推理与发送，不丢帧
+     */
+    @Test
+    public void runsFullPipelineOnJvm() throws Exception {
+        File file = folder.newFile("session.yuv");
+        record(file, 30, new Random(4));
+
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            config.setStage(stage, 2, FramePipeline.DropPolicy.BLOCK);
+        }
+        config.headless = true;
+        config.leakDetection = true;
+        PipelineMetrics metrics = new PipelineMetrics();
+        List<Long> sequences = new ArrayList<>();
+        float[] lastPose = new float[3];
+        OnnxPoseEstimator estimator = new OnnxPoseEstimator(modelFile().getPath(), 1, true);
+        PoseProcessor processor = new PoseProcessor(config, metrics, new StubFaceDetector(0.6f), estimator,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> {
+                    sequences.add(sequence);
+                    lastPose[0] = yaw;
+                    lastPose[1] = pitch;
+                    lastPose[2] = roll;
+                }, null);
+        List<Throwable> errors = new ArrayList<>();
+        processor.setListener(new PoseProcessor.Listener() {
+            @Override
+            public void onStageError(FrameContext context, String stageName, Throwable error) {
+                errors.add(error);
+            }
+        });
+        File logDirectory = new File(folder.getRoot(), "poses");
+        PoseLogWriter poseLog = new PoseLogWriter(logDirectory, 64);
+        processor.setPoseLog(poseLog);
+        try {
+            ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 3);
+            replay.start(processor);
+            assertTrue(replay.awaitCompletion(60_000));
+            assertTrue(processor.awaitIdle(10_000));
+
+            assertTrue(errors.toString(), errors.isEmpty());
+            assertEquals(90, replay.getPushedCount());
+            assertEquals(0, replay.getDroppedCount());
+            assertEquals(0, processor.getGateDroppedCount());
+            assertEquals(90, processor.getPublishedCount());
+            assertEquals(90, sequences.size());
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(i + 1, (long) sequences.get(i));
+            }
+            for (float angle : lastPose) {
+                assertTrue(angle >= -180 && angle <= 180);
+            }
+            assertEquals(90, metrics.histogram(PipelineMetrics.Stage.INFER).getCount());
+            assertEquals(90, metrics.histogram(PipelineMetrics.Stage.END_TO_END).getCount());
+            assertEquals(0, metrics.histogram(PipelineMetrics.Stage.RENDER).getCount());
+
+            // 会话日志：每帧一条未滤波的记录，带人脸框与各阶段耗时
+            processor.close();
+            poseLog.close();
+            PoseLogReader reader = new PoseLogReader(logDirectory);
+            assertEquals(90, reader.size());
+            assertEquals(2, reader.getSegmentCount());
+            PoseLogRecord record = new PoseLogRecord();
+            PoseLogReader.Cursor cursor = reader.cursor();
+            for (int i = 0; cursor.next(record); i++) {
+                assertEquals(i + 1, record.sequence);
+                assertEquals(1, record.faceCount);
+                assertTrue(record.faceRight > record.faceLeft);
+                assertTrue(record.stageMicros[PoseLogRecord.STAGE_INFER] > 0);
+                assertTrue(record.stageMicros[PoseLogRecord.STAGE_END_TO_END]
+                        >= record.stageMicros[PoseLogRecord.STAGE_INFER]);
+                assertEquals(0, record.stageMicros[PoseLogRecord.STAGE_RENDER]);
+            }
+            assertArrayEquals(lastPose, Arrays.copyOf(record.values, 3), 0);
+        } finally {
+            processor.close();
+            poseLog.close();
+            estimator.close();
+        }
+    }
+
+    /**
+     * 关键点引擎：检测器给出完整关键点时跳过 CNN 的预处理与推理，由 LandmarkPoseSolver 求出正脸姿态
+     */
+    @Test
+    public void landmarkEngineSkipsCnn() throws Exception {
+        File file = folder.newFile("landmarks.yuv");
+        record(file, 30, new Random(5));
+
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            config.setStage(stage, 2, FramePipeline.DropPolicy.BLOCK);
+        }
+        config.headless = true;
+        config.poseEngine = PipelineConfig.PoseEngine.LANDMARKS;
+        PipelineMetrics metrics = new PipelineMetrics();
+        List<float[]> poses = new ArrayList<>();
+        // 正脸上平均脸关键点相对人脸框的位置（两眼距离为框宽的 0.4，忽略透视，因此允许几度的误差）
+        float[] frontal = {0.7f, 0.4f, 0.3f, 0.4f, 0.5f, 0.654f, 0.659f, 0.813f, 0.341f, 0.813f};
+        FaceDetectorEngine detector = context -> {
+            new StubFaceDetector(0.6f).detect(context);
+            float side = context.faceRight - context.faceLeft;
+            for (int i = 0; i < frontal.length; i += 2) {
+                context.landmarks[i] = context.faceLeft + frontal[i] * side;
+                context.landmarks[i + 1] = context.faceTop + frontal[i + 1] * side;
+            }
+            context.landmarkMask = (1 << 5) - 1;
+            return true;
+        };
+        OnnxPoseEstimator estimator = new OnnxPoseEstimator(modelFile().getPath(), 1, true);
+        PoseProcessor processor = new PoseProcessor(config, metrics, detector, estimator,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> poses.add(new float[]{yaw, pitch, roll}),
+                null);
+        try {
+            ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 1);
+            replay.start(processor);
+            assertTrue(replay.awaitCompletion(10_000));
+            assertTrue(processor.awaitIdle(10_000));
+
+            assertEquals(30, poses.size());
+            for (float[] pose : poses) {
+                for (float angle : pose) {
+                    assertEquals(0, angle, 6f);
+                }
+            }
+            assertEquals(30, processor.getEngineSelector().getLandmarkFrameCount());
+            assertEquals(0, metrics.histogram(PipelineMetrics.Stage.PREPROCESS).getCount());
+            assertEquals(30, metrics.histogram(PipelineMetrics.Stage.INFER).getCount());
+        } finally {
+            processor.close();
+            estimator.close();
+        }
+    }
+
+    /**
+     * 录制 count 帧随机内容（带行填充与交错 UV），时间戳间隔 33 ms
+     */
+    /**
+     * 姿态缓存：同一帧反复回放时只有第一帧推理，其余帧沿用它的姿态
+     */
+    @Test
+    public void poseCacheSkipsInferenceOnStaticFrames() throws Exception {
+        File file = folder.newFile("static.yuv");
+        record(file, 1, new Random(6));
+
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            config.setStage(stage, 2, FramePipeline.DropPolicy.BLOCK);
+        }
+        config.headless = true;
+        config.poseCacheMaxAgeMillis = 60_000;
+        PipelineMetrics metrics = new PipelineMetrics();
+        List<float[]> poses = new ArrayList<>();
+        OnnxPoseEstimator estimator = new OnnxPoseEstimator(modelFile().getPath(), 1, true);
+        PoseProcessor processor = new PoseProcessor(config, metrics, new StubFaceDetector(0.6f), estimator,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> poses.add(new float[]{yaw, pitch, roll}),
+                null);
+        try {
+            ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 30);
+            replay.start(processor);
+            assertTrue(replay.awaitCompletion(10_000));
+            assertTrue(processor.awaitIdle(10_000));
+
+            assertEquals(30, poses.size());
+            for (float[] pose : poses) {
+                assertArrayEquals(poses.get(0), pose, 0f);
+            }
+            assertEquals(29, processor.getPoseCache().getHitCount());
+            assertEquals(1, metrics.histogram(PipelineMetrics.Stage.PREPROCESS).getCount());
+            assertEquals(1, metrics.histogram(PipelineMetrics.Stage.INFER).getCount());
+        } finally {
+            processor.close();
+            estimator.close();
+        }
+    }
+
+    /**
+     * 流水线运行中模型拒绝批量输入（HeadPose 在推理线程上调用 disableBatching）：
+     * 已按旧批大小预处理的帧由后端拆分推理，每帧的 5 张脸都有结果，之后不再有多于 1 个样本的 forward
+     */
+    @Test
+    public void batchFallbackWhileRunningInfersEveryFace() throws Exception {
+        File file = folder.newFile("faces.yuv");
+        record(file, 1, new Random(7));
+
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            config.setStage(stage, 4, FramePipeline.DropPolicy.BLOCK);
+        }
+        config.headless = true;
+        config.maxBatchSize = 4;
+        int faces = 5;
+        FaceDetectorEngine detector = context -> {
+            context.faceCount = 0;
+            for (int i = 0; i < faces; i++) {
+                context.addFace(20 + i * 80, 100, 100 + i * 80, 180);
+            }
+            return true;
+        };
+        AtomicInteger batchesAfterFallback = new AtomicInteger();
+        FakePoseEstimator estimator = new FakePoseEstimator(0) {
+            private int batches;
+            private boolean disabled;
+
+            @Override
+            protected void forward(PoseInput input, float[] degrees) {
+                if (input.batchSize > 1) {
+                    if (disabled) {
+                        batchesAfterFallback.incrementAndGet();
+                    } else if (++batches == 6) {
+                        disableBatching();
+                        disabled = true;
+                    }
+                }
+                super.forward(input, degrees);
+            }
+        };
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Integer> faceCounts = new CopyOnWriteArrayList<>();
+        AtomicInteger missing = new AtomicInteger();
+        PoseProcessor processor = new PoseProcessor(config, new PipelineMetrics(), detector, estimator,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> {
+                }, null);
+        processor.setListener(new PoseProcessor.Listener() {
+            @Override
+            public void onStageError(FrameContext context, String stageName, Throwable error) {
+                errors.add(error);
+            }
+
+            @Override
+            public void onPosePublished(FrameContext context) {
+                faceCounts.add(context.faceCount);
+                for (int i = 0; i < context.faceCount * 3; i++) {
+                    if (Float.isNaN(context.faceDegrees[i])) {
+                        missing.incrementAndGet();
+                    }
+                }
+            }
+        });
+        try {
+            ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 40);
+            replay.start(processor);
+            assertTrue(replay.awaitCompletion(10_000));
+            assertTrue(processor.awaitIdle(10_000));
+
+            assertEquals(Collections.emptyList(), errors);
+            assertEquals(40, faceCounts.size());
+            for (int count : faceCounts) {
+                assertEquals(faces, count);
+            }
+            assertEquals(0, missing.get());
+            assertEquals(1, estimator.getMaxBatchSize());
+            assertEquals(0, batchesAfterFallback.get());
+        } finally {
+            processor.close();
+            estimator.close();
+        }
+    }
+
+    /**
+     * 检测器给出的人脸多于 FrameContext.MAX_FACES：每帧只推理前 MAX_FACES 张，多出的计入 faces_dropped
+     */
+    @Test
+    public void facesBeyondCeilingAreCounted() throws Exception {
+        File file = folder.newFile("crowd.yuv");
+        record(file, 1, new Random(9));
+
+        PipelineConfig config = new PipelineConfig();
+        for (PipelineConfig.Stage stage : PipelineConfig.Stage.values()) {
+            config.setStage(stage, 4, FramePipeline.DropPolicy.BLOCK);
+        }
+        config.headless = true;
+        config.maxBatchSize = BatchPoseEstimator.MAX_BATCH;
+        int faces = FrameContext.MAX_FACES + 2;
+        FaceDetectorEngine detector = context -> {
+            context.faceCount = 0;
+            for (int i = 0; i < faces; i++) {
+                context.addFace(10 + i * 40, 100, 50 + i * 40, 140);
+            }
+            return true;
+        };
+        FakePoseEstimator estimator = new FakePoseEstimator(0);
+        List<Integer> faceCounts = new CopyOnWriteArrayList<>();
+        PipelineMetrics metrics = new PipelineMetrics();
+        PoseProcessor processor = new PoseProcessor(config, metrics, detector, estimator,
+                (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> {
+                }, null);
+        processor.setListener(new PoseProcessor.Listener() {
+            @Override
+            public void onPosePublished(FrameContext context) {
+                faceCounts.add(context.faceCount);
+            }
+        });
+        try {
+            ReplayFrameSource replay = new ReplayFrameSource(file, ReplayFrameSource.Pacing.FAST, 20);
+            replay.start(processor);
+            assertTrue(replay.awaitCompletion(10_000));
+            assertTrue(processor.awaitIdle(10_000));
+
+            assertEquals(20, faceCounts.size());
+            for (int count : faceCounts) {
+                assertEquals(FrameContext.MAX_FACES, count);
+            }
+            assertEquals(20 * (faces - FrameContext.MAX_FACES), processor.getDroppedFaceCount());
+        } finally {
+            processor.close();
+            estimator.close();
+        }
+    }
+
+    private static List<YuvFrame> record(File file, int count, Random random) throws Exception {
+        List<YuvFrame> frames = new ArrayList<>();
+        try (FrameRecorder recorder = new FrameRecorder(file)) {
+            for (int i = 0; i < count; i++) {
+                YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, 512, 512, 2, random);
+                ByteBuffer y = ByteBuffer.allocateDirect(frame.y.length).put(frame.y);
+                ByteBuffer u = ByteBuffer.allocateDirect(frame.u.length).put(frame.u);
+                ByteBuffer v = ByteBuffer.allocateDirect(frame.v.length).put(frame.v);
+                y.flip();
+                u.flip();
+                v.flip();
+                assertTrue(recorder.onFrame(WIDTH, HEIGHT, y, 512, u, v, 512, 2, 1_000_000_000L + i * FRAME_NANOS, 270));
+                assertEquals(0, y.position());
+                frames.add(frame);
+            }
+            assertEquals(count, recorder.getFrameCount());
+        }
+        return frames;
+    }
+
+    // Gradle 在模块目录下运行单元测试，IDE 可能在工程根目录下运行
+    private static File modelFile() {
+        File model = new File("src/main/assets/fsanet.onnx");
+        return model.exists() ? model : new File("app/src/main/assets/fsanet.onnx");
+    }
+}
@@ -0,0 +1,100 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.lang.management.ThreadInfo;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 完整的 PoseProcessor（占位检测器 + 假推理后端）在预热后每帧的堆分配字节数：
+ * 统计调用 onFrame 的线程（平面拷贝）与流水线各阶段线程（检测 → 预处理 → 推理 → 发布），
+ * 连续几段的每帧分配应保持不变，且只剩各阶段线程阻塞等待下一帧时队列分配的等待节点。
+ */
+public class SteadyStateAllocationTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+    private static final int WARM_UP_FRAMES = 300;
+    private static final int MEASURED_FRAMES = 200;
+    private static final int WINDOWS = 3;
+    private static final long FRAME_NANOS = 33_000_000L;
+    // 无界面模式的阶段数：检测、预处理、推理、发布
+    private static final int STAGES = 4;
+    // 阶段线程在空队列上等待时 ArrayBlockingQueue.take 分配的等待节点（JDK 的 AQS 实现），不是流水线自己的对象
+    private static final long WAIT_NODE_BYTES = 32;
+
+    @Test
+    public void pipeline_perFrameAllocationStaysFlatAfterWarmUp() throws Exception {
+        com.sun.management.ThreadMXBean threads = TestAllocations.counter();
+
+        YuvFrame source = TestFrames.random(WIDTH, HEIGHT, 512, 512, 2, new Random(12));
+        ByteBuffer y = ByteBuffer.allocateDirect(source.y.length).put(source.y);
+        ByteBuffer u = ByteBuffer.allocateDirect(source.u.length).put(source.u);
+        ByteBuffer v = ByteBuffer.allocateDirect(source.v.length).put(source.v);
+        y.flip();
+        u.flip();
+        v.flip();
+
+        PipelineConfig config = new PipelineConfig();
+        config.headless = true;
+        FakePoseEstimator estimator = new FakePoseEstimator(0, false);
+        char[] label = new char[32];
+        PoseProcessor processor = new PoseProcessor(config, new PipelineMetrics(), new StubFaceDetector(0.6f),
+                estimator, (sequence, timestamp, yaw, pitch, roll, lx, ly, rx, ry) -> {
+                    int length = FixedPointFormat.append(label, 0, "Yaw: ");
+                    FixedPointFormat.append(label, length, yaw, 1);
+                }, null);
+        try {
+            long timestamp = 1_000_000_000L;
+            for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                runFrame(processor, y, u, v, timestamp += FRAME_NANOS);
+            }
+            long[] ids = pipelineThreads(threads);
+            assertEquals(STAGES + 1, ids.length);
+            long[] perFrame = new long[WINDOWS];
+            for (int window = 0; window < WINDOWS; window++) {
+                long before = allocatedBytes(threads, ids);
+                for (int i = 0; i < MEASURED_FRAMES; i++) {
+                    runFrame(processor, y, u, v, timestamp += FRAME_NANOS);
+                }
+                perFrame[window] = (allocatedBytes(threads, ids) - before) / MEASURED_FRAMES;
+            }
+
+            assertEquals(WARM_UP_FRAMES + WINDOWS * MEASURED_FRAMES, processor.getPublishedCount());
+            for (long bytes : perFrame) {
+                assertTrue("bytes per frame " + Arrays.toString(perFrame), bytes <= STAGES * WAIT_NODE_BYTES);
+                assertEquals("bytes per frame " + Arrays.toString(perFrame), perFrame[0], bytes, WAIT_NODE_BYTES);
+            }
+        } finally {
+            processor.close();
+            estimator.close();
+        }
+    }
+
+    // 一次一帧，等它离开流水线，避免在途帧已满而丢帧
+    private static void runFrame(PoseProcessor processor, ByteBuffer y, ByteBuffer u, ByteBuffer v, long timestamp) {
+        assertTrue(processor.onFrame(WIDTH, HEIGHT, y, 512, u, v, 512, 2, timestamp, 270));
+        assertTrue(processor.awaitIdle(5000));
+    }
+
+    // 当前线程与流水线各阶段的线程
+    private static long[] pipelineThreads(com.sun.management.ThreadMXBean threads) {
+        long current = Thread.currentThread().getId();
+        return Arrays.stream(threads.getThreadInfo(threads.getAllThreadIds()))
+                .filter(info -> info != null
+                        && (info.getThreadId() == current || info.getThreadName().startsWith("pipeline-")))
+                .mapToLong(ThreadInfo::getThreadId)
+                .toArray();
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads, long[] ids) {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(ids)) {
+            total += bytes;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,104 @@
+import groovy.json.JsonSlurper
+
+plugins {
+    `java-library`
+    // src/testFixtures：:core 与 :app 的单元测试共用的合成帧、分配计数与假推理后端
+    `java-test-fixtures`
+    alias(libs.plugins.jmh)
+}
+
+// 与平台无关的热路径代码：:app 直接依赖，基准测试在桌面 JVM 上运行
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // OnnxPoseEstimator 只编译不打包：:app 用 onnxruntime-android，:server 用带桌面原生库的 JVM 版
+    compileOnly(libs.onnxruntime)
+
+    testFixturesImplementation(libs.junit)
+    testImplementation(libs.junit)
+    // OnnxPoseEstimatorTest 在桌面 JVM 上加载 :app 的 assets/fsanet.onnx
+    testImplementation(libs.onnxruntime)
+}
+
+// ./gradlew :core:jmh 输出 ns/op（吞吐量基准为 ops/s）与 gc 分析器的分配速率（gc.alloc.rate.norm 为每次操作分配的字节数）
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    warmup = "1s"
+    iterations = 5
+    timeOnIteration = "1s"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    // 只跑部分基准：./gradlew :core:jmh -PjmhInclude=YuvToRgb
+    providers.gradleProperty("jmhInclude").orNull?.let { includes.add(it) }
+}
+
+// 基线随代码提交：./gradlew :core:jmhBaseline 把本次结果保存为 benchmarks/baseline.json，
+// 与上一个提交的基线用 git diff 对比
+val baselineFile = layout.projectDirectory.file("benchmarks/baseline.json")
+
+tasks.register<Copy>("jmhBaseline") {
+    group = "benchmark"
+    description = "Runs JMH and stores the results as benchmarks/baseline.json"
+    dependsOn("jmh")
+    from(jmh.resultsFile)
+    into(baselineFile.asFile.parentFile)
+    rename { baselineFile.asFile.name }
+}
+
+// ./gradlew :core:jmhCompare [-PjmhTolerance=0.15] 把本次结果与基线逐项对比：
+// 耗时超过容差或每次操作的分配字节数增加都算回归，任务失败
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the latest JMH results with benchmarks/baseline.json"
+    dependsOn("jmh")
+    val results = jmh.resultsFile
+    val tolerance = providers.gradleProperty("jmhTolerance").map { it.toDouble() }.orElse(0.15)
+    doLast {
+        // 吞吐量模式（thrpt）的分数越大越好，换算成每次操作的耗时后与其他模式一起比较
+        fun load(file: File): Map<String, Triple<Double, Double, String>> {
+            @Suppress("UNCHECKED_CAST")
+            val entries = JsonSlurper().parse(file) as List<Map<String, Any?>>
+            return entries.associate { entry ->
+                val params = (entry["params"] as Map<*, *>?)?.entries?.joinToString(",", "(", ")") { "${it.key}=${it.value}" } ?: ""
+                val primary = entry["primaryMetric"] as Map<*, *>
+                val secondary = entry["secondaryMetrics"] as Map<*, *>? ?: emptyMap<String, Any>()
+                val allocation = (secondary["gc.alloc.rate.norm"] as Map<*, *>?)?.get("score") as Number?
+                val score = (primary["score"] as Number).toDouble()
+                val cost = if (entry["mode"] == "thrpt") 1 / score else score
+                "${entry["benchmark"]}$params" to Triple(cost, allocation?.toDouble() ?: 0.0,
+                        String.format("%.1f %s", score, primary["scoreUnit"]))
+            }
+        }
+
+        val baseline = load(baselineFile.asFile)
+        val current = load(results.get().asFile)
+        val regressions = mutableListOf<String>()
+        for ((name, now) in current.toSortedMap()) {
+            val before = baseline[name]
+            if (before == null) {
+                println(String.format("%-90s %16s %8.1f B/op  (new)", name, now.third, now.second))
+                continue
+            }
+            val change = now.first / before.first - 1
+            println(String.format("%-90s %16s %+7.1f%% %8.1f B/op (was %.1f)",
+                    name, now.third, change * 100, now.second, before.second))
+            // JMH 每轮迭代自身的少量分配会摊到每次操作上，分配量有几个字节的噪声
+            if (change > tolerance.get() || now.second > before.second + 8) {
+                regressions += name
+            }
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException("JMH regressions against baseline: $regressions")
+        }
+    }
+}
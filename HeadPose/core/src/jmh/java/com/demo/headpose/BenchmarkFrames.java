@@ -0,0 +1,38 @@
+package com.demo.headpose;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的合成 YUV 帧（带行填充，内容随机，种子固定）。
+ */
+final class BenchmarkFrames {
+
+    // 行末填充，模拟相机缓冲区的对齐
+    private static final int ROW_PADDING = 64;
+
+    private BenchmarkFrames() {
+    }
+
+    /**
+     * @param uvPixelStride 1 为平面 I420，2 为半平面 NV21 / NV12
+     */
+    static YuvFrame create(int width, int height, int uvPixelStride) {
+        Random random = new Random(42);
+        YuvFrame frame = new YuvFrame();
+        frame.width = width;
+        frame.height = height;
+        frame.yRowStride = width + ROW_PADDING;
+        frame.uvPixelStride = uvPixelStride;
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        frame.uvRowStride = chromaWidth * uvPixelStride + ROW_PADDING;
+
+        frame.y = new byte[frame.yRowStride * height];
+        frame.u = new byte[frame.uvRowStride * chromaHeight];
+        frame.v = new byte[frame.uvRowStride * chromaHeight];
+        random.nextBytes(frame.y);
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+        return frame;
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键点几何求解头姿（LandmarkPoseSolver.solve，每帧一次，代替一次 CNN forward）。
+ * 关键点由平均脸按 64 组随机姿态投影后加噪声得到，在各组之间轮换。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class LandmarkPoseBenchmark {
+
+    private static final int POSES = 64;
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int POINTS = LandmarkPoseSolver.LANDMARK_COUNT * 2;
+
+    private final LandmarkPoseSolver solver = new LandmarkPoseSolver();
+    private final float[] points = new float[POSES * POINTS];
+    private final float[] sample = new float[POINTS];
+    private final float[] degrees = new float[3];
+    private final int mask = (1 << LandmarkPoseSolver.LANDMARK_COUNT) - 1;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        float[] r = new float[9];
+        double f = Math.max(WIDTH, HEIGHT);
+        double[] face = LandmarkPoseSolver.MEAN_FACE;
+        for (int n = 0; n < POSES; n++) {
+            RotationMath.eulerToRotation((random.nextFloat() - 0.5f) * 100, (random.nextFloat() - 0.5f) * 50,
+                    (random.nextFloat() - 0.5f) * 40, r, 0);
+            double distance = 400 + random.nextFloat() * 400;
+            for (int i = 0; i < LandmarkPoseSolver.LANDMARK_COUNT; i++) {
+                double mx = face[i * 3], my = face[i * 3 + 1], mz = face[i * 3 + 2];
+                double depth = distance - (r[6] * mx + r[7] * my + r[8] * mz);
+                points[n * POINTS + i * 2] = (float) (WIDTH * 0.5 + f * (r[0] * mx + r[1] * my + r[2] * mz) / depth
+                        + random.nextGaussian());
+                points[n * POINTS + i * 2 + 1] = (float) (HEIGHT * 0.5 - f * (r[3] * mx + r[4] * my + r[5] * mz) / depth
+                        + random.nextGaussian());
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean solve(Blackhole blackhole) {
+        index = (index + 1) & (POSES - 1);
+        System.arraycopy(points, index * POINTS, sample, 0, POINTS);
+        boolean solved = solver.solve(sample, mask, WIDTH, HEIGHT, degrees, 0);
+        blackhole.consume(degrees);
+        return solved;
+    }
+}
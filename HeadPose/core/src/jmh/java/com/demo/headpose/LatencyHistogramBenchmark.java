@@ -0,0 +1,40 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟直方图的热路径：每个流水线阶段每帧一次 recordSince（含一次 System.nanoTime），
+ * 以及不含取时间的 record。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private long start = System.nanoTime();
+    private long value;
+
+    @Benchmark
+    public long recordSince() {
+        start = histogram.recordSince(start);
+        return start;
+    }
+
+    @Benchmark
+    public LatencyHistogram record() {
+        // 分布在几十个桶之间，最大值很少更新
+        value = (value + 37_517) & ((1 << 24) - 1);
+        histogram.record(value);
+        return histogram;
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 头姿记录的线路编码：44 字节二进制与原协议的文本行。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class PoseEncodingBenchmark {
+
+    private final PoseRecord record = new PoseRecord();
+    private final PoseRecord decoded = new PoseRecord();
+    private final ByteBuffer binary = ByteBuffer.allocateDirect(PoseRecord.BINARY_SIZE);
+    private final ByteBuffer text = ByteBuffer.allocateDirect(PoseRecord.MAX_TEXT_SIZE);
+    private final char[] scratch = new char[PoseRecord.MAX_TEXT_SIZE];
+
+    @Setup
+    public void setUp() {
+        record.set(123_456, 987_654_321_000L, -23.4567f, 12.3456f, -4.5678f, 201.25f, 180.5f, 263.75f, 182.125f);
+        binary.clear();
+        record.writeBinary(binary);
+    }
+
+    @Benchmark
+    public ByteBuffer writeBinary() {
+        binary.clear();
+        record.writeBinary(binary);
+        return binary;
+    }
+
+    @Benchmark
+    public PoseRecord readBinary() {
+        binary.rewind();
+        decoded.readBinary(binary);
+        return decoded;
+    }
+
+    @Benchmark
+    public ByteBuffer writeText() {
+        text.clear();
+        record.writeText(text, scratch);
+        return text;
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 姿态滤波：每帧一次 update（相机帧率）与固定频率发布的 predict。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class PoseFilterBenchmark {
+
+    private static final long FRAME_NANOS = 33_333_333L;
+    private static final int SAMPLES = 256;
+
+    private final PoseFilter filter = new PoseFilter();
+    private final float[] measurements = new float[SAMPLES * PoseFilter.CHANNELS];
+    private final float[] predicted = new float[PoseFilter.CHANNELS];
+    private long time;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        // 缓慢转头加测量噪声
+        Random random = new Random(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int c = 0; c < PoseFilter.CHANNELS; c++) {
+                float base = c < 3 ? 20 * (float) Math.sin(i * 0.05 + c) : 300 + 40 * (float) Math.cos(i * 0.05 + c);
+                measurements[i * PoseFilter.CHANNELS + c] = base + (float) random.nextGaussian() * 2;
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            update();
+        }
+    }
+
+    @Benchmark
+    public PoseFilter update() {
+        time += FRAME_NANOS;
+        int m = index * PoseFilter.CHANNELS;
+        index = (index + 1) & (SAMPLES - 1);
+        filter.update(time, measurements[m], measurements[m + 1], measurements[m + 2],
+                measurements[m + 3], measurements[m + 4], measurements[m + 5], measurements[m + 6]);
+        return filter;
+    }
+
+    @Benchmark
+    public float[] predict() {
+        filter.predict(time + FRAME_NANOS / 2, predicted);
+        return predicted;
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 姿态会话日志的单条追加：把一条记录写入内存映射的分段。
+ * 为了不在磁盘上留下 GB 级的分段，这里循环覆盖同一个已映射的分段（页面都已驻留），
+ * 与 PoseLogWriter.append 的写入路径相同，不含每 segmentRecords 条一次的分段切换。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class PoseLogBenchmark {
+
+    private static final int RECORDS = 1 << 14;
+
+    private final PoseLogRecord record = new PoseLogRecord();
+    private final PoseLogRecord decoded = new PoseLogRecord();
+    private File file;
+    private MappedByteBuffer segment;
+    private int index;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("poses", ".log");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    PoseLogWriter.SEGMENT_HEADER_SIZE + (long) RECORDS * PoseLogRecord.SIZE);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        record.set(1, 2_000_000_000L, -23.5f, 12.25f, -4.5f, 201.25f, 180.5f, 263.75f, 182.125f);
+        record.setFace(180, 120, 460, 400, 1, true);
+        for (int stage = 0; stage < PoseLogRecord.STAGE_COUNT; stage++) {
+            record.setStageNanos(stage, 1_500_000L * (stage + 1));
+        }
+        for (int i = 0; i < RECORDS; i++) {
+            record.write(segment, offset(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        segment = null;
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public MappedByteBuffer append() {
+        index = (index + 1) & (RECORDS - 1);
+        record.sequence++;
+        record.write(segment, offset(index));
+        return segment;
+    }
+
+    @Benchmark
+    public PoseLogRecord read() {
+        index = (index + 1) & (RECORDS - 1);
+        decoded.read(segment, offset(index));
+        return decoded;
+    }
+
+    private static int offset(int index) {
+        return PoseLogWriter.SEGMENT_HEADER_SIZE + index * PoseLogRecord.SIZE;
+    }
+}
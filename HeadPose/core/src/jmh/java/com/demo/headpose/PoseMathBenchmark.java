@@ -0,0 +1,83 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 旋转矩阵 → 欧拉角与坐标轴投影（每张脸每帧各一次）。
+ * 输入在 64 组随机姿态之间轮换，避免分支预测与 JIT 常量折叠使结果偏乐观。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class PoseMathBenchmark {
+
+    private static final int POSES = 64;
+
+    private final float[] rotations = new float[POSES * 9];
+    private final float[] angles = new float[POSES * 3];
+    private final float[] degrees = new float[3];
+    private final float[] axis = new float[AxisProjection.OUT_SIZE];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < POSES; i++) {
+            float yaw = (random.nextFloat() - 0.5f) * 120;
+            float pitch = (random.nextFloat() - 0.5f) * 80;
+            float roll = (random.nextFloat() - 0.5f) * 60;
+            angles[i * 3] = yaw;
+            angles[i * 3 + 1] = pitch;
+            angles[i * 3 + 2] = roll;
+            rotation(yaw, pitch, roll, rotations, i * 9);
+        }
+    }
+
+    @Benchmark
+    public void rotationToEuler(Blackhole blackhole) {
+        int i = next();
+        RotationMath.rotationToEuler(rotations, i * 9, degrees, 0);
+        blackhole.consume(degrees);
+    }
+
+    @Benchmark
+    public void axisProjection(Blackhole blackhole) {
+        int i = next();
+        AxisProjection.project(angles[i * 3], angles[i * 3 + 1], angles[i * 3 + 2], 320, 240, 150, axis, 0);
+        blackhole.consume(axis);
+    }
+
+    private int next() {
+        index = (index + 1) & (POSES - 1);
+        return index;
+    }
+
+    // R = Rz(roll) · Ry(yaw) · Rx(pitch)，行优先，与 RotationMath 的分解约定一致
+    private static void rotation(float yaw, float pitch, float roll, float[] out, int offset) {
+        double y = Math.toRadians(yaw), p = Math.toRadians(pitch), r = Math.toRadians(roll);
+        double cy = Math.cos(y), sy = Math.sin(y);
+        double cp = Math.cos(p), sp = Math.sin(p);
+        double cr = Math.cos(r), sr = Math.sin(r);
+        out[offset] = (float) (cr * cy);
+        out[offset + 1] = (float) (cr * sy * sp - sr * cp);
+        out[offset + 2] = (float) (cr * sy * cp + sr * sp);
+        out[offset + 3] = (float) (sr * cy);
+        out[offset + 4] = (float) (sr * sy * sp + cr * cp);
+        out[offset + 5] = (float) (sr * sy * cp - cr * sp);
+        out[offset + 6] = (float) -sy;
+        out[offset + 7] = (float) (cy * sp);
+        out[offset + 8] = (float) (cy * cp);
+    }
+}
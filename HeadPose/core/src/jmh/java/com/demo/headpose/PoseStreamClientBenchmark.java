@@ -0,0 +1,95 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PoseStreamClient 在回环上的接收吞吐：替身服务器线程不停写出预先编码好的记录，
+ * 每次调用解码一条消息，ops/s 即消息数每秒；配合 -prof gc 的 gc.alloc.rate.norm 即每条消息的分配字节数。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class PoseStreamClientBenchmark {
+
+    // 替身服务器每次写出的记录数
+    private static final int BATCH = 1024;
+
+    @Param({"BINARY", "TEXT"})
+    public PoseStreamWriter.Format format;
+
+    private final PoseRecord pose = new PoseRecord();
+    private ServerSocketChannel server;
+    private Thread sender;
+    private volatile boolean running;
+    private PoseStreamClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteBuffer batch = ByteBuffer.allocateDirect(BATCH * PoseRecord.MAX_TEXT_SIZE);
+        char[] scratch = new char[PoseRecord.MAX_TEXT_SIZE];
+        PoseRecord record = new PoseRecord();
+        for (int i = 0; i < BATCH; i++) {
+            record.set(i, 1_000L * i, -23.45f + i * 0.01f, 12.34f, -4.56f, 201.25f, 180.5f, 263.75f, 182.13f);
+            if (format == PoseStreamWriter.Format.BINARY) {
+                record.writeBinary(batch);
+            } else {
+                record.writeText(batch, scratch);
+            }
+        }
+        batch.flip();
+
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        running = true;
+        sender = new Thread(() -> {
+            try (SocketChannel connection = server.accept()) {
+                while (running) {
+                    ByteBuffer frame = batch.duplicate();
+                    while (frame.hasRemaining() && running) {
+                        connection.write(frame);
+                    }
+                }
+            } catch (IOException ignored) {
+                // 客户端关闭
+            }
+        }, "pose-stand-in");
+        sender.setDaemon(true);
+        sender.start();
+
+        client = new PoseStreamClient(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.socket().getLocalPort()), format);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        client.close();
+        server.close();
+        sender.join(1000);
+    }
+
+    @Benchmark
+    public PoseRecord receive() {
+        client.next(pose);
+        return pose;
+    }
+}
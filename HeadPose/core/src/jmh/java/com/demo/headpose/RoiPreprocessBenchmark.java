@@ -0,0 +1,52 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 人脸 ROI 的一步式裁剪、镜像、双线性缩放与标准化：
+ * 64 为 ONNX 模型（NCHW）的输入，224 为 PyTorch 模型（NHWC）的输入。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class RoiPreprocessBenchmark {
+
+    @Param({"64", "224"})
+    public int outputSize;
+
+    @Param({"false", "true"})
+    public boolean channelsFirst;
+
+    private YuvFrame frame;
+    private RoiPreprocessor preprocessor;
+    private FloatBuffer input;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkFrames.create(640, 480, 2);
+        preprocessor = new RoiPreprocessor(outputSize,
+                RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB, channelsFirst, false);
+        // 与推理后端一样写入 direct 缓冲区
+        input = ByteBuffer.allocateDirect(outputSize * outputSize * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    @Benchmark
+    public boolean cropResizeNormalize() {
+        return preprocessor.process(frame, true, 200, 120, 440, 400, input, 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.headpose;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整帧 YUV_420_888 → ARGB（ML Kit 检测前的转换），640×480，平面与半平面两种布局。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+public class YuvToRgbBenchmark {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Param({"1", "2"})
+    public int uvPixelStride;
+
+    @Param({"false", "true"})
+    public boolean mirror;
+
+    private YuvFrame frame;
+    private int[] argb;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkFrames.create(WIDTH, HEIGHT, uvPixelStride);
+        argb = new int[WIDTH * HEIGHT];
+    }
+
+    @Benchmark
+    public int[] yuvToArgb() {
+        YuvToRgbConverter.yuvToArgb(frame, argb, mirror);
+        return argb;
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.headpose;
+
+/**
+ * 把头姿欧拉角投影为画面上的三条坐标轴端点（纯 Java，供 MyImageUtils.drawAxis 绘制）。
+ */
+public final class AxisProjection {
+
+    // out 中的端点顺序：X 轴 (x, y)、Y 轴 (x, y)、Z 轴 (x, y)
+    public static final int OUT_SIZE = 6;
+
+    private AxisProjection() {
+    }
+
+    /**
+     * 计算以 (centerX, centerY) 为原点、长度为 size 的三条轴的端点，写入 out[offset..offset+5]。
+     * 每个角的 sin / cos 只算一次，结果与逐项计算相同。
+     */
+    public static void project(float yaw, float pitch, float roll, float centerX, float centerY, float size,
+                               float[] out, int offset) {
+        float y = (float) -(yaw * Math.PI / 180);
+        float p = (float) (pitch * Math.PI / 180);
+        float r = (float) (roll * Math.PI / 180);
+        double sinYaw = Math.sin(y), cosYaw = Math.cos(y);
+        double sinPitch = Math.sin(p), cosPitch = Math.cos(p);
+        double sinRoll = Math.sin(r), cosRoll = Math.cos(r);
+
+        // X 轴
+        out[offset] = size * (float) (cosYaw * cosRoll) + centerX;
+        out[offset + 1] = size * (float) (cosPitch * sinRoll + cosRoll * sinPitch * sinYaw) + centerY;
+        // Y 轴
+        out[offset + 2] = (float) (size * (-cosYaw * sinRoll) + centerX);
+        out[offset + 3] = size * (float) (cosPitch * cosRoll - sinPitch * sinYaw * sinRoll) + centerY;
+        // Z 轴
+        out[offset + 4] = size * (float) sinYaw + centerX;
+        out[offset + 5] = (float) (size * (-cosYaw * sinPitch) + centerY);
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.headpose;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 支持批量推理的后端基类（纯 Java）：负责预处理与输入缓冲区管理，子类只实现 forward 与输出解码。
+ * 人脸数向上补齐到固定的批大小档位，每个档位一个对象池，模型只会看到少数几种输入形状，不会反复特化。
+ * 一批最多 MAX_BATCH 张脸；超过 maxBatchSize 的批在 infer 中拆成几段分别 forward，调用者不需要按 maxBatchSize 分批。
+ * 每次调用的状态都在借出的输入缓冲区中，preprocess 可多线程并发调用；forward 是否可以并发由子类说明。
+ */
+public abstract class BatchPoseEstimator<B extends PoseInput> implements PoseEstimator {
+
+    // 批大小档位
+    public static final int[] BATCH_BUCKETS = {1, 2, 4, 8};
+    // 一次 preprocessBatch 的最大人脸数
+    public static final int MAX_BATCH = BATCH_BUCKETS[BATCH_BUCKETS.length - 1];
+
+    private final int inputSize;
+    private final RoiPreprocessor roiPreprocessor;
+    private final ObjectPool<B>[] pools;
+
+    // 模型支持的最大批大小（输入形状固定为 1 的模型只用第一个档位）
+    private final int modelBatchLimit;
+
+    // 单次 forward 的最大批大小，更大的批在 infer 中拆分；可能在推理线程上被 disableBatching 降为 1
+    private volatile int maxBatchSize;
+
+    /**
+     * @param modelBatchLimit 模型输入允许的最大批大小
+     */
+    protected BatchPoseEstimator(String name, RoiPreprocessor roiPreprocessor, int modelBatchLimit, boolean leakDetection) {
+        this.inputSize = roiPreprocessor.getOutputSize();
+        this.roiPreprocessor = roiPreprocessor;
+        this.modelBatchLimit = Math.max(1, modelBatchLimit);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ObjectPool<B>[] pools = new ObjectPool[BATCH_BUCKETS.length];
+        this.pools = pools;
+        for (int i = 0; i < pools.length; i++) {
+            int batchSize = BATCH_BUCKETS[i];
+            pools[i] = new ObjectPool<>(name + batchSize, () -> createInput(batchSize), leakDetection);
+        }
+        setMaxBatchSize(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 创建一个批大小为 batchSize 的输入缓冲区（由对象池在需要时调用）
+     */
+    protected abstract B createInput(int batchSize);
+
+    /**
+     * 运行模型并把 input.count 个样本的角度写入 degrees（每 3 个值为 yaw, pitch, roll）
+     */
+    protected abstract void forward(B input, float[] degrees);
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 向下取到最近的档位，且不超过模型支持的批大小
+     */
+    @Override
+    public void setMaxBatchSize(int maxBatchSize) {
+        int limit = Math.min(maxBatchSize, modelBatchLimit);
+        int size = BATCH_BUCKETS[0];
+        for (int bucket : BATCH_BUCKETS) {
+            if (bucket <= limit) {
+                size = bucket;
+            }
+        }
+        this.maxBatchSize = size;
+    }
+
+    @Override
+    public Pooled<B> preprocess(YuvFrame frame, int left, int top, int right, int bottom, boolean mirror) {
+        Pooled<B> pooled = pools[0].acquire();
+        B input = pooled.get();
+        if (!roiPreprocessor.process(frame, mirror, left, top, right, bottom, input.buffer, 0, input.columns)) {
+            pooled.release();
+            return null;
+        }
+        input.count = 1;
+        input.valid[0] = true;
+        return pooled;
+    }
+
+    /**
+     * 补齐的空位不重写，保留上次的内容，其输出会被忽略。count 最多为 MAX_BATCH，与当前的 maxBatchSize 无关
+     */
+    @Override
+    public Pooled<B> preprocessBatch(YuvFrame frame, int[] boxes, int first, int count, boolean mirror) {
+        if (count < 1 || count > MAX_BATCH) {
+            throw new IllegalArgumentException("Batch of " + count + " faces, max " + MAX_BATCH);
+        }
+        Pooled<B> pooled = acquireInput(count);
+        B input = pooled.get();
+        int stride = input.sampleSize();
+        for (int i = 0; i < count; i++) {
+            int box = (first + i) * 4;
+            input.valid[i] = roiPreprocessor.process(frame, mirror,
+                    boxes[box], boxes[box + 1], boxes[box + 2], boxes[box + 3], input.buffer, i * stride, input.columns);
+        }
+        input.count = count;
+        return pooled;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void infer(PoseInput input, float[] degrees) {
+        // 只读一次：预处理时的 maxBatchSize 可能已被 disableBatching 降低
+        int limit = maxBatchSize;
+        if (input.batchSize <= limit) {
+            forward((B) input, degrees);
+        } else {
+            forwardChunks((B) input, limit, degrees);
+        }
+        for (int i = 0; i < input.count; i++) {
+            if (!input.valid[i]) {
+                degrees[i * 3] = Float.NaN;
+                degrees[i * 3 + 1] = Float.NaN;
+                degrees[i * 3 + 2] = Float.NaN;
+            }
+        }
+    }
+
+    // 超过 limit 的批：每段最多 limit 个样本，拷到较小档位的输入缓冲区中 forward
+    private void forwardChunks(B input, int limit, float[] degrees) {
+        int stride = input.sampleSize();
+        FloatBuffer from = input.buffer;
+        for (int first = 0; first < input.count; first += limit) {
+            int count = Math.min(limit, input.count - first);
+            Pooled<B> pooled = acquireInput(count);
+            try {
+                B part = pooled.get();
+                FloatBuffer to = part.buffer;
+                int offset = first * stride;
+                for (int i = 0, n = count * stride; i < n; i++) {
+                    to.put(i, from.get(offset + i));
+                }
+                System.arraycopy(input.valid, first, part.valid, 0, count);
+                part.count = count;
+                forward(part, part.degrees);
+                System.arraycopy(part.degrees, 0, degrees, first * 3, count * 3);
+            } finally {
+                pooled.release();
+            }
+        }
+    }
+
+    /**
+     * 一次完成预处理与推理：boxes 中的 count 个人脸框每 MAX_BATCH 个一批
+     * @return 与人脸框一一对应的 yaw, pitch, roll；人脸框与画面无交集时对应项为 null
+     */
+    public float[][] estimate(YuvFrame frame, int[] boxes, int count, boolean mirror) {
+        float[][] result = new float[count][];
+        float[] degrees = new float[MAX_BATCH * 3];
+        for (int first = 0; first < count; ) {
+            int chunk = Math.min(count - first, MAX_BATCH);
+            Pooled<B> input = preprocessBatch(frame, boxes, first, chunk, mirror);
+            try {
+                infer(input.get(), degrees);
+                for (int i = 0; i < chunk; i++) {
+                    if (input.get().valid[i]) {
+                        result[first + i] = new float[]{degrees[i * 3], degrees[i * 3 + 1], degrees[i * 3 + 2]};
+                    }
+                }
+            } finally {
+                input.release();
+            }
+            first += chunk;
+        }
+        return result;
+    }
+
+    @Override
+    public int checkLeaks(long maxAge, ObjectPool.LeakListener listener) {
+        int leaks = 0;
+        for (ObjectPool<B> pool : pools) {
+            leaks += pool.checkLeaks(maxAge, listener);
+        }
+        return leaks;
+    }
+
+    /**
+     * 从能容纳 count 个样本的最小档位借出一个输入缓冲区
+     */
+    protected Pooled<B> acquireInput(int count) {
+        for (int i = 0; i < BATCH_BUCKETS.length; i++) {
+            if (BATCH_BUCKETS[i] >= count) {
+                return pools[i].acquire();
+            }
+        }
+        throw new IllegalArgumentException("Batch too large: " + count);
+    }
+
+    /**
+     * 模型不支持当前批大小时由子类调用，之后只按单个样本推理
+     */
+    protected void disableBatching() {
+        maxBatchSize = 1;
+    }
+}
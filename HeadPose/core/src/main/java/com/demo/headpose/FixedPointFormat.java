@@ -0,0 +1,62 @@
+package com.demo.headpose;
+
+/**
+ * 不分配内存的定点小数格式化，用于每帧绘制的角度文字（代替 String.format）。
+ */
+public final class FixedPointFormat {
+
+    private FixedPointFormat() {
+    }
+
+    /**
+     * 把 text 写入 dst[offset..]
+     * @return 写入后的下一个位置
+     */
+    public static int append(char[] dst, int offset, String text) {
+        text.getChars(0, text.length(), dst, offset);
+        return offset + text.length();
+    }
+
+    /**
+     * 按四舍五入保留 decimals 位小数写入 dst[offset..]，效果同 String.format("%.Nf")
+     * @return 写入后的下一个位置
+     */
+    public static int append(char[] dst, int offset, float value, int decimals) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return append(dst, offset, Float.isNaN(value) ? "NaN" : (value > 0 ? "Infinity" : "-Infinity"));
+        }
+
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs((double) value) * scale);
+        if (value < 0) {
+            dst[offset++] = '-';
+        }
+
+        long integer = scaled / scale;
+        long fraction = scaled % scale;
+
+        // 整数部分：先计算位数再从后往前写
+        int digits = 1;
+        for (long rest = integer / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            dst[offset + i] = (char) ('0' + integer % 10);
+            integer /= 10;
+        }
+        offset += digits;
+
+        if (decimals > 0) {
+            dst[offset++] = '.';
+            for (int i = decimals - 1; i >= 0; i--) {
+                dst[offset + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            offset += decimals;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,407 @@
+package com.demo.headpose;
+
+/**
+ * 从人脸关键点几何求解头姿（纯 Java）：把平均脸上的 3D 关键点经透视投影拟合到检测到的 2D 关键点
+ * （迭代 PnP，Levenberg–Marquardt 同时优化旋转与平移），再把旋转矩阵换算为 yaw, pitch, roll。
+ * <p>
+ * 关键点顺序与 MLKit 的 FaceLandmark 对应，LEFT_* 为被拍摄者的左侧（正脸时位于画面右侧）。
+ * 画面已镜像时 MLKit 按画面中看到的人脸标注，求解结果与 CNN 在同一画面上的输出一致，不需要另外处理镜像。
+ * 拟合在模型坐标系中进行：x 向画面右、y 向上、z 从脸指向相机，正脸时旋转为单位矩阵。
+ * 输出的角度换成 CNN 的约定（与 AxisProjection 画出的轴一致）：正 yaw 时鼻尖转向画面左侧，正 pitch 时抬头，
+ * 正 roll 时人脸在画面上顺时针转，三个角都与模型坐标系中按 RotationMath 换算出的角相反。
+ * 焦距按画面长边估算（约 53° 视场角），焦距误差主要影响平移，对角度影响很小。
+ * <p>
+ * 求解不分配内存；实例持有临时数组，只能在一个线程上使用。
+ */
+public class LandmarkPoseSolver {
+
+    public static final int LEFT_EYE = 0;
+    public static final int RIGHT_EYE = 1;
+    public static final int NOSE_BASE = 2;
+    public static final int MOUTH_LEFT = 3;
+    public static final int MOUTH_RIGHT = 4;
+    public static final int LEFT_EAR = 5;
+    public static final int RIGHT_EAR = 6;
+    public static final int LANDMARK_COUNT = 7;
+
+    // 6 个未知量至少需要 3 个点，多一个点时拟合才稳定
+    public static final int MIN_LANDMARKS = 4;
+
+    public static final int DEFAULT_MAX_ITERATIONS = 20;
+    // 重投影均方根误差超过两眼距离的这一比例时认为关键点与平均脸不符（例如检测错误），求解失败
+    public static final float DEFAULT_MAX_RELATIVE_ERROR = 0.15f;
+
+    /**
+     * 平均脸（毫米，原点在鼻底），每 3 个值为一个关键点的 x, y, z
+     */
+    static final double[] MEAN_FACE = {
+            31.5, 40, -10,    // 左眼
+            -31.5, 40, -10,   // 右眼
+            0, 0, 0,          // 鼻底
+            25, -25, -18,     // 左嘴角
+            -25, -25, -18,    // 右嘴角
+            72, 10, -85,      // 左耳
+            -72, 10, -85,     // 右耳
+    };
+
+    // 两眼中心距离与眼睛相对鼻底的深度（毫米），用于初值
+    private static final double EYE_DISTANCE = 63;
+    private static final double EYE_DEPTH = 10;
+    private static final double MAX_INITIAL_YAW = Math.toRadians(60);
+
+    // 耳朵的位置个体差异大，侧脸时远侧耳朵被遮挡、只是估计值，权重减半
+    private static final double[] WEIGHTS = {1, 1, 1, 1, 1, 0.5, 0.5};
+
+    private static final double MIN_DEPTH = 1;
+    private static final double INITIAL_DAMPING = 1e-3;
+    private static final double MAX_DAMPING = 1e8;
+    private static final double CONVERGED_STEP = 1e-6;
+
+    private final float focalLengthRatio;
+    private final int maxIterations;
+    private final float maxRelativeError;
+
+    // 当前解与试探解：旋转（行优先 3×3）与平移（毫米，相机坐标）
+    private final double[] rotation = new double[9];
+    private final double[] translation = new double[3];
+    private final double[] trialRotation = new double[9];
+    private final double[] trialTranslation = new double[3];
+    // 法方程 JᵀWJ·δ = -JᵀWr 与增量旋转
+    private final double[] normal = new double[36];
+    private final double[] damped = new double[36];
+    private final double[] gradient = new double[6];
+    private final double[] jacobianRow = new double[6];
+    private final double[] step = new double[6];
+    private final double[] increment = new double[9];
+    private final float[] result = new float[9];
+
+    private double focalLength;
+    private double centerX;
+    private double centerY;
+    private int iterations;
+    private float rmsError;
+
+    public LandmarkPoseSolver() {
+        this(1f, DEFAULT_MAX_ITERATIONS, DEFAULT_MAX_RELATIVE_ERROR);
+    }
+
+    /**
+     * @param focalLengthRatio 焦距（像素）与画面长边之比
+     */
+    public LandmarkPoseSolver(float focalLengthRatio, int maxIterations, float maxRelativeError) {
+        if (!(focalLengthRatio > 0) || maxIterations < 1 || !(maxRelativeError > 0)) {
+            throw new IllegalArgumentException("Bad solver parameters");
+        }
+        this.focalLengthRatio = focalLengthRatio;
+        this.maxIterations = maxIterations;
+        this.maxRelativeError = maxRelativeError;
+    }
+
+    /**
+     * 是否有足够的关键点求解：双眼都在且总数不少于 MIN_LANDMARKS
+     */
+    public static boolean canSolve(int mask) {
+        int eyes = (1 << LEFT_EYE) | (1 << RIGHT_EYE);
+        return (mask & eyes) == eyes && Integer.bitCount(mask & ((1 << LANDMARK_COUNT) - 1)) >= MIN_LANDMARKS;
+    }
+
+    /**
+     * @param points 画面坐标，每 2 个值为一个关键点的 x, y，顺序见 LEFT_EYE 等常量
+     * @param mask   第 i 位为 1 表示第 i 个关键点有效
+     * @param degree 结果 yaw, pitch, roll（度，CNN 的约定）写入 degree[offset..offset+2]
+     * @return 关键点不足、投影退化或拟合误差过大时返回 false，degree 不变
+     */
+    public boolean solve(float[] points, int mask, int frameWidth, int frameHeight, float[] degree, int offset) {
+        iterations = 0;
+        rmsError = Float.NaN;
+        if (!canSolve(mask)) {
+            return false;
+        }
+        focalLength = focalLengthRatio * Math.max(frameWidth, frameHeight);
+        centerX = frameWidth * 0.5;
+        centerY = frameHeight * 0.5;
+        double eyePixels = initialize(points, mask);
+        if (!(eyePixels > 1)) {
+            return false;
+        }
+
+        double cost = cost(points, mask, rotation, translation);
+        double damping = INITIAL_DAMPING;
+        while (iterations < maxIterations && cost > 0) {
+            iterations++;
+            buildNormalEquations(points, mask);
+            boolean improved = false;
+            while (damping < MAX_DAMPING) {
+                for (int i = 0; i < 36; i++) {
+                    damped[i] = normal[i];
+                }
+                for (int i = 0; i < 6; i++) {
+                    damped[i * 7] += damping * (normal[i * 7] + 1e-9);
+                }
+                if (!solve6(damped, gradient, step)) {
+                    damping *= 10;
+                    continue;
+                }
+                applyStep();
+                double trialCost = cost(points, mask, trialRotation, trialTranslation);
+                if (trialCost < cost) {
+                    System.arraycopy(trialRotation, 0, rotation, 0, 9);
+                    System.arraycopy(trialTranslation, 0, translation, 0, 3);
+                    cost = trialCost;
+                    damping = Math.max(damping * 0.3, 1e-9);
+                    improved = true;
+                    break;
+                }
+                damping *= 10;
+            }
+            if (!improved || converged()) {
+                break;
+            }
+        }
+        if (!Double.isFinite(cost)) {
+            return false;
+        }
+
+        double weightSum = 0;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            if ((mask & (1 << i)) != 0) {
+                weightSum += WEIGHTS[i];
+            }
+        }
+        rmsError = (float) Math.sqrt(cost / weightSum);
+        if (rmsError > maxRelativeError * eyePixels) {
+            return false;
+        }
+        for (int i = 0; i < 9; i++) {
+            result[i] = (float) rotation[i];
+        }
+        RotationMath.rotationToEuler(result, 0, degree, offset);
+        degree[offset] = -degree[offset];
+        degree[offset + 1] = -degree[offset + 1];
+        degree[offset + 2] = -degree[offset + 2];
+        return true;
+    }
+
+    /**
+     * 上一次求解的迭代次数
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * 上一次求解的加权重投影均方根误差（像素），没有求解时为 NaN
+     */
+    public float getRmsError() {
+        return rmsError;
+    }
+
+    /**
+     * 初值：roll 取自两眼连线，yaw 取自鼻底相对两眼中点的偏移，距离取自两眼的像素距离，
+     * 平移使两眼中点落在检测到的位置上
+     * @return 两眼的像素距离
+     */
+    private double initialize(float[] points, int mask) {
+        double leftX = points[LEFT_EYE * 2], leftY = points[LEFT_EYE * 2 + 1];
+        double rightX = points[RIGHT_EYE * 2], rightY = points[RIGHT_EYE * 2 + 1];
+        double eyeX = leftX - rightX;
+        double eyeY = leftY - rightY;
+        double eyePixels = Math.hypot(eyeX, eyeY);
+        if (!(eyePixels > 1)) {
+            return eyePixels;
+        }
+        double midX = (leftX + rightX) * 0.5;
+        double midY = (leftY + rightY) * 0.5;
+        // 画面 y 向下，模型 y 向上
+        double roll = Math.atan2(-eyeY, eyeX);
+
+        // 偏航时两眼中点相对鼻底横移 EYE_DEPTH·sin(yaw)，两眼距离缩短为 EYE_DISTANCE·cos(yaw)
+        double yaw = 0;
+        if ((mask & (1 << NOSE_BASE)) != 0) {
+            double along = ((points[NOSE_BASE * 2] - midX) * eyeX + (points[NOSE_BASE * 2 + 1] - midY) * eyeY)
+                    / (eyePixels * eyePixels);
+            yaw = Math.max(-MAX_INITIAL_YAW, Math.min(MAX_INITIAL_YAW, Math.atan(along * EYE_DISTANCE / EYE_DEPTH)));
+        }
+        double cy = Math.cos(yaw), sy = Math.sin(yaw);
+        double cr = Math.cos(roll), sr = Math.sin(roll);
+        // R = Rz(roll) · Ry(yaw)
+        rotation[0] = cr * cy;
+        rotation[1] = -sr;
+        rotation[2] = cr * sy;
+        rotation[3] = sr * cy;
+        rotation[4] = cr;
+        rotation[5] = sr * sy;
+        rotation[6] = -sy;
+        rotation[7] = 0;
+        rotation[8] = cy;
+
+        double depth = focalLength * EYE_DISTANCE * cy / eyePixels;
+        double eyeMidX = 0, eyeMidY = MEAN_FACE[LEFT_EYE * 3 + 1], eyeMidZ = MEAN_FACE[LEFT_EYE * 3 + 2];
+        translation[0] = (midX - centerX) * depth / focalLength
+                - (rotation[0] * eyeMidX + rotation[1] * eyeMidY + rotation[2] * eyeMidZ);
+        translation[1] = -(midY - centerY) * depth / focalLength
+                - (rotation[3] * eyeMidX + rotation[4] * eyeMidY + rotation[5] * eyeMidZ);
+        translation[2] = -depth - (rotation[6] * eyeMidX + rotation[7] * eyeMidY + rotation[8] * eyeMidZ);
+        return eyePixels;
+    }
+
+    /**
+     * 加权重投影误差平方和；有关键点落到相机后方时返回正无穷
+     */
+    private double cost(float[] points, int mask, double[] r, double[] t) {
+        double cost = 0;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            if ((mask & (1 << i)) == 0) {
+                continue;
+            }
+            double mx = MEAN_FACE[i * 3], my = MEAN_FACE[i * 3 + 1], mz = MEAN_FACE[i * 3 + 2];
+            double px = r[0] * mx + r[1] * my + r[2] * mz + t[0];
+            double py = r[3] * mx + r[4] * my + r[5] * mz + t[1];
+            double depth = -(r[6] * mx + r[7] * my + r[8] * mz + t[2]);
+            if (depth < MIN_DEPTH) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double du = centerX + focalLength * px / depth - points[i * 2];
+            double dv = centerY - focalLength * py / depth - points[i * 2 + 1];
+            cost += WEIGHTS[i] * (du * du + dv * dv);
+        }
+        return cost;
+    }
+
+    /**
+     * 在当前解处构造法方程。参数为旋转增量 ω（R ← exp([ω]×)·R）与平移增量，
+     * 点 P = R·M + T 对 ω 的导数为 -[R·M]×，对 T 的导数为单位矩阵
+     */
+    private void buildNormalEquations(float[] points, int mask) {
+        for (int i = 0; i < 36; i++) {
+            normal[i] = 0;
+        }
+        for (int i = 0; i < 6; i++) {
+            gradient[i] = 0;
+        }
+        double[] r = rotation;
+        double f = focalLength;
+        for (int i = 0; i < LANDMARK_COUNT; i++) {
+            if ((mask & (1 << i)) == 0) {
+                continue;
+            }
+            double mx = MEAN_FACE[i * 3], my = MEAN_FACE[i * 3 + 1], mz = MEAN_FACE[i * 3 + 2];
+            double qx = r[0] * mx + r[1] * my + r[2] * mz;
+            double qy = r[3] * mx + r[4] * my + r[5] * mz;
+            double qz = r[6] * mx + r[7] * my + r[8] * mz;
+            double px = qx + translation[0];
+            double py = qy + translation[1];
+            double depth = -(qz + translation[2]);
+            double inverse = 1 / depth;
+            double du = centerX + f * px * inverse - points[i * 2];
+            double dv = centerY - f * py * inverse - points[i * 2 + 1];
+
+            // u 与 v 对 P 的偏导
+            double ux = f * inverse, uz = f * px * inverse * inverse;
+            double vy = -f * inverse, vz = -f * py * inverse * inverse;
+            // 乘以 dP/dω = [[0, qz, -qy], [-qz, 0, qx], [qy, -qx, 0]]
+            double u0 = uz * qy, u1 = ux * qz - uz * qx, u2 = -ux * qy;
+            double v0 = -vy * qz + vz * qy, v1 = -vz * qx, v2 = vy * qx;
+            double w = WEIGHTS[i];
+            accumulate(w, du, u0, u1, u2, ux, 0, uz);
+            accumulate(w, dv, v0, v1, v2, 0, vy, vz);
+        }
+    }
+
+    // 把一行雅可比 j 与残差 residual 加入 JᵀWJ 与 JᵀWr（取负号作为右端项）
+    private void accumulate(double weight, double residual,
+                            double j0, double j1, double j2, double j3, double j4, double j5) {
+        double[] j = jacobianRow;
+        j[0] = j0;
+        j[1] = j1;
+        j[2] = j2;
+        j[3] = j3;
+        j[4] = j4;
+        j[5] = j5;
+        for (int a = 0; a < 6; a++) {
+            double wa = weight * j[a];
+            gradient[a] -= wa * residual;
+            for (int b = 0; b < 6; b++) {
+                normal[a * 6 + b] += wa * j[b];
+            }
+        }
+    }
+
+    private void applyStep() {
+        // Rodrigues：增量旋转 exp([ω]×)
+        double wx = step[0], wy = step[1], wz = step[2];
+        double angle = Math.sqrt(wx * wx + wy * wy + wz * wz);
+        double s, c;
+        if (angle < 1e-12) {
+            s = 1;
+            c = 0.5;
+        } else {
+            s = Math.sin(angle) / angle;
+            c = (1 - Math.cos(angle)) / (angle * angle);
+        }
+        increment[0] = 1 - c * (wy * wy + wz * wz);
+        increment[1] = -s * wz + c * wx * wy;
+        increment[2] = s * wy + c * wx * wz;
+        increment[3] = s * wz + c * wx * wy;
+        increment[4] = 1 - c * (wx * wx + wz * wz);
+        increment[5] = -s * wx + c * wy * wz;
+        increment[6] = -s * wy + c * wx * wz;
+        increment[7] = s * wx + c * wy * wz;
+        increment[8] = 1 - c * (wx * wx + wy * wy);
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                trialRotation[row * 3 + col] = increment[row * 3] * rotation[col]
+                        + increment[row * 3 + 1] * rotation[3 + col]
+                        + increment[row * 3 + 2] * rotation[6 + col];
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            trialTranslation[i] = translation[i] + step[3 + i];
+        }
+    }
+
+    // 旋转增量小于 CONVERGED_STEP 弧度、平移增量小于 CONVERGED_STEP × 距离
+    private boolean converged() {
+        double rotationStep = Math.abs(step[0]) + Math.abs(step[1]) + Math.abs(step[2]);
+        double translationStep = Math.abs(step[3]) + Math.abs(step[4]) + Math.abs(step[5]);
+        return rotationStep < CONVERGED_STEP && translationStep < CONVERGED_STEP * Math.abs(translation[2]);
+    }
+
+    /**
+     * Cholesky 分解求解 6×6 对称正定方程组 a·x = b，a 被覆盖
+     * @return 矩阵不正定时返回 false
+     */
+    private static boolean solve6(double[] a, double[] b, double[] x) {
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = a[i * 6 + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[i * 6 + k] * a[j * 6 + k];
+                }
+                if (i == j) {
+                    if (!(sum > 0)) {
+                        return false;
+                    }
+                    a[i * 6 + i] = Math.sqrt(sum);
+                } else {
+                    a[i * 6 + j] = sum / a[j * 6 + j];
+                }
+            }
+        }
+        for (int i = 0; i < 6; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= a[i * 6 + k] * x[k];
+            }
+            x[i] = sum / a[i * 6 + i];
+        }
+        for (int i = 5; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < 6; k++) {
+                sum -= a[k * 6 + i] * x[k];
+            }
+            x[i] = sum / a[i * 6 + i];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.headpose;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只保留最新值的交接（三缓冲）：生产者从不阻塞也从不失败，消费者每次拿到的都是最新的一条，
+ * 中间来不及发送的旧记录直接被覆盖。
+ */
+public class LatestPoseSlot implements PoseQueue {
+
+    // 状态：低 2 位为中间缓冲的下标，FRESH 表示中间缓冲里有消费者尚未取走的新记录
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final PoseRecord[] buffers = {new PoseRecord(), new PoseRecord(), new PoseRecord()};
+    private final AtomicInteger state = new AtomicInteger(1);
+
+    // 生产者正在写的缓冲 / 消费者正在读的缓冲
+    private int back = 0;
+    private int front = 2;
+
+    // 被覆盖（未发送）的记录数，只由生产者更新
+    private volatile long overwritten;
+
+    @Override
+    public boolean offer(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                         float lx, float ly, float rx, float ry) {
+        buffers[back].set(sequence, timestampNanos, yaw, pitch, roll, lx, ly, rx, ry);
+        int previous = state.getAndSet(back | FRESH);
+        if ((previous & FRESH) != 0) {
+            overwritten++;
+        }
+        back = previous & INDEX_MASK;
+        return true;
+    }
+
+    @Override
+    public boolean poll(PoseRecord out) {
+        if ((state.get() & FRESH) == 0) {
+            return false;
+        }
+        int previous = state.getAndSet(front);
+        front = previous & INDEX_MASK;
+        out.copyFrom(buffers[front]);
+        return true;
+    }
+
+    /**
+     * 被更新的记录覆盖、没有发送出去的记录数
+     */
+    public long getOverwrittenCount() {
+        return overwritten;
+    }
+}
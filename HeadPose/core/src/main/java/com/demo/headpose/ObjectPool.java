@@ -0,0 +1,113 @@
+package com.demo.headpose;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * 引用计数对象池（纯 Java，线程安全）。
+ * 池为空时通过 Factory 新建对象，预热之后 acquire / release 不再分配堆内存。
+ * 打开泄漏检测（debug 构建）后会记录每次 acquire 的调用栈，用 checkLeaks 找出长期未归还的对象。
+ */
+public class ObjectPool<T> {
+
+    /**
+     * 创建池中对象
+     */
+    public interface Factory<T> {
+        T create();
+    }
+
+    /**
+     * 泄漏回调：对象被借出超过 maxAge 次 acquire 仍未归还
+     */
+    public interface LeakListener {
+        void onLeak(String poolName, Object value, Throwable acquireSite);
+    }
+
+    private final String name;
+    private final Factory<T> factory;
+    private final boolean leakDetection;
+
+    private final ArrayDeque<Pooled<T>> free = new ArrayDeque<>();
+    private final ArrayList<Pooled<T>> all = new ArrayList<>();
+
+    // acquire 计数，作为泄漏检测的时间刻度
+    private long acquireCount;
+
+    public ObjectPool(String name, Factory<T> factory, boolean leakDetection) {
+        this.name = name;
+        this.factory = factory;
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * 预先创建 count 个对象放入池中
+     */
+    public synchronized void prefill(int count) {
+        for (int i = 0; i < count; i++) {
+            free.push(newHandle());
+        }
+    }
+
+    /**
+     * 借出一个对象，引用计数为 1
+     */
+    public Pooled<T> acquire() {
+        Pooled<T> handle;
+        synchronized (this) {
+            handle = free.poll();
+            if (handle == null) {
+                handle = newHandle();
+            }
+            handle.acquireTick = ++acquireCount;
+        }
+        handle.onAcquire(leakDetection ? new Throwable("Acquired from pool " + name) : null);
+        return handle;
+    }
+
+    /**
+     * 检查借出时间超过 maxAge 次 acquire 的对象
+     * @return 可疑泄漏的数量
+     */
+    public synchronized int checkLeaks(long maxAge, LeakListener listener) {
+        int leaks = 0;
+        for (int i = 0; i < all.size(); i++) {
+            Pooled<T> handle = all.get(i);
+            if (handle.refCount() > 0 && acquireCount - handle.acquireTick > maxAge) {
+                leaks++;
+                if (listener != null) {
+                    listener.onLeak(name, handle.get(), handle.acquireSite);
+                }
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * 池中创建过的对象总数
+     */
+    public synchronized int size() {
+        return all.size();
+    }
+
+    /**
+     * 当前可借出的对象数
+     */
+    public synchronized int available() {
+        return free.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    synchronized void recycle(Pooled<T> handle) {
+        free.push(handle);
+    }
+
+    private Pooled<T> newHandle() {
+        Pooled<T> handle = new Pooled<>(this, factory.create());
+        all.add(handle);
+        return handle;
+    }
+}
@@ -0,0 +1,147 @@
+package com.demo.headpose;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ONNX Runtime 推理后端（纯 Java，Android 与桌面 JVM 通用），默认配置对应 assets 中的 fsanet.onnx：
+ * 输入 N×3×64×64（NCHW，BGR，(v - 127.5) / 128），输出 N×3 欧拉角 yaw, pitch, roll。
+ * 输出最后一维为 9 的模型按 3×3 旋转矩阵解码。OrtSession.run 是线程安全的，推理可以多线程并发调用。
+ */
+public class OnnxPoseEstimator extends BatchPoseEstimator<OnnxPoseEstimator.OnnxInput> {
+
+    // FSA-Net 标准化：(v - 127.5) / 128
+    public static final float[] FSANET_MEAN = {0.5f, 0.5f, 0.5f};
+    public static final float[] FSANET_STD = {128f / 255f, 128f / 255f, 128f / 255f};
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final String inputName;
+    private final int outputWidth;
+
+    // 池中创建过的输入张量，close 时一并释放
+    private final List<OnnxInput> inputs = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 加载 FSA-Net 风格的模型（BGR、NCHW、(v - 127.5) / 128）
+     * @param threads 算子内线程数，0 表示由 ONNX Runtime 决定
+     */
+    public OnnxPoseEstimator(String modelPath, int threads, boolean leakDetection) throws OrtException {
+        this(openSession(modelPath, threads), FSANET_MEAN, FSANET_STD, true, leakDetection);
+    }
+
+    /**
+     * @param bgr 模型是否按 BGR 顺序读取通道
+     */
+    public OnnxPoseEstimator(OrtSession session, float[] meanRgb, float[] stdRgb, boolean bgr,
+                             boolean leakDetection) throws OrtException {
+        super("onnx", new RoiPreprocessor((int) inputShape(session)[2], meanRgb, stdRgb, true, bgr),
+                batchLimit(inputShape(session)[0]), leakDetection);
+        this.environment = OrtEnvironment.getEnvironment();
+        this.session = session;
+        this.inputName = session.getInputNames().iterator().next();
+
+        long[] outputShape = ((TensorInfo) session.getOutputInfo().values().iterator().next().getInfo()).getShape();
+        outputWidth = (int) outputShape[outputShape.length - 1];
+        if (outputWidth != 3 && outputWidth != 9) {
+            throw new IllegalArgumentException("Unsupported pose output width: " + outputWidth);
+        }
+    }
+
+    /**
+     * 创建推理会话
+     * @param threads 算子内线程数，0 表示由 ONNX Runtime 决定
+     */
+    public static OrtSession openSession(String modelPath, int threads) throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        if (threads > 0) {
+            options.setIntraOpNumThreads(threads);
+        }
+        return OrtEnvironment.getEnvironment().createSession(modelPath, options);
+    }
+
+    @Override
+    protected OnnxInput createInput(int batchSize) {
+        try {
+            OnnxInput input = new OnnxInput(batchSize, getInputSize(), environment, inputName);
+            inputs.add(input);
+            return input;
+        } catch (OrtException e) {
+            throw new IllegalStateException("Cannot create input tensor", e);
+        }
+    }
+
+    @Override
+    protected void forward(OnnxInput input, float[] degrees) {
+        try (OrtSession.Result result = session.run(input.feed)) {
+            FloatBuffer output = ((OnnxTensor) result.get(0)).getFloatBuffer();
+            for (int i = 0; i < input.count; i++) {
+                if (outputWidth == 3) {
+                    degrees[i * 3] = output.get(i * 3);
+                    degrees[i * 3 + 1] = output.get(i * 3 + 1);
+                    degrees[i * 3 + 2] = output.get(i * 3 + 2);
+                } else {
+                    output.position(i * 9);
+                    output.get(input.rotation);
+                    RotationMath.rotationToEuler(input.rotation, 0, degrees, i * 3);
+                }
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX inference failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (inputs) {
+            for (OnnxInput input : inputs) {
+                input.tensor.close();
+            }
+            inputs.clear();
+        }
+        try {
+            session.close();
+        } catch (OrtException e) {
+            throw new IllegalStateException("Cannot close session", e);
+        }
+    }
+
+    private static long[] inputShape(OrtSession session) throws OrtException {
+        NodeInfo input = session.getInputInfo().values().iterator().next();
+        return ((TensorInfo) input.getInfo()).getShape();
+    }
+
+    // 输入批维度为动态（-1）时不限制批大小
+    private static int batchLimit(long batchDimension) {
+        return batchDimension > 0 ? (int) batchDimension : Integer.MAX_VALUE;
+    }
+
+    /**
+     * ONNX 后端的模型输入：直接内存缓冲区上零拷贝包装的 OnnxTensor，以及预先建好的输入映射
+     */
+    public static class OnnxInput extends PoseInput {
+
+        public final OnnxTensor tensor;
+        final Map<String, OnnxTensor> feed;
+        // 解码旋转矩阵时的临时数组
+        final float[] rotation = new float[9];
+
+        OnnxInput(int batchSize, int inputSize, OrtEnvironment environment, String inputName) throws OrtException {
+            super(batchSize, inputSize);
+            tensor = OnnxTensor.createTensor(environment, buffer,
+                    new long[]{batchSize, 3, inputSize, inputSize});
+            feed = Collections.singletonMap(inputName, tensor);
+        }
+    }
+}
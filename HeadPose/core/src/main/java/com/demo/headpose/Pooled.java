@@ -0,0 +1,67 @@
+package com.demo.headpose;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ObjectPool 借出的对象句柄。
+ * 每个持有者 retain 一次、用完 release 一次，计数归零时对象回到池中。
+ */
+public final class Pooled<T> {
+
+    private final ObjectPool<T> pool;
+    private final T value;
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    // 泄漏检测信息，由 ObjectPool 维护
+    long acquireTick;
+    Throwable acquireSite;
+
+    Pooled(ObjectPool<T> pool, T value) {
+        this.pool = pool;
+        this.value = value;
+    }
+
+    public T get() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("Pooled object already released (pool " + pool.getName() + ")");
+        }
+        return value;
+    }
+
+    /**
+     * 增加一个持有者
+     */
+    public Pooled<T> retain() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Cannot retain a released object (pool " + pool.getName() + ")");
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * 释放一个持有者，最后一次释放时归还到池中
+     */
+    public void release() {
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            acquireSite = null;
+            pool.recycle(this);
+        } else if (count < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException("Pooled object released too many times (pool " + pool.getName() + ")");
+        }
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    void onAcquire(Throwable site) {
+        acquireSite = site;
+        refCount.set(1);
+    }
+}
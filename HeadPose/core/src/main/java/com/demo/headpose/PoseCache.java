@@ -0,0 +1,252 @@
+package com.demo.headpose;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按人脸区域是否变化决定能否跳过推理的姿态缓存（纯 Java，不分配内存）。
+ * <p>
+ * 签名为人脸框内亮度平面的 THUMBNAIL_SIZE × THUMBNAIL_SIZE 缩略图（每格取 4 × 4 个采样点的均值，去掉整体均值以忽略曝光的
+ * 微小变化）。与参照帧（上一次真正推理的帧）相比，缩略图的平均绝对差不超过 maxLumaDifference、
+ * 人脸框的中心与边长漂移不超过 maxBoxDrift × 参照框宽、且参照帧不超过 maxAge 时命中，沿用参照帧的姿态；
+ * 否则成为新的参照帧并照常推理。命中只与参照帧比较，因此缓慢的累积变化最终也会触发推理。
+ * <p>
+ * 误差统计：参照帧过期而强制推理的帧本来会命中，它的推理结果与缓存姿态之间的测地角就是缓存在这段时间内引入的误差。
+ * <p>
+ * 判定（lookup）在预处理阶段调用，姿态的写入与读取（store / fetch）在推理阶段按帧顺序调用。
+ * 参照帧在两次调用之间可能被流水线丢弃，因此命中的帧记下参照帧的序号，fetch 时序号不符即视为没有缓存。
+ */
+public class PoseCache {
+
+    public static final int THUMBNAIL_SIZE = 16;
+    private static final int CELL_SAMPLES = 4;
+
+    public static final float DEFAULT_MAX_LUMA_DIFFERENCE = 3f;
+    public static final float DEFAULT_MAX_BOX_DRIFT = 0.05f;
+
+    private final float maxLumaDifference;
+    private final float maxBoxDrift;
+    private final long maxAgeNanos;
+
+    // 只在 lookup 线程上使用：当前帧的缩略图
+    private final float[] current = new float[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+
+    // 参照帧（由锁保护）
+    private final float[] reference = new float[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private boolean hasReference;
+    private long referenceSequence;
+    private long referenceNanos;
+    private int referenceLeft;
+    private int referenceTop;
+    private int referenceRight;
+    private int referenceBottom;
+    // 参照帧因为过期而强制推理：推理结果用来统计误差
+    private boolean referenceStale;
+
+    // 最近一次推理的姿态及其帧序号
+    private final float[] pose = new float[3];
+    private long poseSequence = -1;
+    private final float[] scratch = new float[18];
+
+    private long hits;
+    private long changedMisses;
+    private long staleMisses;
+    private long fetchFailures;
+    private long errorSamples;
+    private double errorSum;
+    private float errorMax;
+
+    /**
+     * @param maxLumaDifference 缩略图平均绝对差的上限（亮度级，0 ~ 255）
+     * @param maxBoxDrift       人脸框中心与边长漂移之和的上限（相对参照框宽）
+     * @param maxAgeMillis      参照帧最长沿用多久，超过后强制推理
+     */
+    public PoseCache(float maxLumaDifference, float maxBoxDrift, long maxAgeMillis) {
+        if (!(maxLumaDifference >= 0) || !(maxBoxDrift >= 0) || maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Bad pose cache parameters");
+        }
+        this.maxLumaDifference = maxLumaDifference;
+        this.maxBoxDrift = maxBoxDrift;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    }
+
+    /**
+     * 判断本帧能否沿用缓存的姿态；不能时本帧成为新的参照帧，调用者推理后用 store 写入结果
+     * @param sequence 帧序号（单调递增）
+     * @param box      left, top, right, bottom（镜像后画面坐标）
+     * @return 命中时返回参照帧序号（交给 fetch），否则返回 -1
+     */
+    public long lookup(YuvFrame frame, boolean mirror, long sequence, long nowNanos,
+                       int left, int top, int right, int bottom) {
+        thumbnail(frame, mirror, left, top, right, bottom, current);
+        synchronized (this) {
+            if (hasReference) {
+                boolean similar = drift(left, top, right, bottom) <= maxBoxDrift
+                        && difference(current, reference) <= maxLumaDifference;
+                if (similar && nowNanos - referenceNanos <= maxAgeNanos) {
+                    hits++;
+                    return referenceSequence;
+                }
+                referenceStale = similar;
+                if (similar) {
+                    staleMisses++;
+                } else {
+                    changedMisses++;
+                }
+            } else {
+                changedMisses++;
+                referenceStale = false;
+            }
+            System.arraycopy(current, 0, reference, 0, current.length);
+            hasReference = true;
+            referenceSequence = sequence;
+            referenceNanos = nowNanos;
+            referenceLeft = left;
+            referenceTop = top;
+            referenceRight = right;
+            referenceBottom = bottom;
+            return -1;
+        }
+    }
+
+    /**
+     * 写入一帧的推理结果（yaw, pitch, roll）；推理失败时写入 NaN
+     */
+    public synchronized void store(long sequence, float[] degree, int offset) {
+        if (sequence == referenceSequence && referenceStale && poseSequence >= 0
+                && !Float.isNaN(pose[0]) && !Float.isNaN(degree[offset])) {
+            float error = RotationMath.angleBetween(pose[0], pose[1], pose[2],
+                    degree[offset], degree[offset + 1], degree[offset + 2], scratch);
+            errorSamples++;
+            errorSum += error;
+            errorMax = Math.max(errorMax, error);
+        }
+        System.arraycopy(degree, offset, pose, 0, 3);
+        poseSequence = sequence;
+    }
+
+    /**
+     * 读取命中帧的姿态
+     * @param referenceSequence lookup 的返回值
+     * @return 参照帧没有推理结果（例如被丢弃或推理失败）时返回 false，并清空参照帧
+     */
+    public synchronized boolean fetch(long referenceSequence, float[] degree, int offset) {
+        if (poseSequence != referenceSequence || Float.isNaN(pose[0])) {
+            fetchFailures++;
+            if (this.referenceSequence == referenceSequence) {
+                hasReference = false;
+            }
+            return false;
+        }
+        System.arraycopy(pose, 0, degree, offset, 3);
+        return true;
+    }
+
+    /**
+     * 清空参照帧，例如人脸丢失时
+     */
+    public synchronized void reset() {
+        hasReference = false;
+    }
+
+    /**
+     * 命中（跳过推理）的次数
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * 区域变化或没有参照帧而推理的次数
+     */
+    public synchronized long getChangedMissCount() {
+        return changedMisses;
+    }
+
+    /**
+     * 参照帧过期而强制推理的次数
+     */
+    public synchronized long getStaleMissCount() {
+        return staleMisses;
+    }
+
+    /**
+     * 命中但参照帧没有推理结果、只能丢弃的次数
+     */
+    public synchronized long getFetchFailureCount() {
+        return fetchFailures;
+    }
+
+    /**
+     * 命中率（%），还没有判定过时为 0
+     */
+    public synchronized float getHitRate() {
+        long total = hits + changedMisses + staleMisses;
+        return total == 0 ? 0 : hits * 100f / total;
+    }
+
+    /**
+     * 缓存引入的平均测地角误差（度），按强制推理的帧统计
+     */
+    public synchronized float getMeanError() {
+        return errorSamples == 0 ? 0 : (float) (errorSum / errorSamples);
+    }
+
+    public synchronized float getMaxError() {
+        return errorMax;
+    }
+
+    public synchronized long getErrorSampleCount() {
+        return errorSamples;
+    }
+
+    // 中心与边长的漂移之和，相对参照框宽
+    private float drift(int left, int top, int right, int bottom) {
+        float width = Math.max(1, referenceRight - referenceLeft);
+        float centerX = Math.abs((left + right) - (referenceLeft + referenceRight)) * 0.5f;
+        float centerY = Math.abs((top + bottom) - (referenceTop + referenceBottom)) * 0.5f;
+        float size = Math.abs((right - left) - (referenceRight - referenceLeft))
+                + Math.abs((bottom - top) - (referenceBottom - referenceTop));
+        return (centerX + centerY + size) / width;
+    }
+
+    private static float difference(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum / a.length;
+    }
+
+    /**
+     * 人脸框内的亮度缩略图（超出画面的采样点取边缘值），去均值后写入 dst
+     */
+    static void thumbnail(YuvFrame frame, boolean mirror, int left, int top, int right, int bottom, float[] dst) {
+        int maxX = frame.width - 1;
+        int maxY = frame.height - 1;
+        float width = Math.max(1, right - left);
+        float height = Math.max(1, bottom - top);
+        int samples = THUMBNAIL_SIZE * CELL_SAMPLES;
+        float sum = 0;
+        for (int cy = 0; cy < THUMBNAIL_SIZE; cy++) {
+            for (int cx = 0; cx < THUMBNAIL_SIZE; cx++) {
+                int cell = 0;
+                for (int sy = 0; sy < CELL_SAMPLES; sy++) {
+                    int y = top + (int) ((cy * CELL_SAMPLES + sy + 0.5f) * height / samples);
+                    int rowOffset = Math.min(Math.max(y, 0), maxY) * frame.yRowStride;
+                    for (int sx = 0; sx < CELL_SAMPLES; sx++) {
+                        int x = left + (int) ((cx * CELL_SAMPLES + sx + 0.5f) * width / samples);
+                        x = Math.min(Math.max(x, 0), maxX);
+                        cell += frame.y[rowOffset + (mirror ? maxX - x : x)] & 0xFF;
+                    }
+                }
+                float value = cell / (float) (CELL_SAMPLES * CELL_SAMPLES);
+                dst[cy * THUMBNAIL_SIZE + cx] = value;
+                sum += value;
+            }
+        }
+        float mean = sum / dst.length;
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] -= mean;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.headpose;
+
+/**
+ * 头姿估计推理后端接口（纯 Java）。
+ * 预处理与推理分开调用，可以放在流水线的不同阶段（不同线程）上执行；
+ * 每个后端自行解码模型输出（旋转矩阵或欧拉角），统一输出 yaw, pitch, roll（度）。
+ */
+public interface PoseEstimator {
+
+    /**
+     * 模型输入边长
+     */
+    int getInputSize();
+
+    /**
+     * 单次 forward 的最大人脸数，更大的批由 infer 拆分
+     */
+    int getMaxBatchSize();
+
+    void setMaxBatchSize(int maxBatchSize);
+
+    /**
+     * 把一张人脸采样到池中的输入缓冲区
+     * @return 输入缓冲区，由调用者 release；人脸框与画面无交集时返回 null
+     */
+    Pooled<? extends PoseInput> preprocess(YuvFrame frame, int left, int top, int right, int bottom, boolean mirror);
+
+    /**
+     * 把 boxes 中从第 first 个开始的 count 个人脸框（每 4 个值为 left, top, right, bottom）采样到一个批量输入缓冲区，
+     * count 最多为 BatchPoseEstimator.MAX_BATCH，可以超过 getMaxBatchSize()
+     * @return 输入缓冲区，由调用者 release
+     */
+    Pooled<? extends PoseInput> preprocessBatch(YuvFrame frame, int[] boxes, int first, int count, boolean mirror);
+
+    /**
+     * 推理 input.count 张脸，结果写入 degrees（每 3 个值为 yaw, pitch, roll），预处理失败的人脸写入 NaN
+     */
+    void infer(PoseInput input, float[] degrees);
+
+    /**
+     * 泄漏检测：报告借出超过 maxAge 次仍未归还的输入缓冲区
+     */
+    int checkLeaks(long maxAge, ObjectPool.LeakListener listener);
+
+    /**
+     * 释放模型资源
+     */
+    default void close() {
+    }
+}
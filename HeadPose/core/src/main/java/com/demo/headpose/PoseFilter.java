@@ -0,0 +1,143 @@
+package com.demo.headpose;
+
+/**
+ * 头姿数据的匀速卡尔曼滤波（纯 Java，不分配内存，非线程安全）。
+ * 对 sendData 的 7 个量（yaw, pitch, roll 与双眼坐标）分别维护 [位置, 速度] 两维状态，
+ * update 融合一次测量，predict 按匀速模型外推到任意时刻而不改变状态。
+ * 过程噪声为连续白噪声加速度模型：Q = q·[dt³/3, dt²/2; dt²/2, dt]。
+ */
+public class PoseFilter {
+
+    public static final int CHANNELS = PoseRecord.VALUE_COUNT;
+
+    // 默认噪声：角度以度为单位，眼睛坐标以像素为单位
+    public static final float DEFAULT_ANGLE_PROCESS_NOISE = 5_000f;
+    public static final float DEFAULT_ANGLE_MEASUREMENT_NOISE = 4f;
+    public static final float DEFAULT_POINT_PROCESS_NOISE = 20_000f;
+    public static final float DEFAULT_POINT_MEASUREMENT_NOISE = 4f;
+
+    // 两次测量间隔超过该值（例如人脸丢失后重新出现）时重新初始化，不沿用旧速度
+    private static final long RESET_GAP_NANOS = 500_000_000L;
+
+    private final double[] processNoise = new double[CHANNELS];
+    private final double[] measurementNoise = new double[CHANNELS];
+
+    // 每个通道的状态与协方差 [p00 p01; p01 p11]
+    private final double[] position = new double[CHANNELS];
+    private final double[] velocity = new double[CHANNELS];
+    private final double[] p00 = new double[CHANNELS];
+    private final double[] p01 = new double[CHANNELS];
+    private final double[] p11 = new double[CHANNELS];
+
+    private long lastTimeNanos;
+    private boolean initialized;
+
+    public PoseFilter() {
+        this(DEFAULT_ANGLE_PROCESS_NOISE, DEFAULT_ANGLE_MEASUREMENT_NOISE,
+                DEFAULT_POINT_PROCESS_NOISE, DEFAULT_POINT_MEASUREMENT_NOISE);
+    }
+
+    /**
+     * @param angleProcessNoise     角度的加速度噪声谱密度（度²/s³），越大跟随越快、平滑越弱
+     * @param angleMeasurementNoise 角度测量方差（度²）
+     * @param pointProcessNoise     眼睛坐标的加速度噪声谱密度（像素²/s³）
+     * @param pointMeasurementNoise 眼睛坐标测量方差（像素²）
+     */
+    public PoseFilter(float angleProcessNoise, float angleMeasurementNoise,
+                      float pointProcessNoise, float pointMeasurementNoise) {
+        for (int i = 0; i < CHANNELS; i++) {
+            boolean angle = i < 3;
+            processNoise[i] = angle ? angleProcessNoise : pointProcessNoise;
+            measurementNoise[i] = angle ? angleMeasurementNoise : pointMeasurementNoise;
+        }
+    }
+
+    /**
+     * 融合一次测量
+     * @param timeNanos 测量时刻，需单调递增
+     */
+    public void update(long timeNanos, float yaw, float pitch, float roll, float lx, float ly, float rx, float ry) {
+        if (!initialized || timeNanos - lastTimeNanos > RESET_GAP_NANOS || timeNanos < lastTimeNanos) {
+            reset(timeNanos, yaw, pitch, roll, lx, ly, rx, ry);
+            return;
+        }
+        double dt = (timeNanos - lastTimeNanos) * 1e-9;
+        lastTimeNanos = timeNanos;
+        correct(0, dt, yaw);
+        correct(1, dt, pitch);
+        correct(2, dt, roll);
+        correct(3, dt, lx);
+        correct(4, dt, ly);
+        correct(5, dt, rx);
+        correct(6, dt, ry);
+    }
+
+    /**
+     * 外推到 timeNanos 时刻，结果写入 out（长度至少为 CHANNELS），不改变滤波状态
+     * @return 还没有任何测量时返回 false
+     */
+    public boolean predict(long timeNanos, float[] out) {
+        if (!initialized) {
+            return false;
+        }
+        double dt = (timeNanos - lastTimeNanos) * 1e-9;
+        for (int i = 0; i < CHANNELS; i++) {
+            out[i] = (float) (position[i] + velocity[i] * dt);
+        }
+        return true;
+    }
+
+    /**
+     * 当前速度估计（单位 / 秒）
+     */
+    public float getVelocity(int channel) {
+        return (float) velocity[channel];
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    private void reset(long timeNanos, float yaw, float pitch, float roll, float lx, float ly, float rx, float ry) {
+        lastTimeNanos = timeNanos;
+        position[0] = yaw;
+        position[1] = pitch;
+        position[2] = roll;
+        position[3] = lx;
+        position[4] = ly;
+        position[5] = rx;
+        position[6] = ry;
+        for (int i = 0; i < CHANNELS; i++) {
+            velocity[i] = 0;
+            // 位置取测量方差，速度初始不确定性取较大值，让前几帧快速收敛
+            p00[i] = measurementNoise[i];
+            p01[i] = 0;
+            p11[i] = measurementNoise[i] * 1e4;
+        }
+        initialized = true;
+    }
+
+    /**
+     * 单个通道的预测 + 校正（测量矩阵 H = [1 0]）
+     */
+    private void correct(int i, double dt, float measured) {
+        // 预测：x = F x，P = F P Fᵀ + Q
+        double q = processNoise[i];
+        double dt2 = dt * dt;
+        double x = position[i] + velocity[i] * dt;
+        double a = p00[i] + dt * (2 * p01[i] + dt * p11[i]) + q * dt2 * dt / 3;
+        double b = p01[i] + dt * p11[i] + q * dt2 / 2;
+        double c = p11[i] + q * dt;
+
+        // 校正：K = P Hᵀ / (H P Hᵀ + R)
+        double innovation = measured - x;
+        double s = a + measurementNoise[i];
+        double k0 = a / s;
+        double k1 = b / s;
+        position[i] = x + k0 * innovation;
+        velocity[i] += k1 * innovation;
+        p00[i] = (1 - k0) * a;
+        p01[i] = (1 - k0) * b;
+        p11[i] = c - k1 * b;
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.headpose;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 模型输入缓冲区（纯 Java）：batchSize 张 3×inputSize×inputSize 的人脸图像，直接内存、本机字节序。
+ * 各推理后端在子类中一次性包装成自己的张量类型，放在 ObjectPool 中复用。
+ * 一次预处理 / 推理调用的临时数据也放在输入缓冲区中，后端本身不保存每次调用的状态，可以多线程并发调用。
+ */
+public class PoseInput {
+
+    public final int batchSize;
+    public final int inputSize;
+    public final FloatBuffer buffer;
+
+    // 本次填充的样本数（其余为补齐到档位的空位）及每个样本是否预处理成功
+    public int count;
+    public final boolean[] valid;
+    // 预处理的列采样表
+    public final RoiPreprocessor.Columns columns;
+    // 超过 maxBatchSize 的批拆分推理时，本段的输出
+    public final float[] degrees;
+
+    public PoseInput(int batchSize, int inputSize) {
+        this.batchSize = batchSize;
+        this.inputSize = inputSize;
+        buffer = ByteBuffer.allocateDirect(batchSize * 3 * inputSize * inputSize * 4)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        valid = new boolean[batchSize];
+        columns = new RoiPreprocessor.Columns(inputSize);
+        degrees = new float[batchSize * 3];
+    }
+
+    /**
+     * 单个样本占用的 float 数
+     */
+    public int sampleSize() {
+        return 3 * inputSize * inputSize;
+    }
+}
@@ -0,0 +1,190 @@
+package com.demo.headpose;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 读取 PoseLogWriter 写出的会话日志（纯 Java）：打开时只读映射目录中的全部分段，
+ * 按全局下标随机读取、按时间范围二分查找，或用 Cursor 顺序遍历，读取时不分配内存。
+ * <p>
+ * 每个分段的有效记录数在打开时确定：记录按顺序写入，因此二分查找第一个 marker 未提交的位置，
+ * 崩溃时写了一半的最后一条记录被忽略。打开之后追加的记录不可见。
+ * 按时间查找要求时间戳不减（同一会话中相机时间戳单调递增）。
+ */
+public class PoseLogReader {
+
+    private final ByteBuffer[] segments;
+    // starts[i] 为第 i 个分段第一条记录的全局下标，starts[segments.length] 为总数
+    private final long[] starts;
+
+    public PoseLogReader(File directory) throws IOException {
+        File[] files = PoseLogWriter.listSegments(directory);
+        segments = new ByteBuffer[files.length];
+        starts = new long[files.length + 1];
+        for (int i = 0; i < files.length; i++) {
+            segments[i] = map(files[i]);
+            starts[i + 1] = starts[i] + committedCount(segments[i]);
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < PoseLogWriter.SEGMENT_HEADER_SIZE
+                || buffer.getInt(0) != PoseLogWriter.SEGMENT_MAGIC
+                || buffer.getInt(4) != PoseLogWriter.VERSION
+                || buffer.getInt(8) != PoseLogWriter.SEGMENT_HEADER_SIZE
+                || buffer.getInt(12) != PoseLogRecord.SIZE) {
+            throw new IOException("Not a pose log segment: " + file);
+        }
+        return buffer;
+    }
+
+    // 已提交记录是分段开头连续的一段
+    private static int committedCount(ByteBuffer segment) {
+        int capacity = Math.min(segment.getInt(20),
+                (segment.limit() - PoseLogWriter.SEGMENT_HEADER_SIZE) / PoseLogRecord.SIZE);
+        int low = 0;
+        int high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (PoseLogRecord.isCommitted(segment, offset(mid))) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int offset(int index) {
+        return PoseLogWriter.SEGMENT_HEADER_SIZE + index * PoseLogRecord.SIZE;
+    }
+
+    /**
+     * 记录总数
+     */
+    public long size() {
+        return starts[segments.length];
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * 读取全局下标为 index 的记录到 out
+     */
+    public void read(long index, PoseLogRecord out) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + size());
+        }
+        int segment = segmentOf(index);
+        out.read(segments[segment], offset((int) (index - starts[segment])));
+    }
+
+    /**
+     * 第一条时间戳不小于 timestampNanos 的记录下标，都更早时返回 size()
+     */
+    public long lowerBound(long timestampNanos) {
+        long low = 0;
+        long high = size();
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestampAt(mid) < timestampNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 顺序遍历全部记录
+     */
+    public Cursor cursor() {
+        return new Cursor(0, size());
+    }
+
+    /**
+     * 顺序遍历时间戳位于 [fromNanos, toNanos) 的记录
+     */
+    public Cursor cursor(long fromNanos, long toNanos) {
+        long start = lowerBound(fromNanos);
+        return new Cursor(start, Math.max(start, lowerBound(toNanos)));
+    }
+
+    private long timestampAt(long index) {
+        int segment = segmentOf(index);
+        return segments[segment].getLong(offset((int) (index - starts[segment])) + PoseLogRecord.TIMESTAMP_OFFSET);
+    }
+
+    // 包含 index 的分段：starts[segment] <= index < starts[segment + 1]
+    private int segmentOf(long index) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 顺序读取 [start, end) 范围内的记录，跨分段时不重新查找
+     */
+    public final class Cursor {
+
+        private final long end;
+        private long index;
+        private int segment;
+
+        private Cursor(long start, long end) {
+            this.index = start;
+            this.end = end;
+            this.segment = start < size() ? segmentOf(start) : 0;
+        }
+
+        /**
+         * 读取下一条记录到 out
+         * @return 已经没有记录时返回 false
+         */
+        public boolean next(PoseLogRecord out) {
+            if (index >= end) {
+                return false;
+            }
+            while (index >= starts[segment + 1]) {
+                segment++; // 跳过空分段
+            }
+            out.read(segments[segment], offset((int) (index - starts[segment])));
+            index++;
+            return true;
+        }
+
+        /**
+         * 下一条记录的全局下标
+         */
+        public long position() {
+            return index;
+        }
+
+        /**
+         * 剩余记录数
+         */
+        public long remaining() {
+            return end - index;
+        }
+    }
+}
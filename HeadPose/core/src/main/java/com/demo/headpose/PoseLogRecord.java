@@ -0,0 +1,135 @@
+package com.demo.headpose;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 姿态会话日志中的一条记录（纯 Java，可复用），由 PoseLogWriter 写入、PoseLogReader 读出。
+ * <p>
+ * 固定 96 字节，小端序：
+ * <pre>
+ * 0   int   marker（写完整条记录后才写入 COMMITTED，为 0 表示该位置还没有记录）
+ * 4   int   flags（FLAG_TRACKED）
+ * 8   long  sequence
+ * 16  long  timestampNanos（相机采集时间戳）
+ * 24  float yaw, pitch, roll, lx, ly, rx, ry
+ * 52  int   faceLeft, faceTop, faceRight, faceBottom（镜像后画面坐标）
+ * 68  int   各阶段耗时（微秒），顺序见 STAGE_*
+ * 92  int   faceCount
+ * </pre>
+ */
+public final class PoseLogRecord {
+
+    public static final int SIZE = 96;
+    public static final int COMMITTED = 0x4C505048; // "HPPL"
+
+    // 人脸框来自跟踪而不是完整检测
+    public static final int FLAG_TRACKED = 1;
+
+    // stageMicros 的下标
+    public static final int STAGE_FRAME_COPY = 0;
+    public static final int STAGE_DETECT = 1;
+    public static final int STAGE_PREPROCESS = 2;
+    public static final int STAGE_INFER = 3;
+    public static final int STAGE_RENDER = 4;
+    public static final int STAGE_END_TO_END = 5;
+    public static final int STAGE_COUNT = 6;
+
+    private static final int MARKER_OFFSET = 0;
+    private static final int FLAGS_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    static final int TIMESTAMP_OFFSET = 16;
+    private static final int VALUES_OFFSET = 24;
+    private static final int BOX_OFFSET = 52;
+    private static final int STAGES_OFFSET = 68;
+    private static final int FACE_COUNT_OFFSET = 92;
+
+    public int flags;
+    public long sequence;
+    public long timestampNanos;
+    public final float[] values = new float[PoseRecord.VALUE_COUNT];
+    public int faceLeft;
+    public int faceTop;
+    public int faceRight;
+    public int faceBottom;
+    public final int[] stageMicros = new int[STAGE_COUNT];
+    public int faceCount;
+
+    public void set(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                    float lx, float ly, float rx, float ry) {
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+        values[0] = yaw;
+        values[1] = pitch;
+        values[2] = roll;
+        values[3] = lx;
+        values[4] = ly;
+        values[5] = rx;
+        values[6] = ry;
+    }
+
+    public void setFace(int left, int top, int right, int bottom, int faceCount, boolean tracked) {
+        faceLeft = left;
+        faceTop = top;
+        faceRight = right;
+        faceBottom = bottom;
+        this.faceCount = faceCount;
+        flags = tracked ? FLAG_TRACKED : 0;
+    }
+
+    /**
+     * 纳秒耗时转为微秒，超出 int 范围时截断
+     */
+    public void setStageNanos(int stage, long nanos) {
+        stageMicros[stage] = (int) Math.min(Integer.MAX_VALUE, Math.max(0, nanos / 1000));
+    }
+
+    public boolean isTracked() {
+        return (flags & FLAG_TRACKED) != 0;
+    }
+
+    /**
+     * 用绝对位置写入 dst[offset..offset+SIZE)（dst 需为小端序），marker 最后写入。
+     * 进程在写入过程中退出时，未写完的记录 marker 仍为 0，读取时被忽略
+     */
+    void write(ByteBuffer dst, int offset) {
+        dst.putInt(offset + FLAGS_OFFSET, flags);
+        dst.putLong(offset + SEQUENCE_OFFSET, sequence);
+        dst.putLong(offset + TIMESTAMP_OFFSET, timestampNanos);
+        for (int i = 0; i < PoseRecord.VALUE_COUNT; i++) {
+            dst.putFloat(offset + VALUES_OFFSET + i * 4, values[i]);
+        }
+        dst.putInt(offset + BOX_OFFSET, faceLeft);
+        dst.putInt(offset + BOX_OFFSET + 4, faceTop);
+        dst.putInt(offset + BOX_OFFSET + 8, faceRight);
+        dst.putInt(offset + BOX_OFFSET + 12, faceBottom);
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            dst.putInt(offset + STAGES_OFFSET + i * 4, stageMicros[i]);
+        }
+        dst.putInt(offset + FACE_COUNT_OFFSET, faceCount);
+        dst.putInt(offset + MARKER_OFFSET, COMMITTED);
+    }
+
+    /**
+     * 从 src[offset..offset+SIZE) 读取（src 需为小端序）
+     */
+    void read(ByteBuffer src, int offset) {
+        flags = src.getInt(offset + FLAGS_OFFSET);
+        sequence = src.getLong(offset + SEQUENCE_OFFSET);
+        timestampNanos = src.getLong(offset + TIMESTAMP_OFFSET);
+        for (int i = 0; i < PoseRecord.VALUE_COUNT; i++) {
+            values[i] = src.getFloat(offset + VALUES_OFFSET + i * 4);
+        }
+        faceLeft = src.getInt(offset + BOX_OFFSET);
+        faceTop = src.getInt(offset + BOX_OFFSET + 4);
+        faceRight = src.getInt(offset + BOX_OFFSET + 8);
+        faceBottom = src.getInt(offset + BOX_OFFSET + 12);
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stageMicros[i] = src.getInt(offset + STAGES_OFFSET + i * 4);
+        }
+        faceCount = src.getInt(offset + FACE_COUNT_OFFSET);
+    }
+
+    static boolean isCommitted(ByteBuffer src, int offset) {
+        return src.getInt(offset + MARKER_OFFSET) == COMMITTED;
+    }
+}
@@ -0,0 +1,163 @@
+package com.demo.headpose;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 只追加的姿态会话日志（纯 Java）：定长 PoseLogRecord 依次写入内存映射的分段文件。
+ * <p>
+ * 每个分段预先映射为 segmentRecords 条记录（稀疏文件，不预先填零），追加一条记录只是对映射内存的几次写入，
+ * 不调用系统调用、不分配内存；写满后才关闭当前分段并映射下一个（每 segmentRecords 条一次）。
+ * 数据由内核回写，应用崩溃不会丢失已追加的记录；只有掉电前未回写的部分会丢失，可调用 flush 强制落盘。
+ * <p>
+ * 目录中的分段依次命名为 poses-000000.log、poses-000001.log……，已有分段时从下一个编号继续。
+ * 分段头 64 字节（小端序）：[magic "HPPS", version, 分段头长度, 记录长度, 分段编号, 容量（条）, 创建时间 (ms, long)]。
+ * 只能在一个线程上追加。
+ */
+public class PoseLogWriter implements Closeable {
+
+    public static final int SEGMENT_MAGIC = 0x53505048; // "HPPS"
+    public static final int VERSION = 1;
+    public static final int SEGMENT_HEADER_SIZE = 64;
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16; // 约 6 MB，30 fps 下约 36 分钟
+
+    static final String SEGMENT_PREFIX = "poses-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private final File directory;
+    private final int segmentRecords;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position;  // 当前分段中的下一条记录
+    private long appended;
+    private long segmentCount;
+
+    public PoseLogWriter(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * @param segmentRecords 每个分段的记录数
+     */
+    public PoseLogWriter(File directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0 || SEGMENT_HEADER_SIZE + (long) segmentRecords * PoseLogRecord.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad segment size: " + segmentRecords);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        File[] existing = listSegments(directory);
+        segmentIndex = existing.length == 0 ? 0 : segmentIndex(existing[existing.length - 1]) + 1;
+        openSegment();
+    }
+
+    /**
+     * 追加一条记录（只在一个线程上调用）。映射下一个分段失败时抛出 UncheckedIOException
+     */
+    public void append(PoseLogRecord record) {
+        if (position == segmentRecords) {
+            try {
+                segmentIndex++;
+                openSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        record.write(segment, SEGMENT_HEADER_SIZE + position * PoseLogRecord.SIZE);
+        position++;
+        appended++;
+    }
+
+    /**
+     * 把当前分段强制写回存储（例如会话结束时），追加线程之外调用时可能错过正在写入的记录
+     */
+    public void flush() {
+        segment.force();
+    }
+
+    /**
+     * 已追加的记录数
+     */
+    public long getAppendedCount() {
+        return appended;
+    }
+
+    /**
+     * 本次打开以来创建的分段数
+     */
+    public long getSegmentCount() {
+        return segmentCount;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 落盘并放开当前分段（映射在被回收时解除）
+     */
+    @Override
+    public void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    private void openSegment() throws IOException {
+        File file = new File(directory, segmentName(segmentIndex));
+        long size = SEGMENT_HEADER_SIZE + (long) segmentRecords * PoseLogRecord.SIZE;
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射超出文件长度时文件被扩展为稀疏文件
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        mapped.putInt(0, SEGMENT_MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(8, SEGMENT_HEADER_SIZE);
+        mapped.putInt(12, PoseLogRecord.SIZE);
+        mapped.putInt(16, segmentIndex);
+        mapped.putInt(20, segmentRecords);
+        mapped.putLong(24, System.currentTimeMillis());
+        // 上一个分段交给内核回写，不在追加线程上 force
+        segment = mapped;
+        position = 0;
+        segmentCount++;
+    }
+
+    static String segmentName(int index) {
+        return String.format(Locale.ROOT, "%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    static int segmentIndex(File file) {
+        String name = file.getName();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 目录中的分段文件，按编号排序
+     */
+    static File[] listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+                && name.endsWith(SEGMENT_SUFFIX)
+                && name.length() == SEGMENT_PREFIX.length() + 6 + SEGMENT_SUFFIX.length());
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, (a, b) -> Integer.compare(segmentIndex(a), segmentIndex(b)));
+        return files;
+    }
+}
@@ -0,0 +1,22 @@
+package com.demo.headpose;
+
+/**
+ * 单生产者、单消费者的头姿数据交接（纯 Java，无锁，不分配内存）。
+ * offer 只能在一个线程上调用，poll 只能在另一个线程上调用。
+ */
+public interface PoseQueue {
+
+    /**
+     * 生产者写入一条记录。记录必须以 volatile 写（或更强的原子操作）发布：
+     * PoseStreamWriter 在 offer 之后读取 volatile 的 waiting 标志决定是否唤醒写线程，只有 release 语义的写可能被重排到这次读之后
+     * @return 因队列已满而丢弃时返回 false
+     */
+    boolean offer(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                  float lx, float ly, float rx, float ry);
+
+    /**
+     * 消费者取出下一条记录，拷贝到 out
+     * @return 没有新记录时返回 false
+     */
+    boolean poll(PoseRecord out);
+}
@@ -0,0 +1,91 @@
+package com.demo.headpose;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 一条头姿数据（纯 Java，可复用）：帧序号、采集时间戳与 sendData 的 7 个浮点数。
+ * <p>
+ * 二进制格式固定 44 字节，小端序：
+ * <pre>
+ * 0   long  sequence
+ * 8   long  timestampNanos
+ * 16  float yaw, pitch, roll, lx, ly, rx, ry
+ * </pre>
+ * 文本格式与原协议相同："yaw pitch roll lx ly rx ry\n"，保留两位小数，不含序号与时间戳。
+ */
+public final class PoseRecord {
+
+    public static final int VALUE_COUNT = 7;
+    public static final int BINARY_SIZE = 8 + 8 + VALUE_COUNT * 4;
+    // 文本行的最大长度（每个值最多 "-Infinity" 或 20 位整数 + 小数）
+    public static final int MAX_TEXT_SIZE = VALUE_COUNT * 24;
+
+    public long sequence;
+    public long timestampNanos;
+    public final float[] values = new float[VALUE_COUNT];
+
+    public void set(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                    float lx, float ly, float rx, float ry) {
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+        values[0] = yaw;
+        values[1] = pitch;
+        values[2] = roll;
+        values[3] = lx;
+        values[4] = ly;
+        values[5] = rx;
+        values[6] = ry;
+    }
+
+    public void copyFrom(PoseRecord other) {
+        sequence = other.sequence;
+        timestampNanos = other.timestampNanos;
+        System.arraycopy(other.values, 0, values, 0, VALUE_COUNT);
+    }
+
+    /**
+     * 按小端序写入 dst 的当前位置（不改变 dst 的字节序设置）
+     */
+    public void writeBinary(ByteBuffer dst) {
+        ByteOrder order = dst.order();
+        dst.order(ByteOrder.LITTLE_ENDIAN);
+        dst.putLong(sequence);
+        dst.putLong(timestampNanos);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            dst.putFloat(values[i]);
+        }
+        dst.order(order);
+    }
+
+    /**
+     * 从 src 的当前位置读取一条小端序记录
+     */
+    public void readBinary(ByteBuffer src) {
+        ByteOrder order = src.order();
+        src.order(ByteOrder.LITTLE_ENDIAN);
+        sequence = src.getLong();
+        timestampNanos = src.getLong();
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = src.getFloat();
+        }
+        src.order(order);
+    }
+
+    /**
+     * 写入一行文本（ASCII），scratch 长度至少为 MAX_TEXT_SIZE
+     */
+    public void writeText(ByteBuffer dst, char[] scratch) {
+        int length = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            if (i > 0) {
+                scratch[length++] = ' ';
+            }
+            length = FixedPointFormat.append(scratch, length, values[i], 2);
+        }
+        scratch[length++] = '\n';
+        for (int i = 0; i < length; i++) {
+            dst.put((byte) scratch[i]);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.demo.headpose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 头姿 TCP 流（SocketManager / PoseBroadcastServer）的 Java 客户端（纯 Java，可直接用在机器人控制器上）。
+ * <p>
+ * 从 socket 读入一个复用的 direct ByteBuffer，按线路格式切分消息：一次读取可能只有半条消息，
+ * 也可能有好几条；缓冲区里的完整消息逐条解出，只有剩下不足一条时才把这部分移到开头再读。
+ * 每条消息解码到调用者的 PoseRecord（next）或客户端自己的 PoseRecord 后回调 Listener（start），
+ * 连上之后不再分配内存。
+ * 连接失败或断开时自动重连，间隔从 initialBackoff 起每次翻倍，最长 maxBackoff，连上后重置。
+ * <p>
+ * TEXT 格式不含序号与时间戳：sequence 为本客户端收到的第几条（从 1 开始），
+ * timestampNanos 为收到该消息时的 System.nanoTime()。
+ */
+public class PoseStreamClient implements Closeable {
+
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+
+    // 读缓冲能放下若干条最长的消息
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * 回调在读线程上调用；pose 在回调返回后会被下一条消息覆盖，需要保留时请拷贝
+     */
+    public interface Listener {
+        void onPose(PoseRecord pose);
+
+        default void onConnected(InetSocketAddress server) {
+        }
+
+        /**
+         * 连接断开或连接失败，之后按退避间隔重连
+         */
+        default void onDisconnected(IOException cause) {
+        }
+    }
+
+    private final InetSocketAddress server;
+    private final PoseStreamWriter.Format format;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    // 读模式：position 到 limit 之间是尚未解码的字节
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private Listener listener = new Listener() {
+        @Override
+        public void onPose(PoseRecord pose) {
+        }
+    };
+    private volatile SocketChannel channel;
+    private long backoffNanos;
+    private long textSequence;
+
+    private volatile boolean closed;
+    private volatile Thread reader;
+    private Thread thread;
+
+    private volatile long received;
+    private volatile long malformed;
+    private volatile long connects;
+
+    public PoseStreamClient(InetSocketAddress server, PoseStreamWriter.Format format) {
+        this(server, format, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public PoseStreamClient(InetSocketAddress server, PoseStreamWriter.Format format,
+                            long initialBackoffMillis, long maxBackoffMillis) {
+        this.server = server;
+        this.format = format;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(initialBackoffMillis);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(initialBackoffMillis, maxBackoffMillis));
+        backoffNanos = initialBackoffNanos;
+        buffer.limit(0);
+    }
+
+    /**
+     * 阻塞直到收到下一条消息并解码到 out，需要时先（重新）连接。只能在一个线程上调用
+     * @return 客户端已关闭时返回 false
+     */
+    public boolean next(PoseRecord out) {
+        reader = Thread.currentThread();
+        while (!closed) {
+            boolean decoded = format == PoseStreamWriter.Format.BINARY ? decodeBinary(out) : decodeText(out);
+            if (decoded) {
+                received++;
+                return true;
+            }
+            if (channel == null && !connect()) {
+                continue;
+            }
+            buffer.compact();
+            try {
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+            } catch (IOException e) {
+                disconnect(e);
+            }
+        }
+        if (channel != null) {
+            disconnect(null); // close() 与 connect() 交错时留下的连接
+        }
+        return false;
+    }
+
+    /**
+     * 在后台线程 "pose-client" 上循环读取，每条消息回调一次 listener
+     */
+    public void start(Listener listener) {
+        this.listener = listener;
+        PoseRecord pose = new PoseRecord();
+        thread = new Thread(() -> {
+            while (next(pose)) {
+                listener.onPose(pose);
+            }
+        }, "pose-client");
+        thread.start();
+    }
+
+    /**
+     * 关闭连接并停止重连；后台线程在此返回前退出
+     */
+    @Override
+    public void close() {
+        closed = true;
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close(); // 阻塞中的 read 抛出 AsynchronousCloseException
+            } catch (IOException ignored) {
+            }
+        }
+        Thread waiting = reader;
+        if (waiting != null) {
+            LockSupport.unpark(waiting); // 打断退避等待
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isConnected() {
+        return channel != null;
+    }
+
+    /**
+     * 已解码的消息数
+     */
+    public long getReceivedCount() {
+        return received;
+    }
+
+    /**
+     * 无法解析而跳过的文本行数
+     */
+    public long getMalformedCount() {
+        return malformed;
+    }
+
+    /**
+     * 成功建立连接的次数（大于 1 说明发生过重连）
+     */
+    public long getConnectCount() {
+        return connects;
+    }
+
+    private boolean connect() {
+        try {
+            SocketChannel opened = SocketChannel.open();
+            try {
+                opened.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                opened.connect(server);
+            } catch (IOException e) {
+                opened.close();
+                throw e;
+            }
+            if (closed) {
+                opened.close();
+                return false;
+            }
+            channel = opened;
+            buffer.limit(0);
+            backoffNanos = initialBackoffNanos;
+            connects++;
+            listener.onConnected(server);
+            return true;
+        } catch (IOException e) {
+            listener.onDisconnected(e);
+            backOff();
+            return false;
+        }
+    }
+
+    private void disconnect(IOException cause) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+        buffer.limit(0); // 丢掉半条消息
+        if (!closed) {
+            listener.onDisconnected(cause);
+            backOff();
+        }
+    }
+
+    private void backOff() {
+        long deadline = System.nanoTime() + backoffNanos;
+        long remaining;
+        while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+    }
+
+    private boolean decodeBinary(PoseRecord out) {
+        if (buffer.remaining() < PoseRecord.BINARY_SIZE) {
+            return false;
+        }
+        out.readBinary(buffer);
+        return true;
+    }
+
+    // 解析一行 "yaw pitch roll lx ly rx ry\n"；无法解析的行计入 malformed 并跳过
+    private boolean decodeText(PoseRecord out) {
+        while (true) {
+            int start = buffer.position();
+            int end = indexOf(buffer, start, '\n');
+            if (end < 0) {
+                if (buffer.remaining() == buffer.capacity()) {
+                    // 整个缓冲区都没有换行：不是本协议的数据，丢掉
+                    malformed++;
+                    buffer.position(buffer.limit());
+                }
+                return false;
+            }
+            buffer.position(end + 1);
+            if (parseLine(buffer, start, end, out.values)) {
+                out.sequence = ++textSequence;
+                out.timestampNanos = System.nanoTime();
+                return true;
+            }
+            malformed++;
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, char value) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 解析 [start, end) 中以空格分隔的 VALUE_COUNT 个数（行尾可以有 '\r'）
+    private static boolean parseLine(ByteBuffer buffer, int start, int end, float[] values) {
+        int position = start;
+        for (int i = 0; i < PoseRecord.VALUE_COUNT; i++) {
+            while (position < end && buffer.get(position) == ' ') {
+                position++;
+            }
+            int tokenEnd = position;
+            while (tokenEnd < end && buffer.get(tokenEnd) != ' ' && buffer.get(tokenEnd) != '\r') {
+                tokenEnd++;
+            }
+            if (tokenEnd == position) {
+                return false;
+            }
+            float value = parseNumber(buffer, position, tokenEnd);
+            if (value != value && !matches(buffer, position, tokenEnd, "NaN")) {
+                return false;
+            }
+            values[i] = value;
+            position = tokenEnd;
+        }
+        while (position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\r')) {
+            position++;
+        }
+        return position == end;
+    }
+
+    /**
+     * 解析 FixedPointFormat 输出的定点小数（[-]digits[.digits]）以及 NaN / Infinity / -Infinity，
+     * 不创建字符串；无法解析时返回 NaN
+     */
+    private static float parseNumber(ByteBuffer buffer, int start, int end) {
+        boolean negative = buffer.get(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (matches(buffer, position, end, "Infinity")) {
+            return negative ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        }
+        long mantissa = 0;
+        long scale = 1;
+        int digits = 0;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            byte c = buffer.get(position);
+            if (c >= '0' && c <= '9') {
+                if (digits == 18) {
+                    return Float.NaN; // 超出 long 的精度，本协议不会出现
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale *= 10;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return Float.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Float.NaN;
+        }
+        // 分子是精确的整数，一次除法得到最接近的 double
+        double value = (double) mantissa / scale;
+        return (float) (negative ? -value : value);
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
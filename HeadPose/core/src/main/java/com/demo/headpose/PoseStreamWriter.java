@@ -0,0 +1,193 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单写线程的头姿数据发送器（纯 Java）。
+ * 生产者（流水线的发送阶段）通过 publish 把记录放入无锁交接队列后立即返回；
+ * 专用的写线程按顺序取出记录、编码到复用的直接内存缓冲区并写入 Sink，
+ * 因此不会出现多线程交错写同一个流，也不会因为慢客户端而不断创建线程。
+ */
+public class PoseStreamWriter {
+
+    /**
+     * 线路格式
+     */
+    public enum Format {
+        // 固定 44 字节小端序记录，见 PoseRecord
+        BINARY,
+        // 原文本行协议，兼容 socket.py
+        TEXT
+    }
+
+    /**
+     * 输出目标，只在写线程上调用
+     */
+    public interface Sink {
+        /**
+         * 写出 frame 中 position 到 limit 之间的字节；没有接收方时可以直接丢弃
+         */
+        void write(ByteBuffer frame) throws IOException;
+
+        /**
+         * 写失败后调用，由 Sink 决定断开或重连
+         */
+        default void onError(IOException error) {
+        }
+    }
+
+    // 空闲时写线程最长的休眠时间，生产者也会主动唤醒
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final PoseQueue queue;
+    private final Format format;
+    private final Sink sink;
+    private final Thread thread;
+
+    private final PoseRecord record = new PoseRecord();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(
+            Math.max(PoseRecord.BINARY_SIZE, PoseRecord.MAX_TEXT_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+    private final char[] textScratch = new char[PoseRecord.MAX_TEXT_SIZE];
+
+    private volatile boolean running;
+    private volatile boolean waiting;
+    // 每次写出的耗时（可选）
+    private volatile LatencyHistogram writeLatency;
+
+    // 生产者计数（只由生产者线程写，指标线程读取）
+    private volatile long published;
+    private volatile long dropped;
+    // 写线程计数
+    private volatile long written;
+    private volatile long errors;
+
+    /**
+     * @param queue 按顺序交付用 SpscPoseRing，只发最新值用 LatestPoseSlot
+     */
+    public PoseStreamWriter(PoseQueue queue, Format format, Sink sink) {
+        this.queue = queue;
+        this.format = format;
+        this.sink = sink;
+        thread = new Thread(this::run, "pose-writer");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * 停止写线程，队列中剩余的记录会先写完
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 发布一条记录，只能在单个生产者线程上调用，不阻塞、不分配内存
+     * @return 队列已满被丢弃时返回 false
+     */
+    public boolean publish(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                           float lx, float ly, float rx, float ry) {
+        published++;
+        if (!queue.offer(sequence, timestampNanos, yaw, pitch, roll, lx, ly, rx, ry)) {
+            dropped++;
+            return false;
+        }
+        // 与写线程的 waiting = true → poll 配对：两边都是 volatile 写后读，至少一方能看到对方的写入，不会错过唤醒
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (true) {
+            if (queue.poll(record)) {
+                send();
+                continue;
+            }
+            if (!running) {
+                break;
+            }
+            // 先声明要休眠再检查一次队列，避免错过生产者的唤醒
+            waiting = true;
+            if (!queue.poll(record)) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                waiting = false;
+                continue;
+            }
+            waiting = false;
+            send();
+        }
+    }
+
+    private void send() {
+        buffer.clear();
+        if (format == Format.BINARY) {
+            record.writeBinary(buffer);
+        } else {
+            record.writeText(buffer, textScratch);
+        }
+        buffer.flip();
+        LatencyHistogram latency = writeLatency;
+        long start = latency == null ? 0 : System.nanoTime();
+        try {
+            sink.write(buffer);
+            written++;
+            if (latency != null) {
+                latency.recordSince(start);
+            }
+        } catch (IOException e) {
+            errors++;
+            sink.onError(e);
+        }
+    }
+
+    /**
+     * 记录每次 Sink.write 的耗时，传 null 关闭
+     */
+    public void setWriteLatency(LatencyHistogram writeLatency) {
+        this.writeLatency = writeLatency;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * 调用 publish 的次数
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * 队列已满被丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * 交给 Sink 的记录数
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    public long getErrorCount() {
+        return errors;
+    }
+}
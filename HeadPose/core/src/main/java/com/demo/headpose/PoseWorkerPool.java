@@ -0,0 +1,413 @@
+package com.demo.headpose;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多个推理后端实例组成的工作线程池（纯 Java），本身也是一个 PoseEstimator，可以直接交给 PoseProcessor。
+ * <p>
+ * 每个工作线程在自己的线程上创建并独占一个后端实例（例如一个 PyTorch Module），算子内线程数由工厂按 threadsPerWorker 设置。
+ * 预处理在调用线程上用第一个实例完成；infer 把一批人脸拆成最多 workers 份交给工作线程，调用线程等待全部完成，
+ * 多个调用者（多路流）可以同时调用。每个工作线程有自己的任务队列：各份任务轮流放入各队列，
+ * 工作线程先处理自己队列的队首，空闲时从其他队列的队尾窃取，因此某个核较慢（big.LITTLE 的小核）
+ * 或某一批人脸较多时，空闲的核会接手剩余的任务。
+ * <p>
+ * 各实例的输入缓冲区必须可以互换（同一后端类型、同一输入边长）：整批交给一个工作线程时直接用调用者的输入推理，
+ * 拆分时把每份样本拷到该工作线程自己的输入缓冲区。
+ */
+public class PoseWorkerPool implements PoseEstimator {
+
+    /**
+     * 创建一个工作线程的后端实例，在该工作线程上调用
+     */
+    public interface EstimatorFactory {
+        /**
+         * @param threads 该实例的算子内线程数，0 表示由推理库决定
+         */
+        BatchPoseEstimator<?> create(int worker, int threads) throws Exception;
+    }
+
+    // 空闲工作线程最长的休眠时间，提交任务时也会主动唤醒
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Worker[] workers;
+    private final int threadsPerWorker;
+    private final EstimatorFactory factory;
+    private final ObjectPool<Call> calls;
+    // 轮流选择第一份任务的工作线程
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private volatile boolean running;
+
+    /**
+     * @param threadsPerWorker 每个实例的算子内线程数，0 表示由推理库决定
+     */
+    public PoseWorkerPool(int workers, int threadsPerWorker, EstimatorFactory factory) {
+        if (workers < 1 || threadsPerWorker < 0) {
+            throw new IllegalArgumentException("Bad worker pool: " + workers + " x " + threadsPerWorker + " threads");
+        }
+        this.workers = new Worker[workers];
+        this.threadsPerWorker = threadsPerWorker;
+        this.factory = factory;
+        calls = new ObjectPool<>("worker-call", () -> new Call(workers), false);
+    }
+
+    /**
+     * 在各工作线程上并行创建后端实例，全部成功后返回
+     * @throws Exception 任一实例创建失败（已创建的会被释放）
+     */
+    public void start() throws Exception {
+        running = true;
+        CountDownLatch loaded = new CountDownLatch(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i, loaded);
+            workers[i].thread.start();
+        }
+        loaded.await();
+        for (Worker worker : workers) {
+            if (worker.loadError != null) {
+                close();
+                throw worker.loadError;
+            }
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * 第 worker 个工作线程的后端实例（只用于读取配置，不要在其他线程上推理）
+     */
+    public BatchPoseEstimator<?> getEstimator(int worker) {
+        return workers[worker].estimator;
+    }
+
+    /**
+     * 各工作线程执行过的任务数
+     */
+    public long[] getTaskCounts() {
+        long[] counts = new long[workers.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = workers[i].tasks;
+        }
+        return counts;
+    }
+
+    /**
+     * 从其他工作线程的队列窃取的任务数
+     */
+    public long getStealCount() {
+        long steals = 0;
+        for (Worker worker : workers) {
+            steals += worker.steals;
+        }
+        return steals;
+    }
+
+    @Override
+    public int getInputSize() {
+        return workers[0].estimator.getInputSize();
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return workers[0].estimator.getMaxBatchSize();
+    }
+
+    @Override
+    public void setMaxBatchSize(int maxBatchSize) {
+        for (Worker worker : workers) {
+            worker.estimator.setMaxBatchSize(maxBatchSize);
+        }
+    }
+
+    @Override
+    public Pooled<? extends PoseInput> preprocess(YuvFrame frame, int left, int top, int right, int bottom,
+                                                  boolean mirror) {
+        return workers[0].estimator.preprocess(frame, left, top, right, bottom, mirror);
+    }
+
+    @Override
+    public Pooled<? extends PoseInput> preprocessBatch(YuvFrame frame, int[] boxes, int first, int count,
+                                                       boolean mirror) {
+        return workers[0].estimator.preprocessBatch(frame, boxes, first, count, mirror);
+    }
+
+    /**
+     * 把 input 的人脸分给工作线程推理并等待全部完成，可多线程并发调用
+     */
+    @Override
+    public void infer(PoseInput input, float[] degrees) {
+        int count = input.count;
+        if (count == 0) {
+            return;
+        }
+        Pooled<Call> pooled = calls.acquire();
+        Call call = pooled.get();
+        int parts = Math.min(workers.length, count);
+        call.begin(input, degrees, parts);
+        int base = count / parts;
+        int extra = count % parts;
+        int start = nextWorker.getAndIncrement();
+        int first = 0;
+        for (int i = 0; i < parts; i++) {
+            Task task = call.tasks[i];
+            task.first = first;
+            task.count = base + (i < extra ? 1 : 0);
+            first += task.count;
+            dispatch(task, Math.floorMod(start + i, workers.length));
+        }
+        call.await();
+        RuntimeException error = call.error;
+        call.end();
+        pooled.release();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void dispatch(Task task, int index) {
+        Worker target = workers[index];
+        target.push(task);
+        if (target.idle) {
+            LockSupport.unpark(target.thread);
+            return;
+        }
+        // 目标正忙：唤醒一个空闲的工作线程来窃取
+        for (Worker worker : workers) {
+            if (worker.idle) {
+                LockSupport.unpark(worker.thread);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int checkLeaks(long maxAge, ObjectPool.LeakListener listener) {
+        int leaks = calls.checkLeaks(maxAge, listener);
+        for (Worker worker : workers) {
+            if (worker.estimator != null) {
+                leaks += worker.estimator.checkLeaks(maxAge, listener);
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * 停止工作线程并释放各后端实例，调用前应保证没有进行中的 infer
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Worker worker : workers) {
+            if (worker != null) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+        for (Worker worker : workers) {
+            if (worker != null) {
+                try {
+                    worker.thread.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 一次 infer 调用的状态：调用者的输入与输出、尚未完成的任务数和等待的线程，用完归还对象池
+     */
+    private static final class Call {
+        final Task[] tasks;
+        final AtomicInteger remaining = new AtomicInteger();
+        PoseInput input;
+        float[] degrees;
+        volatile Thread caller;
+        volatile RuntimeException error;
+
+        Call(int workers) {
+            tasks = new Task[workers];
+            for (int i = 0; i < workers; i++) {
+                tasks[i] = new Task(this);
+            }
+        }
+
+        void begin(PoseInput input, float[] degrees, int parts) {
+            this.input = input;
+            this.degrees = degrees;
+            this.caller = Thread.currentThread();
+            remaining.set(parts);
+        }
+
+        void await() {
+            while (remaining.get() > 0) {
+                LockSupport.park(this);
+            }
+        }
+
+        // 工作线程完成一份任务
+        void complete(RuntimeException failure) {
+            if (failure != null) {
+                error = failure;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+
+        void end() {
+            input = null;
+            degrees = null;
+            caller = null;
+            error = null;
+        }
+    }
+
+    /**
+     * 一份任务：调用者输入中从 first 开始的 count 张脸
+     */
+    private static final class Task {
+        final Call call;
+        int first;
+        int count;
+
+        Task(Call call) {
+            this.call = call;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final int index;
+        final Thread thread;
+        final CountDownLatch loaded;
+        // 任务队列：自己从队首取，其他工作线程从队尾窃取
+        private final ArrayDeque<Task> queue = new ArrayDeque<>();
+        volatile BatchPoseEstimator<?> estimator;
+        volatile Exception loadError;
+        volatile boolean idle;
+        volatile long tasks;
+        volatile long steals;
+        // 拆分后一份任务的输出（只在本线程上使用）
+        private float[] degrees = new float[0];
+
+        Worker(int index, CountDownLatch loaded) {
+            this.index = index;
+            this.loaded = loaded;
+            thread = new Thread(this, "pose-worker-" + index);
+            thread.setDaemon(true);
+        }
+
+        void push(Task task) {
+            synchronized (queue) {
+                queue.addLast(task);
+            }
+        }
+
+        Task pollFirst() {
+            synchronized (queue) {
+                return queue.pollFirst();
+            }
+        }
+
+        Task pollLast() {
+            synchronized (queue) {
+                return queue.pollLast();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                estimator = factory.create(index, threadsPerWorker);
+            } catch (Exception e) {
+                loadError = e;
+                return;
+            } finally {
+                loaded.countDown();
+            }
+            try {
+                while (running) {
+                    Task task = next();
+                    if (task == null) {
+                        // 先声明空闲再检查一次，避免错过提交者的唤醒
+                        idle = true;
+                        task = next();
+                        if (task == null) {
+                            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                            idle = false;
+                            continue;
+                        }
+                        idle = false;
+                    }
+                    execute(task);
+                }
+            } finally {
+                estimator.close();
+            }
+        }
+
+        private Task next() {
+            Task task = pollFirst();
+            if (task != null) {
+                return task;
+            }
+            for (int i = 1; i < workers.length; i++) {
+                Worker victim = workers[(index + i) % workers.length];
+                if (victim == null) {
+                    continue;
+                }
+                task = victim.pollLast();
+                if (task != null) {
+                    steals++;
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private void execute(Task task) {
+            Call call = task.call;
+            RuntimeException failure = null;
+            try {
+                if (task.count == call.input.count) {
+                    estimator.infer(call.input, call.degrees);
+                } else {
+                    inferPart(call.input, task.first, task.count, call.degrees);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            tasks++;
+            call.complete(failure);
+        }
+
+        // 把调用者输入中的一部分样本拷到自己的输入缓冲区后推理
+        private void inferPart(PoseInput source, int first, int count, float[] out) {
+            Pooled<? extends PoseInput> pooled = estimator.acquireInput(count);
+            try {
+                PoseInput input = pooled.get();
+                int stride = source.sampleSize();
+                FloatBuffer from = source.buffer;
+                FloatBuffer to = input.buffer;
+                int offset = first * stride;
+                for (int i = 0, n = count * stride; i < n; i++) {
+                    to.put(i, from.get(offset + i));
+                }
+                System.arraycopy(source.valid, first, input.valid, 0, count);
+                input.count = count;
+                if (degrees.length < count * 3) {
+                    degrees = new float[count * 3];
+                }
+                estimator.infer(input, degrees);
+                System.arraycopy(degrees, 0, out, first * 3, count * 3);
+            } finally {
+                pooled.release();
+            }
+        }
+    }
+}
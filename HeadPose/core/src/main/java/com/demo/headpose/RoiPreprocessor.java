@@ -0,0 +1,157 @@
+package com.demo.headpose;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 人脸 ROI → 模型输入张量的一步式预处理（纯 Java）。
+ * 直接从 YUV 平面采样，一次完成：镜像、裁剪、双线性缩放、颜色转换和 mean/std 标准化，
+ * 结果写入预分配的 FloatBuffer，不产生中间 Bitmap。
+ * 带 Columns 参数的 process 可在多个线程上并发调用（每个调用者一份 Columns）；不带的版本使用内部的 Columns，只能单线程调用。
+ */
+public class RoiPreprocessor {
+
+    // torchvision / ImageNet 标准化参数（与 TensorImageUtils.TORCHVISION_NORM_*_RGB 相同）
+    public static final float[] IMAGENET_MEAN_RGB = {0.485f, 0.456f, 0.406f};
+    public static final float[] IMAGENET_STD_RGB = {0.229f, 0.224f, 0.225f};
+
+    private final int outputSize;
+    private final boolean channelsFirst;
+    // 输入 R, G, B 分量写到输出的第几个通道
+    private final int[] channelIndex = new int[3];
+    private final float[] scale = new float[3];
+    private final float[] bias = new float[3];
+
+    // 单线程 process 使用的列采样表
+    private final Columns columns;
+
+    /**
+     * 每列的采样坐标与权重，按 ROI 宽度重算，数组复用（例如放在池化的模型输入中）
+     */
+    public static final class Columns {
+        final int[] x0;
+        final int[] x1;
+        final float[] xWeight;
+
+        public Columns(int outputSize) {
+            x0 = new int[outputSize];
+            x1 = new int[outputSize];
+            xWeight = new float[outputSize];
+        }
+    }
+
+    public RoiPreprocessor(int outputSize, float[] meanRgb, float[] stdRgb) {
+        this(outputSize, meanRgb, stdRgb, false, false);
+    }
+
+    /**
+     * @param channelsFirst true 时输出 CHW 平面布局（NCHW 模型），否则为 HWC 交错
+     * @param bgr           true 时按 B, G, R 顺序输出通道（meanRgb / stdRgb 仍按 RGB 给出）
+     */
+    public RoiPreprocessor(int outputSize, float[] meanRgb, float[] stdRgb, boolean channelsFirst, boolean bgr) {
+        this.outputSize = outputSize;
+        this.channelsFirst = channelsFirst;
+        for (int c = 0; c < 3; c++) {
+            channelIndex[c] = bgr ? 2 - c : c;
+            // (v / 255 - mean) / std  =  v * scale + bias
+            scale[c] = 1f / (255f * stdRgb[c]);
+            bias[c] = -meanRgb[c] / stdRgb[c];
+        }
+        columns = new Columns(outputSize);
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * 采样 ROI 并写入 out，默认布局为 CHANNELS_LAST（HWC 交错 RGB），从 offset 开始写 outputSize² × 3 个值。
+     * ROI 坐标位于（可选镜像后的）整帧坐标系中，超出画面的部分会被裁掉。
+     *
+     * @return ROI 与画面有交集时返回 true
+     */
+    public boolean process(YuvFrame frame, boolean mirror, int left, int top, int right, int bottom,
+                           FloatBuffer out, int offset) {
+        return process(frame, mirror, left, top, right, bottom, out, offset, columns);
+    }
+
+    /**
+     * 同上，列采样表由调用者提供（长度至少为 outputSize）
+     */
+    public boolean process(YuvFrame frame, boolean mirror, int left, int top, int right, int bottom,
+                           FloatBuffer out, int offset, Columns columns) {
+        int cropLeft = Math.max(left, 0);
+        int cropTop = Math.max(top, 0);
+        int cropRight = Math.min(right, frame.width);
+        int cropBottom = Math.min(bottom, frame.height);
+        int cropWidth = cropRight - cropLeft;
+        int cropHeight = cropBottom - cropTop;
+        if (cropWidth <= 0 || cropHeight <= 0) {
+            return false;
+        }
+
+        // 预计算列坐标（像素中心对齐，与 Bitmap.createScaledBitmap(filter = true) 一致）
+        int[] x0 = columns.x0;
+        int[] x1 = columns.x1;
+        float[] xWeight = columns.xWeight;
+        float xRatio = (float) cropWidth / outputSize;
+        for (int dx = 0; dx < outputSize; dx++) {
+            float sx = (dx + 0.5f) * xRatio - 0.5f;
+            if (sx < 0) sx = 0;
+            int ix = (int) sx;
+            if (ix > cropWidth - 1) ix = cropWidth - 1;
+            int ixNext = Math.min(ix + 1, cropWidth - 1);
+            xWeight[dx] = Math.min(sx - ix, 1f);
+            // 镜像坐标换算回传感器坐标
+            int ax = cropLeft + ix;
+            int bx = cropLeft + ixNext;
+            x0[dx] = mirror ? frame.width - 1 - ax : ax;
+            x1[dx] = mirror ? frame.width - 1 - bx : bx;
+        }
+
+        // 相邻像素、相邻通道在输出中的间隔
+        int plane = outputSize * outputSize;
+        int pixelStep = channelsFirst ? 1 : 3;
+        int channelStep = channelsFirst ? plane : 1;
+
+        float yRatio = (float) cropHeight / outputSize;
+        int index = offset;
+        for (int dy = 0; dy < outputSize; dy++) {
+            float sy = (dy + 0.5f) * yRatio - 0.5f;
+            if (sy < 0) sy = 0;
+            int iy = (int) sy;
+            if (iy > cropHeight - 1) iy = cropHeight - 1;
+            int iyNext = Math.min(iy + 1, cropHeight - 1);
+            float wy = Math.min(sy - iy, 1f);
+            int rowA = cropTop + iy;
+            int rowB = cropTop + iyNext;
+
+            for (int dx = 0; dx < outputSize; dx++) {
+                int p00 = pixel(frame, x0[dx], rowA);
+                int p01 = pixel(frame, x1[dx], rowA);
+                int p10 = pixel(frame, x0[dx], rowB);
+                int p11 = pixel(frame, x1[dx], rowB);
+                float wx = xWeight[dx];
+
+                for (int c = 0; c < 3; c++) {
+                    int shift = 16 - 8 * c;
+                    float top0 = lerp((p00 >> shift) & 0xFF, (p01 >> shift) & 0xFF, wx);
+                    float bottom0 = lerp((p10 >> shift) & 0xFF, (p11 >> shift) & 0xFF, wx);
+                    out.put(index + channelIndex[c] * channelStep, lerp(top0, bottom0, wy) * scale[c] + bias[c]);
+                }
+                index += pixelStep;
+            }
+        }
+        return true;
+    }
+
+    private static int pixel(YuvFrame frame, int x, int y) {
+        int uvIndex = (y >> 1) * frame.uvRowStride + (x >> 1) * frame.uvPixelStride;
+        return YuvToRgbConverter.toArgb(frame.y[y * frame.yRowStride + x] & 0xFF,
+                (frame.u[uvIndex] & 0xFF) - 128,
+                (frame.v[uvIndex] & 0xFF) - 128);
+    }
+
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+}
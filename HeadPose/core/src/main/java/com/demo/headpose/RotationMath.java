@@ -0,0 +1,70 @@
+package com.demo.headpose;
+
+/**
+ * 旋转矩阵与欧拉角换算（纯 Java）。
+ */
+public final class RotationMath {
+
+    private RotationMath() {
+    }
+
+    /**
+     * 从 rotation[offset..offset+8]（行优先 3×3 旋转矩阵）计算欧拉角，
+     * 结果 yaw, pitch, roll（度）写入 degree[degreeOffset..degreeOffset+2]
+     */
+    public static void rotationToEuler(float[] rotation, int offset, float[] degree, int degreeOffset) {
+        float r0 = rotation[offset], r3 = rotation[offset + 3];
+        float sy = (float) Math.sqrt(r0 * r0 + r3 * r3);
+        if (sy > 1e-6) {
+            degree[degreeOffset] = (float) Math.toDegrees(Math.atan2(-rotation[offset + 6], sy));
+            degree[degreeOffset + 1] = (float) Math.toDegrees(Math.atan2(rotation[offset + 7], rotation[offset + 8]));
+            degree[degreeOffset + 2] = (float) Math.toDegrees(Math.atan2(r3, r0));
+        } else {
+            degree[degreeOffset] = (float) Math.toDegrees(Math.atan2(-rotation[offset + 6], sy));
+            degree[degreeOffset + 1] = (float) Math.toDegrees(Math.atan2(-rotation[offset + 5], rotation[offset + 4]));
+            degree[degreeOffset + 2] = 0;
+        }
+    }
+
+    /**
+     * rotationToEuler 的逆运算：R = Rz(roll) · Ry(yaw) · Rx(pitch)，行优先写入 rotation[offset..offset+8]
+     */
+    public static void eulerToRotation(float yaw, float pitch, float roll, float[] rotation, int offset) {
+        double y = Math.toRadians(yaw), p = Math.toRadians(pitch), r = Math.toRadians(roll);
+        double cy = Math.cos(y), sy = Math.sin(y);
+        double cp = Math.cos(p), sp = Math.sin(p);
+        double cr = Math.cos(r), sr = Math.sin(r);
+        rotation[offset] = (float) (cr * cy);
+        rotation[offset + 1] = (float) (cr * sy * sp - sr * cp);
+        rotation[offset + 2] = (float) (cr * sy * cp + sr * sp);
+        rotation[offset + 3] = (float) (sr * cy);
+        rotation[offset + 4] = (float) (sr * sy * sp + cr * cp);
+        rotation[offset + 5] = (float) (sr * sy * cp - cr * sp);
+        rotation[offset + 6] = (float) -sy;
+        rotation[offset + 7] = (float) (cy * sp);
+        rotation[offset + 8] = (float) (cy * cp);
+    }
+
+    /**
+     * 两个旋转矩阵之间的夹角（度，0 ~ 180）：arccos((trace(Aᵀ·B) - 1) / 2)
+     */
+    public static float angleBetween(float[] a, int aOffset, float[] b, int bOffset) {
+        double trace = 0;
+        for (int i = 0; i < 9; i++) {
+            trace += a[aOffset + i] * b[bOffset + i];
+        }
+        double cos = Math.max(-1, Math.min(1, (trace - 1) / 2));
+        return (float) Math.toDegrees(Math.acos(cos));
+    }
+
+    /**
+     * 两组欧拉角（yaw, pitch, roll，度）对应的旋转之间的夹角（度），不受万向节锁与角度回绕影响
+     * @param scratch 长度至少 18 的临时数组
+     */
+    public static float angleBetween(float yaw1, float pitch1, float roll1,
+                                     float yaw2, float pitch2, float roll2, float[] scratch) {
+        eulerToRotation(yaw1, pitch1, roll1, scratch, 0);
+        eulerToRotation(yaw2, pitch2, roll2, scratch, 9);
+        return angleBetween(scratch, 0, scratch, 9);
+    }
+}
@@ -0,0 +1,70 @@
+package com.demo.headpose;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界环形队列：按顺序交付每一条记录，满时丢弃新记录。
+ * 槽位预先分配，生产者与消费者各自只写自己的游标，不需要 CAS。
+ * head 用 volatile 写发布：生产者随后读取写线程的 waiting 标志，需要 StoreLoad 顺序，否则可能错过唤醒（见 PoseQueue.offer）。
+ */
+public class SpscPoseRing implements PoseQueue {
+
+    private final PoseRecord[] slots;
+    private final int mask;
+
+    // head：下一个写入位置（生产者独占写）；tail：下一个读取位置（消费者独占写）
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // 生产者缓存的 tail，减少对消费者缓存行的读取
+    private long cachedTail;
+
+    /**
+     * @param capacity 容量，向上取到 2 的幂
+     */
+    public SpscPoseRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new PoseRecord[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new PoseRecord();
+        }
+        mask = size - 1;
+    }
+
+    @Override
+    public boolean offer(long sequence, long timestampNanos, float yaw, float pitch, float roll,
+                         float lx, float ly, float rx, float ry) {
+        long h = head.get();
+        if (h - cachedTail >= slots.length) {
+            cachedTail = tail.get();
+            if (h - cachedTail >= slots.length) {
+                return false;
+            }
+        }
+        slots[(int) h & mask].set(sequence, timestampNanos, yaw, pitch, roll, lx, ly, rx, ry);
+        head.set(h + 1);
+        return true;
+    }
+
+    @Override
+    public boolean poll(PoseRecord out) {
+        long t = tail.get();
+        if (t >= head.get()) {
+            return false;
+        }
+        out.copyFrom(slots[(int) t & mask]);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * 当前积压的记录数（近似值）
+     */
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.headpose;
+
+import java.nio.ByteBuffer;
+
+/**
+ * YUV_420_888 帧的平面数据拷贝（纯 Java，不依赖 Android）。
+ * 保留每个平面的 rowStride / pixelStride，缓冲区按需扩容并重复使用。
+ */
+public class YuvFrame {
+
+    public int width;
+    public int height;
+
+    public byte[] y = new byte[0];
+    public byte[] u = new byte[0];
+    public byte[] v = new byte[0];
+
+    public int yRowStride;
+    public int uvRowStride;
+    public int uvPixelStride;
+
+    /**
+     * 从三个平面的 ByteBuffer 拷贝数据，不改变原缓冲区的 position
+     */
+    public void copyFrom(int width, int height,
+                         ByteBuffer yBuffer, int yRowStride,
+                         ByteBuffer uBuffer, ByteBuffer vBuffer,
+                         int uvRowStride, int uvPixelStride) {
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+
+        y = copyPlane(yBuffer, y);
+        u = copyPlane(uBuffer, u);
+        v = copyPlane(vBuffer, v);
+    }
+
+    /**
+     * 按 NV21（紧凑的 Y 平面后接交错的 V/U）写入 dst，容量不足时重新分配
+     * @return 写入的数组
+     */
+    public byte[] toNv21(byte[] dst) {
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int size = width * height + chromaWidth * chromaHeight * 2;
+        if (dst == null || dst.length < size) {
+            dst = new byte[size];
+        }
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(y, row * yRowStride, dst, row * width, width);
+        }
+        int out = width * height;
+        for (int row = 0; row < chromaHeight; row++) {
+            int index = row * uvRowStride;
+            for (int col = 0; col < chromaWidth; col++) {
+                dst[out++] = v[index];
+                dst[out++] = u[index];
+                index += uvPixelStride;
+            }
+        }
+        return dst;
+    }
+
+    // 拷贝单个平面，数组容量不足时才重新分配
+    private static byte[] copyPlane(ByteBuffer buffer, byte[] dst) {
+        int size = buffer.remaining();
+        if (dst.length < size) {
+            dst = new byte[size];
+        }
+        int position = buffer.position();
+        buffer.get(dst, 0, size);
+        buffer.position(position);
+        return dst;
+    }
+}
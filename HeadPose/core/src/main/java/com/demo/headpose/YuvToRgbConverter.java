@@ -0,0 +1,61 @@
+package com.demo.headpose;
+
+/**
+ * YUV_420_888 → ARGB_8888 转换（纯 Java，定点运算）。
+ * 按 rowStride / pixelStride 逐行采样，兼容平面 (I420) 与半平面 (NV12/NV21) 布局以及带填充的行。
+ * 系数与 JPEG (JFIF, 全范围 BT.601) 一致，结果与原 YuvImage → JPEG → Bitmap 路径相当。
+ */
+public class YuvToRgbConverter {
+
+    // 16.16 定点系数
+    private static final int CR_R = 91881;   // 1.402
+    private static final int CB_G = 22554;   // 0.344136
+    private static final int CR_G = 46802;   // 0.714136
+    private static final int CB_B = 116130;  // 1.772
+    private static final int ROUND = 1 << 15;
+
+    /**
+     * 将一帧转换为 ARGB 像素写入 out（长度至少 width * height）
+     * @param mirror 为 true 时水平镜像（适配前置摄像头）
+     */
+    public static void yuvToArgb(YuvFrame frame, int[] out, boolean mirror) {
+        yuvToArgb(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height, out, mirror);
+    }
+
+    public static void yuvToArgb(byte[] yPlane, int yRowStride,
+                                 byte[] uPlane, byte[] vPlane, int uvRowStride, int uvPixelStride,
+                                 int width, int height, int[] out, boolean mirror) {
+        if (out.length < width * height) {
+            throw new IllegalArgumentException("Output buffer too small: " + out.length + " < " + width * height);
+        }
+
+        for (int row = 0; row < height; row++) {
+            int yIndex = row * yRowStride;
+            int uvRowIndex = (row >> 1) * uvRowStride;
+            int outIndex = row * width + (mirror ? width - 1 : 0);
+            int outStep = mirror ? -1 : 1;
+
+            for (int col = 0; col < width; col++) {
+                int uvIndex = uvRowIndex + (col >> 1) * uvPixelStride;
+                out[outIndex] = toArgb(yPlane[yIndex + col] & 0xFF,
+                        (uPlane[uvIndex] & 0xFF) - 128,
+                        (vPlane[uvIndex] & 0xFF) - 128);
+                outIndex += outStep;
+            }
+        }
+    }
+
+    // 单个像素的 YCbCr → ARGB
+    static int toArgb(int y, int cb, int cr) {
+        int base = (y << 16) + ROUND;
+        int r = clamp((base + CR_R * cr) >> 16);
+        int g = clamp((base - CB_G * cb - CR_G * cr) >> 16);
+        int b = clamp((base + CB_B * cb) >> 16);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
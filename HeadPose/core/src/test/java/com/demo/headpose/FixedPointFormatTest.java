@@ -0,0 +1,38 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FixedPointFormat 与 String.format 的输出对比。
+ */
+public class FixedPointFormatTest {
+
+    @Test
+    public void matchesStringFormat() {
+        float[] values = {0f, 1f, -1f, 12.34f, -12.34f, 179.96f, -0.26f, 0.04f, 1234.5678f, 99.99f};
+        char[] buffer = new char[32];
+        for (float value : values) {
+            for (int decimals = 0; decimals <= 2; decimals++) {
+                int length = FixedPointFormat.append(buffer, 0, value, decimals);
+                assertEquals(String.format("%." + decimals + "f", value), new String(buffer, 0, length));
+            }
+        }
+    }
+
+    @Test
+    public void appendsAfterPrefix() {
+        char[] buffer = new char[32];
+        int length = FixedPointFormat.append(buffer, 0, "Yaw: ");
+        length = FixedPointFormat.append(buffer, length, -35.25f, 1);
+        assertEquals("Yaw: -35.3", new String(buffer, 0, length));
+    }
+
+    @Test
+    public void nonFiniteValues() {
+        char[] buffer = new char[32];
+        assertEquals("NaN", new String(buffer, 0, FixedPointFormat.append(buffer, 0, Float.NaN, 1)));
+        assertEquals("-Infinity", new String(buffer, 0, FixedPointFormat.append(buffer, 0, Float.NEGATIVE_INFINITY, 1)));
+    }
+}
@@ -0,0 +1,241 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * LandmarkPoseSolver：在关键点 / 姿态对上测量与 CNN 姿态的测地角误差。
+ * 工程里没有带关键点的录制数据，这里按录制数据的特点生成：姿态取 CNN 的输出范围，
+ * 每个人的五官位置相对平均脸有个体差异，真实焦距与求解器假设的不同，关键点带检测噪声，
+ * 侧脸时 MLKit 常常给不出远侧耳朵。
+ */
+public class LandmarkPoseSolverTest {
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int SAMPLES = 2000;
+
+    private final LandmarkPoseSolver solver = new LandmarkPoseSolver();
+    private final float[] scratch = new float[18];
+
+    @Test
+    public void recoversExactPoseOfMeanFace() {
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        float[] degree = new float[3];
+        float[][] poses = {{0, 0, 0}, {30, -10, 5}, {-45, 20, -15}, {60, 0, 0}, {10, 30, 25}};
+        for (float[] pose : poses) {
+            int mask = project(pose, LandmarkPoseSolver.MEAN_FACE, 1f, 0, 0, 600, points, null, 0);
+            assertTrue(solver.solve(points, mask, WIDTH, HEIGHT, degree, 0));
+            assertEquals(Arrays.toString(pose), 0, RotationMath.angleBetween(
+                    pose[0], pose[1], pose[2], degree[0], degree[1], degree[2], scratch), 0.1f);
+            assertTrue(solver.getRmsError() < 0.01f);
+        }
+    }
+
+    @Test
+    public void angularErrorAgainstCnnPoses() {
+        Random random = new Random(23);
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        double[] face = new double[LandmarkPoseSolver.MEAN_FACE.length];
+        float[] pose = new float[3];
+        float[] degree = new float[3];
+        float[] errors = new float[SAMPLES];
+        int solved = 0;
+        for (int n = 0; n < SAMPLES; n++) {
+            // CNN 在实际使用中输出的范围
+            pose[0] = random.nextFloat() * 120 - 60;
+            pose[1] = random.nextFloat() * 60 - 30;
+            pose[2] = random.nextFloat() * 50 - 25;
+            // 个体差异：整体大小 ±10%，每个点每个方向约 6%
+            double scale = 0.9 + 0.2 * random.nextDouble();
+            for (int i = 0; i < face.length; i++) {
+                face[i] = LandmarkPoseSolver.MEAN_FACE[i] * scale * (1 + 0.06 * random.nextGaussian());
+            }
+            float focalRatio = 0.8f + 0.4f * random.nextFloat();
+            int mask = project(pose, face, focalRatio, random.nextFloat() * 200 - 100, random.nextFloat() * 120 - 60,
+                    400 + random.nextFloat() * 500, points, random, 0.012f);
+            // 侧脸时远侧耳朵被遮挡；有时两只耳朵都没有
+            if (Math.abs(pose[0]) > 30) {
+                mask &= ~(1 << (pose[0] > 0 ? LandmarkPoseSolver.RIGHT_EAR : LandmarkPoseSolver.LEFT_EAR));
+            }
+            if (random.nextFloat() < 0.2f) {
+                mask &= ~((1 << LandmarkPoseSolver.LEFT_EAR) | (1 << LandmarkPoseSolver.RIGHT_EAR));
+            }
+            if (solver.solve(points, mask, WIDTH, HEIGHT, degree, 0)) {
+                // 测地角按模型坐标系中的旋转计算
+                errors[solved++] = RotationMath.angleBetween(
+                        -pose[0], -pose[1], -pose[2], -degree[0], -degree[1], -degree[2], scratch);
+            }
+        }
+        float[] sorted = Arrays.copyOf(errors, solved);
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (float error : sorted) {
+            mean += error / solved;
+        }
+        float p90 = sorted[solved * 9 / 10];
+        assertTrue("solved " + solved, solved >= SAMPLES * 98 / 100);
+        assertTrue("mean " + mean, mean < 4);
+        assertTrue("p90 " + p90, p90 < 8);
+    }
+
+    // 镜像画面：MLKit 按画面中看到的人脸标注左右，求得的是镜像后的人脸姿态（yaw 与 roll 取反）
+    @Test
+    public void mirroredLandmarksGiveMirroredPose() {
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        float[] mirrored = new float[points.length];
+        float[] degree = new float[3];
+        float[] pose = {25, 10, 12};
+        int mask = project(pose, LandmarkPoseSolver.MEAN_FACE, 1f, 40, -20, 600, points, null, 0);
+        int[] swap = {1, 0, 2, 4, 3, 6, 5};
+        for (int i = 0; i < swap.length; i++) {
+            mirrored[swap[i] * 2] = WIDTH - points[i * 2];
+            mirrored[swap[i] * 2 + 1] = points[i * 2 + 1];
+        }
+        assertTrue(solver.solve(mirrored, mask, WIDTH, HEIGHT, degree, 0));
+        assertEquals(0, RotationMath.angleBetween(-pose[0], pose[1], -pose[2],
+                degree[0], degree[1], degree[2], scratch), 0.1f);
+    }
+
+    /**
+     * 与 CNN 输出的符号约定一致（AUTO 模式会在两个引擎之间切换）：CNN 的角度按 AxisProjection 画在镜像后的分析帧上，
+     * 正 yaw 时鼻尖方向（Z 轴）指向画面左侧，正 pitch 时指向画面上方，正 roll 时 X 轴向下（人脸在画面上顺时针转）。
+     * 关键点直接在画面上按这些方向移动（不经过求解器的投影模型），求出的姿态画出来的轴应指向同样的方向
+     */
+    @Test
+    public void signsMatchCnnAxisConvention() {
+        float[] degree = new float[3];
+        float[] axes = new float[AxisProjection.OUT_SIZE];
+        float side = 200;
+        float centerX = WIDTH / 2f;
+        float centerY = HEIGHT / 2f;
+
+        // 鼻底与嘴向画面左侧偏：头转向画面左侧
+        float[] points = frontal(side);
+        shift(points, LandmarkPoseSolver.NOSE_BASE, -0.08f * side, 0);
+        shift(points, LandmarkPoseSolver.MOUTH_LEFT, -0.04f * side, 0);
+        shift(points, LandmarkPoseSolver.MOUTH_RIGHT, -0.04f * side, 0);
+        assertTrue(solver.solve(points, FIVE_POINTS, WIDTH, HEIGHT, degree, 0));
+        AxisProjection.project(degree[0], degree[1], degree[2], centerX, centerY, 100, axes, 0);
+        assertTrue(Arrays.toString(degree), degree[0] > 10);
+        assertTrue(Arrays.toString(degree), axes[4] < centerX - 10);
+
+        // 反方向
+        points = frontal(side);
+        shift(points, LandmarkPoseSolver.NOSE_BASE, 0.08f * side, 0);
+        shift(points, LandmarkPoseSolver.MOUTH_LEFT, 0.04f * side, 0);
+        shift(points, LandmarkPoseSolver.MOUTH_RIGHT, 0.04f * side, 0);
+        assertTrue(solver.solve(points, FIVE_POINTS, WIDTH, HEIGHT, degree, 0));
+        AxisProjection.project(degree[0], degree[1], degree[2], centerX, centerY, 100, axes, 0);
+        assertTrue(Arrays.toString(degree), degree[0] < -10);
+        assertTrue(Arrays.toString(degree), axes[4] > centerX + 10);
+
+        // 鼻底与嘴向眼睛靠近：抬头
+        points = frontal(side);
+        shift(points, LandmarkPoseSolver.NOSE_BASE, 0, -0.06f * side);
+        shift(points, LandmarkPoseSolver.MOUTH_LEFT, 0, -0.06f * side);
+        shift(points, LandmarkPoseSolver.MOUTH_RIGHT, 0, -0.06f * side);
+        assertTrue(solver.solve(points, FIVE_POINTS, WIDTH, HEIGHT, degree, 0));
+        AxisProjection.project(degree[0], degree[1], degree[2], centerX, centerY, 100, axes, 0);
+        assertTrue(Arrays.toString(degree), degree[1] > 10);
+        assertTrue(Arrays.toString(degree), axes[5] < centerY - 10);
+
+        // 整张脸在画面上顺时针转 15°
+        points = frontal(side);
+        double angle = Math.toRadians(15);
+        for (int i = 0; i < points.length; i += 2) {
+            float dx = points[i] - centerX;
+            float dy = points[i + 1] - centerY;
+            points[i] = centerX + (float) (Math.cos(angle) * dx - Math.sin(angle) * dy);
+            points[i + 1] = centerY + (float) (Math.sin(angle) * dx + Math.cos(angle) * dy);
+        }
+        assertTrue(solver.solve(points, FIVE_POINTS, WIDTH, HEIGHT, degree, 0));
+        AxisProjection.project(degree[0], degree[1], degree[2], centerX, centerY, 100, axes, 0);
+        assertEquals(Arrays.toString(degree), 15, degree[2], 3);
+        assertTrue(Arrays.toString(degree), axes[1] > centerY + 10);
+    }
+
+    @Test
+    public void rejectsInsufficientOrInconsistentLandmarks() {
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        float[] degree = {1, 2, 3};
+        int mask = project(new float[]{0, 0, 0}, LandmarkPoseSolver.MEAN_FACE, 1f, 0, 0, 600, points, null, 0);
+        // 只有双眼与鼻底
+        assertFalse(solver.solve(points, 0b111, WIDTH, HEIGHT, degree, 0));
+        // 缺少一只眼睛
+        assertFalse(solver.solve(points, mask & ~(1 << LandmarkPoseSolver.LEFT_EYE), WIDTH, HEIGHT, degree, 0));
+        // 嘴角跑到了眼睛上方
+        points[LandmarkPoseSolver.MOUTH_LEFT * 2 + 1] -= 200;
+        points[LandmarkPoseSolver.MOUTH_RIGHT * 2 + 1] -= 200;
+        assertFalse(solver.solve(points, mask, WIDTH, HEIGHT, degree, 0));
+        assertArrayEquals(new float[]{1, 2, 3}, degree, 0f);
+    }
+
+    @Test
+    public void solveAllocatesNothing() {
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        float[] degree = new float[3];
+        int mask = project(new float[]{20, -10, 5}, LandmarkPoseSolver.MEAN_FACE, 1f, 0, 0, 600, points, null, 0);
+        for (int i = 0; i < 1000; i++) {
+            solver.solve(points, mask, WIDTH, HEIGHT, degree, 0);
+        }
+        TestAllocations.assertNoAllocation("bytes allocated by 1000 solves", () -> {
+            for (int i = 0; i < 1000; i++) {
+                solver.solve(points, mask, WIDTH, HEIGHT, degree, 0);
+            }
+        });
+    }
+
+    private static final int FIVE_POINTS = (1 << 5) - 1;
+
+    /**
+     * 画面中央边长为 side 的正脸上五官的位置（镜像后画面：MLKit 的“左眼”在画面右侧），
+     * 与 :app 的 ReplayPipelineTest 的正脸关键点相同
+     */
+    private static float[] frontal(float side) {
+        float[] relative = {0.7f, 0.4f, 0.3f, 0.4f, 0.5f, 0.654f, 0.659f, 0.813f, 0.341f, 0.813f};
+        float[] points = new float[LandmarkPoseSolver.LANDMARK_COUNT * 2];
+        float left = (WIDTH - side) / 2;
+        float top = (HEIGHT - side) / 2 - 0.1f * side;
+        for (int i = 0; i < relative.length; i += 2) {
+            points[i] = left + relative[i] * side;
+            points[i + 1] = top + relative[i + 1] * side;
+        }
+        return points;
+    }
+
+    private static void shift(float[] points, int landmark, float dx, float dy) {
+        points[landmark * 2] += dx;
+        points[landmark * 2 + 1] += dy;
+    }
+
+    /**
+     * 把 face 旋转 pose（CNN 的约定，在模型坐标系中按 RotationMath 换算时三个角取反）后放在相机前 distance 毫米处（x, y 为偏离光轴的毫米数），
+     * 以焦距 focalRatio × 画面长边透视投影，random 不为 null 时加上 noise × 两眼像素距离的高斯噪声
+     * @return 全部关键点的掩码
+     */
+    private static int project(float[] pose, double[] face, float focalRatio, float x, float y, float distance,
+                               float[] points, Random random, float noise) {
+        float[] r = new float[9];
+        RotationMath.eulerToRotation(-pose[0], -pose[1], -pose[2], r, 0);
+        double f = focalRatio * Math.max(WIDTH, HEIGHT);
+        for (int i = 0; i < LandmarkPoseSolver.LANDMARK_COUNT; i++) {
+            double mx = face[i * 3], my = face[i * 3 + 1], mz = face[i * 3 + 2];
+            double px = r[0] * mx + r[1] * my + r[2] * mz + x;
+            double py = r[3] * mx + r[4] * my + r[5] * mz + y;
+            double depth = distance - (r[6] * mx + r[7] * my + r[8] * mz);
+            points[i * 2] = (float) (WIDTH * 0.5 + f * px / depth);
+            points[i * 2 + 1] = (float) (HEIGHT * 0.5 - f * py / depth);
+        }
+        if (random != null) {
+            float eyePixels = (float) Math.hypot(points[0] - points[2], points[1] - points[3]);
+            for (int i = 0; i < points.length; i++) {
+                points[i] += (float) random.nextGaussian() * noise * eyePixels;
+            }
+        }
+        return (1 << LandmarkPoseSolver.LANDMARK_COUNT) - 1;
+    }
+}
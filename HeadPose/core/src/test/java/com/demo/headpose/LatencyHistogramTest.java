@@ -0,0 +1,95 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 延迟直方图的精度、并发与热路径分配。
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverRangeWithBoundedError() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456, 999_999_999L, 1L << 39}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(value + " -> " + upper, upper >= value);
+            assertTrue(value + " -> " + upper, upper - value <= value / 16);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesMatchExactValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(4);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // 对数正态分布，中位数约 2 ms，带长尾
+            values[i] = (long) (2_000_000 * Math.exp(random.nextGaussian() * 0.5));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        histogram.copyCounts(counts);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long estimate = LatencyHistogram.valueAtPercentile(counts, percentile);
+            assertTrue(percentile + ": " + estimate + " vs " + exact,
+                    estimate >= exact && estimate <= exact + exact / 16);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+        assertEquals(0, LatencyHistogram.valueAtPercentile(new long[LatencyHistogram.BUCKETS], 50));
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 4;
+        int perThread = 200_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long value = (t + 1) * 1000L;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(value);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        histogram.copyCounts(counts);
+        assertEquals((long) threads * perThread, Arrays.stream(counts).sum());
+        assertEquals((long) threads * perThread, histogram.getCount());
+        assertEquals(threads * 1000L, histogram.getMaxNanos());
+        assertEquals(1000L * perThread * (threads * (threads + 1) / 2), histogram.getSumNanos());
+    }
+
+    /**
+     * 热路径不分配内存（单次耗时见 :core 的 LatencyHistogramBenchmark）
+     */
+    @Test
+    public void recordingIsAllocationFree() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        recordValues(histogram); // 预热，排除类加载与编译期间的分配
+        TestAllocations.assertNoAllocation("bytes allocated by 100000 record calls", () -> recordValues(histogram));
+    }
+
+    private static void recordValues(LatencyHistogram histogram) {
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i * 37L);
+        }
+    }
+}
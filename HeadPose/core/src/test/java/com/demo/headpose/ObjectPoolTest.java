@@ -0,0 +1,84 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ObjectPool / Pooled 的引用计数、复用与泄漏检测测试。
+ */
+public class ObjectPoolTest {
+
+    @Test
+    public void releasedObject_isReused() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], false);
+        Pooled<int[]> first = pool.acquire();
+        int[] value = first.get();
+        first.release();
+
+        Pooled<int[]> second = pool.acquire();
+        assertSame(value, second.get());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void objectReturnsOnlyAfterLastRelease() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], false);
+        Pooled<int[]> handle = pool.acquire();
+        handle.retain();
+        assertEquals(2, handle.refCount());
+
+        handle.release();
+        assertEquals(0, pool.available());
+        handle.release();
+        assertEquals(1, pool.available());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseTooOften_throws() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], false);
+        Pooled<int[]> handle = pool.acquire();
+        handle.release();
+        handle.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getAfterRelease_throws() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], false);
+        Pooled<int[]> handle = pool.acquire();
+        handle.release();
+        handle.get();
+    }
+
+    @Test
+    public void prefill_createsObjectsUpFront() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], false);
+        pool.prefill(3);
+        assertEquals(3, pool.size());
+        assertEquals(3, pool.available());
+    }
+
+    @Test
+    public void leakDetection_reportsObjectsHeldTooLong() {
+        ObjectPool<int[]> pool = new ObjectPool<>("test", () -> new int[4], true);
+        Pooled<int[]> leaked = pool.acquire();
+        for (int i = 0; i < 10; i++) {
+            pool.acquire().release();
+        }
+
+        List<Throwable> sites = new ArrayList<>();
+        int leaks = pool.checkLeaks(5, (name, value, site) -> {
+            assertEquals("test", name);
+            assertSame(leaked.get(), value);
+            sites.add(site);
+        });
+        assertEquals(1, leaks);
+        assertNotNull(sites.get(0));
+
+        leaked.release();
+        assertEquals(0, pool.checkLeaks(5, null));
+    }
+}
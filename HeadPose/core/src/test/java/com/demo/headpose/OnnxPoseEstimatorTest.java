@@ -0,0 +1,83 @@
+package com.demo.headpose;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在桌面 JVM 上运行 ONNX 后端（assets/fsanet.onnx），检查输出与批量路径。
+ */
+public class OnnxPoseEstimatorTest {
+    private static OnnxPoseEstimator estimator;
+
+    @BeforeClass
+    public static void loadModel() throws Exception {
+        estimator = new OnnxPoseEstimator(modelFile().getPath(), 1, true);
+    }
+
+    @AfterClass
+    public static void closeModel() {
+        estimator.close();
+    }
+
+    // 模型随 :app 打包；Gradle 在模块目录下运行单元测试，IDE 可能在工程根目录下运行
+    private static File modelFile() {
+        File model = new File("../app/src/main/assets/fsanet.onnx");
+        return model.exists() ? model : new File("app/src/main/assets/fsanet.onnx");
+    }
+
+    @Test
+    public void readsInputShapeFromModel() {
+        assertEquals(64, estimator.getInputSize());
+        // fsanet.onnx 的批维度固定为 1
+        assertEquals(1, estimator.getMaxBatchSize());
+        estimator.setMaxBatchSize(8);
+        assertEquals(1, estimator.getMaxBatchSize());
+    }
+
+    @Test
+    public void producesFiniteAnglesDeterministically() {
+        YuvFrame frame = TestFrames.random(320, 240, 320, 320, 2, new Random(3));
+        float[] first = new float[3];
+        float[] second = new float[3];
+
+        Pooled<? extends PoseInput> input = estimator.preprocess(frame, 60, 40, 220, 200, true);
+        estimator.infer(input.get(), first);
+        estimator.infer(input.get(), second);
+        input.release();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(Float.isFinite(first[i]));
+            assertTrue(Math.abs(first[i]) <= 180f);
+            assertEquals(first[i], second[i], 0f);
+        }
+    }
+
+    @Test
+    public void estimateMatchesSingleInference() {
+        YuvFrame frame = TestFrames.random(320, 240, 336, 320, 2, new Random(4));
+        int[] boxes = {
+                10, 10, 90, 90,
+                100, 50, 220, 170,
+                400, 400, 480, 480, // 画面外
+                200, 100, 310, 230,
+        };
+        float[][] results = estimator.estimate(frame, boxes, 4, false);
+        assertNull(results[2]);
+
+        float[] degree = new float[3];
+        for (int face : new int[]{0, 1, 3}) {
+            Pooled<? extends PoseInput> input = estimator.preprocess(frame,
+                    boxes[face * 4], boxes[face * 4 + 1], boxes[face * 4 + 2], boxes[face * 4 + 3], false);
+            estimator.infer(input.get(), degree);
+            input.release();
+            assertArrayEquals(degree, results[face], 1e-4f);
+        }
+        assertEquals(0, estimator.checkLeaks(0, null));
+    }
+}
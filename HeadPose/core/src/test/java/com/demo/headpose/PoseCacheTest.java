@@ -0,0 +1,172 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseCache：静止的人脸命中、区域变化或参照帧过期时重新推理，以及基本不动的操作员场景下的命中率与误差。
+ */
+public class PoseCacheTest {
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+
+    private final float[] degree = new float[3];
+
+    @Test
+    public void staticFaceHitsUntilReferenceIsStale() {
+        PoseCache cache = new PoseCache(3f, 0.05f, 500);
+        YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, WIDTH, WIDTH, 2, new Random(1));
+        assertEquals(-1, cache.lookup(frame, false, 0, 0, 80, 40, 240, 200));
+        cache.store(0, new float[]{10, 5, 0}, 0);
+        for (int i = 1; i <= 15; i++) {
+            assertEquals(0, cache.lookup(frame, false, i, i * FRAME_NANOS, 80, 40, 240, 200));
+            assertTrue(cache.fetch(0, degree, 0));
+            assertArrayEquals(new float[]{10, 5, 0}, degree, 0f);
+        }
+        // 超过 500 ms：强制推理，结果与缓存姿态之间的差就是缓存引入的误差
+        assertEquals(-1, cache.lookup(frame, false, 16, 16 * FRAME_NANOS, 80, 40, 240, 200));
+        cache.store(16, new float[]{12, 5, 0}, 0);
+        assertEquals(15, cache.getHitCount());
+        assertEquals(1, cache.getStaleMissCount());
+        assertEquals(1, cache.getChangedMissCount());
+        assertEquals(1, cache.getErrorSampleCount());
+        assertEquals(2, cache.getMeanError(), 0.01f);
+        // 新的参照帧
+        assertEquals(16, cache.lookup(frame, false, 17, 17 * FRAME_NANOS, 80, 40, 240, 200));
+    }
+
+    @Test
+    public void changedContentOrBoxMisses() {
+        PoseCache cache = new PoseCache(3f, 0.05f, 500);
+        Random random = new Random(2);
+        YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, WIDTH, WIDTH, 2, random);
+        assertEquals(-1, cache.lookup(frame, false, 0, 0, 80, 40, 240, 200));
+        cache.store(0, degree, 0);
+
+        // 传感器噪声（±2）仍然命中（随机纹理上框的抖动就是内容变化，抖动见 mostlyStaticOperator）
+        YuvFrame noisy = copy(frame);
+        for (int i = 0; i < noisy.y.length; i++) {
+            noisy.y[i] = (byte) Math.min(255, Math.max(0, (noisy.y[i] & 0xFF) + random.nextInt(5) - 2));
+        }
+        assertEquals(0, cache.lookup(noisy, false, 1, FRAME_NANOS, 80, 40, 240, 200));
+        // 人脸框移动了框宽的 10%
+        assertEquals(-1, cache.lookup(frame, false, 2, 2 * FRAME_NANOS, 96, 40, 256, 200));
+        cache.store(2, degree, 0);
+        // 画面内容变化
+        YuvFrame other = TestFrames.random(WIDTH, HEIGHT, WIDTH, WIDTH, 2, random);
+        assertEquals(-1, cache.lookup(other, false, 3, 3 * FRAME_NANOS, 96, 40, 256, 200));
+        // 镜像后是另一幅画面
+        cache.store(3, degree, 0);
+        assertEquals(-1, cache.lookup(other, true, 4, 4 * FRAME_NANOS, 96, 40, 256, 200));
+        assertEquals(4, cache.getChangedMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getStaleMissCount());
+    }
+
+    // 参照帧在流水线中被丢弃（或推理失败）：命中的帧拿不到姿态，参照帧被清空，下一帧重新推理
+    @Test
+    public void fetchFailsWithoutReferencePose() {
+        PoseCache cache = new PoseCache(3f, 0.05f, 500);
+        YuvFrame frame = TestFrames.random(WIDTH, HEIGHT, WIDTH, WIDTH, 2, new Random(3));
+        assertEquals(-1, cache.lookup(frame, false, 0, 0, 80, 40, 240, 200));
+        assertEquals(0, cache.lookup(frame, false, 1, FRAME_NANOS, 80, 40, 240, 200));
+        assertFalse(cache.fetch(0, degree, 0));
+        assertEquals(1, cache.getFetchFailureCount());
+        assertEquals(-1, cache.lookup(frame, false, 2, 2 * FRAME_NANOS, 80, 40, 240, 200));
+        cache.store(2, new float[]{Float.NaN, Float.NaN, Float.NaN}, 0);
+        assertEquals(2, cache.lookup(frame, false, 3, 3 * FRAME_NANOS, 80, 40, 240, 200));
+        assertFalse(cache.fetch(2, degree, 0));
+        assertEquals(2, cache.getFetchFailureCount());
+    }
+
+    /**
+     * 基本不动的操作员：每 2 秒转一次头（持续 10 帧，每帧移动 12 像素），其余时间只有传感器噪声、检测框与姿态的微小抖动。
+     * 命中的帧输出参照帧的姿态，与该帧真实姿态的差就是缓存的误差
+     */
+    @Test
+    public void mostlyStaticOperator() {
+        PoseCache cache = new PoseCache(PoseCache.DEFAULT_MAX_LUMA_DIFFERENCE, PoseCache.DEFAULT_MAX_BOX_DRIFT, 500);
+        Random random = new Random(4);
+        YuvFrame frame = new YuvFrame();
+        frame.width = WIDTH;
+        frame.height = HEIGHT;
+        frame.yRowStride = WIDTH;
+        frame.y = new byte[WIDTH * HEIGHT];
+        float[] scratch = new float[18];
+        float[] pose = new float[3];
+        int frames = 600;
+        int x = 60;
+        float yaw = 0;
+        double errorSum = 0;
+        int hits = 0;
+        for (int i = 0; i < frames; i++) {
+            boolean moving = i % 60 >= 50;
+            if (moving) {
+                x += (i / 60) % 2 == 0 ? 12 : -12;
+                yaw += (i / 60) % 2 == 0 ? 3 : -3;
+            }
+            pose[0] = yaw + (float) random.nextGaussian() * 0.3f;
+            pose[1] = (float) random.nextGaussian() * 0.3f;
+            pose[2] = 0;
+            drawFace(frame, x, 40, 160, random);
+            // 检测框有 ±1 像素的抖动
+            int jitter = random.nextInt(3) - 1;
+            long reference = cache.lookup(frame, false, i, i * FRAME_NANOS, x + jitter, 40, x + 160 + jitter, 200);
+            if (reference >= 0) {
+                assertTrue(cache.fetch(reference, degree, 0));
+                errorSum += RotationMath.angleBetween(pose[0], pose[1], pose[2], degree[0], degree[1], degree[2],
+                        scratch);
+                hits++;
+            } else {
+                cache.store(i, pose, 0);
+            }
+        }
+        assertEquals(hits, cache.getHitCount());
+        assertTrue("hit rate " + cache.getHitRate(), cache.getHitRate() > 70);
+        assertTrue("hit error " + errorSum / hits, errorSum / hits < 1);
+        assertTrue("max error " + cache.getMaxError(), cache.getMaxError() < 2);
+    }
+
+    @Test
+    public void rejectsBadParameters() {
+        try {
+            new PoseCache(3f, 0.05f, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new PoseCache(Float.NaN, 0.05f, 500);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // 平滑的背景上画一张有纹理的“脸”，整幅画面加 ±2 的噪声
+    private static void drawFace(YuvFrame frame, int left, int top, int size, Random random) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = 60 + x / 8;
+                if (x >= left && x < left + size && y >= top && y < top + size) {
+                    int u = (x - left) * 8 / size;
+                    int v = (y - top) * 8 / size;
+                    value = 120 + ((u * 37 + v * 91) % 11) * 10;
+                }
+                frame.y[y * WIDTH + x] = (byte) (value + random.nextInt(5) - 2);
+            }
+        }
+    }
+
+    private static YuvFrame copy(YuvFrame frame) {
+        YuvFrame copy = new YuvFrame();
+        copy.width = frame.width;
+        copy.height = frame.height;
+        copy.yRowStride = frame.yRowStride;
+        copy.y = frame.y.clone();
+        return copy;
+    }
+}
@@ -0,0 +1,143 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseFilter：在合成轨迹上检验平滑、外推、重置与零分配。
+ */
+public class PoseFilterTest {
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(33);
+
+    @Test
+    public void smoothsStaticPose() {
+        PoseFilter filter = new PoseFilter();
+        Random random = new Random(1);
+        float[] out = new float[PoseFilter.CHANNELS];
+        double rawError = 0;
+        double filteredError = 0;
+        int samples = 0;
+        for (int i = 0; i < 300; i++) {
+            float noise = (float) random.nextGaussian() * 2f;
+            long time = i * FRAME_NANOS;
+            filter.update(time, 10f + noise, -5f, 0f, 100f, 100f, 160f, 100f);
+            filter.predict(time, out);
+            if (i >= 30) {
+                rawError += noise * noise;
+                filteredError += (out[0] - 10f) * (out[0] - 10f);
+                samples++;
+            }
+        }
+        double rawRms = Math.sqrt(rawError / samples);
+        double filteredRms = Math.sqrt(filteredError / samples);
+        assertTrue("raw " + rawRms + " filtered " + filteredRms, filteredRms < rawRms * 0.7);
+        assertEquals(-5f, out[1], 1e-3f);
+    }
+
+    @Test
+    public void tracksConstantVelocityAndExtrapolates() {
+        PoseFilter filter = new PoseFilter();
+        Random random = new Random(2);
+        float[] out = new float[PoseFilter.CHANNELS];
+        // 匀速转头 30 度/秒，眼睛 60 像素/秒
+        for (int i = 0; i < 60; i++) {
+            double t = i * FRAME_NANOS * 1e-9;
+            filter.update(i * FRAME_NANOS, (float) (30 * t + random.nextGaussian()), 0, 0,
+                    (float) (100 + 60 * t), 100, (float) (160 + 60 * t), 100);
+        }
+        assertEquals(30f, filter.getVelocity(0), 3f);
+        assertEquals(60f, filter.getVelocity(3), 3f);
+
+        // 外推 50 ms
+        long last = 59 * FRAME_NANOS;
+        long target = last + TimeUnit.MILLISECONDS.toNanos(50);
+        assertTrue(filter.predict(target, out));
+        double t = target * 1e-9;
+        assertEquals(30 * t, out[0], 1.5);
+        assertEquals(100 + 60 * t, out[3], 1.0);
+        assertEquals(160 + 60 * t, out[5], 1.0);
+    }
+
+    /**
+     * 0.5 Hz、±30 度的摆头，30 fps 推理、60 ms 流水线延迟：按 100 Hz 外推到发布时刻，
+     * 误差应明显小于直接发送最近一次（已过时的）推理结果
+     */
+    @Test
+    public void predictionBeatsHoldingStaleSamplesOnSinusoid() {
+        PoseFilter filter = new PoseFilter();
+        Random random = new Random(3);
+        float[] out = new float[PoseFilter.CHANNELS];
+        long latency = TimeUnit.MILLISECONDS.toNanos(60);
+        long tick = TimeUnit.MILLISECONDS.toNanos(10);
+
+        double holdError = 0;
+        double predictError = 0;
+        int samples = 0;
+        float lastRaw = 0;
+        long nextFrame = 0;
+        for (long now = 0; now < TimeUnit.SECONDS.toNanos(10); now += tick) {
+            // 发布时刻之前已经完成推理的帧（采集于 latency 之前）
+            while (nextFrame + latency <= now) {
+                lastRaw = (float) (yaw(nextFrame) + random.nextGaussian());
+                filter.update(nextFrame, lastRaw, 0, 0, 0, 0, 0, 0);
+                nextFrame += FRAME_NANOS;
+            }
+            if (now < TimeUnit.SECONDS.toNanos(1)) {
+                continue; // 收敛期
+            }
+            filter.predict(now, out);
+            double truth = yaw(now);
+            holdError += (lastRaw - truth) * (lastRaw - truth);
+            predictError += (out[0] - truth) * (out[0] - truth);
+            samples++;
+        }
+        double holdRms = Math.sqrt(holdError / samples);
+        double predictRms = Math.sqrt(predictError / samples);
+        assertTrue("hold " + holdRms + " predicted " + predictRms, predictRms < holdRms * 0.7);
+    }
+
+    @Test
+    public void resetsAfterGap() {
+        PoseFilter filter = new PoseFilter();
+        float[] out = new float[PoseFilter.CHANNELS];
+        for (int i = 0; i < 30; i++) {
+            filter.update(i * FRAME_NANOS, i * 2f, 0, 0, 0, 0, 0, 0);
+        }
+        assertTrue(filter.getVelocity(0) > 30f);
+
+        // 人脸丢失 1 秒后出现在别处：直接采用新测量，速度清零
+        long reappear = 29 * FRAME_NANOS + TimeUnit.SECONDS.toNanos(1);
+        filter.update(reappear, -20f, 0, 0, 0, 0, 0, 0);
+        assertEquals(0f, filter.getVelocity(0), 0f);
+        filter.predict(reappear + TimeUnit.MILLISECONDS.toNanos(100), out);
+        assertEquals(-20f, out[0], 0f);
+
+        assertFalse(new PoseFilter().predict(0, out));
+    }
+
+    @Test
+    public void updateAndPredictAllocateNothing() {
+        PoseFilter filter = new PoseFilter();
+        float[] out = new float[PoseFilter.CHANNELS];
+        for (int i = 0; i < 10_000; i++) {
+            filter.update(i * FRAME_NANOS, i, i, i, i, i, i, i);
+            filter.predict(i * FRAME_NANOS + 1000, out);
+        }
+
+        TestAllocations.assertNoAllocation("bytes allocated by 10000 update + predict", () -> {
+            for (int i = 10_000; i < 20_000; i++) {
+                filter.update(i * FRAME_NANOS, i, i, i, i, i, i, i);
+                filter.predict(i * FRAME_NANOS + 1000, out);
+            }
+        });
+    }
+
+    private static double yaw(long timeNanos) {
+        return 30 * Math.sin(2 * Math.PI * 0.5 * timeNanos * 1e-9);
+    }
+}
@@ -0,0 +1,147 @@
+package com.demo.headpose;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class PoseLogTest {
+
+    private static final long FRAME_NANOS = 33_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rollsSegmentsAndReadsBackByIndexAndTime() throws Exception {
+        File directory = new File(folder.getRoot(), "session");
+        try (PoseLogWriter writer = new PoseLogWriter(directory, 100)) {
+            PoseLogRecord record = new PoseLogRecord();
+            for (int i = 0; i < 250; i++) {
+                fill(record, i);
+                writer.append(record);
+            }
+            assertEquals(250, writer.getAppendedCount());
+            assertEquals(3, writer.getSegmentCount());
+        }
+
+        PoseLogReader reader = new PoseLogReader(directory);
+        assertEquals(3, reader.getSegmentCount());
+        assertEquals(250, reader.size());
+        PoseLogRecord record = new PoseLogRecord();
+        PoseLogRecord expected = new PoseLogRecord();
+        for (int i : new int[]{0, 99, 100, 173, 249}) {
+            reader.read(i, record);
+            fill(expected, i);
+            assertRecordEquals(expected, record);
+        }
+
+        // [t(120), t(130)) 含 10 条，跨越第二个分段的中间
+        PoseLogReader.Cursor cursor = reader.cursor(timestamp(120), timestamp(130));
+        assertEquals(120, cursor.position());
+        assertEquals(10, cursor.remaining());
+        int count = 0;
+        while (cursor.next(record)) {
+            assertEquals(120 + count, record.sequence);
+            count++;
+        }
+        assertEquals(10, count);
+
+        // 时间戳落在两条记录之间、范围超出日志两端
+        assertEquals(121, reader.lowerBound(timestamp(120) + 1));
+        assertEquals(0, reader.cursor(0, timestamp(3)).position());
+        assertEquals(3, reader.cursor(0, timestamp(3)).remaining());
+        assertEquals(0, reader.cursor(timestamp(500), Long.MAX_VALUE).remaining());
+
+        cursor = reader.cursor();
+        long sequence = 0;
+        while (cursor.next(record)) {
+            assertEquals(sequence++, record.sequence);
+        }
+        assertEquals(250, sequence);
+    }
+
+    @Test
+    public void ignoresTornRecordAndAppendsNewSegmentsOnReopen() throws Exception {
+        File directory = new File(folder.getRoot(), "session");
+        PoseLogRecord record = new PoseLogRecord();
+        try (PoseLogWriter writer = new PoseLogWriter(directory, 100)) {
+            for (int i = 0; i < 10; i++) {
+                fill(record, i);
+                writer.append(record);
+            }
+        }
+        // 模拟进程在写最后一条记录时退出：marker 还没写入
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "poses-000000.log"), "rw")) {
+            file.seek(PoseLogWriter.SEGMENT_HEADER_SIZE + 9L * PoseLogRecord.SIZE);
+            file.writeInt(0);
+        }
+        assertEquals(9, new PoseLogReader(directory).size());
+
+        try (PoseLogWriter writer = new PoseLogWriter(directory, 100)) {
+            for (int i = 10; i < 15; i++) {
+                fill(record, i);
+                writer.append(record);
+            }
+        }
+        PoseLogReader reader = new PoseLogReader(directory);
+        assertEquals(2, reader.getSegmentCount());
+        assertEquals(14, reader.size());
+        reader.read(9, record);
+        assertEquals(10, record.sequence);
+    }
+
+    /**
+     * 追加只是对映射内存的写入，不分配内存（单条耗时见 :core 的 PoseLogBenchmark）
+     */
+    @Test
+    public void appendIsAllocationFree() throws Exception {
+        int count = 200_000;
+        try (PoseLogWriter writer = new PoseLogWriter(folder.newFolder("bulk"), 4 * count)) {
+            PoseLogRecord record = new PoseLogRecord();
+            fill(record, 1);
+            for (int i = 0; i < 3; i++) {
+                appendAll(writer, record, count / 2); // 预热，排除类加载与编译期间的分配
+            }
+
+            TestAllocations.assertNoAllocation("bytes allocated by " + count + " appends",
+                    () -> appendAll(writer, record, count));
+        }
+    }
+
+    private static void appendAll(PoseLogWriter writer, PoseLogRecord record, int count) {
+        for (int i = 0; i < count; i++) {
+            record.sequence++;
+            writer.append(record);
+        }
+    }
+
+    private static long timestamp(int i) {
+        return 5_000_000_000L + i * FRAME_NANOS;
+    }
+
+    private static void fill(PoseLogRecord record, int i) {
+        record.set(i, timestamp(i), i * 0.5f, -i * 0.25f, 3, 100 + i, 200, 300 + i, 210);
+        record.setFace(i, i + 1, i + 100, i + 120, 1 + i % 3, i % 2 == 0);
+        for (int stage = 0; stage < PoseLogRecord.STAGE_COUNT; stage++) {
+            record.setStageNanos(stage, (i + stage) * 1_000L);
+        }
+    }
+
+    private static void assertRecordEquals(PoseLogRecord expected, PoseLogRecord actual) {
+        assertEquals(expected.sequence, actual.sequence);
+        assertEquals(expected.timestampNanos, actual.timestampNanos);
+        assertArrayEquals(expected.values, actual.values, 0);
+        assertEquals(expected.faceLeft, actual.faceLeft);
+        assertEquals(expected.faceTop, actual.faceTop);
+        assertEquals(expected.faceRight, actual.faceRight);
+        assertEquals(expected.faceBottom, actual.faceBottom);
+        assertEquals(expected.faceCount, actual.faceCount);
+        assertEquals(expected.isTracked(), actual.isTracked());
+        assertArrayEquals(expected.stageMicros, actual.stageMicros);
+    }
+}
@@ -0,0 +1,226 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseStreamClient：用回环上的替身服务器制造半条 / 多条消息、坏行与断线（对接真实服务器见 :app 的 PoseBroadcastServerTest）。
+ */
+public class PoseStreamClientTest {
+
+    private PoseStreamClient client;
+    private ServerSocketChannel standIn;
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (standIn != null) {
+            standIn.close();
+        }
+    }
+
+    @Test
+    public void reassemblesSplitAndCoalescedMessages() throws Exception {
+        startStandIn();
+        client = new PoseStreamClient(standInAddress(), PoseStreamWriter.Format.BINARY);
+        Thread sender = new Thread(() -> {
+            try (SocketChannel connection = standIn.accept()) {
+                connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ByteBuffer bytes = encode(PoseStreamWriter.Format.BINARY, 1, 3);
+                // 前三条逐字节发送，每次读取只能拿到半条消息
+                while (bytes.hasRemaining()) {
+                    ByteBuffer one = bytes.duplicate();
+                    one.limit(one.position() + 1);
+                    connection.write(one);
+                    bytes.position(bytes.position() + 1);
+                    Thread.sleep(1);
+                }
+                // 其余一次写出，一次读取包含很多条，最后一条跨越读缓冲的边界
+                writeFully(connection, encode(PoseStreamWriter.Format.BINARY, 4, 1000));
+                Thread.sleep(200);
+            } catch (Exception ignored) {
+            }
+        });
+        sender.start();
+
+        PoseRecord pose = new PoseRecord();
+        for (int i = 1; i <= 1000; i++) {
+            assertTrue(client.next(pose));
+            assertEquals(i, pose.sequence);
+            assertEquals(i * 0.125f, pose.values[0], 0);
+        }
+        assertEquals(1000, client.getReceivedCount());
+        sender.join();
+    }
+
+    @Test
+    public void skipsMalformedTextLines() throws Exception {
+        startStandIn();
+        client = new PoseStreamClient(standInAddress(), PoseStreamWriter.Format.TEXT);
+        Thread sender = new Thread(() -> {
+            try (SocketChannel connection = standIn.accept()) {
+                writeFully(connection, StandardCharsets.US_ASCII.encode(
+                        "1.50 -2.25 3 10 20.5 30 40\n"
+                                + "not a pose\n"
+                                + "1 2 3\n"
+                                + "NaN Infinity -Infinity -0.01 0 7.00 8\r\n"));
+                Thread.sleep(200);
+            } catch (Exception ignored) {
+            }
+        });
+        sender.start();
+
+        PoseRecord pose = new PoseRecord();
+        assertTrue(client.next(pose));
+        assertArrayEquals(new float[]{1.5f, -2.25f, 3, 10, 20.5f, 30, 40}, pose.values, 0);
+        assertTrue(client.next(pose));
+        assertEquals(2, pose.sequence);
+        assertTrue(Float.isNaN(pose.values[0]));
+        assertEquals(Float.POSITIVE_INFINITY, pose.values[1], 0);
+        assertEquals(Float.NEGATIVE_INFINITY, pose.values[2], 0);
+        assertEquals(-0.01f, pose.values[3], 0);
+        assertEquals(8f, pose.values[6], 0);
+        assertEquals(2, client.getMalformedCount());
+        sender.join();
+    }
+
+    @Test
+    public void reconnectsAfterConnectionLoss() throws Exception {
+        startStandIn();
+        List<String> events = new ArrayList<>();
+        client = new PoseStreamClient(standInAddress(), PoseStreamWriter.Format.BINARY, 10, 100);
+        Thread sender = new Thread(() -> {
+            try {
+                // 第一个连接发一条半后断开，半条消息不能和下一个连接的数据拼在一起
+                try (SocketChannel connection = standIn.accept()) {
+                    ByteBuffer bytes = encode(PoseStreamWriter.Format.BINARY, 1, 2);
+                    bytes.limit(PoseRecord.BINARY_SIZE + PoseRecord.BINARY_SIZE / 2);
+                    writeFully(connection, bytes);
+                }
+                try (SocketChannel connection = standIn.accept()) {
+                    writeFully(connection, encode(PoseStreamWriter.Format.BINARY, 10, 10));
+                    Thread.sleep(200);
+                }
+            } catch (Exception ignored) {
+            }
+        });
+        sender.start();
+
+        PoseRecord pose = new PoseRecord();
+        assertTrue(client.next(pose));
+        assertEquals(1, pose.sequence);
+        assertTrue(client.next(pose));
+        assertEquals(10, pose.sequence);
+        assertEquals(2, client.getConnectCount());
+        assertTrue(client.isConnected());
+        sender.join();
+
+        // 服务器不在时按退避间隔重试，close 立即打断等待
+        standIn.close();
+        standIn = null;
+        long start = System.nanoTime();
+        Thread reader = new Thread(() -> {
+            PoseRecord ignored = new PoseRecord();
+            while (client.next(ignored)) {
+                events.add("pose");
+            }
+            events.add("closed");
+        });
+        reader.start();
+        Thread.sleep(300);
+        client.close();
+        reader.join(1000);
+        assertFalse(reader.isAlive());
+        assertTrue(events.contains("closed"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    /**
+     * 连上之后每条消息都解码到同一个 PoseRecord，不分配内存
+     */
+    @Test
+    public void decodingIsAllocationFree() throws Exception {
+        int count = 20_000;
+        for (PoseStreamWriter.Format format : PoseStreamWriter.Format.values()) {
+            startStandIn();
+            client = new PoseStreamClient(standInAddress(), format);
+            ByteBuffer bytes = encode(format, 1, 4 * count + 1);
+            Thread sender = new Thread(() -> {
+                try (SocketChannel connection = standIn.accept()) {
+                    writeFully(connection, bytes);
+                    Thread.sleep(200);
+                } catch (Exception ignored) {
+                }
+            });
+            sender.start();
+
+            PoseRecord pose = new PoseRecord();
+            assertTrue(client.next(pose)); // 建立连接
+            for (int i = 0; i < 3; i++) {
+                receiveAll(client, pose, count); // 预热，排除类加载与编译期间的分配
+            }
+
+            TestAllocations.assertNoAllocation(format.name(), () -> receiveAll(client, pose, count));
+            assertEquals(4 * count + 1, pose.sequence);
+
+            client.close();
+            sender.join();
+            standIn.close();
+            standIn = null;
+        }
+    }
+
+    private static void receiveAll(PoseStreamClient client, PoseRecord pose, int count) {
+        for (int i = 0; i < count; i++) {
+            client.next(pose);
+        }
+    }
+
+    private void startStandIn() throws IOException {
+        standIn = ServerSocketChannel.open();
+        standIn.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    private InetSocketAddress standInAddress() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), standIn.socket().getLocalPort());
+    }
+
+    // 序号 first 起的 count 条记录，按 format 编码
+    private static ByteBuffer encode(PoseStreamWriter.Format format, int first, int count) {
+        ByteBuffer bytes = ByteBuffer.allocate(count * Math.max(PoseRecord.BINARY_SIZE, PoseRecord.MAX_TEXT_SIZE));
+        char[] scratch = new char[PoseRecord.MAX_TEXT_SIZE];
+        PoseRecord record = new PoseRecord();
+        for (int i = first; i < first + count; i++) {
+            record.set(i, 1_000L * i, i * 0.125f, 1, -1, 2.5f, 0, 0, -i * 0.5f);
+            if (format == PoseStreamWriter.Format.BINARY) {
+                record.writeBinary(bytes);
+            } else {
+                record.writeText(bytes, scratch);
+            }
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    private static void writeFully(SocketChannel connection, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            connection.write(bytes);
+        }
+    }
+}
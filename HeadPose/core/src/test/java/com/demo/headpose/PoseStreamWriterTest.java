@@ -0,0 +1,178 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseStreamWriter：线路格式、顺序、最新值合并、生产者零分配以及吞吐 / 延迟。
+ */
+public class PoseStreamWriterTest {
+
+    @Test
+    public void binaryRecordIsLittleEndian44Bytes() {
+        PoseRecord record = new PoseRecord();
+        record.set(0x0102030405060708L, 42L, 1.5f, -2f, 3f, 4f, 5f, 6f, 7f);
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.BIG_ENDIAN);
+        record.writeBinary(buffer);
+
+        assertEquals(PoseRecord.BINARY_SIZE, buffer.position());
+        assertEquals(44, PoseRecord.BINARY_SIZE);
+        assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+        assertEquals(0x08, buffer.get(0));
+        assertEquals(0x01, buffer.get(7));
+        assertEquals(42, buffer.get(8));
+        assertEquals(Float.floatToIntBits(1.5f), ByteBuffer.wrap(buffer.array(), 16, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
+
+        buffer.flip();
+        PoseRecord decoded = new PoseRecord();
+        decoded.readBinary(buffer);
+        assertEquals(record.sequence, decoded.sequence);
+        assertEquals(record.timestampNanos, decoded.timestampNanos);
+        assertArrayEquals(record.values, decoded.values, 0f);
+    }
+
+    @Test
+    public void textLineMatchesOriginalFormat() {
+        PoseRecord record = new PoseRecord();
+        record.set(1, 2, -12.345f, 0.004f, 7f, 100.5f, 200.25f, -0.126f, 999.999f);
+        ByteBuffer buffer = ByteBuffer.allocate(PoseRecord.MAX_TEXT_SIZE);
+        record.writeText(buffer, new char[PoseRecord.MAX_TEXT_SIZE]);
+
+        String expected = String.format("%.2f %.2f %.2f %.2f %.2f %.2f %.2f\n",
+                -12.345f, 0.004f, 7f, 100.5f, 200.25f, -0.126f, 999.999f);
+        assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void ringDeliversInOrderAndDropsWhenFull() throws Exception {
+        int count = 200_000;
+        SlowSink sink = new SlowSink(count, 0);
+        SpscPoseRing ring = new SpscPoseRing(64);
+        PoseStreamWriter writer = new PoseStreamWriter(ring, PoseStreamWriter.Format.BINARY, sink);
+        writer.start();
+        for (int i = 1; i <= count; i++) {
+            writer.publish(i, i, i, 0, 0, 0, 0, 0, 0);
+        }
+        writer.stop();
+
+        assertEquals(count, writer.getPublishedCount());
+        assertEquals(count - writer.getDroppedCount(), writer.getWrittenCount());
+        assertEquals(writer.getWrittenCount(), sink.received);
+        assertFalse(sink.outOfOrder);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void coalescingSendsOnlyLatest() throws Exception {
+        int count = 2_000;
+        SlowSink sink = new SlowSink(Integer.MAX_VALUE, TimeUnit.MICROSECONDS.toNanos(500));
+        LatestPoseSlot slot = new LatestPoseSlot();
+        PoseStreamWriter writer = new PoseStreamWriter(slot, PoseStreamWriter.Format.BINARY, sink);
+        writer.start();
+        for (int i = 1; i <= count; i++) {
+            writer.publish(i, i, i, 0, 0, 0, 0, 0, 0);
+            if (i % 10 == 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }
+        writer.stop();
+
+        assertEquals(0, writer.getDroppedCount());
+        assertTrue("written " + sink.received, sink.received < count);
+        assertEquals(count, sink.received + slot.getOverwrittenCount());
+        assertEquals(count, sink.lastSequence);
+        assertFalse(sink.outOfOrder);
+    }
+
+    @Test
+    public void publishAllocatesNothing() {
+        PoseStreamWriter writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.TEXT, frame -> {
+            frame.position(frame.limit());
+        });
+        writer.start();
+        for (int i = 0; i < 10_000; i++) {
+            writer.publish(i, i, 1, 2, 3, 4, 5, 6, 7);
+        }
+
+        long allocated = TestAllocations.allocatedBytes(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                writer.publish(i, i, 1, 2, 3, 4, 5, 6, 7);
+            }
+        });
+        writer.stop();
+
+        assertEquals("bytes allocated by 10000 publish calls", 0, allocated);
+    }
+
+    @Test
+    public void deliversPacedRecordsPromptly() throws Exception {
+        int count = 20_000;
+        long[] latencies = new long[count];
+        CountDownLatch done = new CountDownLatch(1);
+        PoseRecord decoded = new PoseRecord();
+        int[] received = new int[1];
+        PoseStreamWriter writer = new PoseStreamWriter(new SpscPoseRing(1024), PoseStreamWriter.Format.BINARY, frame -> {
+            decoded.readBinary(frame);
+            latencies[received[0]++] = System.nanoTime() - decoded.timestampNanos;
+            if (received[0] == count) {
+                done.countDown();
+            }
+        });
+        writer.start();
+
+        // 约每 20 µs 一条，远高于相机帧率
+        for (int i = 0; i < count; i++) {
+            while (!writer.publish(i, System.nanoTime(), 0, 0, 0, 0, 0, 0, 0)) {
+                Thread.yield();
+            }
+            LockSupport.parkNanos(20_000);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        writer.stop();
+
+        Arrays.sort(latencies);
+        assertTrue("p50 " + latencies[count / 2] + " ns", latencies[count / 2] < TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    /**
+     * 解码二进制记录并检查序号递增，可选地模拟慢客户端
+     */
+    private static final class SlowSink implements PoseStreamWriter.Sink {
+        private final int limit;
+        private final long delayNanos;
+        private final PoseRecord record = new PoseRecord();
+        volatile long received;
+        volatile long lastSequence;
+        volatile boolean outOfOrder;
+
+        SlowSink(int limit, long delayNanos) {
+            this.limit = limit;
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public void write(ByteBuffer frame) {
+            assertEquals(PoseRecord.BINARY_SIZE, frame.remaining());
+            record.readBinary(frame);
+            if (record.sequence <= lastSequence || record.values[0] != record.sequence) {
+                outOfOrder = true;
+            }
+            lastSequence = record.sequence;
+            if (++received > limit) {
+                outOfOrder = true;
+            }
+            if (delayNanos > 0) {
+                LockSupport.parkNanos(delayNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * PoseWorkerPool：拆分后的结果与单个实例一致、多个调用者并发、空闲工作线程窃取慢线程的任务。
+ * 用一个按输入缓冲区内容计算“角度”的假后端（FakePoseEstimator）代替模型。
+ */
+public class PoseWorkerPoolTest {
+
+    private static final int MAX_BATCH = 4;
+
+    private PoseWorkerPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void splitBatchMatchesSingleEstimator() throws Exception {
+        pool = start(3, 0);
+        FakePoseEstimator reference = new FakePoseEstimator(0);
+        reference.setMaxBatchSize(MAX_BATCH);
+        YuvFrame frame = TestFrames.random(320, 240, 320, 320, 2, new Random(5));
+        // 第三个人脸框在画面之外
+        int[] boxes = {10, 10, 90, 90, 100, 20, 180, 100, 400, 300, 480, 380, 200, 120, 300, 220};
+
+        float[] actual = null;
+        for (int count = 1; count <= MAX_BATCH; count++) {
+            float[] expected = new float[count * 3];
+            actual = new float[count * 3];
+            Pooled<? extends PoseInput> input = reference.preprocessBatch(frame, boxes, 0, count, true);
+            reference.infer(input.get(), expected);
+            input.release();
+
+            input = pool.preprocessBatch(frame, boxes, 0, count, true);
+            pool.infer(input.get(), actual);
+            input.release();
+            assertArrayEquals("count " + count, expected, actual, 0f);
+        }
+        assertTrue(Float.isNaN(actual[6]));
+        assertFalse(Float.isNaN(actual[9]));
+
+        long tasks = 0;
+        for (long count : pool.getTaskCounts()) {
+            tasks += count;
+        }
+        // 1 + 2 + 3 + 3 份任务
+        assertEquals(9, tasks);
+        assertEquals(0, pool.checkLeaks(0, null));
+    }
+
+    @Test
+    public void concurrentCallersGetTheirOwnResults() throws Exception {
+        pool = start(3, 0);
+        int callers = 4;
+        YuvFrame[] frames = new YuvFrame[callers];
+        float[][] expected = new float[callers][];
+        int[] boxes = {0, 0, 120, 120, 60, 40, 200, 180, 150, 100, 310, 230};
+        FakePoseEstimator reference = new FakePoseEstimator(0);
+        reference.setMaxBatchSize(MAX_BATCH);
+        for (int i = 0; i < callers; i++) {
+            frames[i] = TestFrames.random(320, 240, 320, 320, 2, new Random(10 + i));
+            expected[i] = new float[9];
+            Pooled<? extends PoseInput> input = reference.preprocessBatch(frames[i], boxes, 0, 3, false);
+            reference.infer(input.get(), expected[i]);
+            input.release();
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[callers];
+        for (int i = 0; i < callers; i++) {
+            int caller = i;
+            threads[i] = new Thread(() -> {
+                float[] degrees = new float[9];
+                try {
+                    for (int n = 0; n < 200; n++) {
+                        Pooled<? extends PoseInput> input = pool.preprocessBatch(frames[caller], boxes, 0, 3, false);
+                        pool.infer(input.get(), degrees);
+                        input.release();
+                        assertArrayEquals(expected[caller], degrees, 0f);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(0, pool.checkLeaks(0, null));
+    }
+
+    // 工作线程 0 每次推理 20 ms，其他线程几乎不耗时：派给 0 号的任务大多被空闲线程窃取
+    @Test
+    public void idleWorkersStealFromSlowWorker() throws Exception {
+        pool = start(3, 20);
+        YuvFrame frame = TestFrames.random(160, 120, 160, 160, 2, new Random(7));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                float[] degrees = new float[3];
+                try {
+                    for (int n = 0; n < 30; n++) {
+                        Pooled<? extends PoseInput> input = pool.preprocess(frame, 10, 10, 100, 100, false);
+                        pool.infer(input.get(), degrees);
+                        input.release();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertNull(failure.get());
+
+        long[] tasks = pool.getTaskCounts();
+        assertEquals(60, tasks[0] + tasks[1] + tasks[2]);
+        assertTrue("steals " + pool.getStealCount(), pool.getStealCount() > 0);
+        // 轮流派发时 0 号会分到 20 个
+        assertTrue("slow worker ran " + tasks[0], tasks[0] < 20);
+    }
+
+    @Test
+    public void inferenceErrorReachesCaller() throws Exception {
+        pool = new PoseWorkerPool(2, 0, (worker, threads) -> new FakePoseEstimator(0) {
+            @Override
+            protected void forward(PoseInput input, float[] degrees) {
+                throw new IllegalStateException("worker " + worker);
+            }
+        });
+        pool.start();
+        YuvFrame frame = TestFrames.random(160, 120, 160, 160, 2, new Random(7));
+        Pooled<? extends PoseInput> input = pool.preprocess(frame, 10, 10, 100, 100, false);
+        try {
+            pool.infer(input.get(), new float[3]);
+            fail();
+        } catch (IllegalStateException expected) {
+        } finally {
+            input.release();
+        }
+    }
+
+    @Test
+    public void failedStartReportsLoadError() {
+        pool = new PoseWorkerPool(3, 0, (worker, threads) -> {
+            if (worker == 1) {
+                throw new java.io.IOException("missing model");
+            }
+            return new FakePoseEstimator(0);
+        });
+        try {
+            pool.start();
+            fail();
+        } catch (Exception expected) {
+            assertEquals("missing model", expected.getMessage());
+        }
+    }
+
+    private static PoseWorkerPool start(int workers, long slowWorkerMillis) throws Exception {
+        PoseWorkerPool pool = new PoseWorkerPool(workers, 0,
+                (worker, threads) -> new FakePoseEstimator(worker == 0 ? slowWorkerMillis : 0));
+        pool.start();
+        pool.setMaxBatchSize(MAX_BATCH);
+        return pool;
+    }
+}
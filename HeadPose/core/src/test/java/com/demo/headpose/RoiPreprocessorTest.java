@@ -0,0 +1,145 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * RoiPreprocessor 与原多步流程（整帧转换 → 镜像 → 裁剪 → 双线性缩放 → 标准化）的一致性测试。
+ */
+public class RoiPreprocessorTest {
+    // 与 :app 中 HeadPose.INPUT_SIZE（PyTorch 模型的输入边长）相同
+    private static final int SIZE = 224;
+    // 允许约 2 个 8 位灰度级的误差（参考流程每一步都会量化到 8 位）
+    private static final float TOLERANCE = 2f / 255f / 0.224f;
+
+    private final RoiPreprocessor preprocessor = new RoiPreprocessor(SIZE,
+            RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB);
+
+    @Test
+    public void mirroredDownscale_matchesMultiStepPipeline() {
+        YuvFrame frame = TestFrames.random(480, 360, 512, 512, 2, new Random(7));
+        assertMatchesReference(frame, true, 120, 60, 380, 330);
+    }
+
+    @Test
+    public void upscaleWithoutMirror_matchesMultiStepPipeline() {
+        YuvFrame frame = TestFrames.random(160, 120, 160, 80, 1, new Random(8));
+        assertMatchesReference(frame, false, 30, 20, 130, 110);
+    }
+
+    @Test
+    public void roiPartiallyOutsideFrame_isClipped() {
+        YuvFrame frame = TestFrames.random(200, 150, 208, 208, 2, new Random(9));
+        FloatBuffer clipped = FloatBuffer.allocate(3 * SIZE * SIZE);
+        FloatBuffer inside = FloatBuffer.allocate(3 * SIZE * SIZE);
+
+        assertTrue(preprocessor.process(frame, true, -40, -30, 120, 100, clipped, 0));
+        assertTrue(preprocessor.process(frame, true, 0, 0, 120, 100, inside, 0));
+        for (int i = 0; i < clipped.capacity(); i++) {
+            assertEquals(inside.get(i), clipped.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void roiOutsideFrame_returnsFalse() {
+        YuvFrame frame = TestFrames.random(64, 64, 64, 64, 2, new Random(10));
+        FloatBuffer out = FloatBuffer.allocate(3 * SIZE * SIZE);
+        assertFalse(preprocessor.process(frame, false, 70, 10, 90, 30, out, 0));
+        assertFalse(preprocessor.process(frame, false, 10, 10, 10, 30, out, 0));
+    }
+
+    @Test
+    public void writesAtOffset() {
+        YuvFrame frame = TestFrames.random(64, 64, 64, 64, 2, new Random(11));
+        int count = 3 * SIZE * SIZE;
+        FloatBuffer first = FloatBuffer.allocate(count);
+        FloatBuffer second = FloatBuffer.allocate(2 * count);
+
+        preprocessor.process(frame, false, 8, 8, 56, 56, first, 0);
+        preprocessor.process(frame, false, 8, 8, 56, 56, second, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(0f, second.get(i), 0f);
+            assertEquals(first.get(i), second.get(count + i), 0f);
+        }
+    }
+
+    @Test
+    public void channelsFirstBgr_isPermutedChannelsLastRgb() {
+        YuvFrame frame = TestFrames.random(160, 120, 160, 160, 2, new Random(12));
+        int size = 64;
+        RoiPreprocessor hwc = new RoiPreprocessor(size, RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB);
+        RoiPreprocessor chwBgr = new RoiPreprocessor(size, RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB,
+                true, true);
+        int plane = size * size;
+        FloatBuffer interleaved = FloatBuffer.allocate(3 * plane);
+        FloatBuffer planar = FloatBuffer.allocate(3 * plane + 5);
+
+        assertTrue(hwc.process(frame, true, 20, 10, 140, 110, interleaved, 0));
+        assertTrue(chwBgr.process(frame, true, 20, 10, 140, 110, planar, 5));
+        for (int i = 0; i < plane; i++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(interleaved.get(i * 3 + c), planar.get(5 + (2 - c) * plane + i), 0f);
+            }
+        }
+    }
+
+    private void assertMatchesReference(YuvFrame frame, boolean mirror, int left, int top, int right, int bottom) {
+        FloatBuffer fused = FloatBuffer.allocate(3 * SIZE * SIZE);
+        assertTrue(preprocessor.process(frame, mirror, left, top, right, bottom, fused, 0));
+
+        float[] reference = referencePipeline(frame, mirror, left, top, right, bottom);
+        float maxDiff = 0;
+        for (int i = 0; i < reference.length; i++) {
+            maxDiff = Math.max(maxDiff, Math.abs(reference[i] - fused.get(i)));
+        }
+        assertTrue("max diff " + maxDiff, maxDiff <= TOLERANCE);
+    }
+
+    // 原流程逐步实现：每一步产生新的 8 位 ARGB 图像
+    private static float[] referencePipeline(YuvFrame frame, boolean mirror, int left, int top, int right, int bottom) {
+        int[] full = new int[frame.width * frame.height];
+        YuvToRgbConverter.yuvToArgb(frame, full, mirror);
+
+        int cropWidth = right - left;
+        int cropHeight = bottom - top;
+        int[] crop = new int[cropWidth * cropHeight];
+        for (int y = 0; y < cropHeight; y++) {
+            System.arraycopy(full, (top + y) * frame.width + left, crop, y * cropWidth, cropWidth);
+        }
+
+        int[] scaled = new int[SIZE * SIZE];
+        for (int dy = 0; dy < SIZE; dy++) {
+            double sy = Math.max(0, (dy + 0.5) * cropHeight / SIZE - 0.5);
+            int y0 = Math.min((int) sy, cropHeight - 1);
+            int y1 = Math.min(y0 + 1, cropHeight - 1);
+            double wy = Math.min(sy - y0, 1);
+            for (int dx = 0; dx < SIZE; dx++) {
+                double sx = Math.max(0, (dx + 0.5) * cropWidth / SIZE - 0.5);
+                int x0 = Math.min((int) sx, cropWidth - 1);
+                int x1 = Math.min(x0 + 1, cropWidth - 1);
+                double wx = Math.min(sx - x0, 1);
+                int argb = 0xFF000000;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    double a = (crop[y0 * cropWidth + x0] >> shift & 0xFF) * (1 - wx) + (crop[y0 * cropWidth + x1] >> shift & 0xFF) * wx;
+                    double b = (crop[y1 * cropWidth + x0] >> shift & 0xFF) * (1 - wx) + (crop[y1 * cropWidth + x1] >> shift & 0xFF) * wx;
+                    argb |= (int) Math.round(a * (1 - wy) + b * wy) << shift;
+                }
+                scaled[dy * SIZE + dx] = argb;
+            }
+        }
+
+        // 与 TensorImageUtils.bitmapToFloat32Tensor(..., MemoryFormat.CHANNELS_LAST) 相同的布局与标准化
+        float[] tensor = new float[3 * SIZE * SIZE];
+        for (int i = 0; i < scaled.length; i++) {
+            for (int c = 0; c < 3; c++) {
+                int value = scaled[i] >> (16 - 8 * c) & 0xFF;
+                tensor[i * 3 + c] = (value / 255f - RoiPreprocessor.IMAGENET_MEAN_RGB[c]) / RoiPreprocessor.IMAGENET_STD_RGB[c];
+            }
+        }
+        return tensor;
+    }
+}
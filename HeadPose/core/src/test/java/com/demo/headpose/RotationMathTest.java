@@ -0,0 +1,40 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RotationMathTest {
+
+    @Test
+    public void eulerRoundTripsThroughRotation() {
+        Random random = new Random(3);
+        float[] rotation = new float[9];
+        float[] degree = new float[3];
+        for (int i = 0; i < 1000; i++) {
+            float yaw = random.nextFloat() * 170 - 85;
+            float pitch = random.nextFloat() * 340 - 170;
+            float roll = random.nextFloat() * 340 - 170;
+            RotationMath.eulerToRotation(yaw, pitch, roll, rotation, 0);
+            RotationMath.rotationToEuler(rotation, 0, degree, 0);
+            assertEquals(yaw, degree[0], 1e-3f);
+            assertEquals(pitch, degree[1], 1e-3f);
+            assertEquals(roll, degree[2], 1e-3f);
+        }
+    }
+
+    @Test
+    public void angleBetweenIsGeodesic() {
+        float[] scratch = new float[18];
+        assertEquals(0, RotationMath.angleBetween(10, 20, 30, 10, 20, 30, scratch), 0.05f);
+        // 绕同一根轴的旋转：夹角即角度差
+        assertEquals(15, RotationMath.angleBetween(0, 5, 0, 0, 20, 0, scratch), 1e-3f);
+        assertEquals(25, RotationMath.angleBetween(-10, 0, 0, 15, 0, 0, scratch), 1e-3f);
+        // 跨越 ±180° 的 roll 只差 4°
+        assertEquals(4, RotationMath.angleBetween(0, 0, 178, 0, 0, -178, scratch), 1e-3f);
+        // 欧拉角不同但旋转相同
+        assertEquals(0, RotationMath.angleBetween(0, 180, 180, 180, 0, 0, scratch), 0.05f);
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.headpose;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * YuvToRgbConverter 的 JVM 单元测试：不同 stride 布局与浮点参考公式对比。
+ */
+public class YuvToRgbConverterTest {
+
+    @Test
+    public void planarWithRowPadding_matchesReference() {
+        // I420：pixelStride = 1，行末带填充
+        YuvFrame frame = TestFrames.random(64, 48, 80, 40, 1, new Random(1));
+        assertMatchesReference(frame, false);
+    }
+
+    @Test
+    public void semiPlanarInterleaved_matchesReference() {
+        // NV21 风格：U/V 交错，pixelStride = 2
+        YuvFrame frame = TestFrames.random(64, 48, 64, 64, 2, new Random(2));
+        assertMatchesReference(frame, false);
+    }
+
+    @Test
+    public void oddSizeWithPadding_matchesReference() {
+        YuvFrame frame = TestFrames.random(37, 23, 48, 48, 2, new Random(3));
+        assertMatchesReference(frame, false);
+    }
+
+    @Test
+    public void mirror_flipsEachRow() {
+        YuvFrame frame = TestFrames.random(31, 17, 40, 40, 2, new Random(4));
+        int[] plain = new int[31 * 17];
+        int[] mirrored = new int[31 * 17];
+        YuvToRgbConverter.yuvToArgb(frame, plain, false);
+        YuvToRgbConverter.yuvToArgb(frame, mirrored, true);
+
+        for (int row = 0; row < 17; row++) {
+            for (int col = 0; col < 31; col++) {
+                assertEquals(plain[row * 31 + col], mirrored[row * 31 + (30 - col)]);
+            }
+        }
+    }
+
+    @Test
+    public void copyFrom_keepsBufferPositionAndReusesArrays() {
+        YuvFrame source = TestFrames.random(16, 8, 16, 16, 2, new Random(5));
+        ByteBuffer y = ByteBuffer.allocateDirect(source.y.length);
+        y.put(source.y).flip();
+        ByteBuffer u = ByteBuffer.wrap(source.u);
+        ByteBuffer v = ByteBuffer.wrap(source.v);
+
+        YuvFrame frame = new YuvFrame();
+        frame.copyFrom(16, 8, y, 16, u, v, 16, 2);
+        byte[] yArray = frame.y;
+        frame.copyFrom(16, 8, y, 16, u, v, 16, 2);
+
+        assertEquals(0, y.position());
+        assertSame(yArray, frame.y);
+        assertArrayEquals(source.y, frame.y);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputTooSmall_throws() {
+        YuvFrame frame = TestFrames.random(8, 8, 8, 8, 1, new Random(6));
+        YuvToRgbConverter.yuvToArgb(frame, new int[10], false);
+    }
+
+    private static void assertMatchesReference(YuvFrame frame, boolean mirror) {
+        int[] out = new int[frame.width * frame.height];
+        YuvToRgbConverter.yuvToArgb(frame, out, mirror);
+
+        for (int row = 0; row < frame.height; row++) {
+            for (int col = 0; col < frame.width; col++) {
+                int expected = TestFrames.referenceArgb(frame, col, row);
+                int actual = out[row * frame.width + col];
+                assertEquals(0xFF, actual >>> 24);
+                assertChannel(expected >> 16, actual >> 16);
+                assertChannel(expected >> 8, actual >> 8);
+                assertChannel(expected, actual);
+            }
+        }
+    }
+
+    private static void assertChannel(int expected, int actual) {
+        assertTrue(Math.abs((expected & 0xFF) - (actual & 0xFF)) <= 1);
+    }
+}
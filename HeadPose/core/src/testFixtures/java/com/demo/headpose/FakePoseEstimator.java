@@ -0,0 +1,46 @@
+package com.demo.headpose;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 测试用的假推理后端：每个样本的“角度”取自输入缓冲区的首尾值与均值，推理前可选地休眠。
+ */
+class FakePoseEstimator extends BatchPoseEstimator<PoseInput> {
+
+    private static final int INPUT_SIZE = 16;
+
+    private final long sleepNanos;
+
+    FakePoseEstimator(long sleepMillis) {
+        this(sleepMillis, true);
+    }
+
+    FakePoseEstimator(long sleepMillis, boolean leakDetection) {
+        super("fake", new RoiPreprocessor(INPUT_SIZE,
+                RoiPreprocessor.IMAGENET_MEAN_RGB, RoiPreprocessor.IMAGENET_STD_RGB), Integer.MAX_VALUE, leakDetection);
+        sleepNanos = TimeUnit.MILLISECONDS.toNanos(sleepMillis);
+    }
+
+    @Override
+    protected PoseInput createInput(int batchSize) {
+        return new PoseInput(batchSize, getInputSize());
+    }
+
+    @Override
+    protected void forward(PoseInput input, float[] degrees) {
+        if (sleepNanos > 0) {
+            LockSupport.parkNanos(sleepNanos);
+        }
+        int stride = input.sampleSize();
+        for (int i = 0; i < input.count; i++) {
+            float sum = 0;
+            for (int j = 0; j < stride; j++) {
+                sum += input.buffer.get(i * stride + j);
+            }
+            degrees[i * 3] = input.buffer.get(i * stride);
+            degrees[i * 3 + 1] = input.buffer.get(i * stride + stride - 1);
+            degrees[i * 3 + 2] = sum / stride;
+        }
+    }
+}
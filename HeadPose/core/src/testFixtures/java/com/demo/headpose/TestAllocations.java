@@ -0,0 +1,46 @@
+package com.demo.headpose;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 测试用的按线程堆分配计数（HotSpot 的 com.sun.management.ThreadMXBean），JVM 不支持时跳过测试。
+ */
+final class TestAllocations {
+
+    private TestAllocations() {
+    }
+
+    /**
+     * 打开按线程的分配计数
+     */
+    static com.sun.management.ThreadMXBean counter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * 当前线程执行 action 期间分配的字节数，已扣除读取计数本身的分配。
+     * action 应先在测试里预热，排除类加载与编译期间的分配
+     */
+    static long allocatedBytes(Runnable action) {
+        com.sun.management.ThreadMXBean threads = counter();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long calibration = threads.getThreadAllocatedBytes(threadId) - before;
+        before = threads.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threads.getThreadAllocatedBytes(threadId) - before - calibration;
+    }
+
+    static void assertNoAllocation(String message, Runnable action) {
+        assertEquals(message, 0, allocatedBytes(action));
+    }
+}
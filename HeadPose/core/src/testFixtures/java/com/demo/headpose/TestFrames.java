@@ -0,0 +1,55 @@
+package com.demo.headpose;
+
+import java.util.Random;
+
+/**
+ * 测试用的合成 YUV 帧与浮点参考转换。
+ */
+final class TestFrames {
+
+    private TestFrames() {
+    }
+
+    /**
+     * 生成随机内容的帧，填充区域也写入随机值，用于发现 stride 处理错误
+     */
+    static YuvFrame random(int width, int height, int yRowStride, int uvRowStride, int uvPixelStride, Random random) {
+        YuvFrame frame = new YuvFrame();
+        frame.width = width;
+        frame.height = height;
+        frame.yRowStride = yRowStride;
+        frame.uvRowStride = uvRowStride;
+        frame.uvPixelStride = uvPixelStride;
+
+        frame.y = new byte[yRowStride * (height - 1) + width];
+        random.nextBytes(frame.y);
+
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int uvSize = uvRowStride * (chromaHeight - 1) + (chromaWidth - 1) * uvPixelStride + 1;
+        frame.u = new byte[uvSize];
+        frame.v = new byte[uvSize];
+        random.nextBytes(frame.u);
+        random.nextBytes(frame.v);
+        return frame;
+    }
+
+    /**
+     * 浮点版 JFIF YCbCr → ARGB，作为定点实现的参考
+     */
+    static int referenceArgb(YuvFrame frame, int x, int y) {
+        int uvIndex = (y / 2) * frame.uvRowStride + (x / 2) * frame.uvPixelStride;
+        double luma = frame.y[y * frame.yRowStride + x] & 0xFF;
+        double cb = (frame.u[uvIndex] & 0xFF) - 128;
+        double cr = (frame.v[uvIndex] & 0xFF) - 128;
+
+        int r = clamp(luma + 1.402 * cr);
+        int g = clamp(luma - 0.344136 * cb - 0.714136 * cr);
+        int b = clamp(luma + 1.772 * cb);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}
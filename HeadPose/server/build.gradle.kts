@@ -0,0 +1,39 @@
+plugins {
+    application
+}
+
+// 无界面的多路推理服务器：复用 :core 的预处理、姿态数学与线路格式，在桌面 JVM 上运行
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+application {
+    mainClass = "com.demo.headpose.ServerMain"
+}
+
+dependencies {
+    implementation(project(":core"))
+    // 带 Linux / macOS / Windows 原生库的 JVM 版 ONNX Runtime
+    implementation(libs.onnxruntime)
+    testImplementation(libs.junit)
+}
+
+// ./gradlew :server:run --args="--model ../app/src/main/assets/fsanet.onnx --workers 8"
+tasks.named<JavaExec>("run") {
+    workingDir = projectDir
+}
+
+// 吞吐随工作线程数的变化：./gradlew :server:loadTest [-PloadTestArgs="--seconds 10 --max-workers 16"]
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the load generator against in-process servers with 1, 2, 4 ... workers"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.demo.headpose.ServerLoadGenerator"
+    val extra = providers.gradleProperty("loadTestArgs").map { it.split(" ").filter(String::isNotBlank) }
+    args = listOf("--model", rootProject.file("app/src/main/assets/fsanet.onnx").path) + extra.getOrElse(emptyList())
+}
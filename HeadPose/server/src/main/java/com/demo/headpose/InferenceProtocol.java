@@ -0,0 +1,171 @@
+package com.demo.headpose;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 推理服务器的上行协议（生产者 → 服务器，TCP，小端序）。一条连接就是一路视频流，结果按发送顺序返回。
+ * <p>
+ * 连接建立后生产者先发 16 字节握手 [magic "HPIS", version, 返回格式（0 二进制、1 文本）, 保留]，
+ * 之后每帧为 88 字节帧头加上按原 stride 保存的三个 YUV 平面（与 FrameRecorder 相同，不做转换）：
+ * <pre>
+ * 0   int   消息总长度（含帧头）
+ * 4   int   flags（FLAG_MIRROR）
+ * 8   long  sequence
+ * 16  long  timestampNanos
+ * 24  int   width, height, yRowStride, uvRowStride, uvPixelStride
+ * 44  int   人脸框 left, top, right, bottom（整张人脸裁剪图时为 0, 0, width, height）
+ * 60  float lx, ly, rx, ry（双眼位置，原样返回）
+ * 76  int   Y 长度, U 长度, V 长度
+ * </pre>
+ * 返回的每条结果就是手机端 SocketManager 的线路格式（PoseRecord）：sequence 与 timestampNanos 取自请求，
+ * 人脸框与画面无交集时角度为 NaN。
+ */
+public final class InferenceProtocol {
+
+    public static final int MAGIC = 0x53495048; // "HPIS"
+    public static final int VERSION = 1;
+    public static final int HELLO_SIZE = 16;
+    public static final int HEADER_SIZE = 88;
+    public static final int FLAG_MIRROR = 1;
+    // 单帧上限，防止错误的长度字段让服务器分配过大的缓冲区
+    public static final int MAX_MESSAGE_SIZE = 32 << 20;
+
+    private InferenceProtocol() {
+    }
+
+    public static void writeHello(ByteBuffer dst, PoseStreamWriter.Format format) {
+        ByteOrder order = dst.order();
+        dst.order(ByteOrder.LITTLE_ENDIAN);
+        dst.putInt(MAGIC).putInt(VERSION).putInt(format.ordinal()).putInt(0);
+        dst.order(order);
+    }
+
+    /**
+     * @return 生产者要求的返回格式
+     * @throws IOException magic、版本或格式不对
+     */
+    public static PoseStreamWriter.Format readHello(ByteBuffer src) throws IOException {
+        ByteOrder order = src.order();
+        src.order(ByteOrder.LITTLE_ENDIAN);
+        int magic = src.getInt();
+        int version = src.getInt();
+        int format = src.getInt();
+        src.getInt();
+        src.order(order);
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException(String.format("Bad hello: magic %08x version %d", magic, version));
+        }
+        PoseStreamWriter.Format[] formats = PoseStreamWriter.Format.values();
+        if (format < 0 || format >= formats.length) {
+            throw new IOException("Bad response format " + format);
+        }
+        return formats[format];
+    }
+
+    /**
+     * 写入帧头，三个平面的长度取 y、u、v 数组中实际使用的字节数
+     */
+    public static void writeHeader(ByteBuffer dst, int flags, long sequence, long timestampNanos, YuvFrame frame,
+                                   int yLength, int uLength, int vLength,
+                                   int left, int top, int right, int bottom,
+                                   float lx, float ly, float rx, float ry) {
+        ByteOrder order = dst.order();
+        dst.order(ByteOrder.LITTLE_ENDIAN);
+        dst.putInt(HEADER_SIZE + yLength + uLength + vLength).putInt(flags)
+                .putLong(sequence).putLong(timestampNanos)
+                .putInt(frame.width).putInt(frame.height)
+                .putInt(frame.yRowStride).putInt(frame.uvRowStride).putInt(frame.uvPixelStride)
+                .putInt(left).putInt(top).putInt(right).putInt(bottom)
+                .putFloat(lx).putFloat(ly).putFloat(rx).putFloat(ry)
+                .putInt(yLength).putInt(uLength).putInt(vLength);
+        dst.order(order);
+    }
+
+    /**
+     * 读取一帧到 request（复用其中的平面数组）
+     * @param header 容量至少 HEADER_SIZE 的小端序缓冲区
+     * @return 对端正常关闭（帧边界上的 EOF）时返回 false
+     * @throws IOException 帧头不合法或帧中途断开
+     */
+    public static boolean readRequest(ReadableByteChannel channel, ByteBuffer header, InferenceRequest request)
+            throws IOException {
+        header.clear().limit(HEADER_SIZE);
+        if (!readFully(channel, header, true)) {
+            return false;
+        }
+        header.flip();
+        int size = header.getInt();
+        request.flags = header.getInt();
+        request.sequence = header.getLong();
+        request.timestampNanos = header.getLong();
+        YuvFrame frame = request.frame;
+        frame.width = header.getInt();
+        frame.height = header.getInt();
+        frame.yRowStride = header.getInt();
+        frame.uvRowStride = header.getInt();
+        frame.uvPixelStride = header.getInt();
+        request.left = header.getInt();
+        request.top = header.getInt();
+        request.right = header.getInt();
+        request.bottom = header.getInt();
+        request.lx = header.getFloat();
+        request.ly = header.getFloat();
+        request.rx = header.getFloat();
+        request.ry = header.getFloat();
+        int yLength = header.getInt();
+        int uLength = header.getInt();
+        int vLength = header.getInt();
+        if (yLength < 0 || uLength < 0 || vLength < 0 || size > MAX_MESSAGE_SIZE
+                || (long) HEADER_SIZE + yLength + uLength + vLength != size
+                || frame.width <= 0 || frame.height <= 0
+                || (long) frame.yRowStride * frame.height > yLength) {
+            throw new IOException("Bad frame header: size " + size + ", " + frame.width + "x" + frame.height);
+        }
+        frame.y = readPlane(channel, frame.y, yLength);
+        frame.u = readPlane(channel, frame.u, uLength);
+        frame.v = readPlane(channel, frame.v, vLength);
+        return true;
+    }
+
+    /**
+     * 写出 buffers 中剩余的全部字节（阻塞通道）
+     */
+    public static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 读满 buffer
+     * @param eofAllowed 一个字节都没读到就遇到 EOF 时返回 false，而不是抛出 EOFException
+     */
+    public static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean eofAllowed)
+            throws IOException {
+        boolean empty = true;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (empty && eofAllowed) {
+                    return false;
+                }
+                throw new EOFException("Connection closed mid-message");
+            }
+            empty = false;
+        }
+        return true;
+    }
+
+    // 平面数组容量不足时才重新分配
+    private static byte[] readPlane(ReadableByteChannel channel, byte[] plane, int length) throws IOException {
+        if (plane.length < length) {
+            plane = new byte[length];
+        }
+        readFully(channel, ByteBuffer.wrap(plane, 0, length), false);
+        return plane;
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.headpose;
+
+/**
+ * 一帧推理请求，在所属连接的环形槽位中复用：读线程填入帧与人脸框，工作线程写入角度后标记完成。
+ */
+final class InferenceRequest {
+
+    final StreamConnection connection;
+    final YuvFrame frame = new YuvFrame();
+
+    int flags;
+    long sequence;
+    long timestampNanos;
+    int left;
+    int top;
+    int right;
+    int bottom;
+    float lx;
+    float ly;
+    float rx;
+    float ry;
+    // 服务器收齐这一帧的时间，用于统计排队 + 推理的耗时
+    long receivedNanos;
+
+    // yaw, pitch, roll，由工作线程写入
+    final float[] degree = new float[3];
+    // 工作线程写完结果后置位，发布前由 StreamConnection 清除
+    volatile boolean done;
+
+    InferenceRequest(StreamConnection connection) {
+        this.connection = connection;
+    }
+
+    boolean mirror() {
+        return (flags & InferenceProtocol.FLAG_MIRROR) != 0;
+    }
+}
@@ -0,0 +1,298 @@
+package com.demo.headpose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无界面的多路头姿推理服务器（桌面 JVM）。
+ * <p>
+ * 每个工作线程持有自己的模型实例（在该线程上创建，只在该线程上使用），从共享的请求队列取帧，
+ * 用与手机端相同的 ROI 预处理和模型输出解码（RotationMath.rotationToEuler）推理后交回所属连接；
+ * 连接负责按帧的到达顺序返回结果（见 StreamConnection）。一路流的帧可以同时在多个工作线程上推理，
+ * 因此单路高帧率与多路低帧率都能用满所有工作线程。
+ * <p>
+ * 工作线程数 × 每个模型的算子内线程数不宜超过 CPU 核数；默认每个模型单线程，吞吐随工作线程数扩展。
+ */
+public class InferenceServer implements Closeable {
+
+    /**
+     * 为一个工作线程创建模型实例，在该工作线程上调用
+     */
+    public interface EstimatorFactory {
+        PoseEstimator create(int worker) throws Exception;
+    }
+
+    /**
+     * 连接与错误通知，在读线程或工作线程上回调
+     */
+    public interface Listener {
+        default void onConnected(SocketAddress remote) {
+        }
+
+        /**
+         * @param error 正常断开时为 null
+         */
+        default void onDisconnected(SocketAddress remote, long frames, Throwable error) {
+        }
+
+        default void onInferenceError(Throwable error) {
+        }
+    }
+
+    public static final int DEFAULT_SLOTS_PER_STREAM = 8;
+
+    private final InetSocketAddress address;
+    private final int workerCount;
+    private final int slotsPerStream;
+    private final EstimatorFactory factory;
+    private final Listener listener;
+
+    private final BlockingQueue<InferenceRequest> queue;
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<StreamConnection> connections = new CopyOnWriteArrayList<>();
+    // 从收齐一帧到结果交给写线程的耗时（排队 + 预处理 + 推理）
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+    private volatile boolean running;
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @param slotsPerStream 每路流同时在服务器上的最大帧数
+     */
+    public InferenceServer(InetSocketAddress address, int workers, int slotsPerStream,
+                           EstimatorFactory factory, Listener listener) {
+        if (workers < 1 || slotsPerStream < 1) {
+            throw new IllegalArgumentException("Bad server parameters: " + workers + " workers, "
+                    + slotsPerStream + " slots");
+        }
+        this.address = address;
+        this.workerCount = workers;
+        this.slotsPerStream = slotsPerStream;
+        this.factory = factory;
+        this.listener = listener;
+        // 每路流最多 slotsPerStream 帧在服务器上，队列只是为读线程提供余量
+        queue = new ArrayBlockingQueue<>(Math.max(64, workers * slotsPerStream * 4));
+    }
+
+    /**
+     * 在各工作线程上加载模型，全部成功后开始监听
+     * @throws Exception 任一模型加载失败（已加载的会被释放）
+     */
+    public void start() throws Exception {
+        running = true;
+        CountDownLatch loaded = new CountDownLatch(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(i, loaded);
+            workers.add(worker);
+            worker.thread.start();
+        }
+        loaded.await();
+        for (Worker worker : workers) {
+            if (worker.loadError != null) {
+                close();
+                throw worker.loadError;
+            }
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        acceptThread = new Thread(this::acceptLoop, "inference-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                StreamConnection connection = new StreamConnection(this, channel, slotsPerStream);
+                connections.add(connection);
+                listener.onConnected(connection.getRemoteAddress());
+                connection.start();
+            } catch (IOException e) {
+                if (running) {
+                    listener.onInferenceError(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 读线程提交一帧，队列满时阻塞
+     * @return 服务器已关闭时返回 false
+     */
+    boolean submit(InferenceRequest request) {
+        try {
+            queue.put(request);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void onClosed(StreamConnection connection, Throwable error) {
+        connections.remove(connection);
+        listener.onDisconnected(connection.getRemoteAddress(), connection.getReceivedCount(), error);
+    }
+
+    /**
+     * 停止监听、断开所有连接并释放模型
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (serverChannel != null) {
+            try {
+                serverChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        for (StreamConnection connection : connections) {
+            connection.close();
+        }
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 各工作线程推理过的帧数，用于检查负载是否均衡
+     */
+    public long[] getWorkerFrameCounts() {
+        long[] counts = new long[workers.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = workers.get(i).frames;
+        }
+        return counts;
+    }
+
+    /**
+     * 所有工作线程推理过的帧数
+     */
+    public long getFrameCount() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.frames;
+        }
+        return total;
+    }
+
+    /**
+     * 预处理或推理抛出异常的帧数（这些帧返回 NaN）
+     */
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    private final class Worker implements Runnable {
+        final int index;
+        final Thread thread;
+        final CountDownLatch loaded;
+        volatile Exception loadError;
+        volatile long frames;
+
+        Worker(int index, CountDownLatch loaded) {
+            this.index = index;
+            this.loaded = loaded;
+            thread = new Thread(this, "inference-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            PoseEstimator estimator;
+            try {
+                estimator = factory.create(index);
+                estimator.setMaxBatchSize(1);
+            } catch (Exception e) {
+                loadError = e;
+                return;
+            } finally {
+                loaded.countDown();
+            }
+            try {
+                while (running) {
+                    InferenceRequest request;
+                    try {
+                        request = queue.take();
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    infer(estimator, request);
+                    latency.recordSince(request.receivedNanos);
+                    frames++;
+                    request.connection.complete(request);
+                }
+            } finally {
+                estimator.close();
+            }
+        }
+
+        private void infer(PoseEstimator estimator, InferenceRequest request) {
+            float[] degree = request.degree;
+            Pooled<? extends PoseInput> input = null;
+            try {
+                input = estimator.preprocess(request.frame,
+                        request.left, request.top, request.right, request.bottom, request.mirror());
+                if (input != null) {
+                    estimator.infer(input.get(), degree);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // 平面长度与 stride 不符等坏数据只影响这一帧
+                errors.incrementAndGet();
+                listener.onInferenceError(e);
+            } finally {
+                if (input != null) {
+                    input.release();
+                }
+            }
+            degree[0] = Float.NaN;
+            degree[1] = Float.NaN;
+            degree[2] = Float.NaN;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 推理服务器的负载生成器：多路生产者各自以固定的在途窗口连续发送人脸裁剪图（I420），
+ * 统计返回结果的吞吐与往返延迟，并检查每路结果的序号是否与发送顺序一致。
+ * <p>
+ * 默认模式在进程内依次以 1, 2, 4 … 个工作线程（每个模型单线程）启动服务器，每档用 2 × 工作线程数路流压测，
+ * 打印吞吐随核数的变化，例如：
+ * <pre>
+ * java -cp server.jar com.demo.headpose.ServerLoadGenerator --model fsanet.onnx --seconds 5
+ * </pre>
+ * 生产者与服务器在同一台机器上会占用少量 CPU；要测单独的服务器，用 --connect host:port --streams N。
+ */
+public final class ServerLoadGenerator {
+
+    /**
+     * 一次压测的结果
+     */
+    public static final class Result {
+        public final int streams;
+        public final long frames;
+        public final double seconds;
+        public final long outOfOrder;
+        public final long p50Nanos;
+        public final long p99Nanos;
+
+        Result(int streams, long frames, double seconds, long outOfOrder, long p50Nanos, long p99Nanos) {
+            this.streams = streams;
+            this.frames = frames;
+            this.seconds = seconds;
+            this.outOfOrder = outOfOrder;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public double framesPerSecond() {
+            return frames / seconds;
+        }
+    }
+
+    private ServerLoadGenerator() {
+    }
+
+    /**
+     * 用 streams 路流压测 durationMillis 毫秒
+     * @param cropSize 人脸裁剪图边长
+     * @param window   每路流的在途帧数
+     */
+    public static Result run(InetSocketAddress server, int streams, long durationMillis, int cropSize, int window)
+            throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong frames = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + durationMillis * 1_000_000L;
+        for (int i = 0; i < streams; i++) {
+            int stream = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    produce(server, stream, deadline, cropSize, window, latency, frames, outOfOrder);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "producer-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        latency.copyCounts(counts);
+        return new Result(streams, frames.get(), seconds, outOfOrder.get(),
+                LatencyHistogram.valueAtPercentile(counts, 50), LatencyHistogram.valueAtPercentile(counts, 99));
+    }
+
+    private static void produce(InetSocketAddress server, int stream, long deadline, int cropSize, int window,
+                                LatencyHistogram latency, AtomicLong frames, AtomicLong outOfOrder) throws IOException {
+        // 每路流一张固定的随机裁剪图，只改帧头中的序号与时间戳
+        YuvFrame crop = new YuvFrame();
+        crop.width = cropSize;
+        crop.height = cropSize;
+        crop.yRowStride = cropSize;
+        crop.uvRowStride = cropSize / 2;
+        crop.uvPixelStride = 1;
+        int ySize = cropSize * cropSize;
+        int uvSize = ySize / 4;
+        byte[] pixels = new byte[ySize + 2 * uvSize];
+        new Random(stream).nextBytes(pixels);
+
+        ByteBuffer message = ByteBuffer.allocateDirect(InferenceProtocol.HEADER_SIZE + pixels.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        InferenceProtocol.writeHeader(message, 0, 0, 0, crop, ySize, uvSize, uvSize,
+                0, 0, cropSize, cropSize, 0, 0, 0, 0);
+        message.put(pixels).flip();
+        ByteBuffer response = ByteBuffer.allocateDirect(PoseRecord.BINARY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        PoseRecord record = new PoseRecord();
+
+        try (SocketChannel channel = SocketChannel.open(server)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer hello = ByteBuffer.allocate(InferenceProtocol.HELLO_SIZE);
+            InferenceProtocol.writeHello(hello, PoseStreamWriter.Format.BINARY);
+            hello.flip();
+            InferenceProtocol.writeFully(channel, hello);
+
+            long sent = 0;
+            long expected = 0;
+            while (true) {
+                while (sent - expected < window && System.nanoTime() < deadline) {
+                    message.putLong(8, sent++).putLong(16, System.nanoTime()).rewind();
+                    InferenceProtocol.writeFully(channel, message);
+                }
+                if (sent == expected) {
+                    break; // 到时且在途帧都已返回
+                }
+                response.clear();
+                InferenceProtocol.readFully(channel, response, false);
+                response.flip();
+                record.readBinary(response);
+                latency.recordSince(record.timestampNanos);
+                if (record.sequence != expected) {
+                    outOfOrder.incrementAndGet();
+                }
+                expected++;
+                frames.incrementAndGet();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String model = null;
+        String connect = null;
+        int streams = 0;
+        long seconds = 5;
+        int cropSize = 112;
+        int window = 4;
+        int maxWorkers = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model":
+                    model = args[++i];
+                    break;
+                case "--connect":
+                    connect = args[++i];
+                    break;
+                case "--streams":
+                    streams = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--crop":
+                    cropSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--window":
+                    window = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-workers":
+                    maxWorkers = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    usage("Unknown option " + args[i]);
+            }
+        }
+
+        if (connect != null) {
+            int colon = connect.lastIndexOf(':');
+            InetSocketAddress address = new InetSocketAddress(connect.substring(0, colon),
+                    Integer.parseInt(connect.substring(colon + 1)));
+            print(0, run(address, Math.max(1, streams), seconds * 1000, cropSize, window), 0);
+            return;
+        }
+        if (model == null) {
+            usage("--model or --connect is required");
+        }
+
+        System.out.printf(Locale.ROOT, "%d cores, crop %dx%d, window %d, %d s per step%n",
+                Runtime.getRuntime().availableProcessors(), cropSize, cropSize, window, seconds);
+        // 1, 2, 4 … 直到 maxWorkers（不是 2 的幂时最后一档为 maxWorkers）
+        List<Integer> steps = new ArrayList<>();
+        for (int workers = 1; workers < maxWorkers; workers *= 2) {
+            steps.add(workers);
+        }
+        steps.add(maxWorkers);
+        double baseline = 0;
+        for (int workers : steps) {
+            InferenceServer server = new InferenceServer(new InetSocketAddress("127.0.0.1", 0), workers,
+                    InferenceServer.DEFAULT_SLOTS_PER_STREAM, ServerMain.onnxFactory(model, 1),
+                    new InferenceServer.Listener() {
+                    });
+            server.start();
+            try {
+                InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+                int stepStreams = streams > 0 ? streams : 2 * workers;
+                run(address, stepStreams, 1000, cropSize, window); // 预热
+                Result result = run(address, stepStreams, seconds * 1000, cropSize, window);
+                if (baseline == 0) {
+                    baseline = result.framesPerSecond();
+                }
+                print(workers, result, result.framesPerSecond() / baseline);
+            } finally {
+                server.close();
+            }
+        }
+    }
+
+    private static void print(int workers, Result result, double speedup) {
+        System.out.printf(Locale.ROOT, "workers %2d  streams %2d  %9.1f frames/s  speedup %5.2fx  "
+                        + "latency p50 %6.2f ms p99 %6.2f ms  out of order %d%n",
+                workers, result.streams, result.framesPerSecond(), speedup,
+                result.p50Nanos / 1e6, result.p99Nanos / 1e6, result.outOfOrder);
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ServerLoadGenerator --model <model.onnx> [--max-workers <cores>] [--seconds 5]"
+                + " [--crop 112] [--window 4] [--streams <2 x workers>]");
+        System.err.println("       ServerLoadGenerator --connect host:port --streams N [--seconds 5]");
+        System.exit(2);
+    }
+}
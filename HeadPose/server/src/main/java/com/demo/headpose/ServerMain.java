@@ -0,0 +1,109 @@
+package com.demo.headpose;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推理服务器入口，例如：
+ * <pre>
+ * java -jar server.jar --model fsanet.onnx --port 5001 --workers 8 --threads 1
+ * </pre>
+ * 模型为 ONNX（与手机端 --es backend onnx 相同的 fsanet.onnx），每个工作线程加载一份。
+ * 每隔 --report 秒打印吞吐、服务器内延迟分位数与各工作线程的帧数。
+ */
+public final class ServerMain {
+
+    private ServerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String model = null;
+        int port = 5001;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int threads = 1;
+        int slots = InferenceServer.DEFAULT_SLOTS_PER_STREAM;
+        int reportSeconds = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--model":
+                    model = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--slots":
+                    slots = Integer.parseInt(args[++i]);
+                    break;
+                case "--report":
+                    reportSeconds = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    usage("Unknown option " + args[i]);
+            }
+        }
+        if (model == null) {
+            usage("--model is required");
+        }
+
+        InferenceServer server = new InferenceServer(new InetSocketAddress(port), workers, slots,
+                onnxFactory(model, threads), new InferenceServer.Listener() {
+            @Override
+            public void onConnected(SocketAddress remote) {
+                System.out.println("Stream connected: " + remote);
+            }
+
+            @Override
+            public void onDisconnected(SocketAddress remote, long frames, Throwable error) {
+                System.out.println("Stream closed: " + remote + " after " + frames + " frames"
+                        + (error != null ? " (" + error + ")" : ""));
+            }
+
+            @Override
+            public void onInferenceError(Throwable error) {
+                System.err.println("Inference error: " + error);
+            }
+        });
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf(Locale.ROOT, "Listening on %d: %d workers x %d threads, model %s%n",
+                server.getPort(), workers, threads, model);
+
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        long lastFrames = 0;
+        while (true) {
+            TimeUnit.SECONDS.sleep(reportSeconds);
+            long frames = server.getFrameCount();
+            server.getLatency().copyCounts(counts);
+            System.out.printf(Locale.ROOT, "streams %d  %.1f frames/s  latency p50 %.2f ms p99 %.2f ms  errors %d  per worker %s%n",
+                    server.getConnectionCount(), (frames - lastFrames) / (double) reportSeconds,
+                    LatencyHistogram.valueAtPercentile(counts, 50) / 1e6,
+                    LatencyHistogram.valueAtPercentile(counts, 99) / 1e6,
+                    server.getErrorCount(), Arrays.toString(server.getWorkerFrameCounts()));
+            lastFrames = frames;
+        }
+    }
+
+    /**
+     * 每个工作线程一个 ONNX Runtime 会话
+     * @param threads 每个会话的算子内线程数
+     */
+    static InferenceServer.EstimatorFactory onnxFactory(String modelPath, int threads) {
+        return worker -> new OnnxPoseEstimator(modelPath, threads, false);
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ServerMain --model <model.onnx> [--port 5001] [--workers <cores>] [--threads 1]"
+                + " [--slots " + InferenceServer.DEFAULT_SLOTS_PER_STREAM + "] [--report 5]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,175 @@
+package com.demo.headpose;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 推理服务器上的一路视频流（一条 TCP 连接）。
+ * <p>
+ * 读线程把帧读进环形排列的请求槽位后交给服务器的工作线程池，槽位用完时停止读取（TCP 流控把压力传回生产者）。
+ * 各帧可能在不同的工作线程上乱序完成；完成的线程在连接的锁内从队首起按到达顺序发布连续完成的结果，
+ * 因此结果的顺序与帧的顺序一致。结果经 PoseStreamWriter 的写线程发送，工作线程不会被慢客户端阻塞。
+ */
+final class StreamConnection {
+
+    // 写线程待发送的结果数，超出时丢弃并计数（客户端读得太慢）
+    private static final int RESULT_CAPACITY = 1024;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final InferenceServer server;
+    private final SocketChannel channel;
+    private final SocketAddress remote;
+    private final InferenceRequest[] slots;
+    private final Thread reader;
+
+    // head：下一个要发布的槽位（只在锁内推进）；tail：下一个要填入的槽位（只由读线程推进）
+    private volatile long head;
+    private volatile long tail;
+    private volatile boolean readerWaiting;
+
+    private PoseStreamWriter writer;
+
+    StreamConnection(InferenceServer server, SocketChannel channel, int slotCount) throws IOException {
+        this.server = server;
+        this.channel = channel;
+        this.remote = channel.getRemoteAddress();
+        slots = new InferenceRequest[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new InferenceRequest(this);
+        }
+        reader = new Thread(this::run, "stream-" + remote);
+        reader.setDaemon(true);
+    }
+
+    void start() {
+        reader.start();
+    }
+
+    /**
+     * 关闭连接，读线程随之退出
+     */
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    SocketAddress getRemoteAddress() {
+        return remote;
+    }
+
+    /**
+     * 已收到的帧数
+     */
+    long getReceivedCount() {
+        return tail;
+    }
+
+    /**
+     * 因客户端读得太慢被丢弃的结果数
+     */
+    long getDroppedCount() {
+        PoseStreamWriter current = writer;
+        return current == null ? 0 : current.getDroppedCount();
+    }
+
+    private void run() {
+        Throwable error = null;
+        try {
+            ByteBuffer hello = ByteBuffer.allocate(InferenceProtocol.HELLO_SIZE);
+            InferenceProtocol.readFully(channel, hello, false);
+            hello.flip();
+            writer = new PoseStreamWriter(new SpscPoseRing(RESULT_CAPACITY), InferenceProtocol.readHello(hello),
+                    new PoseStreamWriter.Sink() {
+                        @Override
+                        public void write(ByteBuffer frame) throws IOException {
+                            InferenceProtocol.writeFully(channel, frame);
+                        }
+
+                        @Override
+                        public void onError(IOException e) {
+                            close();
+                        }
+                    });
+            writer.start();
+
+            ByteBuffer header = ByteBuffer.allocateDirect(InferenceProtocol.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (true) {
+                InferenceRequest request = awaitFreeSlot();
+                if (request == null || !InferenceProtocol.readRequest(channel, header, request)) {
+                    break;
+                }
+                request.receivedNanos = System.nanoTime();
+                // 先推进 tail 再提交：完成的工作线程一定能看到这个槽位
+                tail = tail + 1;
+                if (!server.submit(request)) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        } finally {
+            // 已提交的帧照常推理并发送，之后才关闭写线程与连接
+            awaitDrained();
+            if (writer != null) {
+                writer.stop();
+            }
+            close();
+            server.onClosed(this, error);
+        }
+    }
+
+    private InferenceRequest awaitFreeSlot() {
+        while (tail - head >= slots.length) {
+            if (!server.isRunning()) {
+                return null;
+            }
+            // 先声明要休眠再检查一次，避免错过工作线程的唤醒
+            readerWaiting = true;
+            if (tail - head >= slots.length) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            readerWaiting = false;
+        }
+        return slots[(int) (tail % slots.length)];
+    }
+
+    private void awaitDrained() {
+        while (head < tail && server.isRunning()) {
+            readerWaiting = true;
+            if (head < tail) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            readerWaiting = false;
+        }
+    }
+
+    /**
+     * 工作线程写完 request 的结果后调用：按到达顺序发布队首起连续完成的结果。
+     * 发布都在锁内进行，对 PoseStreamWriter 而言仍然只有一个生产者
+     */
+    void complete(InferenceRequest request) {
+        request.done = true;
+        synchronized (this) {
+            while (head < tail) {
+                InferenceRequest next = slots[(int) (head % slots.length)];
+                if (!next.done) {
+                    break;
+                }
+                next.done = false;
+                writer.publish(next.sequence, next.timestampNanos,
+                        next.degree[0], next.degree[1], next.degree[2], next.lx, next.ly, next.rx, next.ry);
+                head = head + 1;
+            }
+        }
+        if (readerWaiting) {
+            LockSupport.unpark(reader);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.demo.headpose;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * InferenceServer：用替身模型（随机耗时，输出取决于输入像素）检查多工作线程下每路结果的顺序与内容、
+ * 坏帧与坏握手的处理，以及负载生成器。
+ */
+public class InferenceServerTest {
+
+    private static final int CROP = 32;
+    private static final float[] MEAN = {0.5f, 0.5f, 0.5f};
+    private static final float[] STD = {0.5f, 0.5f, 0.5f};
+
+    private InferenceServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void resultsFollowFrameOrderPerStream() throws Exception {
+        start(4);
+        int streams = 3;
+        int frames = 200;
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int s = 0; s < streams; s++) {
+            int stream = s;
+            Thread thread = new Thread(() -> {
+                try {
+                    checkStream(stream, frames);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertEquals(Arrays.asList(), failures);
+        assertEquals(streams * frames, server.getFrameCount());
+        // 帧分散到了多个工作线程上
+        long busy = Arrays.stream(server.getWorkerFrameCounts()).filter(count -> count > 0).count();
+        assertTrue("busy workers " + busy, busy > 1);
+        assertEquals(streams * frames, server.getLatency().getCount());
+    }
+
+    // 每帧的亮度由序号决定，结果必须对应同一帧且按序返回
+    private void checkStream(int stream, int frames) throws IOException {
+        FakeEstimator reference = new FakeEstimator(0);
+        float[] expected = new float[3];
+        try (SocketChannel channel = connect(PoseStreamWriter.Format.BINARY)) {
+            Thread sender = new Thread(() -> {
+                try {
+                    for (int i = 0; i < frames; i++) {
+                        send(channel, crop(brightness(stream, i)), i, 1000L + i, 0, 0, CROP, CROP, stream);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            sender.start();
+            PoseRecord record = new PoseRecord();
+            for (int i = 0; i < frames; i++) {
+                receive(channel, record);
+                assertEquals(i, record.sequence);
+                assertEquals(1000L + i, record.timestampNanos);
+                reference.estimate(crop(brightness(stream, i)), expected);
+                assertEquals(expected[0], record.values[0], 0);
+                assertEquals(stream, record.values[3], 0);
+            }
+        }
+    }
+
+    @Test
+    public void boxOutsideFrameReturnsNaNInTextFormat() throws Exception {
+        start(2);
+        try (SocketChannel channel = connect(PoseStreamWriter.Format.TEXT)) {
+            send(channel, crop(100), 0, 0, 2 * CROP, 2 * CROP, 3 * CROP, 3 * CROP, 1);
+            send(channel, crop(100), 1, 0, 0, 0, CROP, CROP, 2);
+            ByteBuffer text = ByteBuffer.allocate(256);
+            while (count(text, '\n') < 2) {
+                assertTrue(channel.read(text) > 0);
+            }
+            String[] lines = new String(text.array(), 0, text.position(), StandardCharsets.US_ASCII).split("\n");
+            assertTrue(lines[0], lines[0].startsWith("NaN NaN NaN 1.00 "));
+            assertFalse(lines[1], lines[1].contains("NaN"));
+            assertTrue(lines[1], lines[1].endsWith(" 2.00 2.00 2.00 2.00"));
+        }
+    }
+
+    @Test
+    public void badInputClosesOnlyThatStream() throws Exception {
+        start(1);
+        try (SocketChannel bad = SocketChannel.open(address());
+             SocketChannel good = connect(PoseStreamWriter.Format.BINARY)) {
+            ByteBuffer hello = ByteBuffer.allocate(InferenceProtocol.HELLO_SIZE);
+            hello.putInt(0x12345678).putInt(InferenceProtocol.VERSION).putInt(0).putInt(0).flip();
+            InferenceProtocol.writeFully(bad, hello);
+            assertClosed(bad);
+
+            // 平面长度与 stride 不符的帧头
+            ByteBuffer header = ByteBuffer.allocate(InferenceProtocol.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            InferenceProtocol.writeHeader(header, 0, 0, 0, crop(0), 10, 0, 0, 0, 0, CROP, CROP, 0, 0, 0, 0);
+            header.flip();
+            InferenceProtocol.writeFully(good, header);
+            InferenceProtocol.writeFully(good, ByteBuffer.allocate(10));
+            assertClosed(good);
+        }
+        // 服务器继续接受新的连接
+        try (SocketChannel channel = connect(PoseStreamWriter.Format.BINARY)) {
+            send(channel, crop(50), 7, 0, 0, 0, CROP, CROP, 0);
+            PoseRecord record = new PoseRecord();
+            receive(channel, record);
+            assertEquals(7, record.sequence);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getConnectionCount() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals(0, server.getConnectionCount());
+    }
+
+    @Test
+    public void loadGeneratorReportsOrderedThroughput() throws Exception {
+        start(2);
+        ServerLoadGenerator.Result result = ServerLoadGenerator.run(address(), 3, 300, 48, 4);
+        assertTrue(result.frames > 0);
+        assertEquals(0, result.outOfOrder);
+        assertEquals(server.getFrameCount(), result.frames);
+        assertTrue(result.p99Nanos >= result.p50Nanos);
+    }
+
+    private void start(int workers) throws Exception {
+        server = new InferenceServer(new InetSocketAddress("127.0.0.1", 0), workers,
+                InferenceServer.DEFAULT_SLOTS_PER_STREAM, FakeEstimator::new, new InferenceServer.Listener() {
+        });
+        server.start();
+    }
+
+    private InetSocketAddress address() {
+        return new InetSocketAddress("127.0.0.1", server.getPort());
+    }
+
+    private SocketChannel connect(PoseStreamWriter.Format format) throws IOException {
+        SocketChannel channel = SocketChannel.open(address());
+        ByteBuffer hello = ByteBuffer.allocate(InferenceProtocol.HELLO_SIZE);
+        InferenceProtocol.writeHello(hello, format);
+        hello.flip();
+        InferenceProtocol.writeFully(channel, hello);
+        return channel;
+    }
+
+    private static int brightness(int stream, int frame) {
+        return (frame * 7 + stream * 50) % 256;
+    }
+
+    // 亮度均匀的 I420 裁剪图
+    private static YuvFrame crop(int luma) {
+        YuvFrame frame = new YuvFrame();
+        frame.width = CROP;
+        frame.height = CROP;
+        frame.yRowStride = CROP;
+        frame.uvRowStride = CROP / 2;
+        frame.uvPixelStride = 1;
+        frame.y = new byte[CROP * CROP];
+        frame.u = new byte[CROP * CROP / 4];
+        frame.v = new byte[CROP * CROP / 4];
+        Arrays.fill(frame.y, (byte) luma);
+        Arrays.fill(frame.u, (byte) 128);
+        Arrays.fill(frame.v, (byte) 128);
+        return frame;
+    }
+
+    private static void send(SocketChannel channel, YuvFrame frame, long sequence, long timestampNanos,
+                             int left, int top, int right, int bottom, float eye) throws IOException {
+        ByteBuffer message = ByteBuffer.allocate(InferenceProtocol.HEADER_SIZE
+                + frame.y.length + frame.u.length + frame.v.length).order(ByteOrder.LITTLE_ENDIAN);
+        InferenceProtocol.writeHeader(message, 0, sequence, timestampNanos, frame,
+                frame.y.length, frame.u.length, frame.v.length, left, top, right, bottom, eye, eye, eye, eye);
+        message.put(frame.y).put(frame.u).put(frame.v).flip();
+        InferenceProtocol.writeFully(channel, message);
+    }
+
+    private static void receive(SocketChannel channel, PoseRecord record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PoseRecord.BINARY_SIZE);
+        InferenceProtocol.readFully(channel, buffer, false);
+        buffer.flip();
+        record.readBinary(buffer);
+    }
+
+    // 服务器关闭时接收缓冲区里还有未读的数据会发 RST，读到 EOF 或连接重置都算关闭
+    private static void assertClosed(SocketChannel channel) {
+        try {
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        } catch (IOException expected) {
+        }
+    }
+
+    private static int count(ByteBuffer buffer, char c) {
+        int count = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 替身模型：随机耗时 0 ~ 1 ms（打乱各工作线程的完成顺序），输出第一个与最后一个输入值
+     */
+    static final class FakeEstimator extends BatchPoseEstimator<PoseInput> {
+
+        FakeEstimator(int worker) {
+            super("fake", new RoiPreprocessor(16, MEAN, STD, true, false), 1, false);
+        }
+
+        void estimate(YuvFrame frame, float[] degree) {
+            Pooled<PoseInput> input = preprocess(frame, 0, 0, frame.width, frame.height, false);
+            forward(input.get(), degree);
+            input.release();
+        }
+
+        @Override
+        protected PoseInput createInput(int batchSize) {
+            return new PoseInput(batchSize, getInputSize());
+        }
+
+        @Override
+        protected void forward(PoseInput input, float[] degrees) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(1)));
+            degrees[0] = input.buffer.get(0);
+            degrees[1] = input.buffer.get(input.sampleSize() - 1);
+            degrees[2] = 0;
+        }
+    }
+}
@@ -36,4 +36,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Head Pose"
 include(":app")
+include(":core")
+include(":server")
  
\ No newline at end of file
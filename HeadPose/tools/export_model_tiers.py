@@ -0,0 +1,58 @@
+#!/usr/bin/env python3
+"""从 app/src/main/assets/_epoch_80_3.pt（TorchScript, fp32）导出 ModelTier.defaultTiers() 中的其他档位。
+
+    python tools/export_model_tiers.py [--assets app/src/main/assets]
+
+- lite: optimize_for_mobile 后以 lite interpreter 格式保存（_epoch_80_3_lite.ptl），App 中输入 192x192
+- int8: 对 Linear 层做动态 int8 量化后以 lite interpreter 格式保存（_epoch_80_3_int8.ptl），输入 224x224
+
+导出后用随机输入与 fp32 模型比较输出，确认模型接受对应的输入边长。
+档位的输入边长与标准化参数改动时需要同步修改 ModelTier.java。
+"""
+import argparse
+import os
+
+import torch
+from torch.utils.mobile_optimizer import optimize_for_mobile
+
+SOURCE = "_epoch_80_3.pt"
+TIERS = [
+    # (文件名, 输入边长, 是否量化)
+    ("_epoch_80_3_lite.ptl", 192, False),
+    ("_epoch_80_3_int8.ptl", 224, True),
+]
+
+
+def export(model, path, quantize):
+    if quantize:
+        model = torch.quantization.quantize_dynamic_jit(
+            model, {"": torch.quantization.default_dynamic_qconfig})
+    optimized = optimize_for_mobile(model)
+    optimized._save_for_lite_interpreter(path)
+    return optimized
+
+
+def first_output(output):
+    return output[0] if isinstance(output, (tuple, list)) else output
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("--assets", default=os.path.join("app", "src", "main", "assets"))
+    args = parser.parse_args()
+
+    source = torch.jit.load(os.path.join(args.assets, SOURCE), map_location="cpu").eval()
+    torch.manual_seed(0)
+    for name, size, quantize in TIERS:
+        path = os.path.join(args.assets, name)
+        model = export(torch.jit.load(os.path.join(args.assets, SOURCE), map_location="cpu").eval(), path, quantize)
+        sample = torch.randn(1, 3, size, size)
+        with torch.no_grad():
+            expected = first_output(source(sample))
+            actual = first_output(model(sample))
+        error = (expected - actual).abs().max().item()
+        print(f"{name}: {os.path.getsize(path)} bytes, input {size}x{size}, max |diff| vs fp32 {error:.4f}")
+
+
+if __name__ == "__main__":
+    main()